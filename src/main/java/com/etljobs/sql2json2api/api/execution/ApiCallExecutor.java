@@ -1,13 +1,18 @@
 package com.etljobs.sql2json2api.api.execution;
 
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.HttpStatusCodeException;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.UriComponentsBuilder;
+import org.springframework.web.util.UriUtils;
 
 import com.etljobs.sql2json2api.api.request.ApiRequest;
 import com.etljobs.sql2json2api.api.response.ApiResponse;
@@ -90,11 +95,20 @@ public class ApiCallExecutor {
             HttpHeaders httpHeaders = prepareHeaders(request, token);
 
             // 4. Créer l'entité HTTP avec le payload et les en-têtes
-            HttpEntity<String> entity = new HttpEntity<>(request.getPayload(), httpHeaders);
+            PayloadBuffer body = payloadBuffer(request.getPayload(), httpHeaders);
+            HttpEntity<?> entity = new HttpEntity<>(body != null ? body : request.getPayload(), httpHeaders);
 
             // 5. Exécuter l'appel API
-            ResponseEntity<String> response = restTemplate.exchange(
-                    url, request.getMethod(), entity, String.class);
+            ResponseEntity<String> response;
+            try {
+                // URL déjà encodée (RouteTemplate, paramètres ci-dessous) : transmise comme URI,
+                // RestTemplate ne l'encode pas une seconde fois
+                response = restTemplate.exchange(URI.create(url), request.getMethod(), entity, String.class);
+            } finally {
+                if (body != null) {
+                    body.release();
+                }
+            }
 
             // 6. Calculer le temps d'exécution
             long executionTime = System.currentTimeMillis() - startTime;
@@ -156,16 +170,38 @@ public class ApiCallExecutor {
             return url;
         }
 
+        // La route est déjà encodée ; seuls les paramètres ajoutés ici doivent l'être
         UriComponentsBuilder builder = UriComponentsBuilder.fromUriString(url);
         request.getUrlParams().forEach((key, value) -> {
             if (value != null) {
-                builder.queryParam(key, value);
+                builder.queryParam(UriUtils.encodeQueryParam(key, StandardCharsets.UTF_8),
+                        UriUtils.encodeQueryParam(value.toString(), StandardCharsets.UTF_8));
             }
         });
 
         return builder.build().toUriString();
     }
 
+    /**
+     * Encode un payload JSON dans le buffer réutilisable du thread, écrit sans copie par
+     * PayloadBufferHttpMessageConverter. Un payload dont le Content-Type n'est pas du JSON
+     * en UTF-8 est envoyé comme chaîne, encodé par RestTemplate selon ce Content-Type.
+     *
+     * @param payload Le payload de la requête
+     * @param httpHeaders Les en-têtes de la requête
+     * @return Le buffer du payload, ou null s'il est envoyé comme chaîne
+     */
+    private PayloadBuffer payloadBuffer(String payload, HttpHeaders httpHeaders) {
+        MediaType contentType = httpHeaders.getContentType();
+        if (payload == null || contentType == null
+                || !(MediaType.APPLICATION_JSON.isCompatibleWith(contentType)
+                        || "json".equals(contentType.getSubtypeSuffix()))
+                || (contentType.getCharset() != null && !StandardCharsets.UTF_8.equals(contentType.getCharset()))) {
+            return null;
+        }
+        return PayloadBuffer.encode(payload);
+    }
+
     /**
      * Prépare le token d'authentification.
      *
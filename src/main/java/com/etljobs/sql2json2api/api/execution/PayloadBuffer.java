@@ -0,0 +1,109 @@
+package com.etljobs.sql2json2api.api.execution;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Corps de requête encodé en UTF-8 dans un tableau d'octets réutilisé, un par thread d'appel.
+ * <p>
+ * Le payload est encodé une seule fois avant l'envoi, sans tableau intermédiaire, puis écrit
+ * tel quel dans la requête par {@link PayloadBufferHttpMessageConverter} : la longueur du corps
+ * est connue sans réencoder le payload. Le buffer est rendu au thread par {@link #release()}
+ * une fois le corps écrit ; il ne doit donc pas sortir du thread qui l'a obtenu.
+ */
+public final class PayloadBuffer {
+
+    private static final int INITIAL_CAPACITY = 8 * 1024;
+
+    /**
+     * Au-delà, le tableau n'est pas conservé pour ne pas garder en mémoire un payload exceptionnel
+     */
+    private static final int MAX_RETAINED_CAPACITY = 256 * 1024;
+
+    private static final ThreadLocal<PayloadBuffer> BUFFERS = ThreadLocal.withInitial(PayloadBuffer::new);
+
+    private byte[] bytes = new byte[INITIAL_CAPACITY];
+    private int length;
+    private boolean inUse;
+
+    private PayloadBuffer() {
+    }
+
+    /**
+     * Encode un payload dans le buffer du thread courant.
+     *
+     * @param payload Le payload
+     * @return Le buffer du thread, ou un buffer dédié s'il est déjà utilisé
+     */
+    public static PayloadBuffer encode(String payload) {
+        PayloadBuffer buffer = BUFFERS.get();
+        if (buffer.inUse) {
+            buffer = new PayloadBuffer();
+        }
+        buffer.inUse = true;
+        buffer.write(payload);
+        return buffer;
+    }
+
+    /**
+     * @return Le nombre d'octets du corps
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * Écrit le corps dans un flux.
+     *
+     * @param out Le flux de la requête
+     * @throws IOException si l'écriture échoue
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(bytes, 0, length);
+    }
+
+    /**
+     * Rend le buffer au thread, une fois le corps écrit.
+     */
+    public void release() {
+        length = 0;
+        inUse = false;
+        if (bytes.length > MAX_RETAINED_CAPACITY) {
+            bytes = new byte[INITIAL_CAPACITY];
+        }
+    }
+
+    private void write(String payload) {
+        // 3 octets au plus par caractère UTF-16 (4 pour une paire de substitution, soit 2 caractères)
+        int maxLength = payload.length() * 3;
+        if (bytes.length < maxLength) {
+            bytes = new byte[Math.max(maxLength, bytes.length * 2)];
+        }
+        byte[] out = bytes;
+        int position = 0;
+        for (int i = 0; i < payload.length(); i++) {
+            char c = payload.charAt(i);
+            if (c < 0x80) {
+                out[position++] = (byte) c;
+            } else if (c < 0x800) {
+                out[position++] = (byte) (0xC0 | (c >> 6));
+                out[position++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < payload.length()
+                    && Character.isLowSurrogate(payload.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, payload.charAt(++i));
+                out[position++] = (byte) (0xF0 | (codePoint >> 18));
+                out[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                out[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                out[position++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                // Substitution isolée : remplacée par '?' comme String.getBytes
+                out[position++] = '?';
+            } else {
+                out[position++] = (byte) (0xE0 | (c >> 12));
+                out[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                out[position++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        length = position;
+    }
+}
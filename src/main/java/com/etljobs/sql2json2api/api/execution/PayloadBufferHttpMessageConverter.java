@@ -0,0 +1,45 @@
+package com.etljobs.sql2json2api.api.execution;
+
+import java.io.IOException;
+
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+/**
+ * Écrit un {@link PayloadBuffer} comme corps JSON, sans copie : la longueur du corps est celle
+ * du buffer et ses octets sont écrits directement dans la requête.
+ */
+public class PayloadBufferHttpMessageConverter extends AbstractHttpMessageConverter<PayloadBuffer> {
+
+    public PayloadBufferHttpMessageConverter() {
+        super(MediaType.APPLICATION_JSON, new MediaType("application", "*+json"));
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return PayloadBuffer.class == clazz;
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected PayloadBuffer readInternal(Class<? extends PayloadBuffer> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Un PayloadBuffer ne peut pas être lu", inputMessage);
+    }
+
+    @Override
+    protected Long getContentLength(PayloadBuffer buffer, MediaType contentType) {
+        return (long) buffer.length();
+    }
+
+    @Override
+    protected void writeInternal(PayloadBuffer buffer, HttpOutputMessage outputMessage) throws IOException {
+        buffer.writeTo(outputMessage.getBody());
+    }
+}
@@ -5,6 +5,8 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.client.RestTemplate;
 
+import com.etljobs.sql2json2api.api.execution.PayloadBufferHttpMessageConverter;
+
 /**
  * Application configuration.
  */
@@ -13,9 +15,15 @@ public class AppConfig {
     
     /**
      * Configure RestTemplate for API calls.
+     * String URLs, such as the token URL, keep the default encoding. ApiCallExecutor sends the
+     * already encoded API URLs (RouteTemplate routes, @api-params) as URI, which are not encoded again.
+     * JSON payloads are written from their reusable UTF-8 buffer, ahead of the default
+     * converters (Jackson would otherwise serialize the buffer object itself).
      */
     @Bean
     public RestTemplate restTemplate(RestTemplateBuilder builder) {
-        return builder.build();
+        RestTemplate restTemplate = builder.build();
+        restTemplate.getMessageConverters().add(0, new PayloadBufferHttpMessageConverter());
+        return restTemplate;
     }
 }
\ No newline at end of file
@@ -1,5 +1,8 @@
 package com.etljobs.sql2json2api.config;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 import javax.sql.DataSource;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
@@ -7,15 +10,21 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import com.etljobs.sql2json2api.service.sql.ConnectionPoolMetrics;
+import com.etljobs.sql2json2api.service.sql.DataSourceRouter;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
 
 import lombok.Getter;
 import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
 
 @Configuration
 @ConfigurationProperties(prefix = "spring.datasource")
 @Getter
 @Setter
+@Slf4j
 public class DatabaseConfig {
     
     private String url;
@@ -24,16 +33,90 @@ public class DatabaseConfig {
     private String driverClassName;
     
     /**
-     * Configure the main data source
+     * Connection pool settings (spring.datasource.pool.*)
      */
-    @Bean
+    private Pool pool = new Pool();
+    
+    /**
+     * Additional named datasources (spring.datasource.sources.<name>.*), each with its own
+     * pool, selected per SQL file by @sql-datasource or app.sql.datasource-routing
+     */
+    private Map<String, Source> sources = new LinkedHashMap<>();
+    
+    /**
+     * Configure the main data source as a connection pool sized from the threading configuration.
+     * When named sources are configured, the main data source routes each connection request
+     * to the pool selected for the SQL file being read, the primary pool by default.
+     */
+    @Bean(destroyMethod = "close")
     @Primary
-    public DataSource dataSource() {
-        DriverManagerDataSource dataSource = new DriverManagerDataSource();
-        dataSource.setUrl(url);
-        dataSource.setUsername(username);
-        dataSource.setPassword(password);
-        dataSource.setDriverClassName(driverClassName);
+    public DataSource dataSource(ThreadingConfig threadingConfig, ConnectionPoolMetrics poolMetrics) {
+        HikariDataSource primary = createPool(DataSourceRouter.PRIMARY, url, username, password, driverClassName,
+                pool, threadingConfig, poolMetrics);
+        if (sources.isEmpty()) {
+            return primary;
+        }
+        
+        Map<String, DataSource> pools = new LinkedHashMap<>();
+        pools.put(DataSourceRouter.PRIMARY, primary);
+        sources.forEach((name, source) -> {
+            if (name.equals(DataSourceRouter.PRIMARY)) {
+                throw new IllegalStateException("spring.datasource.sources." + name + " is reserved for the main datasource");
+            }
+            Pool sourcePool = source.getPool();
+            if (sourcePool.getName().equals(Pool.DEFAULT_NAME)) {
+                sourcePool.setName("sql2json2api-" + name + "-pool");
+            }
+            pools.put(name, createPool(name, source.getUrl(), source.getUsername(), source.getPassword(),
+                    source.getDriverClassName(), sourcePool, threadingConfig, poolMetrics));
+        });
+        return new RoutingDataSource(primary, pools);
+    }
+    
+    /**
+     * Creates the connection pool of a datasource, reporting its metrics under its pool name.
+     * The pool is started lazily on the first getConnection() call.
+     */
+    private HikariDataSource createPool(String name, String jdbcUrl, String user, String secret, String driver,
+            Pool pool, ThreadingConfig threadingConfig, ConnectionPoolMetrics poolMetrics) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName(pool.getName());
+        dataSource.setJdbcUrl(jdbcUrl);
+        dataSource.setUsername(user);
+        dataSource.setPassword(secret);
+        if (driver != null && !driver.isBlank()) {
+            dataSource.setDriverClassName(driver);
+        }
+        
+        int maximumPoolSize = resolveMaximumPoolSize(pool, threadingConfig);
+        dataSource.setMaximumPoolSize(maximumPoolSize);
+        dataSource.setMinimumIdle(pool.getMinimumIdle() >= 0
+                ? Math.min(pool.getMinimumIdle(), maximumPoolSize) : maximumPoolSize);
+        dataSource.setConnectionTimeout(pool.getConnectionTimeoutMs());
+        dataSource.setIdleTimeout(pool.getIdleTimeoutMs());
+        dataSource.setMaxLifetime(pool.getMaxLifetimeMs());
+        
+        // Validation: JDBC4 isValid() unless an explicit test query is configured
+        dataSource.setValidationTimeout(pool.getValidationTimeoutMs());
+        if (pool.getConnectionTestQuery() != null && !pool.getConnectionTestQuery().isBlank()) {
+            dataSource.setConnectionTestQuery(pool.getConnectionTestQuery());
+        }
+        
+        dataSource.setLeakDetectionThreshold(pool.getLeakDetectionThresholdMs());
+        
+        if (pool.getStatementCache().isEnabled()) {
+            applyStatementCache(dataSource, pool.getStatementCache(), driver, jdbcUrl);
+        }
+        pool.getDataSourceProperties().forEach(dataSource::addDataSourceProperty);
+        
+        dataSource.setRegisterMbeans(pool.isRegisterMbeans());
+        dataSource.setMetricsTrackerFactory(poolMetrics);
+        
+        log.info("Connection pool '{}' of datasource {} configured: max {} connections (threading pool size {}), "
+                + "min idle {}, leak detection {} ms, statement cache {}",
+                dataSource.getPoolName(), name, maximumPoolSize, threadingConfig.getPoolSize(), dataSource.getMinimumIdle(),
+                dataSource.getLeakDetectionThreshold(), pool.getStatementCache().isEnabled() ? "on" : "off");
+        
         return dataSource;
     }
     
@@ -44,4 +127,152 @@ public class DatabaseConfig {
     public JdbcTemplate jdbcTemplate(DataSource dataSource) {
         return new JdbcTemplate(dataSource);
     }
+    
+    /**
+     * Uses the explicit maximum pool size when set, otherwise one connection per worker
+     * thread plus headroom for the main thread (SQL streaming) and background work.
+     */
+    static int resolveMaximumPoolSize(Pool pool, ThreadingConfig threadingConfig) {
+        if (pool.getMaximumPoolSize() > 0) {
+            return pool.getMaximumPoolSize();
+        }
+        int workers = threadingConfig.isEnabled() ? threadingConfig.getPoolSize() : 0;
+        return Math.max(1, workers + pool.getExtraConnections());
+    }
+    
+    /**
+     * Enables the driver-side prepared statement cache using the property names of the configured driver
+     */
+    private static void applyStatementCache(HikariConfig config, StatementCache cache, String driver, String jdbcUrl) {
+        String target = (driver != null ? driver : "") + " " + (jdbcUrl != null ? jdbcUrl : "");
+        
+        if (target.contains("mysql") || target.contains("mariadb")) {
+            config.addDataSourceProperty("cachePrepStmts", "true");
+            config.addDataSourceProperty("prepStmtCacheSize", String.valueOf(cache.getSize()));
+            config.addDataSourceProperty("prepStmtCacheSqlLimit", String.valueOf(cache.getSqlLimit()));
+            config.addDataSourceProperty("useServerPrepStmts", "true");
+        } else if (target.contains("postgresql")) {
+            config.addDataSourceProperty("preparedStatementCacheQueries", String.valueOf(cache.getSize()));
+            config.addDataSourceProperty("prepareThreshold", "1");
+        } else if (target.contains("oracle")) {
+            config.addDataSourceProperty("oracle.jdbc.implicitStatementCacheSize", String.valueOf(cache.getSize()));
+        } else {
+            log.debug("No statement cache properties known for driver {}", driver);
+        }
+    }
+    
+    /**
+     * Connection pool settings
+     */
+    @Getter
+    @Setter
+    public static class Pool {
+        
+        static final String DEFAULT_NAME = "sql2json2api-pool";
+        
+        /**
+         * Pool name, used in logs and JMX. Defaults to sql2json2api-<name>-pool for a named source
+         */
+        private String name = DEFAULT_NAME;
+        
+        /**
+         * Maximum number of connections. 0 = derived from app.threading.pool-size + extra-connections
+         */
+        private int maximumPoolSize = 0;
+        
+        /**
+         * Connections added on top of the threading pool size when the maximum is derived
+         */
+        private int extraConnections = 2;
+        
+        /**
+         * Minimum number of idle connections. -1 = same as the maximum pool size
+         */
+        private int minimumIdle = -1;
+        
+        /**
+         * Maximum time to wait for a connection from the pool
+         */
+        private long connectionTimeoutMs = 30000;
+        
+        /**
+         * Maximum time a connection may sit idle in the pool
+         */
+        private long idleTimeoutMs = 600000;
+        
+        /**
+         * Maximum lifetime of a connection in the pool
+         */
+        private long maxLifetimeMs = 1800000;
+        
+        /**
+         * Maximum time to wait for a connection to be validated
+         */
+        private long validationTimeoutMs = 5000;
+        
+        /**
+         * Validation query for legacy drivers without JDBC4 isValid() support (empty = isValid())
+         */
+        private String connectionTestQuery;
+        
+        /**
+         * Time a connection can be out of the pool before a leak is logged. 0 = disabled
+         */
+        private long leakDetectionThresholdMs = 0;
+        
+        /**
+         * Registers the pool MBeans so the pool can be monitored over JMX
+         */
+        private boolean registerMbeans = false;
+        
+        /**
+         * Driver-side prepared statement cache
+         */
+        private StatementCache statementCache = new StatementCache();
+        
+        /**
+         * Additional properties passed as-is to the JDBC driver
+         */
+        private Map<String, String> dataSourceProperties = new LinkedHashMap<>();
+    }
+    
+    /**
+     * Named datasource (spring.datasource.sources.<name>.*), for instance a read replica
+     */
+    @Getter
+    @Setter
+    public static class Source {
+        
+        private String url;
+        private String username;
+        private String password;
+        private String driverClassName;
+        
+        /**
+         * Connection pool settings of this datasource, independent from spring.datasource.pool
+         */
+        private Pool pool = new Pool();
+    }
+    
+    /**
+     * Prepared statement cache settings
+     */
+    @Getter
+    @Setter
+    public static class StatementCache {
+        
+        private boolean enabled = true;
+        
+        /**
+         * Number of prepared statements cached per connection
+         */
+        private int size = 250;
+        
+        /**
+         * Maximum length of a SQL statement kept in the cache (MySQL only). SQL files are
+         * wrapped in a derived table by the paging, partitioning and incremental modes,
+         * so the executed statements are often longer than the files themselves.
+         */
+        private int sqlLimit = 8192;
+    }
 }
\ No newline at end of file
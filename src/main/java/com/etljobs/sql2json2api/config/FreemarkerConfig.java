@@ -2,13 +2,18 @@ package com.etljobs.sql2json2api.config;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.List;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import com.etljobs.sql2json2api.service.template.JsonEscapingOutputFormat;
 import com.etljobs.sql2json2api.util.FileUtils;
 
+import freemarker.cache.ConditionalTemplateConfigurationFactory;
+import freemarker.cache.FileExtensionMatcher;
+import freemarker.core.TemplateConfiguration;
 import freemarker.template.TemplateExceptionHandler;
 import lombok.extern.slf4j.Slf4j;
 
@@ -56,6 +61,13 @@ public class FreemarkerConfig {
         configuration.setTemplateExceptionHandler(TemplateExceptionHandler.RETHROW_HANDLER);
         configuration.setLogTemplateExceptions(false);
         configuration.setWrapUncheckedExceptions(true);
+
+        // .ftlj templates escape interpolated values for JSON strings instead of HTML (.ftlh)
+        configuration.setRegisteredCustomOutputFormats(List.of(JsonEscapingOutputFormat.INSTANCE));
+        TemplateConfiguration jsonTemplateConfiguration = new TemplateConfiguration();
+        jsonTemplateConfiguration.setOutputFormat(JsonEscapingOutputFormat.INSTANCE);
+        configuration.setTemplateConfigurations(new ConditionalTemplateConfigurationFactory(
+                new FileExtensionMatcher(JsonEscapingOutputFormat.TEMPLATE_EXTENSION), jsonTemplateConfiguration));
         
         return configuration;
     }
@@ -0,0 +1,53 @@
+package com.etljobs.sql2json2api.config;
+
+import java.io.Closeable;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import com.etljobs.sql2json2api.service.sql.DataSourceRouter;
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Datasource delegating each connection request to the pool selected for the current thread
+ * by {@link DataSourceRouter}, the primary pool when none is selected.
+ */
+public class RoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+
+    private final Map<String, DataSource> pools;
+
+    RoutingDataSource(DataSource primary, Map<String, DataSource> pools) {
+        this.pools = pools;
+        setTargetDataSources(Map.copyOf(pools));
+        setDefaultTargetDataSource(primary);
+        // An unknown name must fail instead of silently using the primary pool
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return DataSourceRouter.currentName();
+    }
+
+    /**
+     * @return The pool selected for the current thread
+     */
+    public DataSource currentPool() {
+        return determineTargetDataSource();
+    }
+
+    /**
+     * Closes every pool, the primary one included.
+     */
+    @Override
+    public void close() {
+        pools.values().forEach(pool -> {
+            if (pool instanceof HikariDataSource hikari) {
+                hikari.close();
+            }
+        });
+    }
+}
@@ -1,7 +1,9 @@
 package com.etljobs.sql2json2api.config;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
@@ -25,4 +27,16 @@ public class SqlConfig {
      * Si la liste est vide, tous les fichiers sont exécutés.
      */
     private List<String> executionOrder = new ArrayList<>();
+    
+    /**
+     * Datasource de chaque fichier SQL sans directive @sql-datasource, par nom de fichier
+     * ("primary" ou un nom de spring.datasource.sources).
+     */
+    private Map<String, String> datasourceRouting = new LinkedHashMap<>();
+    
+    /**
+     * Datasource des fichiers SQL absents de datasource-routing et sans directive @sql-datasource.
+     * Vide = la datasource principale.
+     */
+    private String defaultDatasource;
 }
\ No newline at end of file
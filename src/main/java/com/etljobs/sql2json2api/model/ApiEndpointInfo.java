@@ -40,4 +40,10 @@ public class ApiEndpointInfo {
      */
     @Builder.Default
     private Map<String, Object> urlParams = new HashMap<>();
+    
+    /**
+     * SQL statement executed with values of the API response after a successful call
+     * (e.g., "UPDATE product_groups SET uuid = :$.uuid WHERE id = :result.id"), null if none
+     */
+    private String writeback;
 }
\ No newline at end of file
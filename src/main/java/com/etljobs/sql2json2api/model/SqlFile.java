@@ -1,5 +1,10 @@
 package com.etljobs.sql2json2api.model;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -39,4 +44,27 @@ public class SqlFile {
      * The associated template name (e.g., "GET_users.ftlh")
      */
     private String templateName;
+    
+    /**
+     * Directives declared in the SQL file comments, keyed by name
+     * (e.g., "page-key" for "-- @sql-page-key: id")
+     */
+    @Builder.Default
+    private Map<String, String> directives = new HashMap<>();
+    
+    /**
+     * Named parameters used in the SQL query (e.g., "since" for ":since"), in order of appearance
+     */
+    @Builder.Default
+    private List<String> parameterNames = new ArrayList<>();
+    
+    /**
+     * Returns the value of a directive declared in the SQL file.
+     * 
+     * @param name The directive name without the "@sql-" prefix
+     * @return The directive value, or null if not declared
+     */
+    public String getDirective(String name) {
+        return directives != null ? directives.get(name) : null;
+    }
 }
\ No newline at end of file
@@ -3,6 +3,7 @@ package com.etljobs.sql2json2api.runner;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
@@ -19,6 +20,7 @@ import com.etljobs.sql2json2api.service.http.TokenService;
 import com.etljobs.sql2json2api.service.sql.SqlExecutionService;
 import com.etljobs.sql2json2api.service.sql.SqlFileService;
 import com.etljobs.sql2json2api.service.template.TemplateProcessingService;
+import com.etljobs.sql2json2api.service.threading.ApiCallResults;
 import com.etljobs.sql2json2api.service.threading.SqlFileSequentialCoordinator;
 import com.etljobs.sql2json2api.service.threading.ThreadPoolManager;
 import com.etljobs.sql2json2api.util.correlation.CorrelationContext;
@@ -124,29 +126,21 @@ public class ApiCallRunner implements CommandLineRunner, ExitCodeGenerator {
 
         try {
             // Utiliser le coordinateur pour traiter tous les fichiers SQL séquentiellement
-            Map<String, List<ApiResponse>> resultsByFile = coordinator.processAllSqlFiles();
+            Map<String, ApiCallResults> resultsByFile = coordinator.processAllSqlFiles();
 
-            // Afficher le résumé des résultats
+            // Afficher le résumé des résultats (les réponses sont journalisées à leur réception)
             if (resultsByFile.isEmpty()) {
                 log.warn("Aucun résultat obtenu, vérifiez la configuration des fichiers SQL");
             } else {
                 log.info("\n=== Résumé des traitements ===");
 
-                for (Map.Entry<String, List<ApiResponse>> entry : resultsByFile.entrySet()) {
-                    String fileName = entry.getKey();
-                    List<ApiResponse> responses = entry.getValue();
-
-                    long successCount = responses.stream().filter(ApiResponse::isSuccess).count();
-
+                for (Map.Entry<String, ApiCallResults> entry : resultsByFile.entrySet()) {
+                    ApiCallResults results = entry.getValue();
                     log.info("{}: {} appels API - {} succès, {} échecs",
-                            fileName, responses.size(), successCount, responses.size() - successCount);
-
-                    // Afficher le contenu des réponses
-                    for (int i = 0; i < responses.size(); i++) {
-                        ApiResponse response = responses.get(i);
-                        log.info("  Réponse {}/{} - Statut: {}, Corps: {}",
-                                i + 1, responses.size(), response.getStatusCode(),
-                                truncateIfNeeded(response.getBody(), 500));
+                            entry.getKey(), results.getResponseCount(), results.getSuccessCount(),
+                            results.getTotalErrorCount());
+                    if (results.getFailure() != null) {
+                        log.info("  Traitement interrompu: {}", results.getFailure().getMessage());
                     }
                 }
             }
@@ -190,14 +184,15 @@ public class ApiCallRunner implements CommandLineRunner, ExitCodeGenerator {
             // Process results and make API calls
             List<ApiResponse> responses = new ArrayList<>();
 
+            Function<Map<String, Object>, ApiTemplateResult> templateProcessor =
+                    templateProcessingService.processorFor(sqlFile);
             int rowsToProcess = results.size();
             for (int i = 0; i < rowsToProcess; i++) {
                 Map<String, Object> row = results.get(i);
                 log.info("\nProcessing row {}: {}", i + 1, row);
 
                 // Transform the row data using the template
-                ApiTemplateResult templateResult = templateProcessingService.processTemplate(
-                        sqlFile.getTemplateName(), row);
+                ApiTemplateResult templateResult = templateProcessor.apply(row);
 
                 log.info("Generated JSON payload: {}", templateResult.getJsonPayload());
                 log.info("API endpoint info: {} {}",
@@ -2,6 +2,7 @@ package com.etljobs.sql2json2api.runner;
 
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
@@ -67,16 +68,18 @@ public class TemplateProcessingRunner implements CommandLineRunner, ExitCodeGene
                     continue;
                 }
                 
-                // Process first 2 rows with templates
+                // Process first 2 rows with templates (or the JSON body built by the database)
                 int rowsToProcess = Math.min(2, results.size());
                 log.info("Processing first {} rows:", rowsToProcess);
+                Function<Map<String, Object>, ApiTemplateResult> templateProcessor =
+                        templateProcessingService.processorFor(sqlFile);
                 
                 for (int i = 0; i < rowsToProcess; i++) {
                     Map<String, Object> rowData = results.get(i);
                     log.info("Row {}: {}", i + 1, rowData);
                     
                     // Process template for this row
-                    ApiTemplateResult templateResult = templateProcessingService.processTemplate(templateName, rowData);
+                    ApiTemplateResult templateResult = templateProcessor.apply(rowData);
                     
                     // Log the results
                     log.info("Generated JSON for row {}:", i + 1);
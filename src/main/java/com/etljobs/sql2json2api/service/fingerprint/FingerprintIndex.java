@@ -0,0 +1,259 @@
+package com.etljobs.sql2json2api.service.fingerprint;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * On-disk hash index mapping 64-bit keys to 64-bit values.
+ * Open addressing with linear probing: each slot holds a key and its value, a zero key marks
+ * an empty slot. Slots are read and written with positional reads and writes on the file
+ * channel, so only the pages actually touched are cached by the OS and millions of keys
+ * can be looked up without holding the index in the heap.
+ * <p>
+ * The table doubles in a new file, atomically moved over the old one, when it is 70% full.
+ * Keys are never removed. Thread-safe.
+ */
+@Slf4j
+class FingerprintIndex implements Closeable {
+
+    private static final int MAGIC = 0x534A4649; // "SJFI"
+    private static final int HEADER_SIZE = 16;
+    private static final int SLOT_SIZE = 16;
+    private static final int MAX_CAPACITY = 1 << 26;
+    private static final double MAX_LOAD_FACTOR = 0.7;
+
+    /**
+     * Number of slots read at once when the table is copied into a larger one
+     */
+    private static final int COPY_BATCH_SLOTS = 4096;
+
+    private final Path path;
+    private final ByteBuffer slotBuffer = ByteBuffer.allocate(SLOT_SIZE);
+    private FileChannel channel;
+    private int capacity;
+    private int size;
+
+    /**
+     * Opens the index, creating it if the file does not exist.
+     *
+     * @param path The index file
+     * @param initialCapacity The number of slots of a new index (rounded up to a power of two)
+     * @throws IOException if the file cannot be created or is not a valid index
+     */
+    FingerprintIndex(Path path, int initialCapacity) throws IOException {
+        this.path = path;
+        if (Files.exists(path) && Files.size(path) > 0) {
+            channel = open(path);
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            try {
+                readFully(channel, header, 0);
+            } catch (EOFException e) {
+                channel.close();
+                throw new IOException("Not a fingerprint index: " + path, e);
+            }
+            if (header.getInt(0) != MAGIC) {
+                channel.close();
+                throw new IOException("Not a fingerprint index: " + path);
+            }
+            capacity = header.getInt(4);
+            size = header.getInt(8);
+            log.info("Fingerprint index loaded from {}: {} keys, {} slots", path, size, capacity);
+        } else {
+            Path parent = path.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            capacity = tableSizeFor(initialCapacity);
+            channel = create(path, capacity);
+        }
+    }
+
+    /**
+     * @param key The key (0 is reserved and remapped)
+     * @return The value stored for the key, or 0 if the key is absent
+     * @throws IOException if the index cannot be read
+     */
+    synchronized long get(long key) throws IOException {
+        key = normalize(key);
+        int mask = capacity - 1;
+        for (int slot = mix(key) & mask; ; slot = (slot + 1) & mask) {
+            readSlot(channel, slot, slotBuffer);
+            long storedKey = slotBuffer.getLong(0);
+            if (storedKey == key) {
+                return slotBuffer.getLong(8);
+            }
+            if (storedKey == 0) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Stores or replaces the value of a key.
+     *
+     * @param key The key (0 is reserved and remapped)
+     * @param value The value, must not be 0
+     * @throws IOException if the index cannot be written or has to grow and the new file cannot be created
+     */
+    synchronized void put(long key, long value) throws IOException {
+        key = normalize(key);
+        if (size + 1 > capacity * MAX_LOAD_FACTOR) {
+            grow();
+        }
+        if (insert(channel, capacity, key, value, slotBuffer)) {
+            size++;
+            writeSize(channel, size);
+        }
+    }
+
+    /**
+     * @return The number of keys in the index
+     */
+    synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Writes the modified pages to the storage device.
+     *
+     * @throws IOException if the index cannot be written
+     */
+    synchronized void force() throws IOException {
+        if (channel != null) {
+            channel.force(false);
+        }
+    }
+
+    /**
+     * Writes the modified pages and closes the file. The index cannot be used afterwards.
+     *
+     * @throws IOException if the index cannot be written
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            try {
+                force();
+            } finally {
+                channel.close();
+                channel = null;
+            }
+        }
+    }
+
+    private void grow() throws IOException {
+        if (capacity >= MAX_CAPACITY) {
+            throw new IOException("Fingerprint index is full (" + size + " keys): " + path);
+        }
+        int newCapacity = capacity * 2;
+        Path growPath = path.resolveSibling(path.getFileName() + ".grow");
+        try (FileChannel grown = create(growPath, newCapacity)) {
+            ByteBuffer batch = ByteBuffer.allocate(COPY_BATCH_SLOTS * SLOT_SIZE);
+            ByteBuffer grownSlot = ByteBuffer.allocate(SLOT_SIZE);
+            for (int first = 0; first < capacity; first += COPY_BATCH_SLOTS) {
+                int slots = Math.min(COPY_BATCH_SLOTS, capacity - first);
+                batch.clear().limit(slots * SLOT_SIZE);
+                readFully(channel, batch, offset(first));
+                for (int index = 0; index < slots; index++) {
+                    long key = batch.getLong(index * SLOT_SIZE);
+                    if (key != 0) {
+                        insert(grown, newCapacity, key, batch.getLong(index * SLOT_SIZE + 8), grownSlot);
+                    }
+                }
+            }
+            writeSize(grown, size);
+            grown.force(false);
+        }
+
+        channel.close();
+        Files.move(growPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel = open(path);
+        capacity = newCapacity;
+        log.debug("Fingerprint index {} grown to {} slots", path, capacity);
+    }
+
+    /**
+     * @return true if the key was added, false if its value was replaced
+     */
+    private static boolean insert(FileChannel table, int tableCapacity, long key, long value, ByteBuffer slotBuffer)
+            throws IOException {
+        int mask = tableCapacity - 1;
+        for (int slot = mix(key) & mask; ; slot = (slot + 1) & mask) {
+            readSlot(table, slot, slotBuffer);
+            long storedKey = slotBuffer.getLong(0);
+            if (storedKey == key || storedKey == 0) {
+                slotBuffer.clear();
+                slotBuffer.putLong(key).putLong(value).flip();
+                writeFully(table, slotBuffer, offset(slot));
+                return storedKey == 0;
+            }
+        }
+    }
+
+    private static FileChannel create(Path file, int slots) throws IOException {
+        FileChannel table = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putInt(slots).putInt(0).putInt(0).flip();
+        writeFully(table, header, 0);
+        // Extends the file to its full size without writing the empty slots
+        writeFully(table, ByteBuffer.allocate(1), offset(slots) - 1L);
+        return table;
+    }
+
+    private static FileChannel open(Path file) throws IOException {
+        return FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    private static void readSlot(FileChannel table, int slot, ByteBuffer slotBuffer) throws IOException {
+        slotBuffer.clear();
+        readFully(table, slotBuffer, offset(slot));
+    }
+
+    private static void writeSize(FileChannel table, int keys) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES);
+        buffer.putInt(keys).flip();
+        writeFully(table, buffer, 8);
+    }
+
+    private static void readFully(FileChannel table, ByteBuffer buffer, long position) throws IOException {
+        int start = buffer.position();
+        while (buffer.hasRemaining()) {
+            if (table.read(buffer, position + buffer.position() - start) < 0) {
+                throw new EOFException("Truncated fingerprint index at position " + position);
+            }
+        }
+    }
+
+    private static void writeFully(FileChannel table, ByteBuffer buffer, long position) throws IOException {
+        int start = buffer.position();
+        while (buffer.hasRemaining()) {
+            table.write(buffer, position + buffer.position() - start);
+        }
+    }
+
+    private static long offset(int slot) {
+        return HEADER_SIZE + (long) slot * SLOT_SIZE;
+    }
+
+    private static long normalize(long key) {
+        return key == 0 ? 1 : key;
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private static int tableSizeFor(int requested) {
+        int size = Integer.highestOneBit(Math.max(16, Math.min(requested, MAX_CAPACITY)) - 1) << 1;
+        return Math.min(size, MAX_CAPACITY);
+    }
+}
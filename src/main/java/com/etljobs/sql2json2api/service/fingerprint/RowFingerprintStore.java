@@ -0,0 +1,179 @@
+package com.etljobs.sql2json2api.service.fingerprint;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.etljobs.sql2json2api.exception.ProcessingException;
+import com.etljobs.sql2json2api.model.SqlFile;
+import com.etljobs.sql2json2api.service.orchestration.RowOutcome;
+import com.etljobs.sql2json2api.service.orchestration.RowOutcomeListener;
+import com.etljobs.sql2json2api.service.sql.RowKeys;
+import com.etljobs.sql2json2api.service.sql.SqlFileDirectives;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Mémorise l'empreinte du dernier payload envoyé avec succès pour chaque ligne, afin de ne
+ * pas renvoyer une ligne inchangée. Activé par fichier SQL avec la directive
+ * {@code @sql-skip-unchanged: true}, pour les tables sans colonne de modification fiable.
+ * <p>
+ * La clé est un hash du nom du fichier SQL et de la clé stable de la ligne ({@code @sql-row-key},
+ * sinon colonne {@code id}, {@code uuid} ou {@code key}), la valeur un hash du payload JSON
+ * généré. Une ligne sans clé stable est toujours envoyée. Les deux sont conservés dans un index sur disque
+ * ({@code app.sql.fingerprint.file}). L'empreinte n'est enregistrée qu'après un appel API réussi.
+ * Supprimer le fichier force le renvoi de toutes les lignes.
+ */
+@Service
+@Slf4j
+public class RowFingerprintStore implements RowOutcomeListener, DisposableBean {
+
+    @Value("${app.sql.fingerprint.file:./state/fingerprints.idx}")
+    private String indexFile;
+
+    @Value("${app.sql.fingerprint.initial-capacity:65536}")
+    private int initialCapacity;
+
+    private FingerprintIndex index;
+
+    /**
+     * Empreintes calculées et en attente du résultat de l'appel API, par fichier puis par index de ligne
+     */
+    private final Map<String, Map<Integer, long[]>> pendingByFile = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> skippedByFile = new ConcurrentHashMap<>();
+    private final Set<String> filesWithoutKey = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @param sqlFile Le fichier SQL
+     * @return true si le fichier SQL demande d'ignorer les lignes inchangées
+     */
+    public boolean isEnabled(SqlFile sqlFile) {
+        return Boolean.parseBoolean(sqlFile.getDirective(SqlFileDirectives.SKIP_UNCHANGED));
+    }
+
+    /**
+     * Indique si le payload d'une ligne est identique au dernier envoi réussi. Sinon, son
+     * empreinte est retenue pour être enregistrée si l'appel API réussit.
+     *
+     * @param sqlFile Le fichier SQL traité
+     * @param row La ligne
+     * @param rowIndex L'index de la ligne
+     * @param payload Le payload JSON généré pour la ligne
+     * @return true si la ligne peut être ignorée
+     */
+    public boolean isUnchanged(SqlFile sqlFile, Map<String, Object> row, int rowIndex, String payload) {
+        if (!isEnabled(sqlFile)) {
+            return false;
+        }
+        String rowKey = RowKeys.stableKey(sqlFile, row);
+        if (rowKey == null) {
+            // Une clé instable (première colonne, position) associerait l'empreinte à une autre ligne
+            if (filesWithoutKey.add(sqlFile.getFileName())) {
+                log.warn("Lignes sans identifiant stable dans {} (@sql-row-key, id, uuid, key): "
+                        + "elles sont toujours envoyées", sqlFile.getFileName());
+            }
+            return false;
+        }
+        long key = hash(sqlFile.getFileName() + '\u0000' + rowKey);
+        long fingerprint = hash(payload != null ? payload : "");
+        if (fingerprint == 0) {
+            fingerprint = 1;
+        }
+
+        long storedFingerprint;
+        try {
+            storedFingerprint = index().get(key);
+        } catch (IOException e) {
+            throw new ProcessingException("Impossible de lire l'index des empreintes " + indexFile, e);
+        }
+        if (storedFingerprint == fingerprint) {
+            skippedByFile.computeIfAbsent(sqlFile.getFileName(), name -> new AtomicInteger()).incrementAndGet();
+            log.debug("Ligne {} inchangée depuis le dernier envoi, appel API ignoré", rowKey);
+            return true;
+        }
+        pendingByFile.computeIfAbsent(sqlFile.getFileName(), name -> new ConcurrentHashMap<>())
+                .put(rowIndex, new long[] {key, fingerprint});
+        return false;
+    }
+
+    @Override
+    public void rowCompleted(RowOutcome outcome) {
+        Map<Integer, long[]> pending = pendingByFile.get(outcome.getSqlFile().getFileName());
+        if (pending == null) {
+            return;
+        }
+        long[] entry = pending.remove(outcome.getRowIndex());
+        if (entry != null && outcome.isSuccess()) {
+            try {
+                index().put(entry[0], entry[1]);
+            } catch (IOException e) {
+                throw new ProcessingException("Impossible d'enregistrer l'empreinte dans " + indexFile, e);
+            }
+        }
+    }
+
+    @Override
+    public void fileCompleted(SqlFile sqlFile, int rowCount, boolean aborted) {
+        pendingByFile.remove(sqlFile.getFileName());
+        filesWithoutKey.remove(sqlFile.getFileName());
+        AtomicInteger skipped = skippedByFile.remove(sqlFile.getFileName());
+        if (skipped != null) {
+            log.info("{} lignes inchangées ignorées pour {} sur {} lues",
+                    skipped.get(), sqlFile.getFileName(), rowCount);
+        }
+        synchronized (this) {
+            if (index != null) {
+                try {
+                    index.force();
+                } catch (IOException e) {
+                    throw new ProcessingException("Impossible d'enregistrer l'index des empreintes " + indexFile, e);
+                }
+            }
+        }
+    }
+
+    @Override
+    public synchronized void destroy() throws IOException {
+        if (index != null) {
+            try {
+                index.close();
+            } finally {
+                index = null;
+            }
+        }
+    }
+
+    private synchronized FingerprintIndex index() {
+        if (index == null) {
+            try {
+                index = new FingerprintIndex(Paths.get(indexFile), initialCapacity);
+            } catch (IOException e) {
+                throw new ProcessingException("Impossible d'ouvrir l'index des empreintes " + indexFile, e);
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Hash 64 bits: les 8 premiers octets du SHA-256 du texte.
+     */
+    static long hash(String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return ByteBuffer.wrap(digest.digest(text.getBytes(StandardCharsets.UTF_8))).getLong();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 non disponible", e);
+        }
+    }
+}
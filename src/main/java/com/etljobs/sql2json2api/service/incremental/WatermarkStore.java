@@ -0,0 +1,160 @@
+package com.etljobs.sql2json2api.service.incremental;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Properties;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.etljobs.sql2json2api.exception.ProcessingException;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Stockage local des watermarks des fichiers SQL en mode incrémental.
+ * Les valeurs sont conservées avec leur type dans un fichier properties,
+ * réécrit de manière atomique à chaque mise à jour.
+ */
+@Service
+@Slf4j
+public class WatermarkStore {
+
+    @Value("${app.sql.incremental.state-file:./state/watermarks.properties}")
+    private String stateFile;
+
+    /**
+     * Ignore les watermarks enregistrés pour relancer une extraction complète
+     * (en ligne de commande: --app.sql.incremental.reset=true).
+     */
+    @Value("${app.sql.incremental.reset:false}")
+    private boolean reset;
+
+    private Properties watermarks;
+
+    /**
+     * Retourne le dernier watermark traité avec succès pour un fichier SQL.
+     *
+     * @param sqlFileName Le nom du fichier SQL
+     * @return Le watermark, ou null pour une extraction complète
+     */
+    public synchronized Object getWatermark(String sqlFileName) {
+        if (reset) {
+            return null;
+        }
+        String encoded = load().getProperty(sqlFileName);
+        return encoded != null ? decode(encoded) : null;
+    }
+
+    /**
+     * Enregistre le watermark d'un fichier SQL et persiste l'état.
+     *
+     * @param sqlFileName Le nom du fichier SQL
+     * @param watermark La valeur du watermark
+     */
+    public synchronized void saveWatermark(String sqlFileName, Object watermark) {
+        Properties properties = load();
+        properties.setProperty(sqlFileName, encode(watermark));
+
+        Path path = Paths.get(stateFile);
+        try {
+            Path parent = path.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            Path tempFile = Files.createTempFile(parent, path.getFileName().toString(), ".tmp");
+            try (Writer writer = Files.newBufferedWriter(tempFile, StandardCharsets.UTF_8)) {
+                properties.store(writer, "Watermarks sql2json2api - ne pas modifier pendant une exécution");
+            }
+            Files.move(tempFile, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.debug("Watermark de {} enregistré: {}", sqlFileName, watermark);
+        } catch (IOException e) {
+            throw new ProcessingException("Impossible d'enregistrer le watermark dans " + stateFile, e);
+        }
+    }
+
+    private Properties load() {
+        if (watermarks == null) {
+            watermarks = new Properties();
+            Path path = Paths.get(stateFile);
+            if (Files.exists(path)) {
+                try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+                    watermarks.load(reader);
+                    log.info("{} watermarks chargés depuis {}", watermarks.size(), stateFile);
+                } catch (IOException e) {
+                    throw new ProcessingException("Impossible de lire les watermarks depuis " + stateFile, e);
+                }
+            }
+        }
+        return watermarks;
+    }
+
+    /**
+     * Encode une valeur avec son type, pour la relire à l'identique. Un Timestamp est
+     * enregistré en UTC, pour ne pas dépendre du fuseau horaire de la JVM.
+     */
+    static String encode(Object value) {
+        if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return "int:" + value;
+        } else if (value instanceof Long) {
+            return "long:" + value;
+        } else if (value instanceof BigInteger) {
+            return "bigint:" + value;
+        } else if (value instanceof BigDecimal decimal) {
+            return "decimal:" + decimal.toPlainString();
+        } else if (value instanceof Timestamp timestamp) {
+            return "timestamp:" + timestamp.toInstant();
+        } else if (value instanceof LocalDateTime dateTime) {
+            return "datetime:" + dateTime;
+        } else if (value instanceof java.sql.Date date) {
+            return "date:" + date.toLocalDate();
+        } else if (value instanceof LocalDate date) {
+            return "date:" + date;
+        }
+        return "string:" + value;
+    }
+
+    /**
+     * Relit une valeur encodée par {@link #encode(Object)}. Une valeur sans préfixe de type
+     * connu (int, long, bigint, decimal, timestamp, datetime, date, string) est retournée telle quelle.
+     *
+     * @param encoded La valeur encodée, par exemple "date:2024-01-31"
+     * @return La valeur typée
+     */
+    public static Object decode(String encoded) {
+        int separator = encoded.indexOf(':');
+        String type = separator > 0 ? encoded.substring(0, separator) : "";
+        String value = encoded.substring(separator + 1);
+        return switch (type) {
+            case "int" -> Integer.valueOf(value);
+            case "long" -> Long.valueOf(value);
+            case "bigint" -> new BigInteger(value);
+            case "decimal" -> new BigDecimal(value);
+            case "timestamp" -> decodeTimestamp(value);
+            case "datetime" -> LocalDateTime.parse(value);
+            case "date" -> java.sql.Date.valueOf(LocalDate.parse(value));
+            case "string" -> value;
+            default -> encoded;
+        };
+    }
+
+    /**
+     * Relit un Timestamp en UTC, ou en heure locale de la JVM pour les fichiers d'état
+     * écrits avant l'encodage UTC.
+     */
+    private static Timestamp decodeTimestamp(String value) {
+        return value.endsWith("Z")
+                ? Timestamp.from(Instant.parse(value))
+                : Timestamp.valueOf(LocalDateTime.parse(value));
+    }
+}
@@ -0,0 +1,187 @@
+package com.etljobs.sql2json2api.service.incremental;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.etljobs.sql2json2api.model.SqlFile;
+import com.etljobs.sql2json2api.service.orchestration.RowOutcome;
+import com.etljobs.sql2json2api.service.orchestration.RowOutcomeListener;
+import com.etljobs.sql2json2api.service.sql.SqlFileDirectives;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Fait avancer le watermark des fichiers SQL en mode incrémental (@sql-watermark-column).
+ * <p>
+ * Les lignes sont lues dans l'ordre croissant du watermark. Le watermark ne progresse que
+ * sur la suite continue des lignes traitées avec succès depuis le début du fichier : une
+ * ligne en échec bloque la progression, elle et les suivantes seront relues au prochain run.
+ * Une valeur n'est retenue que lorsque la ligne suivante a une valeur différente, pour ne
+ * jamais ignorer des lignes partageant le même watermark. Le watermark est persisté toutes
+ * les {@code app.sql.incremental.commit-interval-rows} lignes et en fin de fichier.
+ * Une fois la progression bloquée, les lignes suivantes ne sont plus suivies.
+ */
+@Component
+@Slf4j
+public class WatermarkTracker implements RowOutcomeListener {
+
+    private final WatermarkStore watermarkStore;
+    private final Map<String, FileProgress> progressByFile = new ConcurrentHashMap<>();
+
+    @Value("${app.sql.incremental.commit-interval-rows:${app.batch.size:100}}")
+    private int commitIntervalRows;
+
+    @Autowired
+    public WatermarkTracker(WatermarkStore watermarkStore) {
+        this.watermarkStore = watermarkStore;
+    }
+
+    @Override
+    public void fileStarted(SqlFile sqlFile) {
+        String column = watermarkColumn(sqlFile);
+        if (column != null) {
+            progressByFile.put(sqlFile.getFileName(), new FileProgress(column));
+        }
+    }
+
+    @Override
+    public void rowRead(SqlFile sqlFile, Map<String, Object> row, int rowIndex) {
+        FileProgress progress = progressByFile.get(sqlFile.getFileName());
+        if (progress != null) {
+            progress.rowRead(rowIndex, row.get(progress.column));
+            commitIfNeeded(sqlFile.getFileName(), progress, false);
+        }
+    }
+
+    @Override
+    public void rowCompleted(RowOutcome outcome) {
+        FileProgress progress = progressByFile.get(outcome.getSqlFile().getFileName());
+        if (progress != null) {
+            progress.rowCompleted(outcome.getRowIndex(), outcome.isSuccess());
+            commitIfNeeded(outcome.getSqlFile().getFileName(), progress, false);
+        }
+    }
+
+    @Override
+    public void fileCompleted(SqlFile sqlFile, int rowCount, boolean aborted) {
+        FileProgress progress = progressByFile.remove(sqlFile.getFileName());
+        if (progress == null) {
+            return;
+        }
+        if (!aborted) {
+            progress.fileCompleted(rowCount);
+        }
+        commitIfNeeded(sqlFile.getFileName(), progress, true);
+        if (progress.isBlocked()) {
+            log.warn("Watermark de {} bloqué à la ligne {} en échec: les lignes suivantes seront relues au prochain run",
+                    sqlFile.getFileName(), progress.getNextIndex() + 1);
+        }
+    }
+
+    private void commitIfNeeded(String sqlFileName, FileProgress progress, boolean force) {
+        Object watermark = progress.takeCommittable(force ? 0 : Math.max(1, commitIntervalRows));
+        if (watermark != null) {
+            watermarkStore.saveWatermark(sqlFileName, watermark);
+            log.info("Watermark de {} avancé à {}", sqlFileName, watermark);
+        }
+    }
+
+    private static String watermarkColumn(SqlFile sqlFile) {
+        String column = sqlFile.getDirective(SqlFileDirectives.WATERMARK_COLUMN);
+        return column != null && !column.isBlank() ? column.trim() : null;
+    }
+
+    /**
+     * Progression d'un fichier SQL : valeurs lues et résultats des lignes non encore
+     * intégrées à la suite continue de succès.
+     */
+    static class FileProgress {
+
+        private final String column;
+        private final Map<Integer, Object> pendingValues = new HashMap<>();
+        private final Map<Integer, Boolean> pendingOutcomes = new HashMap<>();
+        private int nextIndex;
+        private boolean blocked;
+        private Object lastValue;
+        private Object safeWatermark;
+        private Object committedWatermark;
+        private int rowsSinceCommit;
+
+        FileProgress(String column) {
+            this.column = column;
+        }
+
+        synchronized void rowRead(int rowIndex, Object value) {
+            if (blocked) {
+                return;
+            }
+            pendingValues.put(rowIndex, value);
+            if (rowIndex == nextIndex) {
+                markSafeIfBoundary(value);
+            }
+        }
+
+        synchronized void rowCompleted(int rowIndex, boolean success) {
+            if (blocked) {
+                return;
+            }
+            pendingOutcomes.put(rowIndex, success);
+            while (pendingOutcomes.containsKey(nextIndex)) {
+                if (!pendingOutcomes.remove(nextIndex)) {
+                    // Le watermark ne dépassera plus cette ligne: inutile de garder les suivantes
+                    blocked = true;
+                    pendingValues.clear();
+                    pendingOutcomes.clear();
+                    break;
+                }
+                lastValue = pendingValues.remove(nextIndex);
+                nextIndex++;
+                rowsSinceCommit++;
+                if (pendingValues.containsKey(nextIndex)) {
+                    markSafeIfBoundary(pendingValues.get(nextIndex));
+                }
+            }
+        }
+
+        synchronized void fileCompleted(int rowCount) {
+            if (!blocked && nextIndex == rowCount && lastValue != null) {
+                safeWatermark = lastValue;
+            }
+        }
+
+        /**
+         * Retourne le watermark à persister si assez de lignes ont progressé depuis le dernier enregistrement.
+         */
+        synchronized Object takeCommittable(int minRows) {
+            if (safeWatermark == null || safeWatermark.equals(committedWatermark) || rowsSinceCommit < minRows) {
+                return null;
+            }
+            committedWatermark = safeWatermark;
+            rowsSinceCommit = 0;
+            return committedWatermark;
+        }
+
+        synchronized boolean isBlocked() {
+            return blocked;
+        }
+
+        synchronized int getNextIndex() {
+            return nextIndex;
+        }
+
+        /**
+         * Toutes les lignes jusqu'à nextIndex - 1 ont réussi : leur valeur devient sûre
+         * si la ligne suivante a une valeur différente.
+         */
+        private void markSafeIfBoundary(Object nextValue) {
+            if (!blocked && lastValue != null && !lastValue.equals(nextValue)) {
+                safeWatermark = lastValue;
+            }
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.etljobs.sql2json2api.service.lookup;
+
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.etljobs.sql2json2api.exception.SqlExecutionException;
+import com.etljobs.sql2json2api.model.SqlFile;
+import com.etljobs.sql2json2api.service.sql.SqlExecutionService;
+import com.etljobs.sql2json2api.service.sql.SqlFileDirectives;
+import com.etljobs.sql2json2api.service.sql.SqlFileService;
+import com.etljobs.sql2json2api.util.FileUtils;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Tables de correspondance chargées une seule fois par exécution depuis les fichiers SQL
+ * du répertoire {@code app.sql.lookup.directory}, et exposées aux templates sous
+ * {@code lookup.<nom du fichier>[clé]} à côté de {@code result}.
+ * <p>
+ * La clé est la colonne déclarée par {@code @sql-lookup-key}, la première colonne par défaut.
+ * Si la requête ne retourne qu'une autre colonne, la valeur est cette colonne, sinon la
+ * ligne complète ({@code lookup.entities[code].name}). Les clés sont converties en texte,
+ * comme l'exige l'accès aux tables FreeMarker ({@code lookup.entities[result.entity_id?c]}).
+ */
+@Service
+@Slf4j
+public class LookupTableService {
+
+    private final SqlFileService sqlFileService;
+    private final SqlExecutionService sqlExecutionService;
+
+    @Value("${app.sql.lookup.directory:${app.sql.directory}/lookup}")
+    private String lookupDirectory;
+
+    private volatile Map<String, Map<String, Object>> lookups;
+
+    @Autowired
+    public LookupTableService(SqlFileService sqlFileService, SqlExecutionService sqlExecutionService) {
+        this.sqlFileService = sqlFileService;
+        this.sqlExecutionService = sqlExecutionService;
+    }
+
+    /**
+     * Retourne les tables de correspondance, chargées au premier appel.
+     *
+     * @return Les tables par nom, en lecture seule
+     * @throws SqlExecutionException si une table ne peut pas être chargée
+     */
+    public Map<String, Map<String, Object>> getLookups() {
+        Map<String, Map<String, Object>> loaded = lookups;
+        if (loaded == null) {
+            synchronized (this) {
+                loaded = lookups;
+                if (loaded == null) {
+                    loaded = loadLookups();
+                    lookups = loaded;
+                }
+            }
+        }
+        return loaded;
+    }
+
+    private Map<String, Map<String, Object>> loadLookups() {
+        if (FileUtils.isAbsolutePath(lookupDirectory) && !Files.isDirectory(Paths.get(lookupDirectory))) {
+            log.debug("Aucun répertoire de tables de correspondance: {}", lookupDirectory);
+            return Collections.emptyMap();
+        }
+
+        List<SqlFile> lookupFiles = sqlFileService.listSqlFiles(lookupDirectory);
+        Map<String, Map<String, Object>> tables = new LinkedHashMap<>();
+        for (SqlFile lookupFile : lookupFiles) {
+            String name = lookupFile.getBaseName();
+            tables.put(name, Collections.unmodifiableMap(loadLookup(lookupFile)));
+        }
+        if (!tables.isEmpty()) {
+            log.info("{} tables de correspondance chargées depuis {}: {}", tables.size(), lookupDirectory, tables.keySet());
+        }
+        return Collections.unmodifiableMap(tables);
+    }
+
+    /**
+     * Lit un fichier SQL de correspondance dans une table de hachage.
+     */
+    Map<String, Object> loadLookup(SqlFile lookupFile) {
+        long startNanos = System.nanoTime();
+        String keyColumn = lookupFile.getDirective(SqlFileDirectives.LOOKUP_KEY);
+        Map<String, Object> table = new HashMap<>();
+        int[] duplicates = {0};
+
+        int rowCount = sqlExecutionService.streamSqlFile(lookupFile, (row, rowIndex) -> {
+            String column = keyColumn != null && !keyColumn.isBlank() ? keyColumn.trim() : row.keySet().iterator().next();
+            if (!row.containsKey(column)) {
+                throw new SqlExecutionException("La colonne clé '" + column + "' est absente du résultat de "
+                        + lookupFile.getFileName());
+            }
+            Object key = row.get(column);
+            if (key == null) {
+                return;
+            }
+            if (table.putIfAbsent(key.toString(), valueOf(row, column)) != null) {
+                duplicates[0]++;
+            }
+        });
+
+        if (duplicates[0] > 0) {
+            log.warn("Table de correspondance {}: {} clés en double ignorées (première valeur conservée)",
+                    lookupFile.getBaseName(), duplicates[0]);
+        }
+        log.info("Table de correspondance {} chargée: {} clés pour {} lignes en {} ms",
+                lookupFile.getBaseName(), table.size(), rowCount, (System.nanoTime() - startNanos) / 1_000_000);
+        return table;
+    }
+
+    /**
+     * La valeur associée à la clé: l'autre colonne si elle est seule, sinon la ligne.
+     */
+    private static Object valueOf(Map<String, Object> row, String keyColumn) {
+        if (row.size() == 2) {
+            for (Map.Entry<String, Object> entry : row.entrySet()) {
+                if (!entry.getKey().equals(keyColumn)) {
+                    return entry.getValue();
+                }
+            }
+        }
+        return row;
+    }
+}
@@ -3,14 +3,19 @@ package com.etljobs.sql2json2api.service.orchestration;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import com.etljobs.sql2json2api.exception.ProcessingException;
 import com.etljobs.sql2json2api.model.ApiResponse;
+import com.etljobs.sql2json2api.model.ApiTemplateResult;
 import com.etljobs.sql2json2api.model.SqlFile;
 import com.etljobs.sql2json2api.service.http.TokenService;
+import com.etljobs.sql2json2api.service.sql.RowHandler;
+import com.etljobs.sql2json2api.service.sql.RowKeys;
 import com.etljobs.sql2json2api.service.sql.SqlExecutionService;
 import com.etljobs.sql2json2api.service.sql.SqlFileService;
 
@@ -35,6 +40,7 @@ public class ProcessOrchestrator {
     private final TokenService tokenService;
     private final RetryStrategyFactory retryStrategyFactory;
     private final RowProcessor rowProcessor;
+    private final RowOutcomeDispatcher outcomeDispatcher;
     
     /**
      * Constructeur avec injection de dépendances.
@@ -45,82 +51,126 @@ public class ProcessOrchestrator {
             SqlExecutionService sqlExecutionService,
             TokenService tokenService,
             RetryStrategyFactory retryStrategyFactory,
-            RowProcessor rowProcessor) {
+            RowProcessor rowProcessor,
+            RowOutcomeDispatcher outcomeDispatcher) {
         this.sqlFileService = sqlFileService;
         this.sqlExecutionService = sqlExecutionService;
         this.tokenService = tokenService;
         this.retryStrategyFactory = retryStrategyFactory;
         this.rowProcessor = rowProcessor;
+        this.outcomeDispatcher = outcomeDispatcher;
     }
     
     /**
      * Traite un fichier SQL en exécutant la requête et en traitant toutes les lignes
      * de résultat pour générer des appels API, avec stratégie de réessai en cas d'erreur.
      * 
+     * Le résultat de chaque ligne est transmis aux écouteurs dès la fin de son appel ;
+     * seuls des compteurs et les erreurs de lignes sont conservés jusqu'à la fin du fichier.
+     * 
      * @param sqlFileName Nom du fichier SQL à traiter
-     * @return Liste des réponses API pour chaque ligne traitée avec succès
+     * @return Bilan du traitement du fichier
      * @throws ProcessingException en cas d'erreur globale de traitement
      */
-    public List<ApiResponse> processSqlFile(String sqlFileName) {
-        List<ApiResponse> responses = new ArrayList<>();
+    public ProcessingSummary processSqlFile(String sqlFileName) {
         List<RowError> rowErrors = new ArrayList<>();
+        AtomicInteger successCount = new AtomicInteger();
+        AtomicInteger errorResponseCount = new AtomicInteger();
+        AtomicInteger skippedCount = new AtomicInteger();
+        SqlFile sqlFile = null;
+        int totalRows = 0;
+        boolean aborted = true;
         
         try {
             log.info("Début du traitement du fichier SQL: {}", sqlFileName);
             
             // 1. Lire le fichier SQL
-            SqlFile sqlFile = sqlFileService.readSqlFile(sqlFileName);
-            
-            // 2. Exécuter la requête SQL
-            List<Map<String, Object>> results = sqlExecutionService.executeQuery(sqlFile.getContent());
-            log.info("Requête SQL exécutée avec succès, {} résultats obtenus", results.size());
+            sqlFile = sqlFileService.readSqlFile(sqlFileName);
+            SqlFile currentFile = sqlFile;
+            outcomeDispatcher.fileStarted(sqlFile);
             
-            // 3. Si aucun résultat, retourner une liste vide
-            if (results.isEmpty()) {
-                log.info("Aucun résultat à traiter pour ce fichier SQL");
-                return responses;
-            }
-            
-            // 4. Générer le token d'authentification (une seule fois pour tous les appels)
-            String token = tokenService.getToken();
-            log.debug("Token d'authentification généré avec succès");
-            
-            // 5. Créer une instance de la stratégie de réessai
+            // 2. Créer une instance de la stratégie de réessai
             RetryStrategy retryStrategy = retryStrategyFactory.create();
             
-            // 6. Traiter chaque ligne de résultat
-            int totalRows = results.size();
-            log.info("Début du traitement des {} lignes de résultat", totalRows);
+            // Préparer une seule fois le traitement des lignes (template, ou corps JSON lu dans une colonne)
+            Function<Map<String, Object>, ApiTemplateResult> templateProcessor = rowProcessor.templateProcessorFor(sqlFile);
             
-            for (int i = 0; i < totalRows; i++) {
-                Map<String, Object> row = results.get(i);
-                String rowIdentifier = extractRowIdentifier(row);
-                log.debug("Traitement de la ligne {}/{}: {}", i + 1, totalRows, rowIdentifier);
+            // 3. Exécuter la requête SQL en streaming et traiter chaque ligne dès sa lecture
+            RowHandler rowHandler = (row, rowIndex) -> {
+                if (rowIndex == 0) {
+                    // Générer le token d'authentification (une seule fois, à la première ligne)
+                    tokenService.getToken();
+                    log.debug("Token d'authentification généré avec succès");
+                }
+                
+                String rowIdentifier = RowKeys.describe(currentFile, row, rowIndex);
+                log.debug("Traitement de la ligne {}: {}", rowIndex + 1, rowIdentifier);
+                outcomeDispatcher.rowRead(currentFile, row, rowIndex);
                 
                 // Déléguer le traitement de cette ligne au RowProcessor
                 ApiResponse response = rowProcessor.processRow(
-                        sqlFile, row, i, rowIdentifier, retryStrategy, rowErrors);
+                        currentFile, templateProcessor, row, rowIndex, rowIdentifier, retryStrategy, rowErrors);
+                
+                outcomeDispatcher.rowCompleted(RowOutcome.builder()
+                        .sqlFile(currentFile)
+                        .row(row)
+                        .rowIndex(rowIndex)
+                        .rowIdentifier(rowIdentifier)
+                        .success(response == null || response.isSuccess())
+                        .skipped(response == null)
+                        .statusCode(response != null ? response.getStatusCode() : 0)
+                        .responseBody(response != null ? response.getBody() : null)
+                        .build());
                 
-                // Important: ajouter la réponse à la liste même si elle contient une erreur
-                if (response != null) {
-                    responses.add(response);
+                // Une réponse nulle correspond à une ligne inchangée, ignorée
+                if (response == null) {
+                    skippedCount.incrementAndGet();
+                } else if (response.isSuccess()) {
+                    successCount.incrementAndGet();
+                } else {
+                    errorResponseCount.incrementAndGet();
                 }
+            };
+            if (sqlExecutionService.isLoopUntilEmpty(sqlFile)) {
+                // Relancer la requête jusqu'à ce qu'elle ne retourne plus de ligne ; les appels
+                // étant synchrones, toutes les lignes sont terminées à la fin de chaque itération
+                totalRows = sqlExecutionService.streamUntilEmpty(sqlFile, rowHandler, (iteration, drain) -> { });
+            } else {
+                totalRows = sqlExecutionService.streamSqlFile(sqlFile, rowHandler);
             }
             
-            log.info("Traitement terminé: {}/{} lignes traitées avec succès ({} erreurs)", 
-                    responses.size(), totalRows, rowErrors.size());
+            aborted = false;
+            
+            // 4. Si aucun résultat, retourner un bilan vide
+            if (totalRows == 0) {
+                log.info("Aucun résultat à traiter pour ce fichier SQL");
+            } else {
+                log.info("Traitement terminé: {}/{} lignes traitées avec succès, {} inchangées ({} erreurs)", 
+                        successCount.get(), totalRows, skippedCount.get(), rowErrors.size());
+            }
             
-            // 7. Si des erreurs se sont produites, les journaliser de manière détaillée
+            // 5. Si des erreurs se sont produites, les journaliser de manière détaillée
             if (!rowErrors.isEmpty()) {
                 logRowErrors(rowErrors);
             }
             
+            return ProcessingSummary.builder()
+                    .fileName(sqlFileName)
+                    .rowCount(totalRows)
+                    .successCount(successCount.get())
+                    .errorResponseCount(errorResponseCount.get())
+                    .skippedCount(skippedCount.get())
+                    .rowErrors(rowErrors)
+                    .build();
+            
         } catch (Exception e) {
             log.error("Erreur globale lors du traitement du fichier SQL: {}", sqlFileName, e);
             throw new ProcessingException("Erreur lors du traitement du fichier SQL: " + sqlFileName, e);
+        } finally {
+            if (sqlFile != null) {
+                outcomeDispatcher.fileCompleted(sqlFile, totalRows, aborted);
+            }
         }
-        
-        return responses;
     }
     
     /**
@@ -135,29 +185,4 @@ public class ProcessOrchestrator {
             log.error("  {}. {}", i + 1, error.getFormattedMessage());
         }
     }
-    
-    /**
-     * Extrait un identifiant de la ligne pour faciliter les logs et le suivi.
-     * Essaie de trouver un champ 'id', 'ID', 'uuid', ou similaire.
-     * 
-     * @param row La ligne de données
-     * @return Un identifiant lisible pour la ligne
-     */
-    private String extractRowIdentifier(Map<String, Object> row) {
-        // Essayer d'extraire un ID lisible
-        for (String idField : new String[]{"id", "ID", "Id", "uuid", "UUID", "key", "KEY"}) {
-            if (row.containsKey(idField) && row.get(idField) != null) {
-                return idField + "=" + row.get(idField);
-            }
-        }
-        
-        // Utiliser la première clé/valeur disponible
-        if (!row.isEmpty()) {
-            Map.Entry<String, Object> firstEntry = row.entrySet().iterator().next();
-            return firstEntry.getKey() + "=" + firstEntry.getValue();
-        }
-        
-        // Si tout échoue, utiliser un identifiant arbitraire
-        return "row@" + System.identityHashCode(row);
-    }
 }
\ No newline at end of file
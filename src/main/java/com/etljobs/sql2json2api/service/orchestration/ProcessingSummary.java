@@ -0,0 +1,47 @@
+package com.etljobs.sql2json2api.service.orchestration;
+
+import java.util.List;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * Bilan du traitement d'un fichier SQL par {@link ProcessOrchestrator}.
+ * Seuls des compteurs et les erreurs de lignes sont conservés : le résultat de chaque
+ * ligne est transmis aux {@link RowOutcomeListener} au fil de l'eau, sans garder les
+ * réponses API en mémoire jusqu'à la fin du fichier.
+ */
+@Getter
+@Builder
+public class ProcessingSummary {
+
+    /**
+     * Le nom du fichier SQL traité
+     */
+    private final String fileName;
+
+    /**
+     * Le nombre de lignes lues
+     */
+    private final int rowCount;
+
+    /**
+     * Le nombre d'appels API réussis (code 2xx)
+     */
+    private final int successCount;
+
+    /**
+     * Le nombre d'appels API terminés avec un code d'erreur
+     */
+    private final int errorResponseCount;
+
+    /**
+     * Le nombre de lignes ignorées car inchangées depuis leur dernier envoi réussi
+     */
+    private final int skippedCount;
+
+    /**
+     * Les erreurs survenues par ligne
+     */
+    private final List<RowError> rowErrors;
+}
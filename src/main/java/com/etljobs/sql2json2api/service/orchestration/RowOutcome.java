@@ -0,0 +1,62 @@
+package com.etljobs.sql2json2api.service.orchestration;
+
+import java.util.Map;
+
+import com.etljobs.sql2json2api.model.SqlFile;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * Résultat final du traitement d'une ligne SQL, après les éventuels réessais.
+ * Transmis aux {@link RowOutcomeListener} une fois l'appel API terminé.
+ */
+@Getter
+@Builder
+public class RowOutcome {
+
+    /**
+     * Le fichier SQL dont provient la ligne
+     */
+    private final SqlFile sqlFile;
+
+    /**
+     * La ligne de résultat SQL
+     */
+    private final Map<String, Object> row;
+
+    /**
+     * L'index de la ligne dans le résultat (base 0)
+     */
+    private final int rowIndex;
+
+    /**
+     * L'identifiant lisible de la ligne
+     */
+    private final String rowIdentifier;
+
+    /**
+     * Indique si l'appel API a réussi (code 2xx)
+     */
+    private final boolean success;
+
+    /**
+     * Indique que l'appel API n'a pas été effectué car le payload est inchangé depuis le dernier envoi
+     */
+    private final boolean skipped;
+
+    /**
+     * Le code de statut HTTP, 0 si l'appel n'a pas pu être effectué
+     */
+    private final int statusCode;
+
+    /**
+     * Le payload JSON envoyé, null si le template n'a pas pu être généré
+     */
+    private final String payload;
+
+    /**
+     * Le corps de la réponse API, null en cas d'erreur avant l'appel
+     */
+    private final String responseBody;
+}
@@ -0,0 +1,73 @@
+package com.etljobs.sql2json2api.service.orchestration;
+
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.etljobs.sql2json2api.model.SqlFile;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Diffuse les événements du cycle de vie des lignes à tous les {@link RowOutcomeListener}.
+ * L'erreur d'un écouteur est journalisée sans interrompre le traitement ni les autres écouteurs.
+ */
+@Component
+@Slf4j
+public class RowOutcomeDispatcher {
+
+    private final List<RowOutcomeListener> listeners;
+
+    @Autowired
+    public RowOutcomeDispatcher(ObjectProvider<RowOutcomeListener> listeners) {
+        this.listeners = listeners.orderedStream().toList();
+    }
+
+    public void fileStarted(SqlFile sqlFile) {
+        for (RowOutcomeListener listener : listeners) {
+            try {
+                listener.fileStarted(sqlFile);
+            } catch (RuntimeException e) {
+                logListenerError(listener, "fileStarted", e);
+            }
+        }
+    }
+
+    public void rowRead(SqlFile sqlFile, Map<String, Object> row, int rowIndex) {
+        for (RowOutcomeListener listener : listeners) {
+            try {
+                listener.rowRead(sqlFile, row, rowIndex);
+            } catch (RuntimeException e) {
+                logListenerError(listener, "rowRead", e);
+            }
+        }
+    }
+
+    public void rowCompleted(RowOutcome outcome) {
+        for (RowOutcomeListener listener : listeners) {
+            try {
+                listener.rowCompleted(outcome);
+            } catch (RuntimeException e) {
+                logListenerError(listener, "rowCompleted", e);
+            }
+        }
+    }
+
+    public void fileCompleted(SqlFile sqlFile, int rowCount, boolean aborted) {
+        for (RowOutcomeListener listener : listeners) {
+            try {
+                listener.fileCompleted(sqlFile, rowCount, aborted);
+            } catch (RuntimeException e) {
+                logListenerError(listener, "fileCompleted", e);
+            }
+        }
+    }
+
+    private void logListenerError(RowOutcomeListener listener, String event, RuntimeException e) {
+        log.warn("Erreur de l'écouteur {} sur l'événement {}: {}",
+                listener.getClass().getSimpleName(), event, e.getMessage(), e);
+    }
+}
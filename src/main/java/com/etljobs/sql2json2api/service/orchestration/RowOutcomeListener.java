@@ -0,0 +1,52 @@
+package com.etljobs.sql2json2api.service.orchestration;
+
+import java.util.Map;
+
+import com.etljobs.sql2json2api.model.SqlFile;
+
+/**
+ * Écouteur du cycle de vie des lignes d'un fichier SQL : lecture, résultat de l'appel API
+ * et fin du fichier. Les beans implémentant cette interface sont notifiés par le
+ * {@link RowOutcomeDispatcher}, quel que soit le mode d'exécution (séquentiel ou parallèle).
+ * <p>
+ * Pour un même fichier, {@link #rowRead} est appelé dans l'ordre des lignes ;
+ * {@link #rowCompleted} peut arriver dans un ordre différent.
+ */
+public interface RowOutcomeListener {
+
+    /**
+     * Appelé avant l'exécution de la requête d'un fichier SQL.
+     *
+     * @param sqlFile Le fichier SQL
+     */
+    default void fileStarted(SqlFile sqlFile) {
+    }
+
+    /**
+     * Appelé dès qu'une ligne est lue, avant la génération du payload.
+     *
+     * @param sqlFile Le fichier SQL
+     * @param row La ligne lue
+     * @param rowIndex L'index de la ligne (base 0)
+     */
+    default void rowRead(SqlFile sqlFile, Map<String, Object> row, int rowIndex) {
+    }
+
+    /**
+     * Appelé lorsque le traitement d'une ligne est terminé, en succès ou en échec.
+     *
+     * @param outcome Le résultat du traitement
+     */
+    default void rowCompleted(RowOutcome outcome) {
+    }
+
+    /**
+     * Appelé à la fin du traitement d'un fichier SQL.
+     *
+     * @param sqlFile Le fichier SQL
+     * @param rowCount Le nombre de lignes lues
+     * @param aborted true si le traitement a été interrompu par une erreur
+     */
+    default void fileCompleted(SqlFile sqlFile, int rowCount, boolean aborted) {
+    }
+}
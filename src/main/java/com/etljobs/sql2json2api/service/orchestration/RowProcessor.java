@@ -2,6 +2,7 @@ package com.etljobs.sql2json2api.service.orchestration;
 
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 
 import org.springframework.stereotype.Component;
 
@@ -9,6 +10,7 @@ import com.etljobs.sql2json2api.exception.TemplateProcessingException;
 import com.etljobs.sql2json2api.model.ApiResponse;
 import com.etljobs.sql2json2api.model.ApiTemplateResult;
 import com.etljobs.sql2json2api.model.SqlFile;
+import com.etljobs.sql2json2api.service.fingerprint.RowFingerprintStore;
 import com.etljobs.sql2json2api.service.http.ApiClientService;
 import com.etljobs.sql2json2api.service.orchestration.RetryStrategy.RetryContext;
 import com.etljobs.sql2json2api.service.template.TemplateProcessingService;
@@ -26,30 +28,48 @@ public class RowProcessor {
     
     private final TemplateProcessingService templateService;
     private final ApiClientService apiClientService;
+    private final RowFingerprintStore fingerprintStore;
     
     /**
      * Constructeur avec injection de dépendances.
      */
     public RowProcessor(
             TemplateProcessingService templateService,
-            ApiClientService apiClientService) {
+            ApiClientService apiClientService,
+            RowFingerprintStore fingerprintStore) {
         this.templateService = templateService;
         this.apiClientService = apiClientService;
+        this.fingerprintStore = fingerprintStore;
+    }
+    
+    /**
+     * Retourne la préparation des appels des lignes d'un fichier SQL, à obtenir une fois par
+     * fichier : rendu du template, ou corps JSON lu dans la colonne {@code @sql-payload-column}.
+     * 
+     * @param sqlFile Le fichier SQL traité
+     * @return La préparation de l'appel d'une ligne
+     * @see TemplateProcessingService#processorFor(SqlFile)
+     */
+    public Function<Map<String, Object>, ApiTemplateResult> templateProcessorFor(SqlFile sqlFile) {
+        return templateService.processorFor(sqlFile);
     }
     
     /**
      * Traite une seule ligne avec un mécanisme de réessai.
      * 
      * @param sqlFile Le fichier SQL traité
+     * @param templateProcessor La préparation des appels du fichier, voir {@link #templateProcessorFor(SqlFile)}
      * @param row La ligne de données à traiter
      * @param rowIndex L'index de la ligne (pour les logs)
      * @param rowIdentifier L'identifiant lisible de la ligne (pour les logs)
      * @param retryStrategy La stratégie de réessai à utiliser
      * @param rowErrors Liste pour collecter les erreurs par ligne
-     * @return La réponse API générée, ou null si une erreur non récupérable est survenue
+     * @return La réponse API générée, ou null si la ligne est ignorée car son payload est
+     *         inchangé depuis le dernier envoi réussi (@sql-skip-unchanged)
      */
     public ApiResponse processRow(
             SqlFile sqlFile, 
+            Function<Map<String, Object>, ApiTemplateResult> templateProcessor,
             Map<String, Object> row, 
             int rowIndex, 
             String rowIdentifier, 
@@ -60,8 +80,13 @@ public class RowProcessor {
             // Créer un contexte de réessai
             RetryContext retryContext = retryStrategy.createContext();
             
-            // Traiter le template (une seule fois car le contenu ne change pas)
-            ApiTemplateResult templateResult = templateService.processTemplate(sqlFile.getTemplateName(), row);
+            // Traiter le template ou lire le corps JSON construit par la base (une seule fois car le contenu ne change pas)
+            ApiTemplateResult templateResult = templateProcessor.apply(row);
+            
+            // Ne pas renvoyer une ligne identique au dernier envoi réussi
+            if (fingerprintStore.isUnchanged(sqlFile, row, rowIndex, templateResult.getJsonPayload())) {
+                return null;
+            }
             
             // Variables pour stocker le résultat et l'erreur
             ApiResponse response = null;
@@ -0,0 +1,104 @@
+package com.etljobs.sql2json2api.service.outbox;
+
+import java.util.regex.Pattern;
+
+import com.etljobs.sql2json2api.exception.SqlExecutionException;
+import com.etljobs.sql2json2api.model.SqlFile;
+import com.etljobs.sql2json2api.service.sql.SqlFileDirectives;
+
+import lombok.Getter;
+
+/**
+ * Table d'outbox consommée par un fichier SQL ({@code @sql-outbox-table}), avec sa colonne
+ * clé ({@code @sql-outbox-key}, {@code id} par défaut), sa colonne de statut
+ * ({@code @sql-outbox-status-column}) et, facultative, sa colonne de date de réclamation
+ * ({@code @sql-outbox-claimed-at-column}).
+ */
+@Getter
+public class OutboxTable {
+
+    private static final Pattern IDENTIFIER_PATTERN = Pattern.compile("\\w+(\\.\\w+)*");
+    private static final String DEFAULT_KEY_COLUMN = "id";
+
+    private final String table;
+    private final String keyColumn;
+    private final String statusColumn;
+
+    /**
+     * Colonne recevant la date de réclamation des lignes, null si la table n'en a pas
+     */
+    private final String claimedAtColumn;
+
+    OutboxTable(String table, String keyColumn, String statusColumn, String claimedAtColumn) {
+        this.table = identifier(table, "table");
+        this.keyColumn = identifier(keyColumn, "key column");
+        this.statusColumn = identifier(statusColumn, "status column");
+        this.claimedAtColumn = claimedAtColumn == null || claimedAtColumn.isBlank()
+                ? null : identifier(claimedAtColumn, "claimed-at column");
+    }
+
+    /**
+     * Lit la table d'outbox déclarée par un fichier SQL.
+     *
+     * @param sqlFile Le fichier SQL
+     * @param defaultStatusColumn La colonne de statut si le fichier n'en déclare pas
+     * @param defaultClaimedAtColumn La colonne de date de réclamation si le fichier n'en déclare
+     *        pas, vide ou null si aucune
+     * @return La table d'outbox, ou null si le fichier n'est pas en mode outbox
+     * @throws SqlExecutionException si un nom de table ou de colonne est invalide
+     */
+    public static OutboxTable of(SqlFile sqlFile, String defaultStatusColumn, String defaultClaimedAtColumn) {
+        String table = sqlFile.getDirective(SqlFileDirectives.OUTBOX_TABLE);
+        if (table == null || table.isBlank()) {
+            return null;
+        }
+        return new OutboxTable(table.trim(),
+                directive(sqlFile, SqlFileDirectives.OUTBOX_KEY, DEFAULT_KEY_COLUMN),
+                directive(sqlFile, SqlFileDirectives.OUTBOX_STATUS_COLUMN, defaultStatusColumn),
+                directive(sqlFile, SqlFileDirectives.OUTBOX_CLAIMED_AT_COLUMN, defaultClaimedAtColumn));
+    }
+
+    /**
+     * @return La requête mettant à jour le statut d'une ligne (statut puis clé en paramètres)
+     */
+    public String updateStatusSql() {
+        return "UPDATE " + table + " SET " + statusColumn + " = ? WHERE " + keyColumn + " = ?";
+    }
+
+    /**
+     * @return La requête réclamant une ligne (statut, date de réclamation si la table a une
+     *         colonne pour elle, puis clé en paramètres)
+     */
+    public String claimSql() {
+        if (claimedAtColumn == null) {
+            return updateStatusSql();
+        }
+        return "UPDATE " + table + " SET " + statusColumn + " = ?, " + claimedAtColumn + " = ? WHERE "
+                + keyColumn + " = ?";
+    }
+
+    /**
+     * @return La requête remettant en attente les lignes réclamées avant une date (nouveau statut,
+     *         statut de réclamation puis date limite en paramètres), null sans colonne de date de
+     *         réclamation
+     */
+    public String releaseExpiredSql() {
+        if (claimedAtColumn == null) {
+            return null;
+        }
+        return "UPDATE " + table + " SET " + statusColumn + " = ? WHERE " + statusColumn + " = ? AND "
+                + claimedAtColumn + " < ?";
+    }
+
+    private static String directive(SqlFile sqlFile, String name, String defaultValue) {
+        String value = sqlFile.getDirective(name);
+        return value != null && !value.isBlank() ? value.trim() : defaultValue;
+    }
+
+    private static String identifier(String name, String description) {
+        if (name == null || !IDENTIFIER_PATTERN.matcher(name).matches()) {
+            throw new SqlExecutionException("Invalid outbox " + description + ": " + name);
+        }
+        return name;
+    }
+}
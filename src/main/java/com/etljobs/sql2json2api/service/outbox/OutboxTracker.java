@@ -0,0 +1,231 @@
+package com.etljobs.sql2json2api.service.outbox;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.etljobs.sql2json2api.model.SqlFile;
+import com.etljobs.sql2json2api.service.orchestration.RowOutcome;
+import com.etljobs.sql2json2api.service.orchestration.RowOutcomeListener;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Met à jour le statut des lignes d'outbox réclamées par {@code SqlExecutionService}
+ * (@sql-outbox-table) une fois leur appel API terminé : {@code app.sql.outbox.done-status}
+ * en cas de succès, {@code app.sql.outbox.failed-status} en cas d'échec. Les mises à jour sont
+ * regroupées en {@code batchUpdate} JDBC de {@code app.sql.outbox.batch-size} lignes.
+ * <p>
+ * À la fin du fichier, les lignes réclamées dont l'appel n'a pas abouti (traitement interrompu)
+ * reprennent le statut {@code app.sql.outbox.pending-status} pour être reprises par un autre worker.
+ * Les lignes d'une instance arrêtée avant la fin de son fichier restent au statut de réclamation :
+ * si la table a une colonne de date de réclamation, elles sont remises en attente une fois
+ * {@code app.sql.outbox.lease-seconds} écoulées, au démarrage de la consommation suivante.
+ */
+@Component
+@Slf4j
+public class OutboxTracker implements RowOutcomeListener {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<String, FileOutbox> outboxByFile = new ConcurrentHashMap<>();
+
+    @Value("${app.sql.outbox.status-column:status}")
+    private String statusColumn;
+
+    @Getter
+    @Value("${app.sql.outbox.pending-status:PENDING}")
+    private String pendingStatus;
+
+    @Getter
+    @Value("${app.sql.outbox.processing-status:PROCESSING}")
+    private String processingStatus;
+
+    /**
+     * Colonne de date de réclamation si @sql-outbox-claimed-at-column est absent, vide si aucune
+     */
+    @Value("${app.sql.outbox.claimed-at-column:}")
+    private String claimedAtColumn;
+
+    /**
+     * Durée après laquelle une ligne réclamée non terminée est remise en attente, 0 pour jamais
+     */
+    @Value("${app.sql.outbox.lease-seconds:600}")
+    private long leaseSeconds;
+
+    @Value("${app.sql.outbox.done-status:DONE}")
+    private String doneStatus;
+
+    @Value("${app.sql.outbox.failed-status:FAILED}")
+    private String failedStatus;
+
+    /**
+     * Nombre de lignes réclamées par transaction et de statuts mis à jour par lot
+     */
+    @Getter
+    @Value("${app.sql.outbox.batch-size:100}")
+    private int batchSize;
+
+    @Autowired
+    public OutboxTracker(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * @param sqlFile Le fichier SQL
+     * @return La table d'outbox consommée par le fichier, null s'il n'est pas en mode outbox
+     */
+    public OutboxTable outboxTable(SqlFile sqlFile) {
+        return OutboxTable.of(sqlFile, statusColumn, claimedAtColumn);
+    }
+
+    /**
+     * Remet au statut en attente les lignes réclamées depuis plus de
+     * {@code app.sql.outbox.lease-seconds} sans avoir été terminées (instance arrêtée pendant leur
+     * traitement). Sans colonne de date de réclamation, ces lignes ne sont jamais reprises.
+     *
+     * @param outbox La table d'outbox
+     * @return Le nombre de lignes remises en attente
+     */
+    public int releaseExpiredClaims(OutboxTable outbox) {
+        String releaseSql = outbox.releaseExpiredSql();
+        if (releaseSql == null || leaseSeconds <= 0) {
+            return 0;
+        }
+        Timestamp expiry = Timestamp.from(Instant.now().minusSeconds(leaseSeconds));
+        try {
+            int released = jdbcTemplate.update(releaseSql, pendingStatus, processingStatus, expiry);
+            if (released > 0) {
+                log.warn("{} lignes de l'outbox {} réclamées avant {} et non terminées remises au statut {}",
+                        released, outbox.getTable(), expiry.toInstant(), pendingStatus);
+            }
+            return released;
+        } catch (DataAccessException e) {
+            log.error("Échec de la reprise des lignes expirées de l'outbox {}: {}", outbox.getTable(), e.getMessage(), e);
+            return 0;
+        }
+    }
+
+    /**
+     * Enregistre des lignes réclamées, dont le statut sera mis à jour à la fin de leur appel.
+     *
+     * @param sqlFile Le fichier SQL
+     * @param outbox La table d'outbox
+     * @param keys Les clés des lignes réclamées
+     */
+    public void claimed(SqlFile sqlFile, OutboxTable outbox, Collection<Object> keys) {
+        outboxByFile.computeIfAbsent(sqlFile.getFileName(), name -> new FileOutbox(outbox)).claimed(keys);
+    }
+
+    @Override
+    public void fileStarted(SqlFile sqlFile) {
+        outboxByFile.remove(sqlFile.getFileName());
+    }
+
+    @Override
+    public void rowCompleted(RowOutcome outcome) {
+        FileOutbox fileOutbox = outboxByFile.get(outcome.getSqlFile().getFileName());
+        if (fileOutbox == null) {
+            return;
+        }
+        Object key = outcome.getRow().get(fileOutbox.outbox.getKeyColumn());
+        List<Object[]> batch = fileOutbox.completed(key, outcome.isSuccess(), Math.max(1, batchSize));
+        if (batch != null) {
+            updateStatuses(fileOutbox.outbox, batch);
+        }
+    }
+
+    @Override
+    public void fileCompleted(SqlFile sqlFile, int rowCount, boolean aborted) {
+        FileOutbox fileOutbox = outboxByFile.remove(sqlFile.getFileName());
+        if (fileOutbox == null) {
+            return;
+        }
+        updateStatuses(fileOutbox.outbox, fileOutbox.drain());
+
+        List<Object[]> released = fileOutbox.releaseInFlight(pendingStatus);
+        if (!released.isEmpty()) {
+            log.warn("{} lignes d'outbox réclamées mais non traitées par {} remises au statut {}",
+                    released.size(), sqlFile.getFileName(), pendingStatus);
+            updateStatuses(fileOutbox.outbox, released);
+        }
+        log.info("Outbox {} consommée par {}: {} lignes traitées, {} en échec",
+                fileOutbox.outbox.getTable(), sqlFile.getFileName(), fileOutbox.succeeded, fileOutbox.failed);
+    }
+
+    private void updateStatuses(OutboxTable outbox, List<Object[]> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            jdbcTemplate.batchUpdate(outbox.updateStatusSql(), batch);
+            log.debug("Statut de {} lignes de l'outbox {} mis à jour", batch.size(), outbox.getTable());
+        } catch (DataAccessException e) {
+            log.error("Échec de la mise à jour du statut de {} lignes de l'outbox {} (elles restent au statut {}): {}",
+                    batch.size(), outbox.getTable(), processingStatus, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Lignes d'outbox d'un fichier SQL : réclamées en attente de leur appel et statuts à écrire.
+     */
+    private class FileOutbox {
+
+        private final OutboxTable outbox;
+        private final Set<Object> inFlight = new HashSet<>();
+        private List<Object[]> pendingUpdates = new ArrayList<>();
+        private int succeeded;
+        private int failed;
+
+        FileOutbox(OutboxTable outbox) {
+            this.outbox = outbox;
+        }
+
+        synchronized void claimed(Collection<Object> keys) {
+            inFlight.addAll(keys);
+        }
+
+        /**
+         * Retient le statut final d'une ligne et retourne le lot à écrire s'il est complet.
+         */
+        synchronized List<Object[]> completed(Object key, boolean success, int batchSize) {
+            if (key == null || !inFlight.remove(key)) {
+                return null;
+            }
+            if (success) {
+                succeeded++;
+            } else {
+                failed++;
+            }
+            pendingUpdates.add(new Object[] {success ? doneStatus : failedStatus, key});
+            return pendingUpdates.size() >= batchSize ? drain() : null;
+        }
+
+        synchronized List<Object[]> drain() {
+            List<Object[]> batch = pendingUpdates;
+            pendingUpdates = new ArrayList<>();
+            return batch;
+        }
+
+        synchronized List<Object[]> releaseInFlight(String status) {
+            List<Object[]> released = new ArrayList<>(inFlight.size());
+            for (Object key : inFlight) {
+                released.add(new Object[] {status, key});
+            }
+            inFlight.clear();
+            return released;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.etljobs.sql2json2api.service.sql;
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+
+import com.etljobs.sql2json2api.exception.SqlExecutionException;
+import com.etljobs.sql2json2api.model.SqlFile;
+import com.etljobs.sql2json2api.service.sql.buffer.SpillableRowBuffer;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Reads a SQL file on a producer thread into a {@link SpillableRowBuffer}, spilled to disk
+ * past its memory threshold, so that the connection is released without waiting for the
+ * consumer of the rows. The buffered rows are handed to the handler on the consuming thread.
+ * Used both for the row buffer and for the results read in advance (prefetch).
+ */
+@Slf4j
+class BufferedQueryExecutor {
+
+    private final long memoryThresholdBytes;
+    private final long maxSpillBytes;
+    private final Path spillDirectory;
+    private final int segmentSizeBytes;
+
+    /**
+     * @param memoryThresholdBytes The memory used by the buffered rows before they are spilled to disk
+     * @param maxSpillBytes The disk space used by the spilled rows before the producer waits
+     * @param spillDirectory The directory of the spill files
+     * @param segmentSizeBytes The size of a spill file
+     */
+    BufferedQueryExecutor(long memoryThresholdBytes, long maxSpillBytes, Path spillDirectory, int segmentSizeBytes) {
+        this.memoryThresholdBytes = memoryThresholdBytes;
+        this.maxSpillBytes = maxSpillBytes;
+        this.spillDirectory = spillDirectory;
+        this.segmentSizeBytes = segmentSizeBytes;
+    }
+
+    /**
+     * Reads the SQL file through the row buffer and hands the rows to the handler on the calling thread.
+     *
+     * @param sqlFile The SQL file to read
+     * @param reader Reads the SQL file into the given handler and returns the number of rows read
+     * @param rowHandler The callback receiving each row
+     * @return The number of rows handed to the handler
+     * @throws SqlExecutionException if the query execution fails
+     */
+    int execute(SqlFile sqlFile, ToIntFunction<RowHandler> reader, RowHandler rowHandler) {
+        return start(sqlFile, "sql-row-buffer", reader).drain(rowHandler);
+    }
+
+    /**
+     * Starts a daemon thread reading the SQL file into a new row buffer. The datasource selected
+     * by {@link DataSourceRouter} for the calling thread is used by the producer thread.
+     *
+     * @param sqlFile The SQL file to read
+     * @param threadName The name of the producer thread
+     * @param reader Reads the SQL file into the given handler and returns the number of rows read
+     * @return The read in progress, to drain or cancel
+     */
+    BufferedRead start(SqlFile sqlFile, String threadName, ToIntFunction<RowHandler> reader) {
+        SpillableRowBuffer buffer = new SpillableRowBuffer(memoryThresholdBytes, maxSpillBytes,
+                spillDirectory, segmentSizeBytes);
+        long startNanos = System.nanoTime();
+        Thread producer = new Thread(DataSourceRouter.propagate(() -> {
+            try {
+                int rowCount = reader.applyAsInt((row, rowIndex) -> {
+                    try {
+                        buffer.put(row);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new SqlExecutionException("Interrupted while buffering rows", e);
+                    }
+                });
+                buffer.complete();
+                log.info("Query of {} fully read in {} ms: {} rows, {} spilled to disk ({} bytes)",
+                        sqlFile.getFileName(), (System.nanoTime() - startNanos) / 1_000_000, rowCount,
+                        buffer.getSpilledRowCount(), buffer.getSpilledBytes());
+            } catch (RuntimeException e) {
+                buffer.fail(e);
+            }
+        }), threadName);
+        producer.setDaemon(true);
+        producer.start();
+        return new BufferedRead(sqlFile, buffer, producer);
+    }
+
+    /**
+     * A SQL file being read into a row buffer: the buffer and the thread filling it.
+     */
+    static class BufferedRead {
+
+        private final SqlFile sqlFile;
+        private final SpillableRowBuffer buffer;
+        private final Thread producer;
+
+        BufferedRead(SqlFile sqlFile, SpillableRowBuffer buffer, Thread producer) {
+            this.sqlFile = sqlFile;
+            this.buffer = buffer;
+            this.producer = producer;
+        }
+
+        /**
+         * Hands the buffered rows to the handler on the calling thread, waiting for the rest
+         * of the result if needed, then releases the buffer.
+         *
+         * @param rowHandler The callback receiving each row
+         * @return The number of rows handed to the handler
+         * @throws SqlExecutionException if the query execution fails
+         */
+        int drain(RowHandler rowHandler) {
+            try {
+                int rowIndex = 0;
+                Map<String, Object> row;
+                while ((row = buffer.take()) != null) {
+                    rowHandler.handleRow(row, rowIndex++);
+                }
+                log.debug("Row buffer of {} drained: {} rows, peak memory {} bytes",
+                        sqlFile.getFileName(), rowIndex, buffer.getPeakMemoryBytes());
+                return rowIndex;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SqlExecutionException("Interrupted while reading buffered rows", e);
+            } finally {
+                cancel();
+            }
+        }
+
+        /**
+         * Releases the buffer and stops the producer thread.
+         */
+        void cancel() {
+            buffer.close();
+            producer.interrupt();
+        }
+    }
+}
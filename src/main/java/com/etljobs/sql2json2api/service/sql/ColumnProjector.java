@@ -0,0 +1,233 @@
+package com.etljobs.sql2json2api.service.sql;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSetMetaData;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import com.etljobs.sql2json2api.exception.SqlExecutionException;
+import com.etljobs.sql2json2api.exception.TemplateProcessingException;
+import com.etljobs.sql2json2api.model.SqlFile;
+import com.etljobs.sql2json2api.service.template.TemplateColumnAnalyzer;
+import com.etljobs.sql2json2api.service.template.TemplateCompiler;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Compares the columns selected by a SQL file with the columns its template actually uses.
+ * The comparison costs one metadata query per file, so it is off unless enabled. In "warn" mode the unused columns are logged; in "narrow" mode the query is wrapped in
+ * {@code SELECT <used columns> FROM (...) src} so that unused columns are neither transferred
+ * by the driver nor held in each row. The mode is set by {@code app.sql.projection.mode} and
+ * can be overridden per file with {@code @sql-projection}.
+ * <p>
+ * Besides the template columns, the projection keeps the columns used by the engine: the
+ * directive columns (page key, partition, watermark, outbox key, payload) and the columns
+ * {@link RowKeys} may identify a row with. Nothing is
+ * narrowed when the template uses the row dynamically, a column name would need quoting or the
+ * file consumes an outbox (its query is locked with FOR UPDATE and cannot be wrapped).
+ */
+@Service
+@Slf4j
+public class ColumnProjector {
+
+    private static final Pattern IDENTIFIER_PATTERN = Pattern.compile("[A-Za-z_]\\w*");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SqlExecutionService sqlExecutionService;
+    private final TemplateCompiler templateCompiler;
+    private final TemplateColumnAnalyzer columnAnalyzer;
+
+    /**
+     * "off", "warn" or "narrow"
+     */
+    @Value("${app.sql.projection.mode:off}")
+    private String mode;
+
+    @Autowired
+    public ColumnProjector(JdbcTemplate jdbcTemplate, SqlExecutionService sqlExecutionService,
+            TemplateCompiler templateCompiler, TemplateColumnAnalyzer columnAnalyzer) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.sqlExecutionService = sqlExecutionService;
+        this.templateCompiler = templateCompiler;
+        this.columnAnalyzer = columnAnalyzer;
+    }
+
+    /**
+     * Analyzes the columns of the SQL file against its template.
+     *
+     * @param sqlFile The SQL file about to run
+     * @return The SQL file with a narrowed projection in "narrow" mode, otherwise the SQL file itself
+     */
+    public SqlFile project(SqlFile sqlFile) {
+        String fileMode = sqlFile.getDirective(SqlFileDirectives.PROJECTION);
+        String effectiveMode = (fileMode != null && !fileMode.isBlank() ? fileMode : mode).trim().toLowerCase(Locale.ROOT);
+        if (!effectiveMode.equals("warn") && !effectiveMode.equals("narrow")) {
+            return sqlFile;
+        }
+
+        try {
+            Set<String> templateColumns = columnAnalyzer.referencedColumns(
+                    templateCompiler.compile(sqlFile.getTemplateName()).getContent());
+            if (templateColumns == null) {
+                log.debug("Template {} uses the row dynamically, projection of {} left unchanged",
+                        sqlFile.getTemplateName(), sqlFile.getFileName());
+                return sqlFile;
+            }
+
+            List<String> queryColumns = queryColumns(sqlFile);
+            List<String> projection = selectProjection(queryColumns, templateColumns, engineColumns(sqlFile),
+                    RowKeys.identifyingColumns(sqlFile, queryColumns));
+            if (projection.size() == queryColumns.size()) {
+                return sqlFile;
+            }
+
+            List<String> unused = new ArrayList<>(queryColumns);
+            unused.removeAll(projection);
+            boolean outbox = sqlFile.getDirective(SqlFileDirectives.OUTBOX_TABLE) != null;
+            if (effectiveMode.equals("warn") || outbox || !canNarrow(queryColumns, projection, sqlExecutionService.getDialect())) {
+                log.warn("{} selects {} columns but its template uses only {}, unused columns: {}",
+                        sqlFile.getFileName(), queryColumns.size(), projection.size(), unused);
+                return sqlFile;
+            }
+
+            log.info("Projection of {} narrowed to {} of {} columns, dropped: {}",
+                    sqlFile.getFileName(), projection.size(), queryColumns.size(), unused);
+            return withContent(sqlFile, buildProjectionQuery(sqlFile.getContent(), projection));
+        } catch (DataAccessException | SqlExecutionException | TemplateProcessingException e) {
+            log.debug("Column analysis of {} skipped: {}", sqlFile.getFileName(), e.getMessage());
+            return sqlFile;
+        }
+    }
+
+    /**
+     * Reads the result columns of the SQL file without fetching any row.
+     */
+    private List<String> queryColumns(SqlFile sqlFile) {
+        ParameterizedSql query = sqlExecutionService.parameterize(sqlFile);
+        String sql = "SELECT * FROM " + SqlExecutionService.toSubquery(query.getSql()) + " WHERE 1 = 0";
+        Object[] args = query.getArgs();
+        List<String> columns = jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql);
+            for (int i = 0; i < args.length; i++) {
+                statement.setObject(i + 1, args[i]);
+            }
+            return statement;
+        }, rs -> {
+            ResultSetMetaData metaData = rs.getMetaData();
+            List<String> labels = new ArrayList<>(metaData.getColumnCount());
+            for (int i = 1; i <= metaData.getColumnCount(); i++) {
+                labels.add(metaData.getColumnLabel(i));
+            }
+            return labels;
+        });
+        return columns != null ? columns : List.of();
+    }
+
+    /**
+     * Returns the columns referenced by the directives of the SQL file.
+     */
+    static Set<String> engineColumns(SqlFile sqlFile) {
+        Set<String> columns = new HashSet<>();
+        for (String directive : List.of(SqlFileDirectives.PAGE_KEY, SqlFileDirectives.PARTITION_COLUMN,
+                SqlFileDirectives.WATERMARK_COLUMN, SqlFileDirectives.OUTBOX_KEY, SqlFileDirectives.PAYLOAD_COLUMN)) {
+            String column = sqlFile.getDirective(directive);
+            if (column != null && !column.isBlank()) {
+                columns.add(column.trim());
+            }
+        }
+        return columns;
+    }
+
+    /**
+     * Selects the result columns to keep, in result order: the columns used by the template
+     * or the engine (matched case-insensitively) and the identifying columns of the rows.
+     *
+     * @param queryColumns The result columns of the query
+     * @param templateColumns The columns referenced by the template
+     * @param engineColumns The columns referenced by the SQL file directives
+     * @param identifyingColumns The columns identifying a row, see {@link RowKeys#identifyingColumns}
+     * @return The columns to keep
+     */
+    static List<String> selectProjection(List<String> queryColumns, Set<String> templateColumns,
+            Set<String> engineColumns, List<String> identifyingColumns) {
+        Set<String> used = new HashSet<>();
+        templateColumns.forEach(column -> used.add(column.toLowerCase(Locale.ROOT)));
+        engineColumns.forEach(column -> used.add(column.toLowerCase(Locale.ROOT)));
+
+        Set<String> projection = new LinkedHashSet<>();
+        for (String column : queryColumns) {
+            if (identifyingColumns.contains(column) || used.contains(column.toLowerCase(Locale.ROOT))) {
+                projection.add(column);
+            }
+        }
+        return new ArrayList<>(projection);
+    }
+
+    /**
+     * The query can only be narrowed when each kept column can be referenced without quoting
+     * (the database folds unquoted names to its own case) and is not ambiguous in the result.
+     */
+    static boolean canNarrow(List<String> queryColumns, List<String> projection, SqlDialect dialect) {
+        Set<String> distinct = new HashSet<>();
+        for (String column : queryColumns) {
+            if (!distinct.add(column.toLowerCase(Locale.ROOT))) {
+                return false;
+            }
+        }
+        for (String column : projection) {
+            if (!IDENTIFIER_PATTERN.matcher(column).matches()) {
+                return false;
+            }
+            boolean foldedCase = switch (dialect) {
+                case POSTGRESQL -> column.equals(column.toLowerCase(Locale.ROOT));
+                case ORACLE, H2 -> column.equals(column.toUpperCase(Locale.ROOT));
+                default -> true;
+            };
+            if (!foldedCase) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Builds the query selecting only the given columns of the original query.
+     *
+     * @param sql The original SQL query
+     * @param columns The columns to keep
+     * @return The narrowed query
+     */
+    static String buildProjectionQuery(String sql, List<String> columns) {
+        StringBuilder query = new StringBuilder("SELECT ");
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) {
+                query.append(", ");
+            }
+            query.append("src.").append(columns.get(i));
+        }
+        return query.append(" FROM ").append(SqlExecutionService.toSubquery(sql)).toString();
+    }
+
+    private static SqlFile withContent(SqlFile sqlFile, String content) {
+        return SqlFile.builder()
+                .fileName(sqlFile.getFileName())
+                .content(content)
+                .httpMethod(sqlFile.getHttpMethod())
+                .baseName(sqlFile.getBaseName())
+                .templateName(sqlFile.getTemplateName())
+                .directives(sqlFile.getDirectives())
+                .parameterNames(sqlFile.getParameterNames())
+                .build();
+    }
+}
@@ -0,0 +1,166 @@
+package com.etljobs.sql2json2api.service.sql;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.stereotype.Component;
+
+import com.etljobs.sql2json2api.model.SqlFile;
+
+/**
+ * Converts the column values of a query into template-ready strings while the rows are read,
+ * so that templates can print them as they are instead of formatting every row with
+ * {@code ?c} or {@code ?string(...)}:
+ * <ul>
+ * <li>numbers are written in plain computer format (no grouping, no exponent for decimals),
+ * read through the primitive getters of the result set for integer and floating point types</li>
+ * <li>dates, times and timestamps are formatted with the configured patterns</li>
+ * <li>booleans become "true" or "false", character and CLOB columns are read as strings</li>
+ * </ul>
+ * The reader of each column is chosen once per query from the result set metadata and the
+ * formatters are built once per query. Other types (binary, arrays, driver specific objects)
+ * are read without conversion.
+ * <p>
+ * The conversion is disabled by default ({@code app.sql.conversion.enabled}) and can be
+ * switched per SQL file with {@code @sql-convert-values}. The columns used by the engine
+ * (page key, partition, watermark, outbox key) keep their JDBC type.
+ */
+@Component
+public class ColumnValueConverter {
+
+    /**
+     * Reads the value of one column of the current row.
+     */
+    @FunctionalInterface
+    public interface ColumnReader {
+        Object read(ResultSet rs, int column) throws SQLException;
+    }
+
+    private static final ColumnReader RAW_READER = JdbcUtils::getResultSetValue;
+
+    @Value("${app.sql.conversion.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.sql.conversion.date-format:yyyy-MM-dd}")
+    private String dateFormat;
+
+    @Value("${app.sql.conversion.time-format:HH:mm:ss}")
+    private String timeFormat;
+
+    @Value("${app.sql.conversion.timestamp-format:yyyy-MM-dd'T'HH:mm:ss}")
+    private String timestampFormat;
+
+    /**
+     * @param sqlFile The SQL file about to run
+     * @return true if the values of the SQL file are converted
+     */
+    public boolean isEnabled(SqlFile sqlFile) {
+        String directive = sqlFile.getDirective(SqlFileDirectives.CONVERT_VALUES);
+        return directive != null && !directive.isBlank() ? Boolean.parseBoolean(directive.trim()) : enabled;
+    }
+
+    /**
+     * Describes how the values of a SQL file are read, so that a result cached with
+     * other conversion settings is not replayed.
+     *
+     * @param sqlFile The SQL file about to run
+     * @return "raw", or the formats used when the values of the SQL file are converted
+     */
+    public String describe(SqlFile sqlFile) {
+        if (!isEnabled(sqlFile)) {
+            return "raw";
+        }
+        return "converted date=" + dateFormat + " time=" + timeFormat + " timestamp=" + timestampFormat;
+    }
+
+    /**
+     * Chooses the reader of each column of a result set.
+     *
+     * @param metaData The metadata of the result set
+     * @param rawColumns The columns read without conversion, matched case-insensitively
+     * @return The readers, indexed by column position minus one
+     * @throws SQLException if the metadata cannot be read
+     */
+    public ColumnReader[] readers(ResultSetMetaData metaData, Set<String> rawColumns) throws SQLException {
+        Formats formats = new Formats(DateTimeFormatter.ofPattern(dateFormat),
+                DateTimeFormatter.ofPattern(timeFormat), DateTimeFormatter.ofPattern(timestampFormat));
+        Set<String> raw = rawColumns.stream().map(column -> column.toLowerCase(Locale.ROOT))
+                .collect(Collectors.toSet());
+
+        ColumnReader[] readers = new ColumnReader[metaData.getColumnCount()];
+        for (int column = 1; column <= readers.length; column++) {
+            String name = JdbcUtils.lookupColumnName(metaData, column);
+            readers[column - 1] = raw.contains(name.toLowerCase(Locale.ROOT))
+                    ? RAW_READER
+                    : reader(metaData.getColumnType(column), formats);
+        }
+        return readers;
+    }
+
+    /**
+     * Returns the reader of a column of the given JDBC type.
+     */
+    static ColumnReader reader(int sqlType, Formats formats) {
+        return switch (sqlType) {
+            case Types.TINYINT, Types.SMALLINT, Types.INTEGER -> (rs, column) -> {
+                int value = rs.getInt(column);
+                return rs.wasNull() ? null : Integer.toString(value);
+            };
+            case Types.BIGINT -> (rs, column) -> {
+                long value = rs.getLong(column);
+                return rs.wasNull() ? null : Long.toString(value);
+            };
+            case Types.REAL, Types.FLOAT, Types.DOUBLE -> (rs, column) -> {
+                double value = rs.getDouble(column);
+                // NaN and infinity have no JSON representation
+                return rs.wasNull() || !Double.isFinite(value) ? null : Double.toString(value);
+            };
+            case Types.DECIMAL, Types.NUMERIC -> (rs, column) -> {
+                BigDecimal value = rs.getBigDecimal(column);
+                return value != null ? value.toPlainString() : null;
+            };
+            case Types.BIT, Types.BOOLEAN -> (rs, column) -> {
+                boolean value = rs.getBoolean(column);
+                return rs.wasNull() ? null : Boolean.toString(value);
+            };
+            case Types.DATE -> (rs, column) -> {
+                Date value = rs.getDate(column);
+                return value != null ? formats.date().format(value.toLocalDate()) : null;
+            };
+            case Types.TIME -> (rs, column) -> {
+                Time value = rs.getTime(column);
+                return value != null ? formats.time().format(value.toLocalTime()) : null;
+            };
+            case Types.TIMESTAMP -> (rs, column) -> {
+                Timestamp value = rs.getTimestamp(column);
+                return value != null ? formats.timestamp().format(value.toLocalDateTime()) : null;
+            };
+            case Types.TIMESTAMP_WITH_TIMEZONE -> (rs, column) -> {
+                OffsetDateTime value = rs.getObject(column, OffsetDateTime.class);
+                return value != null ? DateTimeFormatter.ISO_OFFSET_DATE_TIME.format(value) : null;
+            };
+            case Types.CHAR, Types.VARCHAR, Types.LONGVARCHAR, Types.NCHAR, Types.NVARCHAR,
+                    Types.LONGNVARCHAR, Types.CLOB, Types.NCLOB -> ResultSet::getString;
+            default -> RAW_READER;
+        };
+    }
+
+    /**
+     * The formatters of a query, built once from the configured patterns.
+     */
+    record Formats(DateTimeFormatter date, DateTimeFormatter time, DateTimeFormatter timestamp) {
+    }
+}
@@ -0,0 +1,95 @@
+package com.etljobs.sql2json2api.service.sql;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Read-only row of a query result: a reference to the schema shared by all the rows
+ * of the query plus an array of values. It implements Map so that it can be used
+ * wherever a row map is expected (templates, placeholders), with case-insensitive keys.
+ */
+public final class CompactRow extends AbstractMap<String, Object> {
+
+    private final RowSchema schema;
+    private final Object[] values;
+
+    /**
+     * @param schema The shared column layout
+     * @param values The values, one per schema slot
+     */
+    public CompactRow(RowSchema schema, Object[] values) {
+        if (values.length != schema.size()) {
+            throw new IllegalArgumentException("Expected " + schema.size() + " values but got " + values.length);
+        }
+        this.schema = schema;
+        this.values = values;
+    }
+
+    /**
+     * @return The column layout shared by all the rows of the query
+     */
+    public RowSchema getSchema() {
+        return schema;
+    }
+
+    /**
+     * @param index The column slot
+     * @return The value at this slot
+     */
+    public Object getValue(int index) {
+        return values[index];
+    }
+
+    @Override
+    public Object get(Object key) {
+        int index = schema.indexOf(key);
+        return index >= 0 ? values[index] : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return schema.indexOf(key) >= 0;
+    }
+
+    @Override
+    public int size() {
+        return values.length;
+    }
+
+    @Override
+    public Set<Map.Entry<String, Object>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Map.Entry<String, Object>> iterator() {
+                return new Iterator<>() {
+                    private int index = 0;
+
+                    @Override
+                    public boolean hasNext() {
+                        return index < values.length;
+                    }
+
+                    @Override
+                    public Map.Entry<String, Object> next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        Map.Entry<String, Object> entry =
+                                new SimpleImmutableEntry<>(schema.getColumnName(index), values[index]);
+                        index++;
+                        return entry;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return values.length;
+            }
+        };
+    }
+}
@@ -0,0 +1,85 @@
+package com.etljobs.sql2json2api.service.sql;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.support.JdbcUtils;
+
+/**
+ * Maps each row of a result set to a {@link CompactRow}. The column schema is read from
+ * the result set metadata once, on the first row, and shared by all the following rows.
+ * An instance must therefore only be used for a single query.
+ * <p>
+ * With a {@link ColumnValueConverter}, the values are converted into template-ready strings
+ * by readers chosen from the metadata at the same time as the schema.
+ */
+public class CompactRowMapper implements RowMapper<Map<String, Object>> {
+
+    private final ColumnValueConverter converter;
+    private final Set<String> rawColumns;
+    private RowSchema schema;
+    private int[] slots;
+    private ColumnValueConverter.ColumnReader[] readers;
+
+    public CompactRowMapper() {
+        this(null, Set.of());
+    }
+
+    /**
+     * @param converter The converter of the column values, or null to keep the JDBC values
+     * @param rawColumns The columns read without conversion
+     */
+    public CompactRowMapper(ColumnValueConverter converter, Set<String> rawColumns) {
+        this.converter = converter;
+        this.rawColumns = rawColumns;
+    }
+
+    @Override
+    public Map<String, Object> mapRow(ResultSet rs, int rowNum) throws SQLException {
+        if (schema == null) {
+            initSchema(rs.getMetaData());
+        }
+        Object[] values = new Object[schema.size()];
+        if (readers != null) {
+            for (int column = 1; column <= slots.length; column++) {
+                values[slots[column - 1]] = readers[column - 1].read(rs, column);
+            }
+        } else {
+            for (int column = 1; column <= slots.length; column++) {
+                values[slots[column - 1]] = JdbcUtils.getResultSetValue(rs, column);
+            }
+        }
+        return new CompactRow(schema, values);
+    }
+
+    /**
+     * @return The schema of the mapped rows, or null before the first row
+     */
+    public RowSchema getSchema() {
+        return schema;
+    }
+
+    private void initSchema(ResultSetMetaData metaData) throws SQLException {
+        int columnCount = metaData.getColumnCount();
+        List<String> columnNames = new ArrayList<>(columnCount);
+        for (int column = 1; column <= columnCount; column++) {
+            columnNames.add(JdbcUtils.lookupColumnName(metaData, column));
+        }
+        RowSchema rowSchema = new RowSchema(columnNames);
+
+        // Duplicate column names share a slot: the last column wins
+        int[] columnSlots = new int[columnCount];
+        for (int column = 0; column < columnCount; column++) {
+            columnSlots[column] = rowSchema.indexOf(columnNames.get(column));
+        }
+        this.slots = columnSlots;
+        this.readers = converter != null ? converter.readers(metaData, rawColumns) : null;
+        this.schema = rowSchema;
+    }
+}
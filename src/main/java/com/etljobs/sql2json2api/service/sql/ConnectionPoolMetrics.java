@@ -0,0 +1,203 @@
+package com.etljobs.sql2json2api.service.sql;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.stereotype.Component;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Collecte les métriques des pools de connexions JDBC : temps d'attente pour
+ * obtenir une connexion, durée d'utilisation, timeouts et nombre de connexions
+ * actives. Permet d'identifier si la base de données est le goulot d'étranglement.
+ * Les métriques sont tenues séparément pour chaque pool (principal et sources
+ * nommées), identifié par son nom, à partir de son démarrage.
+ */
+@Component
+@Slf4j
+public class ConnectionPoolMetrics implements MetricsTrackerFactory {
+
+    private final Map<String, PoolMetrics> pools = new LinkedHashMap<>();
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        log.debug("Suivi des métriques activé pour le pool {}", poolName);
+        PoolMetrics metrics = new PoolMetrics(poolName, poolStats);
+        synchronized (pools) {
+            pools.put(poolName, metrics);
+        }
+        return metrics.new Tracker();
+    }
+
+    /**
+     * @param poolName Le nom du pool
+     * @return Les métriques du pool, ou null s'il n'a pas encore démarré
+     */
+    public PoolMetrics getPool(String poolName) {
+        synchronized (pools) {
+            return pools.get(poolName);
+        }
+    }
+
+    /**
+     * @return Les métriques des pools démarrés, dans l'ordre de leur démarrage
+     */
+    public List<PoolMetrics> getPools() {
+        synchronized (pools) {
+            return new ArrayList<>(pools.values());
+        }
+    }
+
+    /**
+     * Journalise un résumé des métriques de chaque pool démarré.
+     *
+     * @param context Contexte affiché dans le message (nom de fichier SQL, etc.)
+     */
+    public void logSummary(String context) {
+        for (PoolMetrics pool : getPools()) {
+            pool.logSummary(context);
+        }
+    }
+
+    /**
+     * Métriques d'un pool de connexions.
+     */
+    public static class PoolMetrics {
+
+        private final String poolName;
+        private final PoolStats poolStats;
+        private final LongAdder acquisitions = new LongAdder();
+        private final LongAdder totalWaitNanos = new LongAdder();
+        private final AtomicLong maxWaitNanos = new AtomicLong();
+        private final LongAdder totalUsageMillis = new LongAdder();
+        private final LongAdder timeouts = new LongAdder();
+        private final AtomicLong peakActiveConnections = new AtomicLong();
+
+        PoolMetrics(String poolName, PoolStats poolStats) {
+            this.poolName = poolName;
+            this.poolStats = poolStats;
+        }
+
+        /**
+         * @return Nom du pool
+         */
+        public String getPoolName() {
+            return poolName;
+        }
+
+        /**
+         * @return Nombre de connexions obtenues depuis le pool
+         */
+        public long getAcquisitionCount() {
+            return acquisitions.sum();
+        }
+
+        /**
+         * @return Temps d'attente moyen pour obtenir une connexion, en millisecondes
+         */
+        public double getAverageWaitMillis() {
+            long count = acquisitions.sum();
+            return count == 0 ? 0 : (double) totalWaitNanos.sum() / count / TimeUnit.MILLISECONDS.toNanos(1);
+        }
+
+        /**
+         * @return Temps d'attente maximal pour obtenir une connexion, en millisecondes
+         */
+        public double getMaxWaitMillis() {
+            return (double) maxWaitNanos.get() / TimeUnit.MILLISECONDS.toNanos(1);
+        }
+
+        /**
+         * @return Durée moyenne d'utilisation d'une connexion, en millisecondes
+         */
+        public double getAverageUsageMillis() {
+            long count = acquisitions.sum();
+            return count == 0 ? 0 : (double) totalUsageMillis.sum() / count;
+        }
+
+        /**
+         * @return Nombre de demandes de connexion ayant expiré
+         */
+        public long getTimeoutCount() {
+            return timeouts.sum();
+        }
+
+        /**
+         * @return Nombre de connexions actuellement empruntées
+         */
+        public int getActiveConnections() {
+            return poolStats.getActiveConnections();
+        }
+
+        /**
+         * @return Nombre maximal de connexions empruntées simultanément observé
+         */
+        public long getPeakActiveConnections() {
+            return peakActiveConnections.get();
+        }
+
+        /**
+         * @return Nombre de threads en attente d'une connexion
+         */
+        public int getPendingThreads() {
+            return poolStats.getPendingThreads();
+        }
+
+        /**
+         * @return Taille maximale du pool
+         */
+        public int getMaxConnections() {
+            return poolStats.getMaxConnections();
+        }
+
+        private void logSummary(String context) {
+            log.info("Pool de connexions {} [{}]: {} acquisitions, attente moy. {} ms / max {} ms, "
+                    + "utilisation moy. {} ms, actives {}/{} (pic {}), en attente {}, timeouts {}",
+                    poolName, context, getAcquisitionCount(),
+                    String.format("%.2f", getAverageWaitMillis()), String.format("%.2f", getMaxWaitMillis()),
+                    String.format("%.2f", getAverageUsageMillis()),
+                    getActiveConnections(), getMaxConnections(), getPeakActiveConnections(),
+                    getPendingThreads(), getTimeoutCount());
+
+            if (getTimeoutCount() > 0 || getPendingThreads() > 0) {
+                log.warn("Le pool de connexions {} semble saturé: augmentez la taille maximale de son pool "
+                        + "(spring.datasource.pool ou spring.datasource.sources.<nom>.pool) "
+                        + "ou réduisez app.threading.pool-size", poolName);
+            }
+        }
+
+        /**
+         * Tracker enregistrant les événements remontés par HikariCP pour ce pool.
+         */
+        private class Tracker implements IMetricsTracker {
+
+            @Override
+            public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+                acquisitions.increment();
+                totalWaitNanos.add(elapsedAcquiredNanos);
+                maxWaitNanos.accumulateAndGet(elapsedAcquiredNanos, Math::max);
+                peakActiveConnections.accumulateAndGet(getActiveConnections(), Math::max);
+            }
+
+            @Override
+            public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+                totalUsageMillis.add(elapsedBorrowedMillis);
+            }
+
+            @Override
+            public void recordConnectionTimeout() {
+                timeouts.increment();
+            }
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.etljobs.sql2json2api.service.sql;
+
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.etljobs.sql2json2api.config.DatabaseConfig;
+import com.etljobs.sql2json2api.config.SqlConfig;
+import com.etljobs.sql2json2api.exception.SqlExecutionException;
+import com.etljobs.sql2json2api.model.SqlFile;
+
+/**
+ * Chooses the datasource of each SQL file among the primary datasource ({@code spring.datasource.*})
+ * and the named ones ({@code spring.datasource.sources.<name>.*}), for instance a read replica
+ * for the heavy extraction queries. The name is read from, in order:
+ * <ol>
+ * <li>the {@code @sql-datasource} directive of the file</li>
+ * <li>the {@code app.sql.datasource-routing} map, keyed by file name</li>
+ * <li>{@code app.sql.default-datasource}</li>
+ * </ol>
+ * and defaults to {@value #PRIMARY}.
+ * <p>
+ * The datasource is selected for the current thread while a SQL file is read, and the
+ * threads reading it in the background inherit it through {@link #propagate}. Threads
+ * without a selection, such as the write-back thread, use the primary datasource.
+ */
+@Component
+public class DataSourceRouter {
+
+    /**
+     * Name of the datasource configured directly under spring.datasource
+     */
+    public static final String PRIMARY = "primary";
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private final SqlConfig sqlConfig;
+    private final DatabaseConfig databaseConfig;
+
+    @Autowired
+    public DataSourceRouter(SqlConfig sqlConfig, DatabaseConfig databaseConfig) {
+        this.sqlConfig = sqlConfig;
+        this.databaseConfig = databaseConfig;
+    }
+
+    /**
+     * @param sqlFile The SQL file
+     * @return The name of the datasource the SQL file is read from
+     * @throws SqlExecutionException if the name is not a configured datasource
+     */
+    public String dataSourceName(SqlFile sqlFile) {
+        String name = sqlFile.getDirective(SqlFileDirectives.DATASOURCE);
+        if (name == null || name.isBlank()) {
+            name = sqlConfig.getDatasourceRouting().get(sqlFile.getFileName());
+        }
+        if (name == null || name.isBlank()) {
+            name = sqlConfig.getDefaultDatasource();
+        }
+        if (name == null || name.isBlank()) {
+            return PRIMARY;
+        }
+        name = name.trim();
+        if (!name.equals(PRIMARY) && !databaseConfig.getSources().containsKey(name)) {
+            throw new SqlExecutionException("Unknown datasource '" + name + "' for " + sqlFile.getFileName()
+                    + ", expected " + PRIMARY + " or one of spring.datasource.sources " + databaseConfig.getSources().keySet());
+        }
+        return name;
+    }
+
+    /**
+     * Runs an action with the datasource of a SQL file selected for the current thread,
+     * then restores the previous selection.
+     *
+     * @param sqlFile The SQL file
+     * @param action The action reading the SQL file
+     * @return The result of the action
+     */
+    public <T> T callOn(SqlFile sqlFile, Supplier<T> action) {
+        String previous = CURRENT.get();
+        CURRENT.set(dataSourceName(sqlFile));
+        try {
+            return action.get();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    /**
+     * @return The name of the datasource selected for the current thread
+     */
+    public static String currentName() {
+        String name = CURRENT.get();
+        return name != null ? name : PRIMARY;
+    }
+
+    /**
+     * @return The name, URL and user of the datasource selected for the current thread, which
+     *         identify the database it reads
+     */
+    public String currentIdentity() {
+        String name = currentName();
+        if (name.equals(PRIMARY)) {
+            return name + "\n" + databaseConfig.getUrl() + "\n" + databaseConfig.getUsername();
+        }
+        DatabaseConfig.Source source = databaseConfig.getSources().get(name);
+        return source != null ? name + "\n" + source.getUrl() + "\n" + source.getUsername() : name;
+    }
+
+    /**
+     * Wraps a task run on another thread so that it uses the datasource selected for the
+     * calling thread.
+     *
+     * @param task The task
+     * @return The task running with the datasource of the calling thread
+     */
+    public static Runnable propagate(Runnable task) {
+        String name = CURRENT.get();
+        return () -> {
+            String previous = CURRENT.get();
+            CURRENT.set(name);
+            try {
+                task.run();
+            } finally {
+                restore(previous);
+            }
+        };
+    }
+
+    /**
+     * @see #propagate(Runnable)
+     */
+    public static <T> Callable<T> propagate(Callable<T> task) {
+        String name = CURRENT.get();
+        return () -> {
+            String previous = CURRENT.get();
+            CURRENT.set(name);
+            try {
+                return task.call();
+            } finally {
+                restore(previous);
+            }
+        };
+    }
+
+    /**
+     * Wraps a task so that it uses the primary datasource, whatever the thread running it.
+     *
+     * @param task The task
+     * @return The task running with the primary datasource
+     */
+    public static Runnable onPrimary(Runnable task) {
+        return () -> {
+            String previous = CURRENT.get();
+            CURRENT.remove();
+            try {
+                task.run();
+            } finally {
+                restore(previous);
+            }
+        };
+    }
+
+    private static void restore(String previous) {
+        if (previous != null) {
+            CURRENT.set(previous);
+        } else {
+            CURRENT.remove();
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.etljobs.sql2json2api.service.sql;
+
+import java.util.Locale;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * Execution settings chosen for a SQL file from the estimate of its result size.
+ */
+@Getter
+@Builder
+public class ExecutionPlan {
+
+    /**
+     * How the result is read from the database.
+     */
+    public enum ReadMode {
+        /**
+         * Rows streamed from the cursor to the API calls, the connection is held until the last call
+         */
+        STREAMING,
+        /**
+         * Result read at once into the row buffer, which fits in memory
+         */
+        IN_MEMORY,
+        /**
+         * Result read at once into the row buffer, which spills to disk beyond its memory threshold
+         */
+        SPILL
+    }
+
+    private final String fileName;
+
+    /**
+     * Estimated number of rows returned by the SQL file
+     */
+    private final long estimatedRows;
+
+    /**
+     * Optimizer cost, null if not provided by the estimation method
+     */
+    private final Double estimatedCost;
+
+    /**
+     * Estimated size of the result in bytes
+     */
+    private final long estimatedBytes;
+
+    /**
+     * Estimation method: "EXPLAIN" or "COUNT"
+     */
+    private final String estimationMethod;
+
+    /**
+     * Duration of the estimation in milliseconds
+     */
+    private final long estimationMillis;
+
+    private final ReadMode readMode;
+
+    /**
+     * Number of partitions read in parallel, null if the SQL file is not partitioned
+     */
+    private final Integer partitions;
+
+    /**
+     * Number of threads of the API call pool
+     */
+    private final int threads;
+
+    /**
+     * @return true if the result is read through the row buffer
+     */
+    public boolean isBuffered() {
+        return readMode != ReadMode.STREAMING;
+    }
+
+    /**
+     * @return A one-line description of the estimate and the chosen settings, for the logs
+     */
+    public String describe() {
+        StringBuilder description = new StringBuilder()
+                .append("~").append(estimatedRows).append(" rows, ~").append(estimatedBytes / 1024).append(" KB (")
+                .append(estimationMethod);
+        if (estimatedCost != null) {
+            description.append(String.format(Locale.ROOT, ", cost %.2f", estimatedCost));
+        }
+        description.append(", ").append(estimationMillis).append(" ms): ")
+                .append(readMode.name().toLowerCase(Locale.ROOT).replace('_', '-'));
+        if (partitions != null) {
+            description.append(", ").append(partitions).append(" partitions");
+        }
+        return description.append(", ").append(threads).append(" threads").toString();
+    }
+}
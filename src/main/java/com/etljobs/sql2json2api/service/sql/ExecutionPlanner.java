@@ -0,0 +1,193 @@
+package com.etljobs.sql2json2api.service.sql;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.etljobs.sql2json2api.config.ThreadingConfig;
+import com.etljobs.sql2json2api.model.SqlFile;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Sizes the execution of each SQL file from a pre-flight estimate of its result
+ * ({@link QueryCostEstimator}) instead of one static configuration for every file:
+ * <ul>
+ * <li>read mode: small results are read at once into the row buffer (the connection is released
+ * immediately), medium ones spill to disk, results too large for the spill limit are streamed;</li>
+ * <li>number of partitions, for files declaring {@code @sql-partition-column} without {@code @sql-partitions};</li>
+ * <li>number of threads of the API call pool.</li>
+ * </ul>
+ * Settings declared in the SQL file always take precedence. Enabled with {@code app.sql.preflight.enabled}.
+ */
+@Service
+@Slf4j
+public class ExecutionPlanner {
+
+    private final QueryCostEstimator costEstimator;
+    private final ThreadingConfig threadingConfig;
+
+    @Value("${app.sql.preflight.enabled:false}")
+    private boolean enabled;
+
+    /**
+     * Average row size assumed when the estimation method does not provide the row width
+     */
+    @Value("${app.sql.preflight.average-row-bytes:512}")
+    private long averageRowBytes;
+
+    @Value("${app.sql.preflight.rows-per-partition:250000}")
+    private long rowsPerPartition;
+
+    @Value("${app.sql.preflight.max-partitions:16}")
+    private int maxPartitions;
+
+    @Value("${app.sql.preflight.rows-per-thread:500}")
+    private long rowsPerThread;
+
+    /**
+     * Maximum number of threads of the API call pool, 0 = app.threading.pool-size
+     */
+    @Value("${app.sql.preflight.max-pool-size:0}")
+    private int maxPoolSize;
+
+    @Value("${app.sql.buffer.memory-threshold-bytes:67108864}")
+    private long bufferMemoryThresholdBytes;
+
+    @Value("${app.sql.buffer.max-spill-bytes:4294967296}")
+    private long bufferMaxSpillBytes;
+
+    @Autowired
+    public ExecutionPlanner(QueryCostEstimator costEstimator, ThreadingConfig threadingConfig) {
+        this.costEstimator = costEstimator;
+        this.threadingConfig = threadingConfig;
+    }
+
+    /**
+     * @return true if the SQL files are estimated before they run
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Estimates the result of the SQL file and chooses its execution settings.
+     *
+     * @param sqlFile The SQL file about to run
+     * @return The execution plan, or null if disabled or the estimation failed
+     */
+    public ExecutionPlan plan(SqlFile sqlFile) {
+        if (!enabled) {
+            return null;
+        }
+        QueryCostEstimator.Estimate estimate = costEstimator.estimate(sqlFile);
+        if (estimate == null) {
+            return null;
+        }
+        ExecutionPlan plan = plan(sqlFile, estimate);
+        log.info("Execution plan of {}: {}", sqlFile.getFileName(), plan.describe());
+        return plan;
+    }
+
+    /**
+     * Chooses the execution settings of a SQL file for a given estimate.
+     */
+    ExecutionPlan plan(SqlFile sqlFile, QueryCostEstimator.Estimate estimate) {
+        long rows = estimate.getRows();
+        long bytes = estimate.getBytes() != null ? estimate.getBytes() : rows * averageRowBytes;
+
+        ExecutionPlan.ReadMode readMode;
+        String declaredBuffer = sqlFile.getDirective(SqlFileDirectives.BUFFER);
+        boolean bufferDeclared = declaredBuffer != null && !declaredBuffer.isBlank();
+        if (bufferDeclared && !Boolean.parseBoolean(declaredBuffer.trim())) {
+            readMode = ExecutionPlan.ReadMode.STREAMING;
+        } else if (bytes <= bufferMemoryThresholdBytes) {
+            readMode = ExecutionPlan.ReadMode.IN_MEMORY;
+        } else if (bytes <= bufferMaxSpillBytes || bufferDeclared) {
+            readMode = ExecutionPlan.ReadMode.SPILL;
+        } else {
+            readMode = ExecutionPlan.ReadMode.STREAMING;
+        }
+
+        int poolLimit = maxPoolSize > 0 ? maxPoolSize : threadingConfig.getPoolSize();
+        return ExecutionPlan.builder()
+                .fileName(sqlFile.getFileName())
+                .estimatedRows(rows)
+                .estimatedCost(estimate.getCost())
+                .estimatedBytes(bytes)
+                .estimationMethod(estimate.getMethod())
+                .estimationMillis(estimate.getMillis())
+                .readMode(readMode)
+                .partitions(partitions(sqlFile, rows))
+                .threads(clamp(divideRoundingUp(rows, rowsPerThread), poolLimit))
+                .build();
+    }
+
+    /**
+     * Returns a copy of the SQL file completed with the directives chosen by the plan,
+     * for the settings the file does not declare.
+     *
+     * @param sqlFile The SQL file
+     * @param plan Its execution plan
+     * @return The SQL file to execute
+     */
+    public SqlFile apply(SqlFile sqlFile, ExecutionPlan plan) {
+        Map<String, String> directives = new LinkedHashMap<>();
+        if (sqlFile.getDirectives() != null) {
+            directives.putAll(sqlFile.getDirectives());
+        }
+        putIfUndeclared(directives, SqlFileDirectives.BUFFER, String.valueOf(plan.isBuffered()));
+        if (plan.getPartitions() != null) {
+            putIfUndeclared(directives, SqlFileDirectives.PARTITIONS, String.valueOf(plan.getPartitions()));
+        }
+        return SqlFile.builder()
+                .fileName(sqlFile.getFileName())
+                .content(sqlFile.getContent())
+                .httpMethod(sqlFile.getHttpMethod())
+                .baseName(sqlFile.getBaseName())
+                .templateName(sqlFile.getTemplateName())
+                .directives(directives)
+                .parameterNames(sqlFile.getParameterNames())
+                .build();
+    }
+
+    /**
+     * Returns the number of partitions of a partitioned SQL file, null if not partitioned.
+     */
+    private Integer partitions(SqlFile sqlFile, long rows) {
+        String partitionColumn = sqlFile.getDirective(SqlFileDirectives.PARTITION_COLUMN);
+        String watermarkColumn = sqlFile.getDirective(SqlFileDirectives.WATERMARK_COLUMN);
+        if (partitionColumn == null || partitionColumn.isBlank()
+                || watermarkColumn != null && !watermarkColumn.isBlank()) {
+            return null;
+        }
+        String declared = sqlFile.getDirective(SqlFileDirectives.PARTITIONS);
+        if (declared != null && !declared.isBlank()) {
+            try {
+                return Integer.parseInt(declared.trim());
+            } catch (NumberFormatException e) {
+                // Reported when the file runs
+                return null;
+            }
+        }
+        return clamp(divideRoundingUp(rows, rowsPerPartition), maxPartitions);
+    }
+
+    private static void putIfUndeclared(Map<String, String> directives, String name, String value) {
+        String declared = directives.get(name);
+        if (declared == null || declared.isBlank()) {
+            directives.put(name, value);
+        }
+    }
+
+    private static long divideRoundingUp(long value, long divisor) {
+        return divisor > 0 ? (value + divisor - 1) / divisor : 1;
+    }
+
+    private static int clamp(long value, int max) {
+        return (int) Math.max(1, Math.min(value, Math.max(1, max)));
+    }
+}
@@ -0,0 +1,69 @@
+package com.etljobs.sql2json2api.service.sql;
+
+import com.etljobs.sql2json2api.exception.SqlExecutionException;
+import com.etljobs.sql2json2api.model.SqlFile;
+import com.etljobs.sql2json2api.service.incremental.WatermarkStore;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Reads only the rows beyond the last watermark persisted for a SQL file, in ascending
+ * watermark order, with a single streamed query. Rows with a NULL watermark are never
+ * selected. The watermark itself is advanced by the
+ * {@link com.etljobs.sql2json2api.service.incremental.WatermarkTracker} as rows complete.
+ */
+@Slf4j
+class IncrementalQueryExecutor {
+
+    private final StreamingQueryExecutor streamingExecutor;
+    private final WatermarkStore watermarkStore;
+
+    IncrementalQueryExecutor(StreamingQueryExecutor streamingExecutor, WatermarkStore watermarkStore) {
+        this.streamingExecutor = streamingExecutor;
+        this.watermarkStore = watermarkStore;
+    }
+
+    /**
+     * Streams the rows of the SQL file beyond its last watermark.
+     *
+     * @param sqlFile The SQL file to execute
+     * @param query The SQL query of the file, with the values of its placeholders
+     * @param watermarkColumn The result column holding the watermark
+     * @param rowMapper The mapper of the rows
+     * @param rowHandler The callback receiving each row
+     * @return The number of rows read
+     * @throws SqlExecutionException if the query execution fails
+     */
+    int execute(SqlFile sqlFile, ParameterizedSql query, String watermarkColumn, CompactRowMapper rowMapper,
+            RowHandler rowHandler) {
+        if (!SqlExecutionService.COLUMN_NAME_PATTERN.matcher(watermarkColumn).matches()) {
+            throw new SqlExecutionException("Invalid watermark column: " + watermarkColumn);
+        }
+
+        Object watermark = watermarkStore.getWatermark(sqlFile.getFileName());
+        if (watermark == null) {
+            log.info("Incremental mode for {}: no watermark yet, reading all rows", sqlFile.getFileName());
+        } else {
+            log.info("Incremental mode for {}: reading rows with {} > {}", sqlFile.getFileName(), watermarkColumn, watermark);
+        }
+
+        String sql = buildIncrementalQuery(query.getSql(), watermarkColumn, watermark != null);
+        return streamingExecutor.execute(sql, watermark != null ? query.argsWith(watermark) : query.getArgs(),
+                rowMapper, rowHandler);
+    }
+
+    /**
+     * Builds the query of the incremental mode.
+     *
+     * @param sql The original SQL query
+     * @param watermarkColumn The watermark column
+     * @param fromWatermark true to select only rows beyond a watermark (one positional parameter)
+     * @return The incremental query
+     */
+    static String buildIncrementalQuery(String sql, String watermarkColumn, boolean fromWatermark) {
+        String column = SqlExecutionService.SUBQUERY_ALIAS + "." + watermarkColumn;
+        return "SELECT * FROM " + SqlExecutionService.toSubquery(sql)
+                + " WHERE " + column + (fromWatermark ? " > ?" : " IS NOT NULL")
+                + " ORDER BY " + column;
+    }
+}
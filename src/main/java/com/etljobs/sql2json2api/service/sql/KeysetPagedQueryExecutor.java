@@ -0,0 +1,163 @@
+package com.etljobs.sql2json2api.service.sql;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.etljobs.sql2json2api.exception.SqlExecutionException;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Executes a SQL query page by page using keyset pagination: each page is read with
+ * {@code WHERE key > :last ORDER BY key} and a row limit, so no statement holds locks
+ * or a cursor for the whole extraction. The next page is fetched in the background
+ * while the rows of the current page are handed to the handler.
+ * The key column must be unique, non-null and part of the query result.
+ */
+@Slf4j
+class KeysetPagedQueryExecutor {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Supplier<CompactRowMapper> rowMappers;
+
+    /**
+     * @param rowMappers The mappers of the rows, one per page
+     */
+    KeysetPagedQueryExecutor(JdbcTemplate jdbcTemplate, Supplier<CompactRowMapper> rowMappers) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.rowMappers = rowMappers;
+    }
+
+    /**
+     * Reads the query page by page and hands each row to the handler.
+     *
+     * @param query The SQL query to execute, with the values of its placeholders
+     * @param keyColumn The result column used as paging key
+     * @param pageSize The maximum number of rows per page
+     * @param dialect The SQL dialect used for the row limit
+     * @param rowHandler The callback receiving each row
+     * @return The number of rows read
+     * @throws SqlExecutionException if the query execution fails
+     */
+    int execute(ParameterizedSql query, String keyColumn, int pageSize, SqlDialect dialect, RowHandler rowHandler) {
+        if (!SqlExecutionService.COLUMN_NAME_PATTERN.matcher(keyColumn).matches()) {
+            throw new SqlExecutionException("Invalid page key column: " + keyColumn);
+        }
+        if (pageSize <= 0) {
+            throw new SqlExecutionException("Page size must be positive: " + pageSize);
+        }
+
+        String firstPageSql = buildKeysetPageQuery(query.getSql(), keyColumn, pageSize, dialect, true);
+        String nextPageSql = buildKeysetPageQuery(query.getSql(), keyColumn, pageSize, dialect, false);
+
+        ExecutorService prefetcher = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "sql-page-prefetch");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        try {
+            List<Map<String, Object>> page = fetchPage(firstPageSql, query.getArgs(), rowMappers.get());
+            int rowCount = 0;
+            int pageCount = 0;
+
+            while (!page.isEmpty()) {
+                pageCount++;
+
+                // Start reading the next page before handing the current one to the API stage
+                Future<List<Map<String, Object>>> nextPage = null;
+                if (page.size() >= pageSize) {
+                    Object lastKey = extractKey(page.get(page.size() - 1), keyColumn);
+                    nextPage = prefetcher.submit(DataSourceRouter.propagate(
+                            () -> fetchPage(nextPageSql, query.argsWith(lastKey), rowMappers.get())));
+                }
+
+                for (Map<String, Object> row : page) {
+                    rowHandler.handleRow(row, rowCount++);
+                }
+
+                page = nextPage != null ? awaitPage(nextPage) : List.of();
+            }
+
+            log.debug("Paged query completed. Read {} rows in {} pages.", rowCount, pageCount);
+            return rowCount;
+        } finally {
+            prefetcher.shutdownNow();
+        }
+    }
+
+    /**
+     * Builds the query reading one page in keyset paging mode.
+     *
+     * @param sql The original SQL query
+     * @param keyColumn The paging key column
+     * @param pageSize The maximum number of rows per page
+     * @param dialect The SQL dialect used for the row limit
+     * @param firstPage true for the first page (no lower bound on the key)
+     * @return The page query, with one positional parameter for the last key unless first page
+     */
+    static String buildKeysetPageQuery(String sql, String keyColumn, int pageSize, SqlDialect dialect,
+            boolean firstPage) {
+        String column = SqlExecutionService.SUBQUERY_ALIAS + "." + keyColumn;
+        StringBuilder query = new StringBuilder("SELECT * FROM ").append(SqlExecutionService.toSubquery(sql));
+        if (!firstPage) {
+            query.append(" WHERE ").append(column).append(" > ?");
+        }
+        query.append(" ORDER BY ").append(column);
+        query.append(dialect.limitClause(pageSize));
+        return query.toString();
+    }
+
+    /**
+     * Reads one page of rows. The last key of the previous page, if any, is the last value.
+     */
+    private List<Map<String, Object>> fetchPage(String pageSql, Object[] args, CompactRowMapper rowMapper) {
+        try {
+            log.debug("Fetching page with parameters {}", Arrays.toString(args));
+            return args.length == 0
+                    ? jdbcTemplate.query(pageSql, rowMapper)
+                    : jdbcTemplate.query(pageSql, rowMapper, args);
+        } catch (DataAccessException e) {
+            log.error("Failed to fetch SQL page with parameters {}: {}", Arrays.toString(args), pageSql, e);
+            throw new SqlExecutionException("Failed to fetch SQL page", e);
+        }
+    }
+
+    /**
+     * Waits for a page fetched in the background.
+     */
+    private List<Map<String, Object>> awaitPage(Future<List<Map<String, Object>>> page) {
+        try {
+            return page.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SqlExecutionException("Interrupted while fetching the next SQL page", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof SqlExecutionException sqlException) {
+                throw sqlException;
+            }
+            throw new SqlExecutionException("Failed to fetch the next SQL page", e.getCause());
+        }
+    }
+
+    /**
+     * Returns the paging key of a row, which must not be null.
+     */
+    private static Object extractKey(Map<String, Object> row, String keyColumn) {
+        Object key = row.get(keyColumn);
+        if (key == null) {
+            throw new SqlExecutionException("Page key column '" + keyColumn
+                    + "' is missing or null in the query result");
+        }
+        return key;
+    }
+}
@@ -0,0 +1,18 @@
+package com.etljobs.sql2json2api.service.sql;
+
+/**
+ * Callback invoked between two executions of a SQL file in "loop until empty" mode,
+ * before the query is run again.
+ */
+@FunctionalInterface
+public interface LoopIterationHandler {
+
+    /**
+     * Waits until the rows already handed over have progressed enough to query again.
+     *
+     * @param iteration The 1-based number of the iteration that just ended
+     * @param drain true to wait for all the rows handed over so far, false to only wait
+     *        until the work in flight falls below the re-query threshold
+     */
+    void beforeNextIteration(int iteration, boolean drain);
+}
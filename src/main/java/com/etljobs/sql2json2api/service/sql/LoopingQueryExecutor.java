@@ -0,0 +1,94 @@
+package com.etljobs.sql2json2api.service.sql;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.ToIntFunction;
+
+import com.etljobs.sql2json2api.model.SqlFile;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Executes a SQL file again and again until it returns no rows, for queue-like tables
+ * drained by the API calls.
+ * <p>
+ * Each row is handed over once: rows returned again by the next iteration (still in
+ * flight, or not drained by their call) are recognized by their @sql-row-key and ignored.
+ * Only the keys returned by the previous iteration are kept, so a row must be returned by
+ * every iteration to stay recognized. Between two iterations the iteration handler decides
+ * when to query again. The loop stops when the query returns no rows, after the maximum
+ * number of iterations, or when an iteration run after all previous rows completed returns
+ * no new row (no progress).
+ */
+@Slf4j
+class LoopingQueryExecutor {
+
+    private final int maxIterations;
+
+    /**
+     * @param maxIterations The maximum number of executions of the SQL file
+     */
+    LoopingQueryExecutor(int maxIterations) {
+        this.maxIterations = maxIterations;
+    }
+
+    /**
+     * Runs the iterations of the loop.
+     *
+     * @param sqlFile The SQL file to execute
+     * @param keyColumns The columns of its @sql-row-key
+     * @param iterationReader Reads one execution of the SQL file into the given handler and
+     *        returns the number of rows read
+     * @param rowHandler The callback receiving each new row, with an index unique over the run
+     * @param iterationHandler The callback invoked before each new execution
+     * @return The number of rows handed to the row handler
+     * @throws com.etljobs.sql2json2api.exception.SqlExecutionException if a row has no key value,
+     *         or if a query execution fails
+     */
+    int execute(SqlFile sqlFile, List<String> keyColumns, ToIntFunction<RowHandler> iterationReader,
+            RowHandler rowHandler, LoopIterationHandler iterationHandler) {
+        Set<String> previousKeys = Set.of();
+        int[] handledRows = {0};
+        boolean drained = false;
+
+        for (int iteration = 1; ; iteration++) {
+            if (iteration > maxIterations) {
+                log.warn("Loop on {} stopped after {} iterations (app.sql.loop.max-iterations): the query still returns rows",
+                        sqlFile.getFileName(), maxIterations);
+                break;
+            }
+
+            int rowsBefore = handledRows[0];
+            Set<String> knownKeys = previousKeys;
+            Set<String> iterationKeys = new HashSet<>();
+            int readRows = iterationReader.applyAsInt((row, rowIndex) -> {
+                String key = RowKeys.keyOf(sqlFile, keyColumns, row);
+                if (iterationKeys.add(key) && !knownKeys.contains(key)) {
+                    rowHandler.handleRow(row, handledRows[0]++);
+                }
+            });
+            previousKeys = iterationKeys;
+            int newRows = handledRows[0] - rowsBefore;
+            log.info("Loop on {}, iteration {}: {} rows read, {} new", sqlFile.getFileName(), iteration, readRows, newRows);
+
+            if (readRows == 0) {
+                break;
+            }
+            if (newRows == 0) {
+                if (drained) {
+                    log.warn("Loop on {} stopped: no progress, the {} rows still returned have already been processed",
+                            sqlFile.getFileName(), readRows);
+                    break;
+                }
+                // Only rows already handed over: let them all complete before concluding
+                iterationHandler.beforeNextIteration(iteration, true);
+                drained = true;
+            } else {
+                iterationHandler.beforeNextIteration(iteration, false);
+                drained = false;
+            }
+        }
+        return handledRows[0];
+    }
+}
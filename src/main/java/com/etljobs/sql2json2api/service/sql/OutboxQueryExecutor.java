@@ -0,0 +1,204 @@
+package com.etljobs.sql2json2api.service.sql;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.etljobs.sql2json2api.exception.SqlExecutionException;
+import com.etljobs.sql2json2api.model.SqlFile;
+import com.etljobs.sql2json2api.service.outbox.OutboxTable;
+import com.etljobs.sql2json2api.service.outbox.OutboxTracker;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Consumes an outbox table shared with other instances, using only the database for
+ * coordination. Rows are claimed batch by batch, each batch in a short transaction: the
+ * query is run with a row limit, skipping the rows locked by another instance (see
+ * {@link #buildOutboxClaimQuery}), then the claimed rows are set to the processing status,
+ * with their claim time when the table has a claimed-at column, by a batched update before
+ * the commit. Their final status is written by the {@link OutboxTracker} once their API call
+ * completes. Before the first batch, the rows whose claim has expired are released (see
+ * {@link OutboxTracker#releaseExpiredClaims}). The query must select only the pending rows of
+ * the table (e.g. {@code WHERE status = 'PENDING' ORDER BY id}); claiming stops when it
+ * returns no row.
+ */
+@Slf4j
+class OutboxQueryExecutor {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final OutboxTracker outboxTracker;
+    private final Supplier<CompactRowMapper> rowMappers;
+
+    /**
+     * @param rowMappers The mappers of the rows, one per batch
+     */
+    OutboxQueryExecutor(JdbcTemplate jdbcTemplate, OutboxTracker outboxTracker,
+            Supplier<CompactRowMapper> rowMappers) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.outboxTracker = outboxTracker;
+        this.rowMappers = rowMappers;
+    }
+
+    /**
+     * Claims the rows of the outbox batch by batch and hands them to the handler.
+     *
+     * @param sqlFile The SQL file to execute
+     * @param query The SQL query of the file, with the values of its placeholders
+     * @param outbox The outbox table, its key and status columns
+     * @param batchSize The maximum number of rows claimed at once
+     * @param dialect The SQL dialect used for the row limit and the locking
+     * @param rowHandler The callback receiving each claimed row
+     * @return The number of rows claimed
+     * @throws SqlExecutionException if a batch cannot be claimed or a row is claimed twice
+     */
+    int execute(SqlFile sqlFile, ParameterizedSql query, OutboxTable outbox, int batchSize, SqlDialect dialect,
+            RowHandler rowHandler) {
+        if (batchSize <= 0) {
+            throw new SqlExecutionException("Outbox batch size must be positive: " + batchSize);
+        }
+        String claimSql = buildOutboxClaimQuery(query.getSql(), batchSize, dialect, outbox);
+        log.info("Outbox mode for {}: claiming rows of {} by batches of {}",
+                sqlFile.getFileName(), outbox.getTable(), batchSize);
+        outboxTracker.releaseExpiredClaims(outbox);
+
+        Set<Object> claimedKeys = new HashSet<>();
+        int rowCount = 0;
+        int batchCount = 0;
+        while (true) {
+            List<Map<String, Object>> batch = claimOutboxBatch(claimSql, query.getArgs(), batchSize, outbox,
+                    rowMappers.get());
+            if (batch.isEmpty()) {
+                break;
+            }
+            batchCount++;
+
+            List<Object> keys = batch.stream().map(row -> row.get(outbox.getKeyColumn())).toList();
+            outboxTracker.claimed(sqlFile, outbox, keys);
+            for (Object key : keys) {
+                if (!claimedKeys.add(key)) {
+                    throw new SqlExecutionException("Outbox row " + key + " of " + outbox.getTable()
+                            + " claimed twice: the query of " + sqlFile.getFileName()
+                            + " must select only rows with status " + outboxTracker.getPendingStatus());
+                }
+            }
+            for (Map<String, Object> row : batch) {
+                rowHandler.handleRow(row, rowCount++);
+            }
+        }
+        log.debug("Outbox {} drained: {} rows claimed in {} batches", outbox.getTable(), rowCount, batchCount);
+        return rowCount;
+    }
+
+    /**
+     * Builds the query claiming one batch of rows in outbox mode. Where the row limit is part
+     * of the query, the original query is wrapped as a derived table first, so that its own
+     * LIMIT or ORDER BY clause is kept:
+     * <ul>
+     * <li>PostgreSQL, MySQL 8, H2: {@code LIMIT n FOR UPDATE SKIP LOCKED} on the derived table;</li>
+     * <li>SQL Server, which has no locking clause: {@code TOP (n)} rows of the derived table whose
+     * outbox row can be read {@code WITH (UPDLOCK, READPAST, ROWLOCK)}, in key order (SQL Server
+     * rejects an ORDER BY in a derived table without TOP);</li>
+     * <li>Oracle and others: {@code FOR UPDATE SKIP LOCKED} after the original query, the rows being
+     * locked as they are fetched and the statement max rows bounding the batch.</li>
+     * </ul>
+     *
+     * @param sql The original SQL query, selecting the pending rows of the outbox table
+     * @param batchSize The maximum number of rows claimed
+     * @param dialect The SQL dialect used for the row limit and the locking
+     * @param outbox The outbox table and its key column
+     * @return The claim query
+     */
+    static String buildOutboxClaimQuery(String sql, int batchSize, SqlDialect dialect, OutboxTable outbox) {
+        return switch (dialect) {
+            case MYSQL, POSTGRESQL, H2 -> "SELECT * FROM " + SqlExecutionService.toSubquery(sql)
+                    + " LIMIT " + batchSize + " FOR UPDATE SKIP LOCKED";
+            case SQLSERVER -> {
+                String key = SqlExecutionService.SUBQUERY_ALIAS + "." + outbox.getKeyColumn();
+                yield "SELECT TOP (" + batchSize + ") * FROM " + SqlExecutionService.toSubquery(sql)
+                        + " WHERE EXISTS (SELECT 1 FROM " + outbox.getTable() + " locked WITH (UPDLOCK, READPAST, ROWLOCK)"
+                        + " WHERE locked." + outbox.getKeyColumn() + " = " + key + ")"
+                        + " ORDER BY " + key;
+            }
+            default -> {
+                String body = sql.strip();
+                while (body.endsWith(";")) {
+                    body = body.substring(0, body.length() - 1).stripTrailing();
+                }
+                // On its own line in case the query ends with a line comment
+                yield body + "\nFOR UPDATE SKIP LOCKED";
+            }
+        };
+    }
+
+    /**
+     * Claims one batch of outbox rows in a transaction: the rows are locked, skipping those
+     * locked by other instances, and set to the processing status before the commit.
+     */
+    private List<Map<String, Object>> claimOutboxBatch(String claimSql, Object[] args, int batchSize,
+            OutboxTable outbox, CompactRowMapper rowMapper) {
+        try {
+            return jdbcTemplate.execute((ConnectionCallback<List<Map<String, Object>>>) connection -> {
+                boolean autoCommit = connection.getAutoCommit();
+                connection.setAutoCommit(false);
+                try {
+                    List<Map<String, Object>> rows = new ArrayList<>();
+                    try (PreparedStatement select = connection.prepareStatement(claimSql)) {
+                        select.setMaxRows(batchSize);
+                        for (int i = 0; i < args.length; i++) {
+                            select.setObject(i + 1, args[i]);
+                        }
+                        try (ResultSet rs = select.executeQuery()) {
+                            while (rs.next()) {
+                                rows.add(rowMapper.mapRow(rs, rows.size()));
+                            }
+                        }
+                    }
+
+                    if (!rows.isEmpty()) {
+                        Timestamp claimedAt = Timestamp.from(Instant.now());
+                        try (PreparedStatement update = connection.prepareStatement(outbox.claimSql())) {
+                            for (Map<String, Object> row : rows) {
+                                Object key = row.get(outbox.getKeyColumn());
+                                if (key == null) {
+                                    throw new SqlExecutionException("Outbox key column '" + outbox.getKeyColumn()
+                                            + "' is missing or null in the query result");
+                                }
+                                int index = 1;
+                                update.setObject(index++, outboxTracker.getProcessingStatus());
+                                if (outbox.getClaimedAtColumn() != null) {
+                                    update.setTimestamp(index++, claimedAt);
+                                }
+                                update.setObject(index, key);
+                                update.addBatch();
+                            }
+                            update.executeBatch();
+                        }
+                    }
+                    connection.commit();
+                    return rows;
+                } catch (SQLException | RuntimeException e) {
+                    connection.rollback();
+                    throw e;
+                } finally {
+                    connection.setAutoCommit(autoCommit);
+                }
+            });
+        } catch (DataAccessException e) {
+            log.error("Failed to claim outbox rows: {}", claimSql, e);
+            throw new SqlExecutionException("Failed to claim outbox rows of " + outbox.getTable(), e);
+        }
+    }
+}
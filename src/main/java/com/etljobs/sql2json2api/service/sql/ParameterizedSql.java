@@ -0,0 +1,53 @@
+package com.etljobs.sql2json2api.service.sql;
+
+import lombok.Getter;
+
+/**
+ * SQL query whose named parameters have been replaced by JDBC placeholders,
+ * with the values to bind in placeholder order.
+ */
+@Getter
+public class ParameterizedSql {
+
+    private static final Object[] NO_ARGS = new Object[0];
+
+    /**
+     * The SQL query with '?' placeholders
+     */
+    private final String sql;
+
+    /**
+     * The values of the placeholders, in order
+     */
+    private final Object[] args;
+
+    public ParameterizedSql(String sql, Object[] args) {
+        this.sql = sql;
+        this.args = args;
+    }
+
+    /**
+     * @param sql A SQL query without named parameters
+     * @return The query with no value to bind
+     */
+    public static ParameterizedSql of(String sql) {
+        return new ParameterizedSql(sql, NO_ARGS);
+    }
+
+    /**
+     * Returns the values of the query followed by additional values, for a query
+     * wrapped with extra placeholders after the original one.
+     *
+     * @param extraArgs The values of the extra placeholders
+     * @return All the values to bind
+     */
+    public Object[] argsWith(Object... extraArgs) {
+        if (extraArgs.length == 0) {
+            return args;
+        }
+        Object[] allArgs = new Object[args.length + extraArgs.length];
+        System.arraycopy(args, 0, allArgs, 0, args.length);
+        System.arraycopy(extraArgs, 0, allArgs, args.length, extraArgs.length);
+        return allArgs;
+    }
+}
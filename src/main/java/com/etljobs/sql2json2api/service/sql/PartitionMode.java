@@ -0,0 +1,18 @@
+package com.etljobs.sql2json2api.service.sql;
+
+/**
+ * How a SQL query is split in partitioned extraction mode.
+ */
+public enum PartitionMode {
+
+    /**
+     * Contiguous ranges of the partition column, computed from its MIN and MAX values
+     */
+    RANGE,
+
+    /**
+     * Rows distributed by a hash of the partition column computed by the database
+     * (see {@link SqlDialect#hashBucketExpression}), so the column may be of any type
+     */
+    HASH
+}
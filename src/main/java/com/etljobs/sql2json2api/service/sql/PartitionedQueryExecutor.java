@@ -0,0 +1,435 @@
+package com.etljobs.sql2json2api.service.sql;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import javax.sql.DataSource;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import com.etljobs.sql2json2api.config.RoutingDataSource;
+import com.etljobs.sql2json2api.exception.SqlExecutionException;
+import com.zaxxer.hikari.HikariDataSource;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Runs the partitions of a SQL query in parallel, each one streamed on its own pooled
+ * connection, and merges their rows into a single stream consumed on the caller thread.
+ * Rows are handed over in arrival order, so the order of the original query is not kept.
+ * A partition holds its connection until it has been fully read, so at most
+ * {@code maxConcurrentPartitions} partitions are read at once; the others wait for a
+ * free reader instead of waiting for a connection from the pool.
+ */
+@Slf4j
+class PartitionedQueryExecutor {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int fetchSize;
+    private final int queueCapacity;
+    private final int progressIntervalRows;
+    private final Supplier<CompactRowMapper> rowMappers;
+    private final int maxConcurrentPartitions;
+
+    PartitionedQueryExecutor(JdbcTemplate jdbcTemplate, int fetchSize, int queueCapacity,
+            int progressIntervalRows) {
+        this(jdbcTemplate, fetchSize, queueCapacity, progressIntervalRows, CompactRowMapper::new, 0);
+    }
+
+    /**
+     * @param maxConcurrentPartitions The maximum number of partitions read at once, 0 to read
+     *        them all at once
+     */
+    PartitionedQueryExecutor(JdbcTemplate jdbcTemplate, int fetchSize, int queueCapacity,
+            int progressIntervalRows, Supplier<CompactRowMapper> rowMappers, int maxConcurrentPartitions) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.fetchSize = fetchSize;
+        this.queueCapacity = queueCapacity;
+        this.progressIntervalRows = progressIntervalRows;
+        this.rowMappers = rowMappers;
+        this.maxConcurrentPartitions = maxConcurrentPartitions;
+    }
+
+    /**
+     * Splits a SQL query into partitions on a column (numeric in range mode) and reads them
+     * in parallel. In range mode, the bounds of the partitions are read first from the MIN and
+     * MAX values of the column; a query without any value in the column is read without partitions.
+     *
+     * @param query The SQL query to execute, with the values of its placeholders
+     * @param partitionColumn The result column used to split the query
+     * @param partitionCount The number of partitions
+     * @param mode How the partitions are computed
+     * @param dialect The SQL dialect providing the hash function in hash mode
+     * @param rowHandler The callback receiving each row, always called on the caller thread
+     * @return The total number of rows read
+     * @throws SqlExecutionException if the query execution fails
+     */
+    int execute(ParameterizedSql query, String partitionColumn, int partitionCount, PartitionMode mode,
+            SqlDialect dialect, RowHandler rowHandler) {
+        String sql = query.getSql();
+        if (!SqlExecutionService.COLUMN_NAME_PATTERN.matcher(partitionColumn).matches()) {
+            throw new SqlExecutionException("Invalid partition column: " + partitionColumn);
+        }
+        if (partitionCount <= 0) {
+            throw new SqlExecutionException("Partition count must be positive: " + partitionCount);
+        }
+
+        List<Partition> partitions;
+        if (mode == PartitionMode.HASH) {
+            partitions = buildHashPartitions(sql, partitionColumn, partitionCount, dialect);
+        } else {
+            Map<String, Object> bounds = queryPartitionBounds(query, partitionColumn);
+            Object min = bounds.get("min_value");
+            Object max = bounds.get("max_value");
+            if (min == null || max == null) {
+                log.debug("Partition column {} has no value, reading the query without partitions", partitionColumn);
+                return new StreamingQueryExecutor(jdbcTemplate, fetchSize)
+                        .execute(sql, query.getArgs(), rowMappers.get(), rowHandler);
+            }
+            if (!(min instanceof Number) || !(max instanceof Number)) {
+                throw new SqlExecutionException("Partition column '" + partitionColumn
+                        + "' must be numeric in range mode, use @sql-partition-mode: hash (MySQL, PostgreSQL,"
+                        + " Oracle, SQL Server, H2) or a numeric column");
+            }
+            partitions = buildRangePartitions(sql, partitionColumn, partitionCount,
+                    (long) Math.floor(((Number) min).doubleValue()), (long) Math.ceil(((Number) max).doubleValue()));
+        }
+
+        // The partition placeholders come after those of the original query
+        partitions = partitions.stream().map(partition -> partition.withLeadingArgs(query.getArgs())).toList();
+        return execute(partitions, rowHandler);
+    }
+
+    /**
+     * Returns the number of partitions that can be read at once from the pool of the current
+     * datasource, 0 (no limit) if the pool size is unknown.
+     *
+     * @param dataSource The datasource of the queries
+     * @param reservedConnections The connections of the pool kept for the other work
+     * @return The maximum number of partitions read at once
+     */
+    static int maxConcurrentPartitions(DataSource dataSource, int reservedConnections) {
+        if (dataSource instanceof RoutingDataSource routingDataSource) {
+            dataSource = routingDataSource.currentPool();
+        }
+        if (dataSource instanceof HikariDataSource hikariDataSource) {
+            return Math.max(1, hikariDataSource.getMaximumPoolSize() - reservedConnections);
+        }
+        return 0;
+    }
+
+    /**
+     * Builds range partitions of the query between the given bounds. The first partition
+     * has no lower bound and also takes NULL values, the last one has no upper bound,
+     * so every row belongs to exactly one partition.
+     *
+     * @param sql The SQL query
+     * @param column The numeric partition column
+     * @param partitionCount The number of partitions
+     * @param min The minimum value of the column
+     * @param max The maximum value of the column
+     * @return The partitions
+     */
+    static List<Partition> buildRangePartitions(String sql, String column, int partitionCount, long min, long max) {
+        List<Partition> partitions = new ArrayList<>();
+        String source = "SELECT * FROM " + SqlExecutionService.toSubquery(sql);
+        String columnRef = "src." + column;
+
+        if (partitionCount <= 1 || min >= max) {
+            partitions.add(new Partition(0, "all", source));
+            return partitions;
+        }
+
+        long width = Math.max(1, (max - min) / partitionCount + 1);
+        int count = (int) Math.min(partitionCount, (max - min) / width + 1);
+        for (int i = 0; i < count; i++) {
+            long lower = min + i * width;
+            long upper = lower + width;
+            if (i == 0) {
+                partitions.add(new Partition(i, "< " + upper,
+                        source + " WHERE " + columnRef + " < ? OR " + columnRef + " IS NULL", upper));
+            } else if (i == count - 1) {
+                partitions.add(new Partition(i, ">= " + lower,
+                        source + " WHERE " + columnRef + " >= ?", lower));
+            } else {
+                partitions.add(new Partition(i, "[" + lower + ", " + upper + ")",
+                        source + " WHERE " + columnRef + " >= ? AND " + columnRef + " < ?", lower, upper));
+            }
+        }
+        return partitions;
+    }
+
+    /**
+     * Builds hash partitions of the query using a hash function of the database on the
+     * partition column, which may be of any type. NULL values go to the first partition.
+     *
+     * @param sql The SQL query
+     * @param column The partition column
+     * @param partitionCount The number of partitions
+     * @param dialect The SQL dialect providing the hash function
+     * @return The partitions
+     */
+    static List<Partition> buildHashPartitions(String sql, String column, int partitionCount, SqlDialect dialect) {
+        List<Partition> partitions = new ArrayList<>();
+        String source = "SELECT * FROM " + SqlExecutionService.toSubquery(sql);
+        String columnRef = "src." + column;
+
+        if (partitionCount <= 1) {
+            partitions.add(new Partition(0, "all", source));
+            return partitions;
+        }
+
+        String bucket = dialect.hashBucketExpression(columnRef, partitionCount);
+        for (int i = 0; i < partitionCount; i++) {
+            String condition = bucket + " = " + i;
+            if (i == 0) {
+                condition += " OR " + columnRef + " IS NULL";
+            }
+            partitions.add(new Partition(i, "hash " + partitionCount + " = " + i, source + " WHERE " + condition));
+        }
+        return partitions;
+    }
+
+    /**
+     * Executes the partitions in parallel, at most {@code maxConcurrentPartitions} at once,
+     * and hands the merged rows to the handler.
+     *
+     * @param partitions The partitions to execute
+     * @param rowHandler The callback receiving each row, always called on the caller thread
+     * @return The total number of rows read
+     * @throws SqlExecutionException if a partition fails
+     */
+    int execute(List<Partition> partitions, RowHandler rowHandler) {
+        BlockingQueue<Object> queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        AtomicInteger threadCounter = new AtomicInteger();
+        int readers = maxConcurrentPartitions > 0
+                ? Math.min(maxConcurrentPartitions, partitions.size())
+                : partitions.size();
+        if (readers < partitions.size()) {
+            log.info("Reading {} partitions with {} concurrent connections, the others are queued",
+                    partitions.size(), readers);
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(readers, runnable -> {
+            Thread thread = new Thread(runnable, "sql-partition-" + threadCounter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        long startNanos = System.nanoTime();
+
+        try {
+            for (Partition partition : partitions) {
+                executor.submit(DataSourceRouter.propagate(() -> readPartition(partition, queue)));
+            }
+
+            int remaining = partitions.size();
+            int rowIndex = 0;
+            while (remaining > 0) {
+                Object item = queue.take();
+                if (item instanceof PartitionEnd end) {
+                    remaining--;
+                    if (end.getError() != null) {
+                        throw new SqlExecutionException("Failed to read SQL partition "
+                                + end.getPartition().getDescription(), end.getError());
+                    }
+                    continue;
+                }
+
+                @SuppressWarnings("unchecked")
+                Map<String, Object> row = (Map<String, Object>) item;
+                rowHandler.handleRow(row, rowIndex++);
+
+                if (progressIntervalRows > 0 && rowIndex % progressIntervalRows == 0) {
+                    logProgress(partitions, rowIndex, startNanos);
+                }
+            }
+
+            logReport(partitions, rowIndex, startNanos);
+            return rowIndex;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SqlExecutionException("Interrupted while reading SQL partitions", e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Reads the MIN and MAX values of the partition column.
+     */
+    private Map<String, Object> queryPartitionBounds(ParameterizedSql query, String partitionColumn) {
+        String column = SqlExecutionService.SUBQUERY_ALIAS + "." + partitionColumn;
+        String boundsSql = "SELECT MIN(" + column + ") AS min_value, MAX(" + column + ") AS max_value FROM "
+                + SqlExecutionService.toSubquery(query.getSql());
+        try {
+            log.debug("Reading partition bounds: {}", boundsSql);
+            return jdbcTemplate.queryForMap(boundsSql, query.getArgs());
+        } catch (DataAccessException e) {
+            log.error("Failed to read partition bounds: {}", boundsSql, e);
+            throw new SqlExecutionException("Failed to read partition bounds", e);
+        }
+    }
+
+    /**
+     * Streams one partition into the shared queue, then signals its end.
+     */
+    private void readPartition(Partition partition, BlockingQueue<Object> queue) {
+        CompactRowMapper rowMapper = rowMappers.get();
+        Throwable error = null;
+        partition.start();
+        try {
+            jdbcTemplate.query(connection -> createStatement(connection, partition), (RowCallbackHandler) rs -> {
+                Map<String, Object> row = rowMapper.mapRow(rs, (int) partition.getRowCount());
+                try {
+                    queue.put(row);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new SqlExecutionException("Interrupted while queuing rows of partition "
+                            + partition.getDescription(), e);
+                }
+                partition.rowRead();
+            });
+        } catch (RuntimeException e) {
+            error = e;
+        } finally {
+            partition.finish();
+        }
+
+        try {
+            queue.put(new PartitionEnd(partition, error));
+        } catch (InterruptedException e) {
+            // The consumer has stopped, nobody is waiting for this partition anymore
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private PreparedStatement createStatement(Connection connection, Partition partition) throws SQLException {
+        return StreamingQueryExecutor.createStreamingStatement(connection, partition.getSql(), partition.getArgs(),
+                fetchSize);
+    }
+
+    private void logProgress(List<Partition> partitions, int rowCount, long startNanos) {
+        StringBuilder progress = new StringBuilder();
+        for (Partition partition : partitions) {
+            if (progress.length() > 0) {
+                progress.append(", ");
+            }
+            progress.append('#').append(partition.getIndex()).append('=').append(partition.getRowCount())
+                    .append(partition.isFinished() ? " (done)" : "");
+        }
+        log.info("Partitioned extraction: {} rows handed over ({} rows/s) - {}",
+                rowCount, rowsPerSecond(rowCount, System.nanoTime() - startNanos), progress);
+    }
+
+    private void logReport(List<Partition> partitions, int rowCount, long startNanos) {
+        long elapsedNanos = System.nanoTime() - startNanos;
+        log.info("Partitioned extraction completed: {} rows from {} partitions in {} ms ({} rows/s)",
+                rowCount, partitions.size(), TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+                rowsPerSecond(rowCount, elapsedNanos));
+        for (Partition partition : partitions) {
+            log.info("  Partition #{} [{}]: {} rows in {} ms ({} rows/s)",
+                    partition.getIndex(), partition.getDescription(), partition.getRowCount(),
+                    TimeUnit.NANOSECONDS.toMillis(partition.getElapsedNanos()),
+                    rowsPerSecond(partition.getRowCount(), partition.getElapsedNanos()));
+        }
+    }
+
+    private static long rowsPerSecond(long rows, long elapsedNanos) {
+        return elapsedNanos > 0 ? rows * TimeUnit.SECONDS.toNanos(1) / elapsedNanos : rows;
+    }
+
+    /**
+     * One partition of the query, with its progress counters.
+     */
+    static class Partition {
+
+        @Getter
+        private final int index;
+        @Getter
+        private final String description;
+        @Getter
+        private final String sql;
+        @Getter
+        private final Object[] args;
+        private final AtomicLong rows = new AtomicLong();
+        private volatile long startNanos;
+        private volatile long endNanos;
+
+        Partition(int index, String description, String sql, Object... args) {
+            this.index = index;
+            this.description = description;
+            this.sql = sql;
+            this.args = args;
+        }
+
+        /**
+         * Returns a copy of the partition binding the given values before its own ones,
+         * for a query that has placeholders of its own.
+         */
+        Partition withLeadingArgs(Object[] leadingArgs) {
+            if (leadingArgs.length == 0) {
+                return this;
+            }
+            Object[] allArgs = new Object[leadingArgs.length + args.length];
+            System.arraycopy(leadingArgs, 0, allArgs, 0, leadingArgs.length);
+            System.arraycopy(args, 0, allArgs, leadingArgs.length, args.length);
+            return new Partition(index, description, sql, allArgs);
+        }
+
+        void start() {
+            startNanos = System.nanoTime();
+        }
+
+        void rowRead() {
+            rows.incrementAndGet();
+        }
+
+        void finish() {
+            endNanos = System.nanoTime();
+        }
+
+        long getRowCount() {
+            return rows.get();
+        }
+
+        boolean isFinished() {
+            return endNanos != 0;
+        }
+
+        long getElapsedNanos() {
+            if (startNanos == 0) {
+                return 0;
+            }
+            return (endNanos != 0 ? endNanos : System.nanoTime()) - startNanos;
+        }
+    }
+
+    /**
+     * Marker put in the queue when a partition has been fully read or has failed.
+     */
+    @Getter
+    private static class PartitionEnd {
+
+        private final Partition partition;
+        private final Throwable error;
+
+        PartitionEnd(Partition partition, Throwable error) {
+            this.partition = partition;
+            this.error = error;
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package com.etljobs.sql2json2api.service.sql;
+
+import java.sql.PreparedStatement;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ColumnMapRowMapper;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.RowMapperResultSetExtractor;
+import org.springframework.stereotype.Service;
+
+import com.etljobs.sql2json2api.exception.SqlExecutionException;
+import com.etljobs.sql2json2api.model.SqlFile;
+import com.etljobs.sql2json2api.service.incremental.WatermarkStore;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Estimates the number of rows a SQL file will return before it runs. The estimate comes
+ * from the optimizer plan ({@code EXPLAIN}) on PostgreSQL and MySQL, and from a
+ * {@code SELECT COUNT(*)} over the query on the other databases or when
+ * {@code app.sql.preflight.method} is "count". Each estimation query is bounded by
+ * a timeout; a failed estimation is logged and the file runs with its declared settings.
+ */
+@Service
+@Slf4j
+public class QueryCostEstimator {
+
+    /**
+     * First line of a PostgreSQL text plan, e.g. "Seq Scan on t  (cost=0.00..35.50 rows=2550 width=4)"
+     */
+    private static final Pattern POSTGRESQL_PLAN_PATTERN = Pattern.compile(
+            "cost=[\\d.]+\\.\\.([\\d.]+) rows=(\\d+) width=(\\d+)");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SqlExecutionService sqlExecutionService;
+    private final WatermarkStore watermarkStore;
+
+    /**
+     * "explain" to use the optimizer estimate when the dialect supports it, "count" to always count the rows
+     */
+    @Value("${app.sql.preflight.method:explain}")
+    private String method;
+
+    /**
+     * Timeout of each estimation query
+     */
+    @Value("${app.sql.preflight.timeout-seconds:10}")
+    private int timeoutSeconds;
+
+    @Autowired
+    public QueryCostEstimator(JdbcTemplate jdbcTemplate, SqlExecutionService sqlExecutionService,
+            WatermarkStore watermarkStore) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.sqlExecutionService = sqlExecutionService;
+        this.watermarkStore = watermarkStore;
+    }
+
+    /**
+     * Estimates the rows returned by the SQL file, with its named parameters bound and, in
+     * incremental mode, only beyond the last watermark.
+     *
+     * @param sqlFile The SQL file
+     * @return The estimate, or null if it could not be computed
+     */
+    public Estimate estimate(SqlFile sqlFile) {
+        long startNanos = System.nanoTime();
+        try {
+            ParameterizedSql query = sqlExecutionService.parameterize(sqlFile);
+            String sql = query.getSql();
+            Object[] args = query.getArgs();
+
+            String watermarkColumn = sqlFile.getDirective(SqlFileDirectives.WATERMARK_COLUMN);
+            if (watermarkColumn != null && !watermarkColumn.isBlank()) {
+                Object watermark = watermarkStore.getWatermark(sqlFile.getFileName());
+                sql = IncrementalQueryExecutor.buildIncrementalQuery(sql, watermarkColumn.trim(), watermark != null);
+                args = watermark != null ? query.argsWith(watermark) : args;
+            }
+
+            Estimate estimate = null;
+            if ("explain".equalsIgnoreCase(method)) {
+                estimate = switch (sqlExecutionService.getDialect()) {
+                    case POSTGRESQL -> explainPostgresql(sql, args);
+                    case MYSQL -> explainMysql(sql, args);
+                    default -> null;
+                };
+            }
+            if (estimate == null) {
+                estimate = count(sql, args);
+            }
+            estimate.millis = (System.nanoTime() - startNanos) / 1_000_000;
+            log.debug("Estimated {} rows for {} with {} in {} ms",
+                    estimate.getRows(), sqlFile.getFileName(), estimate.getMethod(), estimate.getMillis());
+            return estimate;
+        } catch (DataAccessException | SqlExecutionException e) {
+            log.warn("Cost estimation of {} failed, running with its declared settings: {}",
+                    sqlFile.getFileName(), e.getMessage());
+            return null;
+        }
+    }
+
+    private Estimate explainPostgresql(String sql, Object[] args) {
+        String firstLine = query("EXPLAIN " + sql, args, rs -> rs.next() ? rs.getString(1) : null);
+        return firstLine != null ? parsePostgresqlPlan(firstLine) : null;
+    }
+
+    private Estimate explainMysql(String sql, Object[] args) {
+        List<Map<String, Object>> planRows = query("EXPLAIN " + sql, args,
+                new RowMapperResultSetExtractor<>(new ColumnMapRowMapper()));
+        Long rows = estimateMysqlRows(planRows);
+        return rows != null ? new Estimate(rows, null, null, "EXPLAIN") : null;
+    }
+
+    private Estimate count(String sql, Object[] args) {
+        Long rows = query("SELECT COUNT(*) FROM " + SqlExecutionService.toSubquery(sql), args,
+                rs -> rs.next() ? rs.getLong(1) : 0L);
+        return new Estimate(rows != null ? rows : 0, null, null, "COUNT");
+    }
+
+    private <T> T query(String sql, Object[] args, ResultSetExtractor<T> extractor) {
+        log.debug("Executing estimation query: {}", sql);
+        return jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql);
+            statement.setQueryTimeout(timeoutSeconds);
+            for (int i = 0; i < args.length; i++) {
+                statement.setObject(i + 1, args[i]);
+            }
+            return statement;
+        }, extractor);
+    }
+
+    /**
+     * Reads the total cost, rows and row width from the first line of a PostgreSQL plan.
+     *
+     * @param planLine The first line of the EXPLAIN output
+     * @return The estimate, or null if the line has no cost information
+     */
+    static Estimate parsePostgresqlPlan(String planLine) {
+        Matcher matcher = POSTGRESQL_PLAN_PATTERN.matcher(planLine);
+        if (!matcher.find()) {
+            return null;
+        }
+        long rows = Long.parseLong(matcher.group(2));
+        long width = Long.parseLong(matcher.group(3));
+        return new Estimate(rows, Double.parseDouble(matcher.group(1)), rows * width, "EXPLAIN");
+    }
+
+    /**
+     * Estimates the rows of a MySQL plan: the tables of the outer select are joined, so the
+     * result is the product of their examined rows reduced by their filtered percentage.
+     *
+     * @param planRows The rows of the EXPLAIN output
+     * @return The estimated rows, or null if the plan has no row estimate
+     */
+    static Long estimateMysqlRows(List<Map<String, Object>> planRows) {
+        double rows = 1;
+        boolean estimated = false;
+        for (Map<String, Object> planRow : planRows) {
+            Object id = planRow.get("id");
+            Object examined = planRow.get("rows");
+            if (!(id instanceof Number) || ((Number) id).intValue() != 1 || !(examined instanceof Number)) {
+                continue;
+            }
+            Object filtered = planRow.get("filtered");
+            double ratio = filtered instanceof Number ? ((Number) filtered).doubleValue() / 100 : 1;
+            rows *= ((Number) examined).doubleValue() * ratio;
+            estimated = true;
+        }
+        return estimated ? Math.round(rows) : null;
+    }
+
+    /**
+     * Row estimate of a query.
+     */
+    @Getter
+    public static class Estimate {
+
+        /**
+         * Estimated number of rows returned
+         */
+        private final long rows;
+
+        /**
+         * Optimizer cost, null if not provided by the estimation method
+         */
+        private final Double cost;
+
+        /**
+         * Estimated size of the result in bytes, null if unknown
+         */
+        private final Long bytes;
+
+        /**
+         * "EXPLAIN" or "COUNT"
+         */
+        private final String method;
+
+        /**
+         * Duration of the estimation
+         */
+        private long millis;
+
+        public Estimate(long rows, Double cost, Long bytes, String method) {
+            this.rows = rows;
+            this.cost = cost;
+            this.bytes = bytes;
+            this.method = method;
+        }
+    }
+}
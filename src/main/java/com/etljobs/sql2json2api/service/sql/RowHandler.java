@@ -0,0 +1,20 @@
+package com.etljobs.sql2json2api.service.sql;
+
+import java.util.Map;
+
+/**
+ * Callback invoked for each row of a SQL result read in streaming mode.
+ * Rows are handed over as soon as they are read from the JDBC cursor,
+ * so implementations must not keep references to them unless needed.
+ */
+@FunctionalInterface
+public interface RowHandler {
+
+    /**
+     * Handles a single row of the result set.
+     *
+     * @param row The row data, keyed by column name
+     * @param rowIndex The 0-based index of the row in the result set
+     */
+    void handleRow(Map<String, Object> row, int rowIndex);
+}
@@ -0,0 +1,138 @@
+package com.etljobs.sql2json2api.service.sql;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+import com.etljobs.sql2json2api.exception.SqlExecutionException;
+import com.etljobs.sql2json2api.model.SqlFile;
+
+/**
+ * Resolves the key identifying a row of a SQL file from the columns declared by its
+ * {@code @sql-row-key} directive or, where allowed, from a conventional identifier column.
+ * Unlike the identifier shown in the logs ({@link #describe}), this key never falls back to an
+ * arbitrary column or to the position of the row: it is stable across executions and runs.
+ */
+public final class RowKeys {
+
+    /**
+     * Conventional identifier columns, looked up in this order when no key is declared
+     */
+    public static final List<String> IDENTIFIER_COLUMNS = List.of("id", "ID", "Id", "uuid", "UUID", "key", "KEY");
+
+    private RowKeys() {
+    }
+
+    /**
+     * @param sqlFile The SQL file
+     * @return The key columns declared by @sql-row-key, empty if none
+     */
+    public static List<String> declaredColumns(SqlFile sqlFile) {
+        String directive = sqlFile.getDirective(SqlFileDirectives.ROW_KEY);
+        if (directive == null || directive.isBlank()) {
+            return List.of();
+        }
+        return Arrays.stream(directive.split(","))
+                .map(String::trim)
+                .filter(column -> !column.isEmpty())
+                .toList();
+    }
+
+    /**
+     * Returns the key of a row: its @sql-row-key columns if declared, otherwise its first
+     * non null conventional identifier column (id, uuid, key).
+     *
+     * @param sqlFile The SQL file
+     * @param row The row
+     * @return The row key, or null if the row has no stable identifier
+     * @throws SqlExecutionException if a declared key column is missing from the row or null
+     */
+    public static String stableKey(SqlFile sqlFile, Map<String, Object> row) {
+        List<String> keyColumns = declaredColumns(sqlFile);
+        if (!keyColumns.isEmpty()) {
+            return keyOf(sqlFile, keyColumns, row);
+        }
+        for (String column : IDENTIFIER_COLUMNS) {
+            Object value = row.get(column);
+            if (value != null) {
+                return column + "=" + value;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Builds the key of a row from the declared key columns, as "column=value" pairs.
+     *
+     * @param sqlFile The SQL file declaring the key columns
+     * @param keyColumns The key columns
+     * @param row The row
+     * @return The row key
+     * @throws SqlExecutionException if a key column is missing from the row or null
+     */
+    public static String keyOf(SqlFile sqlFile, List<String> keyColumns, Map<String, Object> row) {
+        StringBuilder key = new StringBuilder();
+        for (String column : keyColumns) {
+            Object value = row.get(column);
+            if (value == null) {
+                throw new SqlExecutionException("Row key column '" + column + "' of " + sqlFile.getFileName()
+                        + " is missing from the result or null (@sql-row-key must be unique and non null)");
+            }
+            if (!key.isEmpty()) {
+                key.append(", ");
+            }
+            key.append(column).append('=').append(value);
+        }
+        return key.toString();
+    }
+
+    /**
+     * Returns the identifier of a row shown in the logs and the error reports: its declared or
+     * conventional key when available, otherwise its first column, otherwise its position.
+     * Unlike {@link #stableKey}, it never fails.
+     *
+     * @param sqlFile The SQL file
+     * @param row The row
+     * @param rowIndex The index of the row in the result
+     * @return The row identifier
+     */
+    public static String describe(SqlFile sqlFile, Map<String, Object> row, int rowIndex) {
+        List<String> keyColumns = declaredColumns(sqlFile);
+        if (!keyColumns.isEmpty() && keyColumns.stream().allMatch(column -> row.get(column) != null)) {
+            return keyOf(sqlFile, keyColumns, row);
+        }
+        for (String column : IDENTIFIER_COLUMNS) {
+            Object value = row.get(column);
+            if (value != null) {
+                return column + "=" + value;
+            }
+        }
+        if (!row.isEmpty()) {
+            Map.Entry<String, Object> firstEntry = row.entrySet().iterator().next();
+            return firstEntry.getKey() + "=" + firstEntry.getValue();
+        }
+        return "row#" + (rowIndex + 1);
+    }
+
+    /**
+     * Returns the result columns {@link #stableKey} and {@link #describe} may read, in result
+     * order: the declared key columns, every conventional identifier column (the one used
+     * depends on which values are null) and the first column.
+     *
+     * @param sqlFile The SQL file
+     * @param resultColumns The result columns of its query
+     * @return The identifying columns present in the result
+     */
+    public static List<String> identifyingColumns(SqlFile sqlFile, List<String> resultColumns) {
+        List<String> keyColumns = declaredColumns(sqlFile);
+        LinkedHashSet<String> columns = new LinkedHashSet<>();
+        for (int i = 0; i < resultColumns.size(); i++) {
+            String column = resultColumns.get(i);
+            if (i == 0 || keyColumns.contains(column) || IDENTIFIER_COLUMNS.contains(column)) {
+                columns.add(column);
+            }
+        }
+        return List.copyOf(columns);
+    }
+}
@@ -0,0 +1,74 @@
+package com.etljobs.sql2json2api.service.sql;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Immutable column layout shared by all the rows of a query result.
+ * Column lookups are case-insensitive, like Spring's LinkedCaseInsensitiveMap.
+ */
+public final class RowSchema {
+
+    private final String[] columnNames;
+    private final Map<String, Integer> exactIndexes;
+    private final Map<String, Integer> lowerCaseIndexes;
+
+    /**
+     * Creates a schema from the column names, in result order. When several columns have
+     * the same name (case-insensitive), only one slot is kept and the last value wins,
+     * as with ColumnMapRowMapper.
+     *
+     * @param columnNames The column names
+     */
+    public RowSchema(List<String> columnNames) {
+        this.exactIndexes = new HashMap<>();
+        this.lowerCaseIndexes = new HashMap<>();
+        String[] names = new String[columnNames.size()];
+        int count = 0;
+        for (String name : columnNames) {
+            String lowerCase = name.toLowerCase(Locale.ROOT);
+            if (!lowerCaseIndexes.containsKey(lowerCase)) {
+                names[count] = name;
+                exactIndexes.put(name, count);
+                lowerCaseIndexes.put(lowerCase, count);
+                count++;
+            }
+        }
+        this.columnNames = Arrays.copyOf(names, count);
+    }
+
+    /**
+     * @return The number of distinct columns
+     */
+    public int size() {
+        return columnNames.length;
+    }
+
+    /**
+     * @param index The column slot
+     * @return The column name at this slot
+     */
+    public String getColumnName(int index) {
+        return columnNames[index];
+    }
+
+    /**
+     * Returns the slot of a column, ignoring case.
+     *
+     * @param key The column name
+     * @return The slot, or -1 if the column does not exist
+     */
+    public int indexOf(Object key) {
+        if (!(key instanceof String name)) {
+            return -1;
+        }
+        Integer index = exactIndexes.get(name);
+        if (index == null) {
+            index = lowerCaseIndexes.get(name.toLowerCase(Locale.ROOT));
+        }
+        return index != null ? index : -1;
+    }
+}
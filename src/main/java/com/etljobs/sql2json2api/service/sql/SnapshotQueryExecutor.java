@@ -0,0 +1,75 @@
+package com.etljobs.sql2json2api.service.sql;
+
+import java.util.Arrays;
+import java.util.function.ToIntFunction;
+
+import com.etljobs.sql2json2api.model.SqlFile;
+import com.etljobs.sql2json2api.service.incremental.WatermarkStore;
+import com.etljobs.sql2json2api.service.sql.snapshot.ResultSnapshotCache;
+
+/**
+ * Replays the cached result of a SQL file, or reads it from the database and caches it as
+ * it is read. The snapshot key covers everything the result depends on: the content of the
+ * file, the values of its parameters, its watermark in incremental mode and the column value
+ * conversion settings.
+ */
+class SnapshotQueryExecutor {
+
+    private final ResultSnapshotCache snapshotCache;
+    private final WatermarkStore watermarkStore;
+    private final ColumnValueConverter columnValueConverter;
+
+    SnapshotQueryExecutor(ResultSnapshotCache snapshotCache, WatermarkStore watermarkStore,
+            ColumnValueConverter columnValueConverter) {
+        this.snapshotCache = snapshotCache;
+        this.watermarkStore = watermarkStore;
+        this.columnValueConverter = columnValueConverter;
+    }
+
+    /**
+     * Hands the rows of the SQL file to the handler, from its snapshot when one is cached
+     * within its TTL, from the database otherwise.
+     *
+     * @param sqlFile The SQL file to read
+     * @param query The SQL query of the file, with the values of its placeholders
+     * @param databaseReader Reads the SQL file from the database into the given handler and
+     *        returns the number of rows read
+     * @param rowHandler The callback receiving each row
+     * @return The number of rows handed to the handler
+     * @throws com.etljobs.sql2json2api.exception.SqlExecutionException if the query execution fails
+     */
+    int execute(SqlFile sqlFile, ParameterizedSql query, ToIntFunction<RowHandler> databaseReader,
+            RowHandler rowHandler) {
+        String key = snapshotCache.keyFor(keySource(sqlFile, query));
+        int replayedRows = snapshotCache.replay(key, sqlFile.getFileName(), rowHandler);
+        if (replayedRows >= 0) {
+            return replayedRows;
+        }
+
+        try (ResultSnapshotCache.SnapshotWriter writer = snapshotCache.openWriter(key, sqlFile.getFileName())) {
+            int rowCount = databaseReader.applyAsInt((row, rowIndex) -> {
+                writer.write(row);
+                rowHandler.handleRow(row, rowIndex);
+            });
+            writer.commit();
+            return rowCount;
+        }
+    }
+
+    /**
+     * Returns the text the snapshot key of the SQL file is computed from.
+     */
+    private String keySource(SqlFile sqlFile, ParameterizedSql query) {
+        StringBuilder keySource = new StringBuilder(sqlFile.getContent());
+        if (query.getArgs().length > 0) {
+            keySource.append("\n-- parameters: ").append(Arrays.deepToString(query.getArgs()));
+        }
+        if (sqlFile.getDirective(SqlFileDirectives.WATERMARK_COLUMN) != null) {
+            keySource.append("\n-- watermark: ").append(watermarkStore.getWatermark(sqlFile.getFileName()));
+        }
+        if (columnValueConverter != null) {
+            keySource.append("\n-- values: ").append(columnValueConverter.describe(sqlFile));
+        }
+        return keySource.toString();
+    }
+}
@@ -0,0 +1,128 @@
+package com.etljobs.sql2json2api.service.sql;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import java.util.Locale;
+
+import com.etljobs.sql2json2api.exception.SqlExecutionException;
+
+/**
+ * SQL dialects supported by the generated queries (paging, partitioning...).
+ * Only the syntax that differs between databases is handled here.
+ */
+public enum SqlDialect {
+
+    MYSQL,
+    POSTGRESQL,
+    ORACLE,
+    SQLSERVER,
+    H2,
+    GENERIC;
+
+    /**
+     * Resolves the dialect from the JDBC database product name.
+     *
+     * @param databaseProductName The value of DatabaseMetaData#getDatabaseProductName()
+     * @return The matching dialect, GENERIC if unknown
+     */
+    public static SqlDialect fromProductName(String databaseProductName) {
+        if (databaseProductName == null) {
+            return GENERIC;
+        }
+        String name = databaseProductName.toLowerCase(Locale.ROOT);
+        if (name.contains("mysql") || name.contains("mariadb")) {
+            return MYSQL;
+        }
+        if (name.contains("postgresql")) {
+            return POSTGRESQL;
+        }
+        if (name.contains("oracle")) {
+            return ORACLE;
+        }
+        if (name.contains("microsoft sql server")) {
+            return SQLSERVER;
+        }
+        if (name.contains("h2")) {
+            return H2;
+        }
+        return GENERIC;
+    }
+
+    /**
+     * Returns the fetch size making the JDBC driver stream a result set. MySQL Connector/J
+     * ignores a positive fetch size and reads the whole result into memory unless
+     * useCursorFetch=true is set in the JDBC URL: without it, Integer.MIN_VALUE is used,
+     * which streams the rows one by one. The MariaDB driver streams with a positive fetch size.
+     *
+     * @param fetchSize The configured fetch size, 0 for the driver default
+     * @param jdbcUrl The JDBC URL of the connection
+     * @return The fetch size to set on the statement, 0 to keep the driver default
+     */
+    public int streamingFetchSize(int fetchSize, String jdbcUrl) {
+        if (this != MYSQL || fetchSize <= 0 || jdbcUrl == null) {
+            return fetchSize;
+        }
+        String url = jdbcUrl.toLowerCase(Locale.ROOT);
+        if (url.startsWith("jdbc:mariadb:") || url.contains("usecursorfetch=true")) {
+            return fetchSize;
+        }
+        return Integer.MIN_VALUE;
+    }
+
+    /**
+     * Returns the fetch size making the driver of the connection stream a result set.
+     *
+     * @param connection The connection executing the statement
+     * @param fetchSize The configured fetch size, 0 for the driver default
+     * @return The fetch size to set on the statement, 0 to keep the driver default
+     * @throws SQLException if the connection metadata cannot be read
+     * @see #streamingFetchSize(int, String)
+     */
+    static int streamingFetchSizeFor(Connection connection, int fetchSize) throws SQLException {
+        if (fetchSize <= 0) {
+            return fetchSize;
+        }
+        DatabaseMetaData metaData = connection.getMetaData();
+        return fromProductName(metaData.getDatabaseProductName()).streamingFetchSize(fetchSize, metaData.getURL());
+    }
+
+    /**
+     * Returns the clause limiting the result to the given number of rows.
+     * It must be appended after the ORDER BY clause.
+     *
+     * @param rowCount The maximum number of rows
+     * @return The limit clause
+     */
+    public String limitClause(int rowCount) {
+        return switch (this) {
+            case MYSQL, POSTGRESQL, H2 -> " LIMIT " + rowCount;
+            case SQLSERVER -> " OFFSET 0 ROWS FETCH NEXT " + rowCount + " ROWS ONLY";
+            default -> " FETCH FIRST " + rowCount + " ROWS ONLY";
+        };
+    }
+
+    /**
+     * Returns the expression assigning a value to one of the given buckets with a hash
+     * function of the database, for any column type (integers, decimals, strings, dates).
+     * The result is between 0 and buckets - 1, NULL for a NULL value.
+     *
+     * @param expression The hashed expression
+     * @param buckets The number of buckets
+     * @return The bucket expression
+     * @throws SqlExecutionException if the database has no known hash function
+     */
+    public String hashBucketExpression(String expression, int buckets) {
+        return switch (this) {
+            // CRC32 is unsigned
+            case MYSQL -> "MOD(CRC32(" + expression + "), " + buckets + ")";
+            // hashtext is a signed 32-bit integer, shifted to be positive
+            case POSTGRESQL -> "MOD(CAST(hashtext(CAST(" + expression + " AS text)) AS bigint) + 2147483648, "
+                    + buckets + ")";
+            case ORACLE, H2 -> "ORA_HASH(" + expression + ", " + (buckets - 1) + ")";
+            case SQLSERVER -> "((CAST(CHECKSUM(" + expression + ") AS BIGINT) + 2147483648) % " + buckets + ")";
+            default -> throw new SqlExecutionException(
+                    "Hash partitioning is not supported for this database, use @sql-partition-mode: range");
+        };
+    }
+}
@@ -1,14 +1,27 @@
 package com.etljobs.sql2json2api.service.sql;
 
+import java.nio.file.Paths;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+import java.util.regex.Pattern;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 
 import com.etljobs.sql2json2api.exception.SqlExecutionException;
+import com.etljobs.sql2json2api.model.SqlFile;
+import com.etljobs.sql2json2api.service.incremental.WatermarkStore;
+import com.etljobs.sql2json2api.service.outbox.OutboxTable;
+import com.etljobs.sql2json2api.service.outbox.OutboxTracker;
+import com.etljobs.sql2json2api.service.sql.snapshot.ResultSnapshotCache;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -19,16 +32,116 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class SqlExecutionService {
     
+    /**
+     * Column names accepted in the directives, inserted as is in the generated queries
+     */
+    static final Pattern COLUMN_NAME_PATTERN = Pattern.compile("\\w+");
+    
+    /**
+     * Alias of the original query wrapped as a derived table by {@link #toSubquery}
+     */
+    static final String SUBQUERY_ALIAS = "src";
+    
     private final JdbcTemplate jdbcTemplate;
+    private final ResultSnapshotCache snapshotCache;
+    private final WatermarkStore watermarkStore;
+    private final SqlParameterResolver parameterResolver;
+    private final OutboxTracker outboxTracker;
+    private final ColumnValueConverter columnValueConverter;
+    private final DataSourceRouter dataSourceRouter;
+    
+    /**
+     * Number of rows fetched per round-trip when streaming a result set.
+     * A value of 0 keeps the driver default. On MySQL without useCursorFetch=true
+     * in the JDBC URL, rows are streamed one by one (see {@link SqlDialect#streamingFetchSize}).
+     */
+    @Value("${app.sql.fetch-size:1000}")
+    private int fetchSize;
+    
+    /**
+     * Page size used in keyset paging mode when the SQL file does not declare @sql-page-size.
+     */
+    @Value("${app.sql.default-page-size:5000}")
+    private int defaultPageSize;
+    
+    /**
+     * Number of partitions used when the SQL file declares @sql-partition-column without @sql-partitions.
+     */
+    @Value("${app.sql.partition.default-count:4}")
+    private int defaultPartitionCount;
+    
+    /**
+     * Maximum number of rows read by the partitions and not yet handed to the API stage.
+     */
+    @Value("${app.sql.partition.queue-capacity:10000}")
+    private int partitionQueueCapacity;
+    
+    /**
+     * Interval, in rows, between two partition progress reports. 0 disables them.
+     */
+    @Value("${app.sql.partition.progress-interval-rows:10000}")
+    private int partitionProgressIntervalRows;
+    
+    /**
+     * Connections of the pool kept for the other work while partitions are read (write-back,
+     * outbox and watermark updates, prefetch). The partitions read at once are capped at the
+     * pool size minus these connections.
+     */
+    @Value("${app.sql.partition.reserved-connections:2}")
+    private int partitionReservedConnections;
+    
+    /**
+     * When enabled, the query is read on a separate thread into a row buffer that spills
+     * to disk, so the connection is released without waiting for the API calls.
+     */
+    @Value("${app.sql.buffer.enabled:false}")
+    private boolean bufferEnabled;
+    
+    @Value("${app.sql.buffer.memory-threshold-bytes:67108864}")
+    private long bufferMemoryThresholdBytes;
+    
+    @Value("${app.sql.buffer.max-spill-bytes:4294967296}")
+    private long bufferMaxSpillBytes;
+    
+    @Value("${app.sql.buffer.segment-size-bytes:67108864}")
+    private int bufferSegmentSizeBytes;
+    
+    @Value("${app.sql.buffer.spill-directory:${java.io.tmpdir}}")
+    private String bufferSpillDirectory;
+    
+    /**
+     * Maximum number of executions of a SQL file in "loop until empty" mode.
+     */
+    @Value("${app.sql.loop.max-iterations:1000}")
+    private int loopMaxIterations;
+    
+    /**
+     * Dialect of each datasource, by datasource name
+     */
+    private final Map<String, SqlDialect> dialects = new ConcurrentHashMap<>();
+    
+    /**
+     * Results read in advance by {@link #prefetch(SqlFile)}, by SQL file name
+     */
+    private final Map<String, BufferedQueryExecutor.BufferedRead> prefetches = new ConcurrentHashMap<>();
     
     @Autowired
-    public SqlExecutionService(JdbcTemplate jdbcTemplate) {
+    public SqlExecutionService(JdbcTemplate jdbcTemplate, ResultSnapshotCache snapshotCache,
+            WatermarkStore watermarkStore, SqlParameterResolver parameterResolver, OutboxTracker outboxTracker,
+            ColumnValueConverter columnValueConverter, DataSourceRouter dataSourceRouter) {
         this.jdbcTemplate = jdbcTemplate;
+        this.snapshotCache = snapshotCache;
+        this.watermarkStore = watermarkStore;
+        this.parameterResolver = parameterResolver;
+        this.outboxTracker = outboxTracker;
+        this.columnValueConverter = columnValueConverter;
+        this.dataSourceRouter = dataSourceRouter;
     }
     
     /**
      * Executes a SQL query and returns results as a list of maps.
      * Each map represents a row where keys are column names and values are column values.
+     * Rows are read-only {@link CompactRow}s sharing the column schema of the query.
      * 
      * @param sql The SQL query to execute
      * @return List of maps representing the query results
@@ -37,7 +150,7 @@ public class SqlExecutionService {
     public List<Map<String, Object>> executeQuery(String sql) {
         try {
             log.debug("Executing SQL query: {}", sql);
-            List<Map<String, Object>> results = jdbcTemplate.queryForList(sql);
+            List<Map<String, Object>> results = jdbcTemplate.query(sql, new CompactRowMapper());
             log.debug("Query executed successfully. Retrieved {} rows.", results.size());
             return results;
         } catch (DataAccessException e) {
@@ -46,6 +159,273 @@ public class SqlExecutionService {
         }
     }
     
+    /**
+     * Executes a SQL query over a forward-only, read-only cursor and hands each
+     * row to the given handler as soon as it is read. Rows are never accumulated
+     * in memory, so heap usage does not depend on the size of the result set.
+     * 
+     * @param sql The SQL query to execute
+     * @param rowHandler The callback receiving each row
+     * @return The number of rows read
+     * @throws SqlExecutionException if the query execution fails
+     */
+    public int streamQuery(String sql, RowHandler rowHandler) {
+        return new StreamingQueryExecutor(jdbcTemplate, fetchSize)
+                .execute(sql, new Object[0], new CompactRowMapper(), rowHandler);
+    }
+    
+    /**
+     * Streams the rows of a SQL file, choosing the extraction mode from its directives:
+     * outbox consumption when @sql-outbox-table is declared, incremental when @sql-watermark-column is declared, partitioned when
+     * @sql-partition-column is declared, keyset paging when @sql-page-key is declared,
+     * a single streamed query otherwise. When the row buffer is enabled, rows
+     * are read ahead of the handler and spilled to disk past the memory threshold.
+     * When the snapshot cache is enabled, a result cached within its TTL is replayed
+     * instead of querying the database, and a fresh result is cached as it is read
+     * (never in outbox mode, whose rows are claimed batch by batch).
+     * A result read in advance by {@link #prefetch(SqlFile)} is handed over instead of querying again.
+     * When enabled for the file, the column values are converted by {@link ColumnValueConverter} as they are read.
+     * Named parameters ({@code :name}) are bound with the values resolved by {@link SqlParameterResolver}.
+     * Each mode is run by its own executor of this package.
+     * 
+     * @param sqlFile The SQL file to execute
+     * @param rowHandler The callback receiving each row
+     * @return The number of rows read
+     * @throws SqlExecutionException if the query execution fails
+     */
+    public int streamSqlFile(SqlFile sqlFile, RowHandler rowHandler) {
+        return dataSourceRouter.callOn(sqlFile, () -> streamSqlFileOnDataSource(sqlFile, rowHandler));
+    }
+    
+    private int streamSqlFileOnDataSource(SqlFile sqlFile, RowHandler rowHandler) {
+        BufferedQueryExecutor.BufferedRead prefetch = prefetches.remove(sqlFile.getFileName());
+        if (prefetch != null) {
+            log.info("Reading {} from its result prefetched in the background", sqlFile.getFileName());
+            return prefetch.drain(rowHandler);
+        }
+        if (snapshotCache.isEnabled() && outboxTracker.outboxTable(sqlFile) == null) {
+            return streamWithSnapshot(sqlFile, rowHandler);
+        }
+        return streamFromDatabase(sqlFile, parameterize(sqlFile), rowHandler);
+    }
+    
+    /**
+     * @param sqlFile The SQL file
+     * @return true if the SQL file declares @sql-prefetch: true and can be read in advance
+     *         (a loop or an outbox is read while it is consumed, never in advance)
+     */
+    public boolean isPrefetchable(SqlFile sqlFile) {
+        return Boolean.parseBoolean(sqlFile.getDirective(SqlFileDirectives.PREFETCH))
+                && !isLoopUntilEmpty(sqlFile)
+                && outboxTracker.outboxTable(sqlFile) == null;
+    }
+    
+    /**
+     * Starts reading a SQL file in the background into a row buffer spilled to disk past
+     * its memory threshold, so that its query runs while the previous file is still calling
+     * the API. The next {@link #streamSqlFile} call for this file hands over the buffered rows,
+     * waiting for the rest of the result if needed. The row buffer limits apply: past
+     * app.sql.buffer.max-spill-bytes, the background read waits for the rows to be consumed.
+     * 
+     * @param sqlFile The SQL file to read in advance
+     */
+    public void prefetch(SqlFile sqlFile) {
+        prefetch(sqlFile, UnaryOperator.identity());
+    }
+    
+    /**
+     * Starts reading a SQL file in the background like {@link #prefetch(SqlFile)}, after
+     * preparing it on the background thread (for instance to plan its execution from a
+     * cost estimate without delaying the caller).
+     * 
+     * @param sqlFile The SQL file to read in advance
+     * @param preparation Returns the SQL file to read, run on the background thread before the query
+     */
+    public void prefetch(SqlFile sqlFile, UnaryOperator<SqlFile> preparation) {
+        BufferedQueryExecutor.BufferedRead prefetch = dataSourceRouter.callOn(sqlFile,
+                () -> bufferedExecutor().start(sqlFile, "sql-prefetch", handler -> {
+                    SqlFile preparedFile = preparation.apply(sqlFile);
+                    return snapshotCache.isEnabled()
+                            ? streamWithSnapshot(preparedFile, handler)
+                            : extractSqlFile(preparedFile, parameterize(preparedFile), handler);
+                }));
+        BufferedQueryExecutor.BufferedRead previous = prefetches.put(sqlFile.getFileName(), prefetch);
+        if (previous != null) {
+            previous.cancel();
+        }
+        log.info("Prefetching the result of {} in the background", sqlFile.getFileName());
+    }
+    
+    /**
+     * @param sqlFile The SQL file
+     * @return true if a result read in advance is waiting for the next {@link #streamSqlFile} call
+     */
+    public boolean isPrefetched(SqlFile sqlFile) {
+        return prefetches.containsKey(sqlFile.getFileName());
+    }
+    
+    /**
+     * Stops the background reads of the results that were never consumed.
+     */
+    public void cancelPrefetches() {
+        for (String fileName : List.copyOf(prefetches.keySet())) {
+            BufferedQueryExecutor.BufferedRead prefetch = prefetches.remove(fileName);
+            if (prefetch != null) {
+                log.debug("Prefetched result of {} discarded", fileName);
+                prefetch.cancel();
+            }
+        }
+    }
+    
+    /**
+     * @param sqlFile The SQL file
+     * @return true if the SQL file declares @sql-loop-until-empty: true
+     */
+    public boolean isLoopUntilEmpty(SqlFile sqlFile) {
+        return Boolean.parseBoolean(sqlFile.getDirective(SqlFileDirectives.LOOP_UNTIL_EMPTY));
+    }
+    
+    /**
+     * Executes a SQL file again and again until it returns no rows, for queue-like tables
+     * drained by the API calls (see {@link LoopingQueryExecutor}). The snapshot cache is never
+     * used in this mode. Between two iterations the iteration handler decides when to query
+     * again, typically as soon as the calls in flight fall below a threshold.
+     * 
+     * @param sqlFile The SQL file to execute, declaring @sql-row-key
+     * @param rowHandler The callback receiving each new row, with an index unique over the run
+     * @param iterationHandler The callback invoked before each new execution
+     * @return The number of rows handed to the row handler
+     * @throws SqlExecutionException if the SQL file declares no @sql-row-key, if a row has
+     *         no key value, or if a query execution fails
+     */
+    public int streamUntilEmpty(SqlFile sqlFile, RowHandler rowHandler, LoopIterationHandler iterationHandler) {
+        List<String> keyColumns = RowKeys.declaredColumns(sqlFile);
+        if (keyColumns.isEmpty()) {
+            throw new SqlExecutionException(sqlFile.getFileName() + " declares @sql-loop-until-empty without "
+                    + "@sql-row-key: the rows already processed could not be recognized between iterations");
+        }
+        LoopingQueryExecutor executor = new LoopingQueryExecutor(loopMaxIterations);
+        return dataSourceRouter.callOn(sqlFile, () -> executor.execute(sqlFile, keyColumns,
+                handler -> streamFromDatabase(sqlFile, parameterize(sqlFile), handler), rowHandler, iterationHandler));
+    }
+    
+    /**
+     * Replays the cached result of the SQL file, or reads it from the database and caches it.
+     */
+    private int streamWithSnapshot(SqlFile sqlFile, RowHandler rowHandler) {
+        ParameterizedSql query = parameterize(sqlFile);
+        return new SnapshotQueryExecutor(snapshotCache, watermarkStore, columnValueConverter)
+                .execute(sqlFile, query, handler -> streamFromDatabase(sqlFile, query, handler), rowHandler);
+    }
+    
+    /**
+     * Reads the SQL file from the database, through the row buffer when enabled by
+     * its @sql-buffer directive or, if not declared, by app.sql.buffer.enabled.
+     * An outbox is never read ahead: rows are only claimed when the handler is ready for them.
+     */
+    private int streamFromDatabase(SqlFile sqlFile, ParameterizedSql query, RowHandler rowHandler) {
+        OutboxTable outbox = outboxTracker.outboxTable(sqlFile);
+        if (outbox != null) {
+            int batchSize = intDirective(sqlFile, SqlFileDirectives.OUTBOX_BATCH_SIZE, outboxTracker.getBatchSize());
+            return new OutboxQueryExecutor(jdbcTemplate, outboxTracker, rowMappers(sqlFile))
+                    .execute(sqlFile, query, outbox, batchSize, getDialect(), rowHandler);
+        }
+        if (isBuffered(sqlFile)) {
+            return bufferedExecutor().execute(sqlFile, handler -> extractSqlFile(sqlFile, query, handler), rowHandler);
+        }
+        return extractSqlFile(sqlFile, query, rowHandler);
+    }
+    
+    /**
+     * @param sqlFile The SQL file
+     * @return true if the result of the SQL file is read through the row buffer
+     */
+    public boolean isBuffered(SqlFile sqlFile) {
+        String buffer = sqlFile.getDirective(SqlFileDirectives.BUFFER);
+        if (buffer == null || buffer.isBlank()) {
+            return bufferEnabled;
+        }
+        return Boolean.parseBoolean(buffer.trim());
+    }
+    
+    /**
+     * Replaces the named parameters of the SQL file with placeholders bound to their values.
+     */
+    ParameterizedSql parameterize(SqlFile sqlFile) {
+        if (sqlFile.getParameterNames() == null || sqlFile.getParameterNames().isEmpty()) {
+            return ParameterizedSql.of(sqlFile.getContent());
+        }
+        return parameterResolver.resolve(sqlFile);
+    }
+    
+    private BufferedQueryExecutor bufferedExecutor() {
+        return new BufferedQueryExecutor(bufferMemoryThresholdBytes, bufferMaxSpillBytes,
+                Paths.get(bufferSpillDirectory), bufferSegmentSizeBytes);
+    }
+    
+    /**
+     * Reads the SQL file with the extraction mode declared in its directives: incremental,
+     * then partitioned, then paged. The directives of the other modes are ignored with a warning.
+     */
+    private int extractSqlFile(SqlFile sqlFile, ParameterizedSql query, RowHandler rowHandler) {
+        Supplier<CompactRowMapper> rowMappers = rowMappers(sqlFile);
+        String watermarkColumn = sqlFile.getDirective(SqlFileDirectives.WATERMARK_COLUMN);
+        String partitionColumn = sqlFile.getDirective(SqlFileDirectives.PARTITION_COLUMN);
+        String pageKey = sqlFile.getDirective(SqlFileDirectives.PAGE_KEY);
+        StreamingQueryExecutor streamingExecutor = new StreamingQueryExecutor(jdbcTemplate, fetchSize);
+        if (watermarkColumn != null && !watermarkColumn.isBlank()) {
+            warnIgnoredDirective(sqlFile, SqlFileDirectives.PARTITION_COLUMN, partitionColumn, "incremental");
+            warnIgnoredDirective(sqlFile, SqlFileDirectives.PAGE_KEY, pageKey, "incremental");
+            return new IncrementalQueryExecutor(streamingExecutor, watermarkStore)
+                    .execute(sqlFile, query, watermarkColumn.trim(), rowMappers.get(), rowHandler);
+        }
+        
+        if (partitionColumn != null && !partitionColumn.isBlank()) {
+            warnIgnoredDirective(sqlFile, SqlFileDirectives.PAGE_KEY, pageKey, "partitioned");
+            int partitionCount = intDirective(sqlFile, SqlFileDirectives.PARTITIONS, defaultPartitionCount);
+            PartitionMode mode = partitionModeDirective(sqlFile);
+            log.info("Partitioned extraction enabled for {}: column {}, {} partitions ({})",
+                    sqlFile.getFileName(), partitionColumn, partitionCount, mode);
+            PartitionedQueryExecutor executor = new PartitionedQueryExecutor(jdbcTemplate, fetchSize,
+                    partitionQueueCapacity, partitionProgressIntervalRows, rowMappers,
+                    PartitionedQueryExecutor.maxConcurrentPartitions(jdbcTemplate.getDataSource(),
+                            partitionReservedConnections));
+            return executor.execute(query, partitionColumn.trim(), partitionCount, mode,
+                    mode == PartitionMode.HASH ? getDialect() : null, rowHandler);
+        }
+        
+        if (pageKey != null && !pageKey.isBlank()) {
+            int pageSize = intDirective(sqlFile, SqlFileDirectives.PAGE_SIZE, defaultPageSize);
+            log.info("Keyset paging enabled for {}: key {}, page size {}", sqlFile.getFileName(), pageKey, pageSize);
+            return new KeysetPagedQueryExecutor(jdbcTemplate, rowMappers)
+                    .execute(query, pageKey.trim(), pageSize, getDialect(), rowHandler);
+        }
+        
+        return streamingExecutor.execute(query.getSql(), query.getArgs(), rowMappers.get(), rowHandler);
+    }
+    
+    /**
+     * Warns that a directive of the SQL file is ignored by the extraction mode in use.
+     */
+    private void warnIgnoredDirective(SqlFile sqlFile, String directive, String value, String mode) {
+        if (value != null && !value.isBlank()) {
+            log.warn("@sql-{} of {} is ignored: the {} extraction takes precedence",
+                    directive, sqlFile.getFileName(), mode);
+        }
+    }
+    
+    /**
+     * Returns the row mappers of a SQL file: with the column value conversion when it is
+     * enabled for the file, except for the columns used by its directives.
+     */
+    private Supplier<CompactRowMapper> rowMappers(SqlFile sqlFile) {
+        if (columnValueConverter == null || !columnValueConverter.isEnabled(sqlFile)) {
+            return CompactRowMapper::new;
+        }
+        Set<String> rawColumns = ColumnProjector.engineColumns(sqlFile);
+        return () -> new CompactRowMapper(columnValueConverter, rawColumns);
+    }
+    
     /**
      * For testing purposes - executes a count query that should return a single numeric value
      * 
@@ -64,4 +444,67 @@ public class SqlExecutionService {
             throw new SqlExecutionException("Failed to execute count query", e);
         }
     }
-}
\ No newline at end of file
+    
+    /**
+     * Returns the dialect of the database selected by {@link DataSourceRouter} for the current
+     * thread, resolved once per datasource from the JDBC metadata.
+     * 
+     * @return The SQL dialect
+     */
+    public SqlDialect getDialect() {
+        return dialects.computeIfAbsent(DataSourceRouter.currentName(), name -> {
+            String productName = jdbcTemplate.execute(
+                    (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+            SqlDialect dialect = SqlDialect.fromProductName(productName);
+            log.debug("Detected SQL dialect {} for database {} of datasource {}", dialect, productName, name);
+            return dialect;
+        });
+    }
+    
+    /**
+     * Wraps a SQL query as a derived table so that filters and ordering can be applied
+     * to its result columns. A trailing semicolon is removed and the closing parenthesis
+     * is put on its own line in case the query ends with a line comment.
+     * 
+     * @param sql The SQL query
+     * @return The query as a derived table aliased "src"
+     */
+    static String toSubquery(String sql) {
+        String body = sql.strip();
+        while (body.endsWith(";")) {
+            body = body.substring(0, body.length() - 1).stripTrailing();
+        }
+        return "(\n" + body + "\n) " + SUBQUERY_ALIAS;
+    }
+    
+    /**
+     * Returns the integer value of a directive, or the default value when not declared.
+     */
+    private int intDirective(SqlFile sqlFile, String name, int defaultValue) {
+        String value = sqlFile.getDirective(name);
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new SqlExecutionException("Invalid @sql-" + name + " in " + sqlFile.getFileName() + ": " + value, e);
+        }
+    }
+    
+    /**
+     * Returns the partition mode declared in the SQL file, RANGE by default.
+     */
+    private PartitionMode partitionModeDirective(SqlFile sqlFile) {
+        String value = sqlFile.getDirective(SqlFileDirectives.PARTITION_MODE);
+        if (value == null || value.isBlank()) {
+            return PartitionMode.RANGE;
+        }
+        try {
+            return PartitionMode.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new SqlExecutionException("Invalid @sql-partition-mode in " + sqlFile.getFileName()
+                    + ": " + value + " (expected range or hash)", e);
+        }
+    }
+}
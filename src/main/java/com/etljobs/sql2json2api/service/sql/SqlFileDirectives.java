@@ -0,0 +1,167 @@
+package com.etljobs.sql2json2api.service.sql;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Parses the directives declared in the comments of a SQL file, using the same
+ * "@xxx-name: value" convention as the template metadata. Example:
+ *
+ * <pre>
+ * -- @sql-page-key: product_group_uuid
+ * -- @sql-page-size: 5000
+ * SELECT ...
+ * </pre>
+ */
+@Slf4j
+public final class SqlFileDirectives {
+
+    /**
+     * Column of the result used as keyset paging key (must be unique and sortable)
+     */
+    public static final String PAGE_KEY = "page-key";
+
+    /**
+     * Number of rows fetched per page in keyset paging mode
+     */
+    public static final String PAGE_SIZE = "page-size";
+
+    /**
+     * Column used to split the query into partitions read in parallel (numeric in "range" mode)
+     */
+    public static final String PARTITION_COLUMN = "partition-column";
+
+    /**
+     * Number of partitions. At most the pool size minus app.sql.partition.reserved-connections
+     * are read in parallel, the others wait for a running partition to finish
+     */
+    public static final String PARTITIONS = "partitions";
+
+    /**
+     * How the partitions are computed: "range" (MIN/MAX of the column) or "hash"
+     * (hash function of the database applied to the column)
+     */
+    public static final String PARTITION_MODE = "partition-mode";
+
+    /**
+     * Column tracked in incremental mode (e.g. updated_at or an auto-increment id):
+     * only rows beyond the last successfully processed value are selected
+     */
+    public static final String WATERMARK_COLUMN = "watermark-column";
+
+    /**
+     * "true" to skip rows whose rendered payload is unchanged since their last successful call
+     */
+    public static final String SKIP_UNCHANGED = "skip-unchanged";
+
+    /**
+     * "true" to execute the SQL file again until it returns no rows (queue-like tables drained by the API calls)
+     */
+    public static final String LOOP_UNTIL_EMPTY = "loop-until-empty";
+
+    /**
+     * Comma-separated result columns identifying a row uniquely and stably (non null values),
+     * required by @sql-loop-until-empty to recognize the rows already processed
+     */
+    public static final String ROW_KEY = "row-key";
+
+    /**
+     * "true" to read the result through the spillable row buffer, "false" to stream it directly
+     * (overrides app.sql.buffer.enabled for the file)
+     */
+    public static final String BUFFER = "buffer";
+
+    /**
+     * "off", "warn" or "narrow": how the columns not used by the template are handled
+     * (overrides app.sql.projection.mode for the file)
+     */
+    public static final String PROJECTION = "projection";
+
+    /**
+     * Key column of a lookup SQL file (the first column by default)
+     */
+    public static final String LOOKUP_KEY = "lookup-key";
+
+    /**
+     * Outbox table consumed by the SQL file: batches of rows are claimed with
+     * SELECT ... FOR UPDATE SKIP LOCKED and their status is updated after the API calls
+     */
+    public static final String OUTBOX_TABLE = "outbox-table";
+
+    /**
+     * Primary key column of the outbox table ("id" by default)
+     */
+    public static final String OUTBOX_KEY = "outbox-key";
+
+    /**
+     * Status column of the outbox table (app.sql.outbox.status-column by default)
+     */
+    public static final String OUTBOX_STATUS_COLUMN = "outbox-status-column";
+
+    /**
+     * Column of the outbox table receiving the claim time of a row, used to release the rows
+     * claimed by an instance that stopped (app.sql.outbox.claimed-at-column by default)
+     */
+    public static final String OUTBOX_CLAIMED_AT_COLUMN = "outbox-claimed-at-column";
+
+    /**
+     * Number of rows claimed per transaction in outbox mode
+     */
+    public static final String OUTBOX_BATCH_SIZE = "outbox-batch-size";
+
+    /**
+     * "true" when the SQL file does not depend on the API calls of the previous files: its query
+     * is read in advance while the previous file is still sending
+     */
+    public static final String PREFETCH = "prefetch";
+
+    /**
+     * "true" or "false" to convert the column values into template-ready strings while reading,
+     * overriding app.sql.conversion.enabled
+     */
+    public static final String CONVERT_VALUES = "convert-values";
+
+    /**
+     * Result column holding the JSON body built by the database, sent as is instead of
+     * rendering the template, whose header still gives the route, method and headers
+     */
+    public static final String PAYLOAD_COLUMN = "payload-column";
+
+    /**
+     * Name of the datasource the SQL file is read from: "primary" or a name configured
+     * under spring.datasource.sources
+     */
+    public static final String DATASOURCE = "datasource";
+
+    private static final Pattern DIRECTIVE_PATTERN = Pattern.compile(
+            "^\\s*(?:--|/\\*+|\\*)?\\s*@sql-([\\w-]+):\\s*(.*?)\\s*(?:\\*/)?\\s*$", Pattern.MULTILINE);
+
+    private SqlFileDirectives() {
+    }
+
+    /**
+     * Extracts the directives of a SQL file.
+     *
+     * @param sqlContent The content of the SQL file
+     * @return The directives keyed by name (without the "@sql-" prefix), in declaration order
+     */
+    public static Map<String, String> parse(String sqlContent) {
+        Map<String, String> directives = new LinkedHashMap<>();
+        if (sqlContent == null) {
+            return directives;
+        }
+
+        Matcher matcher = DIRECTIVE_PATTERN.matcher(sqlContent);
+        while (matcher.find()) {
+            String key = matcher.group(1).toLowerCase();
+            String value = matcher.group(2).trim();
+            directives.put(key, value);
+            log.debug("Extracted SQL directive: {}={}", key, value);
+        }
+        return directives;
+    }
+}
@@ -17,6 +17,7 @@ import org.springframework.util.FileCopyUtils;
 import com.etljobs.sql2json2api.config.SqlConfig;
 import com.etljobs.sql2json2api.exception.SqlFileException;
 import com.etljobs.sql2json2api.model.SqlFile;
+import com.etljobs.sql2json2api.service.template.TemplateFinder;
 import com.etljobs.sql2json2api.util.FileUtils;
 
 import lombok.extern.slf4j.Slf4j;
@@ -34,26 +35,40 @@ public class SqlFileService {
     @Autowired
     private SqlConfig sqlConfig;
 
+    @Autowired
+    private TemplateFinder templateFinder;
+
     /**
      * Lists all available SQL files in the configured directory.
      *
      * @return A list of SqlFile objects
      */
     public List<SqlFile> listSqlFiles() {
+        return listSqlFiles(sqlDirectory);
+    }
+
+    /**
+     * Lists all available SQL files in a directory, read like the configured directory
+     * (file system if absolute, classpath otherwise). Subdirectories are not listed.
+     *
+     * @param directory The directory of the SQL files
+     * @return A list of SqlFile objects
+     */
+    public List<SqlFile> listSqlFiles(String directory) {
         List<SqlFile> sqlFiles = new ArrayList<>();
 
         try {
-            if (FileUtils.isAbsolutePath(sqlDirectory)) {
+            if (FileUtils.isAbsolutePath(directory)) {
                 // Handle absolute path using file system operations
-                log.debug("Using file system to read SQL files from absolute path: {}", sqlDirectory);
-                List<Path> sqlFilePaths = FileUtils.listSqlFilesFromFileSystem(sqlDirectory);
+                log.debug("Using file system to read SQL files from absolute path: {}", directory);
+                List<Path> sqlFilePaths = FileUtils.listSqlFilesFromFileSystem(directory);
                 
                 for (Path filePath : sqlFilePaths) {
                     String fileName = filePath.getFileName().toString();
                     String content = FileUtils.readFileContent(filePath);
                     String httpMethod = FileUtils.extractHttpMethod(fileName);
                     String baseName = FileUtils.extractBaseName(fileName);
-                    String templateName = FileUtils.getTemplateNameForSqlFile(fileName);
+                    String templateName = templateFinder.resolveTemplateName(fileName);
 
                     SqlFile sqlFile = SqlFile.builder()
                             .fileName(fileName)
@@ -61,6 +76,8 @@ public class SqlFileService {
                             .httpMethod(httpMethod)
                             .baseName(baseName)
                             .templateName(templateName)
+                            .directives(SqlFileDirectives.parse(content))
+                            .parameterNames(SqlParameterResolver.parameterNames(content))
                             .build();
 
                     sqlFiles.add(sqlFile);
@@ -68,8 +85,8 @@ public class SqlFileService {
                 }
             } else {
                 // Original behavior: handle classpath resources
-                log.debug("Using classpath to read SQL files from: {}", sqlDirectory);
-                Resource[] resources = FileUtils.listResources("classpath:" + sqlDirectory + "/*.sql");
+                log.debug("Using classpath to read SQL files from: {}", directory);
+                Resource[] resources = FileUtils.listResources("classpath:" + directory + "/*.sql");
 
                 for (Resource resource : resources) {
                     String fileName = resource.getFilename();
@@ -77,7 +94,7 @@ public class SqlFileService {
                         String content = readResourceContent(resource);
                         String httpMethod = FileUtils.extractHttpMethod(fileName);
                         String baseName = FileUtils.extractBaseName(fileName);
-                        String templateName = FileUtils.getTemplateNameForSqlFile(fileName);
+                        String templateName = templateFinder.resolveTemplateName(fileName);
 
                         SqlFile sqlFile = SqlFile.builder()
                                 .fileName(fileName)
@@ -85,6 +102,8 @@ public class SqlFileService {
                                 .httpMethod(httpMethod)
                                 .baseName(baseName)
                                 .templateName(templateName)
+                                .directives(SqlFileDirectives.parse(content))
+                                .parameterNames(SqlParameterResolver.parameterNames(content))
                                 .build();
 
                         sqlFiles.add(sqlFile);
@@ -93,7 +112,7 @@ public class SqlFileService {
                 }
             }
         } catch (IOException e) {
-            throw new SqlFileException("Failed to list SQL files from directory: " + sqlDirectory, e);
+            throw new SqlFileException("Failed to list SQL files from directory: " + directory, e);
         }
 
         return sqlFiles;
@@ -124,7 +143,7 @@ public class SqlFileService {
             
             String httpMethod = FileUtils.extractHttpMethod(fileName);
             String baseName = FileUtils.extractBaseName(fileName);
-            String templateName = FileUtils.getTemplateNameForSqlFile(fileName);
+            String templateName = templateFinder.resolveTemplateName(fileName);
 
             return SqlFile.builder()
                     .fileName(fileName)
@@ -132,6 +151,8 @@ public class SqlFileService {
                     .httpMethod(httpMethod)
                     .baseName(baseName)
                     .templateName(templateName)
+                    .directives(SqlFileDirectives.parse(content))
+                    .parameterNames(SqlParameterResolver.parameterNames(content))
                     .build();
 
         } catch (IOException | ArrayIndexOutOfBoundsException e) {
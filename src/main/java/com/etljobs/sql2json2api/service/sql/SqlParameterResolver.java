@@ -0,0 +1,163 @@
+package com.etljobs.sql2json2api.service.sql;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.jdbc.core.namedparam.AbstractSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterUtils;
+import org.springframework.jdbc.core.namedparam.ParsedSql;
+import org.springframework.stereotype.Component;
+
+import com.etljobs.sql2json2api.exception.SqlExecutionException;
+import com.etljobs.sql2json2api.model.SqlFile;
+import com.etljobs.sql2json2api.service.incremental.WatermarkStore;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Resolves the named parameters of SQL files ({@code :since}, {@code :entity_id}) and
+ * replaces them with JDBC placeholders, using the same parser as NamedParameterJdbcTemplate
+ * (quotes, comments and PostgreSQL {@code ::} casts are ignored, collections are expanded).
+ * <p>
+ * A parameter {@code :name} of {@code GET_users.sql} takes the first value found in:
+ * <ol>
+ * <li>the property {@code app.sql.params.GET_users.name}</li>
+ * <li>the property {@code app.sql.params.name}</li>
+ * <li>for {@code :watermark}, the watermark stored for the file, then on the first run the
+ * property {@code app.sql.params.GET_users.initial-watermark} or {@code app.sql.params.initial-watermark}
+ * (NULL if none, which a comparison such as {@code id > :watermark} never matches)</li>
+ * </ol>
+ * Properties come from the configuration files or the command line
+ * ({@code --app.sql.params.since=date:2024-01-01}). Values are strings unless prefixed with
+ * a type, using the notation of the watermark state file (int:, long:, decimal:, date:, timestamp:...).
+ */
+@Component
+@Slf4j
+public class SqlParameterResolver {
+
+    static final String PROPERTY_PREFIX = "app.sql.params.";
+    static final String WATERMARK_PARAMETER = "watermark";
+    static final String INITIAL_WATERMARK_PROPERTY = "initial-watermark";
+
+    private final Environment environment;
+    private final WatermarkStore watermarkStore;
+
+    @Autowired
+    public SqlParameterResolver(Environment environment, WatermarkStore watermarkStore) {
+        this.environment = environment;
+        this.watermarkStore = watermarkStore;
+    }
+
+    /**
+     * Lists the named parameters of a SQL query, in order of first appearance.
+     *
+     * @param sql The SQL query
+     * @return The parameter names, empty if the query has none
+     */
+    public static List<String> parameterNames(String sql) {
+        Set<String> names = new LinkedHashSet<>();
+        // The parser asks the source for each parameter: record the names without supplying values
+        NamedParameterUtils.substituteNamedParameters(NamedParameterUtils.parseSqlStatement(sql),
+                new AbstractSqlParameterSource() {
+                    @Override
+                    public boolean hasValue(String paramName) {
+                        names.add(paramName);
+                        return false;
+                    }
+
+                    @Override
+                    public Object getValue(String paramName) {
+                        throw new IllegalArgumentException("No value for " + paramName);
+                    }
+                });
+        return new ArrayList<>(names);
+    }
+
+    /**
+     * Replaces the named parameters of a SQL file with placeholders and resolves their values.
+     *
+     * @param sqlFile The SQL file
+     * @return The query to execute with its values
+     * @throws SqlExecutionException if a parameter has no value
+     */
+    public ParameterizedSql resolve(SqlFile sqlFile) {
+        ParsedSql parsedSql = NamedParameterUtils.parseSqlStatement(sqlFile.getContent());
+        FileParameterSource source = new FileParameterSource(sqlFile);
+        try {
+            String sql = NamedParameterUtils.substituteNamedParameters(parsedSql, source);
+            Object[] args = NamedParameterUtils.buildValueArray(parsedSql, source, null);
+            log.debug("Named parameters of {} bound to {} values", sqlFile.getFileName(), args.length);
+            return new ParameterizedSql(sql, args);
+        } catch (InvalidDataAccessApiUsageException e) {
+            throw new SqlExecutionException("Missing SQL parameter value in " + sqlFile.getFileName()
+                    + " (set app.sql.params.<name> in the configuration or on the command line): "
+                    + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Looks up the parameter values of one SQL file.
+     */
+    private class FileParameterSource extends AbstractSqlParameterSource {
+
+        private final SqlFile sqlFile;
+        private final String fileKey;
+
+        FileParameterSource(SqlFile sqlFile) {
+            this.sqlFile = sqlFile;
+            String fileName = sqlFile.getFileName();
+            this.fileKey = fileName.endsWith(".sql") ? fileName.substring(0, fileName.length() - 4) : fileName;
+        }
+
+        @Override
+        public boolean hasValue(String paramName) {
+            return property(paramName) != null || WATERMARK_PARAMETER.equals(paramName);
+        }
+
+        @Override
+        public Object getValue(String paramName) {
+            String value = property(paramName);
+            if (value != null) {
+                return decode(paramName, value);
+            }
+            if (WATERMARK_PARAMETER.equals(paramName)) {
+                return watermark();
+            }
+            throw new IllegalArgumentException("No value for SQL parameter '" + paramName + "'");
+        }
+
+        private Object watermark() {
+            Object watermark = watermarkStore.getWatermark(sqlFile.getFileName());
+            if (watermark != null) {
+                return watermark;
+            }
+            String initial = property(INITIAL_WATERMARK_PROPERTY);
+            if (initial != null) {
+                log.info("No watermark stored for {}, using the initial watermark {}", sqlFile.getFileName(), initial);
+                return decode(INITIAL_WATERMARK_PROPERTY, initial);
+            }
+            log.warn("No watermark stored for {} and no {}{}: :watermark is bound to NULL",
+                    sqlFile.getFileName(), PROPERTY_PREFIX, INITIAL_WATERMARK_PROPERTY);
+            return null;
+        }
+
+        private Object decode(String paramName, String value) {
+            try {
+                return WatermarkStore.decode(value);
+            } catch (RuntimeException e) {
+                throw new SqlExecutionException("Invalid value '" + value + "' for SQL parameter '" + paramName
+                        + "' of " + sqlFile.getFileName() + ": " + e.getMessage(), e);
+            }
+        }
+
+        private String property(String paramName) {
+            String value = environment.getProperty(PROPERTY_PREFIX + fileKey + "." + paramName);
+            return value != null ? value : environment.getProperty(PROPERTY_PREFIX + paramName);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.etljobs.sql2json2api.service.sql;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Map;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import com.etljobs.sql2json2api.exception.SqlExecutionException;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Executes a SQL query over a forward-only, read-only cursor and hands each row to a
+ * {@link RowHandler} as soon as it is read. Rows are never accumulated in memory, so heap
+ * usage does not depend on the size of the result set. This is the default extraction mode,
+ * also used by the incremental mode once its query is built.
+ */
+@Slf4j
+class StreamingQueryExecutor {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int fetchSize;
+
+    /**
+     * @param fetchSize The number of rows fetched per round-trip, 0 for the driver default
+     */
+    StreamingQueryExecutor(JdbcTemplate jdbcTemplate, int fetchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * Streams a parameterized SQL query, binding the arguments positionally.
+     *
+     * @param sql The SQL query
+     * @param args The values of its placeholders
+     * @param rowMapper The mapper of the rows
+     * @param rowHandler The callback receiving each row
+     * @return The number of rows read
+     * @throws SqlExecutionException if the query execution fails
+     */
+    int execute(String sql, Object[] args, CompactRowMapper rowMapper, RowHandler rowHandler) {
+        try {
+            log.debug("Streaming SQL query (fetch size {}): {}", fetchSize, sql);
+            StreamingRowCallbackHandler callbackHandler = new StreamingRowCallbackHandler(rowMapper, rowHandler);
+            jdbcTemplate.query(connection -> createStreamingStatement(connection, sql, args, fetchSize),
+                    callbackHandler);
+            log.debug("Query streamed successfully. Read {} rows.", callbackHandler.getRowCount());
+            return callbackHandler.getRowCount();
+        } catch (DataAccessException e) {
+            log.error("Failed to stream SQL query: {}", sql, e);
+            throw new SqlExecutionException("Failed to stream SQL query", e);
+        }
+    }
+
+    /**
+     * Creates a forward-only, read-only statement configured with the streaming fetch size
+     * of the database (see {@link SqlDialect#streamingFetchSizeFor}).
+     */
+    static PreparedStatement createStreamingStatement(Connection connection, String sql, Object[] args,
+            int fetchSize) throws SQLException {
+        PreparedStatement statement = connection.prepareStatement(
+                sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        int streamingFetchSize = SqlDialect.streamingFetchSizeFor(connection, fetchSize);
+        if (streamingFetchSize != 0) {
+            statement.setFetchSize(streamingFetchSize);
+        }
+        for (int i = 0; i < args.length; i++) {
+            statement.setObject(i + 1, args[i]);
+        }
+        return statement;
+    }
+
+    /**
+     * Maps each row of the cursor and forwards it to the {@link RowHandler}.
+     */
+    private static class StreamingRowCallbackHandler implements RowCallbackHandler {
+
+        private final CompactRowMapper rowMapper;
+        private final RowHandler rowHandler;
+        private int rowCount = 0;
+
+        StreamingRowCallbackHandler(CompactRowMapper rowMapper, RowHandler rowHandler) {
+            this.rowMapper = rowMapper;
+            this.rowHandler = rowHandler;
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            Map<String, Object> row = rowMapper.mapRow(rs, rowCount);
+            rowHandler.handleRow(row, rowCount);
+            rowCount++;
+        }
+
+        int getRowCount() {
+            return rowCount;
+        }
+    }
+}
@@ -0,0 +1,315 @@
+package com.etljobs.sql2json2api.service.sql.buffer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.etljobs.sql2json2api.exception.SqlExecutionException;
+import com.etljobs.sql2json2api.service.sql.CompactRow;
+import com.etljobs.sql2json2api.service.sql.RowSchema;
+
+/**
+ * Binary encoding of query rows, used to move rows out of the heap (spill files, snapshots).
+ * Each value is written with a one-byte type tag. Column names are not repeated per row:
+ * every schema gets an id, and the schema definition is written once in the stream, in the
+ * record preceding the first row that uses it.
+ * <p>
+ * An instance keeps the schemas seen so far, so rows must be decoded in the order they were
+ * encoded, with a single codec per stream. Not thread-safe.
+ */
+public class RowCodec {
+
+    private static final byte RECORD_ROW = 1;
+    private static final byte RECORD_SCHEMA = 2;
+
+    private static final byte NULL = 0;
+    private static final byte STRING = 1;
+    private static final byte INTEGER = 2;
+    private static final byte LONG = 3;
+    private static final byte DOUBLE = 4;
+    private static final byte FLOAT = 5;
+    private static final byte BOOLEAN = 6;
+    private static final byte BIG_DECIMAL = 7;
+    private static final byte BIG_INTEGER = 8;
+    private static final byte SQL_DATE = 9;
+    private static final byte SQL_TIMESTAMP = 10;
+    private static final byte SQL_TIME = 11;
+    private static final byte BYTES = 12;
+    private static final byte SHORT = 13;
+    private static final byte BYTE = 14;
+    private static final byte LOCAL_DATE = 15;
+    private static final byte LOCAL_DATE_TIME = 16;
+    private static final byte UTIL_DATE = 17;
+    private static final byte SERIALIZED = 18;
+
+    private final Map<RowSchema, Integer> writeSchemaIds = new IdentityHashMap<>();
+    private final List<RowSchema> readSchemas = new ArrayList<>();
+    private List<String> lastAdHocColumns;
+    private RowSchema lastAdHocSchema;
+    private ByteBuffer buffer = ByteBuffer.allocate(1024);
+
+    /**
+     * Encodes a row. The returned records must be written and later decoded in order:
+     * a schema record is emitted before the first row of each new schema.
+     *
+     * @param row The row to encode
+     * @return One or two records (schema definition then row)
+     */
+    public List<byte[]> encode(Map<String, Object> row) {
+        CompactRow compactRow = toCompactRow(row);
+        RowSchema schema = compactRow.getSchema();
+        List<byte[]> records = new ArrayList<>(2);
+
+        Integer schemaId = writeSchemaIds.get(schema);
+        if (schemaId == null) {
+            schemaId = writeSchemaIds.size();
+            writeSchemaIds.put(schema, schemaId);
+            records.add(encodeSchema(schemaId, schema));
+        }
+
+        buffer.clear();
+        ensureCapacity(5);
+        buffer.put(RECORD_ROW);
+        buffer.putInt(schemaId);
+        for (int i = 0; i < schema.size(); i++) {
+            writeValue(compactRow.getValue(i));
+        }
+        records.add(Arrays.copyOf(buffer.array(), buffer.position()));
+        return records;
+    }
+
+    /**
+     * Decodes a record produced by {@link #encode(Map)}.
+     *
+     * @param record The record bytes
+     * @return The decoded row, or null if the record was a schema definition
+     */
+    public Map<String, Object> decode(byte[] record) {
+        ByteBuffer input = ByteBuffer.wrap(record);
+        byte recordType = input.get();
+
+        if (recordType == RECORD_SCHEMA) {
+            int schemaId = input.getInt();
+            int columnCount = input.getInt();
+            List<String> columnNames = new ArrayList<>(columnCount);
+            for (int i = 0; i < columnCount; i++) {
+                columnNames.add(readString(input));
+            }
+            if (schemaId != readSchemas.size()) {
+                throw new SqlExecutionException("Unexpected row schema id " + schemaId);
+            }
+            readSchemas.add(new RowSchema(columnNames));
+            return null;
+        }
+
+        RowSchema schema = readSchemas.get(input.getInt());
+        Object[] values = new Object[schema.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = readValue(input);
+        }
+        return new CompactRow(schema, values);
+    }
+
+    /**
+     * Roughly estimates the heap footprint of a row, used to decide when to spill.
+     *
+     * @param row The row
+     * @return The estimated size in bytes
+     */
+    public static long estimateHeapSize(Map<String, Object> row) {
+        long size = 32 + 8L * row.size();
+        for (Object value : row.values()) {
+            if (value == null) {
+                continue;
+            }
+            if (value instanceof String text) {
+                size += 40 + text.length();
+            } else if (value instanceof byte[] bytes) {
+                size += 16 + bytes.length;
+            } else if (value instanceof BigDecimal || value instanceof BigInteger) {
+                size += 64;
+            } else {
+                size += 24;
+            }
+        }
+        return size;
+    }
+
+    private byte[] encodeSchema(int schemaId, RowSchema schema) {
+        buffer.clear();
+        ensureCapacity(9);
+        buffer.put(RECORD_SCHEMA);
+        buffer.putInt(schemaId);
+        buffer.putInt(schema.size());
+        for (int i = 0; i < schema.size(); i++) {
+            writeString(schema.getColumnName(i));
+        }
+        return Arrays.copyOf(buffer.array(), buffer.position());
+    }
+
+    private CompactRow toCompactRow(Map<String, Object> row) {
+        if (row instanceof CompactRow compactRow) {
+            return compactRow;
+        }
+        // Rows that do not come from a CompactRowMapper reuse the schema of the previous row when possible
+        List<String> columns = new ArrayList<>(row.keySet());
+        if (lastAdHocSchema == null || !columns.equals(lastAdHocColumns)) {
+            lastAdHocColumns = columns;
+            lastAdHocSchema = new RowSchema(columns);
+        }
+        Object[] values = new Object[lastAdHocSchema.size()];
+        int i = 0;
+        for (Object value : row.values()) {
+            values[i++] = value;
+        }
+        return new CompactRow(lastAdHocSchema, values);
+    }
+
+    private void writeValue(Object value) {
+        ensureCapacity(17);
+        if (value == null) {
+            buffer.put(NULL);
+        } else if (value instanceof String text) {
+            buffer.put(STRING);
+            writeString(text);
+        } else if (value instanceof Integer number) {
+            buffer.put(INTEGER).putInt(number);
+        } else if (value instanceof Long number) {
+            buffer.put(LONG).putLong(number);
+        } else if (value instanceof Double number) {
+            buffer.put(DOUBLE).putDouble(number);
+        } else if (value instanceof Float number) {
+            buffer.put(FLOAT).putFloat(number);
+        } else if (value instanceof Boolean flag) {
+            buffer.put(BOOLEAN).put((byte) (flag ? 1 : 0));
+        } else if (value instanceof Short number) {
+            buffer.put(SHORT).putShort(number);
+        } else if (value instanceof Byte number) {
+            buffer.put(BYTE).put(number);
+        } else if (value instanceof BigDecimal decimal) {
+            buffer.put(BIG_DECIMAL).putInt(decimal.scale());
+            writeBytes(decimal.unscaledValue().toByteArray());
+        } else if (value instanceof BigInteger integer) {
+            buffer.put(BIG_INTEGER);
+            writeBytes(integer.toByteArray());
+        } else if (value instanceof java.sql.Timestamp timestamp) {
+            buffer.put(SQL_TIMESTAMP).putLong(timestamp.getTime()).putInt(timestamp.getNanos());
+        } else if (value instanceof java.sql.Date date) {
+            buffer.put(SQL_DATE).putLong(date.getTime());
+        } else if (value instanceof java.sql.Time time) {
+            buffer.put(SQL_TIME).putLong(time.getTime());
+        } else if (value instanceof java.util.Date date) {
+            buffer.put(UTIL_DATE).putLong(date.getTime());
+        } else if (value instanceof LocalDate date) {
+            buffer.put(LOCAL_DATE).putLong(date.toEpochDay());
+        } else if (value instanceof LocalDateTime dateTime) {
+            buffer.put(LOCAL_DATE_TIME).putLong(dateTime.toEpochSecond(ZoneOffset.UTC)).putInt(dateTime.getNano());
+        } else if (value instanceof byte[] bytes) {
+            buffer.put(BYTES);
+            writeBytes(bytes);
+        } else if (value instanceof Serializable serializable) {
+            buffer.put(SERIALIZED);
+            writeBytes(serialize(serializable));
+        } else {
+            // Non-serializable driver types are kept as text
+            buffer.put(STRING);
+            writeString(value.toString());
+        }
+    }
+
+    private Object readValue(ByteBuffer input) {
+        byte type = input.get();
+        return switch (type) {
+            case NULL -> null;
+            case STRING -> readString(input);
+            case INTEGER -> input.getInt();
+            case LONG -> input.getLong();
+            case DOUBLE -> input.getDouble();
+            case FLOAT -> input.getFloat();
+            case BOOLEAN -> input.get() != 0;
+            case SHORT -> input.getShort();
+            case BYTE -> input.get();
+            case BIG_DECIMAL -> {
+                int scale = input.getInt();
+                yield new BigDecimal(new BigInteger(readBytes(input)), scale);
+            }
+            case BIG_INTEGER -> new BigInteger(readBytes(input));
+            case SQL_TIMESTAMP -> {
+                java.sql.Timestamp timestamp = new java.sql.Timestamp(input.getLong());
+                timestamp.setNanos(input.getInt());
+                yield timestamp;
+            }
+            case SQL_DATE -> new java.sql.Date(input.getLong());
+            case SQL_TIME -> new java.sql.Time(input.getLong());
+            case UTIL_DATE -> new java.util.Date(input.getLong());
+            case LOCAL_DATE -> LocalDate.ofEpochDay(input.getLong());
+            case LOCAL_DATE_TIME -> LocalDateTime.ofEpochSecond(input.getLong(), input.getInt(), ZoneOffset.UTC);
+            case BYTES -> readBytes(input);
+            case SERIALIZED -> deserialize(readBytes(input));
+            default -> throw new SqlExecutionException("Unknown value type tag in encoded row: " + type);
+        };
+    }
+
+    private void writeString(String text) {
+        writeBytes(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String readString(ByteBuffer input) {
+        return new String(readBytes(input), StandardCharsets.UTF_8);
+    }
+
+    private void writeBytes(byte[] bytes) {
+        ensureCapacity(4 + bytes.length);
+        buffer.putInt(bytes.length);
+        buffer.put(bytes);
+    }
+
+    private byte[] readBytes(ByteBuffer input) {
+        byte[] bytes = new byte[input.getInt()];
+        input.get(bytes);
+        return bytes;
+    }
+
+    private void ensureCapacity(int additionalBytes) {
+        if (buffer.remaining() < additionalBytes) {
+            ByteBuffer larger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + additionalBytes));
+            buffer.flip();
+            larger.put(buffer);
+            buffer = larger;
+        }
+    }
+
+    private byte[] serialize(Serializable value) {
+        try (ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                ObjectOutputStream output = new ObjectOutputStream(bytes)) {
+            output.writeObject(value);
+            output.flush();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new SqlExecutionException("Failed to serialize row value of type " + value.getClass().getName(), e);
+        }
+    }
+
+    private Object deserialize(byte[] bytes) {
+        try (ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return input.readObject();
+        } catch (IOException | ClassNotFoundException e) {
+            throw new SqlExecutionException("Failed to deserialize row value", e);
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package com.etljobs.sql2json2api.service.sql.buffer;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * FIFO queue of byte records stored in segment files, written and read with positional
+ * file channel I/O. Records are appended to the last segment and read back in order; a
+ * segment file is deleted as soon as all its records have been read, or truncated if it
+ * is still the one being written. Nothing is memory-mapped, so the disk space is returned
+ * as soon as a segment is released. Not thread-safe: callers must synchronize access.
+ */
+@Slf4j
+class SpillFile implements Closeable {
+
+    private final Path directory;
+    private final int segmentSize;
+    private final Deque<Segment> segments = new ArrayDeque<>();
+    private long unreadBytes;
+    private long totalBytes;
+    private long diskBytes;
+    private int segmentCount;
+
+    /**
+     * @param directory The directory where segment files are created
+     * @param segmentSize The size past which a new segment file is started
+     */
+    SpillFile(Path directory, int segmentSize) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+    }
+
+    /**
+     * Appends a record at the end of the queue.
+     *
+     * @param record The record bytes
+     * @throws IOException if the record cannot be written
+     */
+    void append(byte[] record) throws IOException {
+        int recordSize = Integer.BYTES + record.length;
+        Segment segment = segments.peekLast();
+        if (segment == null || (segment.writePosition > 0 && segment.writePosition + recordSize > segmentSize)) {
+            segment = createSegment();
+            segments.addLast(segment);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(recordSize);
+        buffer.putInt(record.length).put(record).flip();
+        while (buffer.hasRemaining()) {
+            segment.channel.write(buffer, segment.writePosition + buffer.position());
+        }
+        segment.writePosition += recordSize;
+        unreadBytes += recordSize;
+        totalBytes += recordSize;
+        diskBytes += recordSize;
+    }
+
+    /**
+     * Removes and returns the oldest record.
+     *
+     * @return The record bytes, or null if the queue is empty
+     * @throws IOException if the record cannot be read
+     */
+    byte[] poll() throws IOException {
+        Segment segment = segments.peekFirst();
+        if (segment == null || segment.readPosition >= segment.writePosition) {
+            return null;
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(Integer.BYTES);
+        readFully(segment, header, segment.readPosition);
+        int length = header.getInt(0);
+        byte[] record = new byte[length];
+        readFully(segment, ByteBuffer.wrap(record), segment.readPosition + Integer.BYTES);
+        segment.readPosition += Integer.BYTES + length;
+        unreadBytes -= Integer.BYTES + length;
+
+        if (segment.readPosition == segment.writePosition) {
+            release(segment);
+        }
+        return record;
+    }
+
+    /**
+     * @return true if all appended records have been read
+     */
+    boolean isEmpty() {
+        return unreadBytes == 0;
+    }
+
+    /**
+     * @return The size of the records appended but not read yet
+     */
+    long getUnreadBytes() {
+        return unreadBytes;
+    }
+
+    /**
+     * @return The size of the segment files still on disk, read records included until
+     *         their segment has actually been deleted or truncated
+     */
+    long getDiskBytes() {
+        return diskBytes;
+    }
+
+    /**
+     * @return The total size of the records appended since creation
+     */
+    long getTotalBytes() {
+        return totalBytes;
+    }
+
+    /**
+     * Deletes all the remaining segment files.
+     */
+    @Override
+    public void close() {
+        while (!segments.isEmpty()) {
+            Segment segment = segments.pollFirst();
+            if (segment.delete()) {
+                diskBytes -= segment.writePosition;
+            }
+        }
+        unreadBytes = 0;
+    }
+
+    /**
+     * Frees the disk space of a fully read segment: the last segment is truncated and
+     * reused, the others are deleted.
+     */
+    private void release(Segment segment) {
+        if (segment == segments.peekLast()) {
+            try {
+                segment.channel.truncate(0);
+                diskBytes -= segment.writePosition;
+                segment.writePosition = 0;
+                segment.readPosition = 0;
+            } catch (IOException e) {
+                log.warn("Could not truncate spill segment {}: {}", segment.path, e.getMessage());
+            }
+            return;
+        }
+        segments.pollFirst();
+        if (segment.delete()) {
+            diskBytes -= segment.writePosition;
+        }
+    }
+
+    private Segment createSegment() throws IOException {
+        Files.createDirectories(directory);
+        Path path = Files.createTempFile(directory, "sql2json2api-spill-" + (segmentCount++) + "-", ".bin");
+        try {
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            log.debug("Created spill segment {}", path);
+            return new Segment(path, channel);
+        } catch (IOException e) {
+            Files.deleteIfExists(path);
+            throw e;
+        }
+    }
+
+    private static void readFully(Segment segment, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (segment.channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("Truncated record in spill segment " + segment.path);
+            }
+        }
+    }
+
+    /**
+     * One segment file with its write and read positions.
+     */
+    private static class Segment {
+
+        private final Path path;
+        private final FileChannel channel;
+        private long writePosition;
+        private long readPosition;
+
+        Segment(Path path, FileChannel channel) {
+            this.path = path;
+            this.channel = channel;
+        }
+
+        /**
+         * @return true if the file has been deleted
+         */
+        boolean delete() {
+            try {
+                channel.close();
+                Files.deleteIfExists(path);
+                return true;
+            } catch (IOException e) {
+                log.warn("Could not delete spill segment {}: {}", path, e.getMessage());
+                return false;
+            }
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package com.etljobs.sql2json2api.service.sql.buffer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.etljobs.sql2json2api.exception.SqlExecutionException;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Row buffer between a producer reading a query result and a consumer calling the APIs.
+ * Rows are kept in memory up to a size threshold; beyond it they are encoded and spilled
+ * to segment files, then read back in the same order. This lets the producer read
+ * the whole result (and release its connection) even when the consumer is much slower.
+ * <p>
+ * One producer thread and one consumer thread. The producer blocks only when the spill
+ * files still on disk reach the disk limit while rows remain to be consumed.
+ */
+@Slf4j
+public class SpillableRowBuffer implements Closeable {
+
+    private final long memoryThresholdBytes;
+    private final long maxSpillBytes;
+    private final Path spillDirectory;
+    private final int segmentSize;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+
+    private final Deque<Map<String, Object>> memoryRows = new ArrayDeque<>();
+    private final RowCodec codec = new RowCodec();
+    private SpillFile spillFile;
+    private long memoryBytes;
+    private long peakMemoryBytes;
+    private long spilledRowCount;
+    private boolean completed;
+    private boolean closed;
+    private Throwable failure;
+
+    /**
+     * @param memoryThresholdBytes Estimated size of the rows kept in memory before spilling
+     * @param maxSpillBytes Maximum size of the spill files on disk
+     * @param spillDirectory Directory of the spill files
+     * @param segmentSize Size of each spill file
+     */
+    public SpillableRowBuffer(long memoryThresholdBytes, long maxSpillBytes, Path spillDirectory, int segmentSize) {
+        this.memoryThresholdBytes = memoryThresholdBytes;
+        this.maxSpillBytes = maxSpillBytes;
+        this.spillDirectory = spillDirectory;
+        this.segmentSize = segmentSize;
+    }
+
+    /**
+     * Adds a row at the end of the buffer.
+     *
+     * @param row The row
+     * @throws InterruptedException if interrupted while waiting for spill space
+     * @throws SqlExecutionException if the buffer has been closed or the row cannot be spilled
+     */
+    public void put(Map<String, Object> row) throws InterruptedException {
+        long rowSize = RowCodec.estimateHeapSize(row);
+        lock.lock();
+        try {
+            ensureOpen();
+
+            // Rows stay in memory while nothing is waiting on disk, to keep the order
+            boolean spillPending = spillFile != null && !spillFile.isEmpty();
+            if (!spillPending && (memoryRows.isEmpty() || memoryBytes + rowSize <= memoryThresholdBytes)) {
+                memoryRows.addLast(row);
+                memoryBytes += rowSize;
+                peakMemoryBytes = Math.max(peakMemoryBytes, memoryBytes);
+                notEmpty.signal();
+                return;
+            }
+
+            if (spillFile == null) {
+                log.info("Row buffer exceeded {} bytes in memory, spilling rows to {}",
+                        memoryThresholdBytes, spillDirectory);
+                spillFile = new SpillFile(spillDirectory, segmentSize);
+            }
+            // Space is counted as released only once a read segment has been deleted
+            while (!spillFile.isEmpty() && spillFile.getDiskBytes() >= maxSpillBytes) {
+                notFull.await();
+                ensureOpen();
+            }
+            for (byte[] record : codec.encode(row)) {
+                spillFile.append(record);
+            }
+            spilledRowCount++;
+            notEmpty.signal();
+        } catch (IOException e) {
+            throw new SqlExecutionException("Failed to spill rows to " + spillDirectory, e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Signals that the producer has added all its rows.
+     */
+    public void complete() {
+        lock.lock();
+        try {
+            completed = true;
+            notEmpty.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Signals that the producer has failed; the consumer gets the error on its next take.
+     *
+     * @param error The producer error
+     */
+    public void fail(Throwable error) {
+        lock.lock();
+        try {
+            failure = error;
+            notEmpty.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes and returns the oldest row, waiting for the producer if needed.
+     *
+     * @return The row, or null once the producer has completed and all rows have been taken
+     * @throws InterruptedException if interrupted while waiting
+     * @throws SqlExecutionException if the producer has failed
+     */
+    public Map<String, Object> take() throws InterruptedException {
+        lock.lock();
+        try {
+            while (true) {
+                if (failure != null) {
+                    if (failure instanceof SqlExecutionException sqlException) {
+                        throw sqlException;
+                    }
+                    throw new SqlExecutionException("Failed to read SQL rows", failure);
+                }
+
+                Map<String, Object> row = memoryRows.pollFirst();
+                if (row != null) {
+                    memoryBytes -= RowCodec.estimateHeapSize(row);
+                    return row;
+                }
+
+                if (spillFile != null && !spillFile.isEmpty()) {
+                    row = readSpilledRow();
+                    notFull.signal();
+                    if (row != null) {
+                        return row;
+                    }
+                    continue;
+                }
+
+                if (completed || closed) {
+                    return null;
+                }
+                notEmpty.await();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return The number of rows written to the spill files
+     */
+    public long getSpilledRowCount() {
+        lock.lock();
+        try {
+            return spilledRowCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return The total size of the spilled records in bytes
+     */
+    public long getSpilledBytes() {
+        lock.lock();
+        try {
+            return spillFile != null ? spillFile.getTotalBytes() : 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return The maximum estimated size of the rows held in memory
+     */
+    public long getPeakMemoryBytes() {
+        lock.lock();
+        try {
+            return peakMemoryBytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Releases the buffer and deletes the spill files. A producer still adding rows gets an error.
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            memoryRows.clear();
+            memoryBytes = 0;
+            if (spillFile != null) {
+                spillFile.close();
+            }
+            notEmpty.signalAll();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Reads the next spilled record, registering schema definitions on the way.
+     */
+    private Map<String, Object> readSpilledRow() {
+        try {
+            byte[] record;
+            while ((record = spillFile.poll()) != null) {
+                Map<String, Object> row = codec.decode(record);
+                if (row != null) {
+                    return row;
+                }
+            }
+            return null;
+        } catch (IOException e) {
+            throw new SqlExecutionException("Failed to read spilled rows from " + spillDirectory, e);
+        }
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new SqlExecutionException("Row buffer has been closed");
+        }
+    }
+}
@@ -0,0 +1,273 @@
+package com.etljobs.sql2json2api.service.sql.snapshot;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.etljobs.sql2json2api.exception.SqlExecutionException;
+import com.etljobs.sql2json2api.service.sql.DataSourceRouter;
+import com.etljobs.sql2json2api.service.sql.RowHandler;
+import com.etljobs.sql2json2api.service.sql.buffer.RowCodec;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Cache local des résultats de requêtes SQL. Le résultat de chaque requête est écrit
+ * dans un fichier binaire compact, identifié par un hash SHA-256 du texte SQL et de la
+ * source de données du fichier SQL (nom, URL et utilisateur). Une exécution ultérieure, dans la durée de validité configurée,
+ * rejoue les lignes depuis ce fichier au lieu d'interroger la base.
+ * <p>
+ * Le rafraîchissement peut être forcé en ligne de commande avec
+ * {@code --app.sql.snapshot.force-refresh=true}.
+ */
+@Service
+@Slf4j
+public class ResultSnapshotCache {
+
+    private static final int MAGIC = 0x534A5331; // "SJS1"
+    private static final int END_OF_ROWS = -1;
+
+    @Value("${app.sql.snapshot.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.sql.snapshot.directory:./snapshots}")
+    private String directory;
+
+    @Value("${app.sql.snapshot.ttl:PT6H}")
+    private Duration ttl;
+
+    @Value("${app.sql.snapshot.force-refresh:false}")
+    private boolean forceRefresh;
+
+    private final DataSourceRouter dataSourceRouter;
+
+    @Autowired
+    public ResultSnapshotCache(DataSourceRouter dataSourceRouter) {
+        this.dataSourceRouter = dataSourceRouter;
+    }
+
+    /**
+     * @return true si le cache de résultats est activé
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Calcule la clé d'un résultat à partir du texte SQL et de la source de données
+     * sélectionnée pour le thread courant ({@link DataSourceRouter#callOn}).
+     *
+     * @param sql Le texte de la requête exécutée
+     * @return Le hash SHA-256 en hexadécimal
+     */
+    public String keyFor(String sql) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update((dataSourceRouter.currentIdentity() + "\n").getBytes(StandardCharsets.UTF_8));
+            digest.update(sql.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 non disponible", e);
+        }
+    }
+
+    /**
+     * Rejoue un résultat depuis le cache s'il existe et n'a pas expiré.
+     *
+     * @param key La clé du résultat
+     * @param label Libellé utilisé dans les logs (nom du fichier SQL)
+     * @param rowHandler Le callback recevant chaque ligne
+     * @return Le nombre de lignes rejouées, ou -1 si aucun résultat valide n'est en cache
+     * @throws SqlExecutionException si le fichier de cache est illisible
+     */
+    public int replay(String key, String label, RowHandler rowHandler) {
+        Path snapshot = snapshotPath(key);
+        if (!Files.exists(snapshot)) {
+            log.debug("Aucun résultat en cache pour {}", label);
+            return -1;
+        }
+        if (forceRefresh) {
+            log.info("Rafraîchissement forcé du résultat en cache de {}", label);
+            return -1;
+        }
+
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshot)))) {
+            if (input.readInt() != MAGIC) {
+                log.warn("Fichier de cache invalide pour {}, il sera régénéré: {}", label, snapshot);
+                input.close();
+                Files.deleteIfExists(snapshot);
+                return -1;
+            }
+            Instant createdAt = Instant.ofEpochMilli(input.readLong());
+            if (createdAt.plus(ttl).isBefore(Instant.now())) {
+                log.info("Résultat en cache de {} expiré (créé le {}), la requête sera exécutée", label, createdAt);
+                input.close();
+                Files.deleteIfExists(snapshot);
+                return -1;
+            }
+
+            log.info("Rejeu du résultat de {} depuis le cache (créé le {})", label, createdAt);
+            RowCodec codec = new RowCodec();
+            int rowIndex = 0;
+            int length;
+            while ((length = input.readInt()) != END_OF_ROWS) {
+                byte[] record = new byte[length];
+                input.readFully(record);
+                Map<String, Object> row = codec.decode(record);
+                if (row != null) {
+                    rowHandler.handleRow(row, rowIndex++);
+                }
+            }
+            int expectedRows = input.readInt();
+            if (expectedRows != rowIndex) {
+                throw new SqlExecutionException("Résultat en cache incomplet pour " + label
+                        + ": " + rowIndex + " lignes lues sur " + expectedRows);
+            }
+            log.info("{} lignes rejouées depuis le cache pour {}", rowIndex, label);
+            return rowIndex;
+        } catch (EOFException e) {
+            deleteQuietly(snapshot);
+            throw new SqlExecutionException("Résultat en cache tronqué pour " + label + ": " + snapshot, e);
+        } catch (IOException e) {
+            throw new SqlExecutionException("Impossible de lire le résultat en cache de " + label, e);
+        }
+    }
+
+    /**
+     * Ouvre l'écriture d'un nouveau résultat. Le fichier n'est visible dans le cache
+     * qu'après {@link SnapshotWriter#commit()}.
+     *
+     * @param key La clé du résultat
+     * @param label Libellé utilisé dans les logs (nom du fichier SQL)
+     * @return Le writer du résultat
+     */
+    public SnapshotWriter openWriter(String key, String label) {
+        return new SnapshotWriter(snapshotPath(key), label);
+    }
+
+    private Path snapshotPath(String key) {
+        return Paths.get(directory).resolve(key + ".snap");
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.debug("Impossible de supprimer {}", path);
+        }
+    }
+
+    /**
+     * Écrit les lignes d'un résultat dans un fichier temporaire, renommé en fin d'écriture.
+     * Une erreur d'écriture désactive le writer sans interrompre le traitement.
+     */
+    public static class SnapshotWriter implements Closeable {
+
+        private final Path target;
+        private final String label;
+        private final RowCodec codec = new RowCodec();
+        private Path tempFile;
+        private DataOutputStream output;
+        private int rowCount;
+        private boolean committed;
+
+        SnapshotWriter(Path target, String label) {
+            this.target = target;
+            this.label = label;
+            try {
+                Files.createDirectories(target.getParent());
+                tempFile = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+                output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)));
+                output.writeInt(MAGIC);
+                output.writeLong(System.currentTimeMillis());
+            } catch (IOException e) {
+                disable(e);
+            }
+        }
+
+        /**
+         * Ajoute une ligne au résultat.
+         *
+         * @param row La ligne
+         */
+        public void write(Map<String, Object> row) {
+            if (output == null) {
+                return;
+            }
+            try {
+                for (byte[] record : codec.encode(row)) {
+                    output.writeInt(record.length);
+                    output.write(record);
+                }
+                rowCount++;
+            } catch (IOException e) {
+                disable(e);
+            }
+        }
+
+        /**
+         * Termine l'écriture et publie le résultat dans le cache.
+         */
+        public void commit() {
+            if (output == null) {
+                return;
+            }
+            try {
+                output.writeInt(END_OF_ROWS);
+                output.writeInt(rowCount);
+                output.close();
+                output = null;
+                Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                committed = true;
+                log.info("Résultat de {} mis en cache: {} lignes, {} octets", label, rowCount, Files.size(target));
+            } catch (IOException e) {
+                disable(e);
+            }
+        }
+
+        /**
+         * Supprime le fichier temporaire si le résultat n'a pas été publié.
+         */
+        @Override
+        public void close() {
+            if (committed) {
+                return;
+            }
+            if (output != null) {
+                try {
+                    output.close();
+                } catch (IOException e) {
+                    log.debug("Erreur à la fermeture du cache de {}", label);
+                }
+                output = null;
+            }
+            if (tempFile != null) {
+                deleteQuietly(tempFile);
+            }
+        }
+
+        private void disable(IOException e) {
+            log.warn("Impossible d'écrire le résultat de {} en cache: {}", label, e.getMessage());
+            close();
+        }
+    }
+}
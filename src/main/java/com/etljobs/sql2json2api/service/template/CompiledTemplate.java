@@ -0,0 +1,62 @@
+package com.etljobs.sql2json2api.service.template;
+
+import java.util.Map;
+
+import org.springframework.http.HttpMethod;
+
+import com.etljobs.sql2json2api.model.ApiEndpointInfo;
+import com.etljobs.sql2json2api.service.template.json.JsonTemplate;
+
+import freemarker.template.Template;
+import lombok.Getter;
+
+/**
+ * Template préparé une seule fois par {@link TemplateCompiler} : template FreeMarker analysé,
+ * en-tête (route, méthode, en-têtes, paramètres, write-back) lu et route découpée en segments,
+ * et, si le compilateur JSON est activé et que le template s'y prête, sa version JSON native.
+ * L'objet est immuable et partagé par tous les threads ; seuls le rendu du corps et la
+ * substitution des placeholders de la route restent à faire pour chaque ligne.
+ */
+@Getter
+public class CompiledTemplate {
+
+    private final String name;
+    private final String content;
+    private final Template template;
+    private final JsonTemplate jsonTemplate;
+    private final RouteTemplate route;
+    private final HttpMethod method;
+    private final Map<String, String> headers;
+    private final Map<String, Object> urlParams;
+    private final String writeback;
+
+    CompiledTemplate(String name, String content, Template template, JsonTemplate jsonTemplate,
+            ApiEndpointInfo header) {
+        this.name = name;
+        this.content = content;
+        this.template = template;
+        this.jsonTemplate = jsonTemplate;
+        this.route = RouteTemplate.compile(header.getRoute());
+        this.method = header.getMethod();
+        this.headers = header.getHeaders();
+        this.urlParams = header.getUrlParams();
+        this.writeback = header.getWriteback();
+    }
+
+    /**
+     * Construit les informations d'API d'une ligne. Les en-têtes et paramètres, non
+     * modifiables, sont partagés entre les lignes (ils sont copiés par ApiRequestBuilder).
+     *
+     * @param rowData Les données de la ligne, dont les valeurs remplacent les champs de la route
+     * @return Les informations d'API de la ligne
+     */
+    public ApiEndpointInfo endpointInfo(Map<String, Object> rowData) {
+        return ApiEndpointInfo.builder()
+                .route(route.render(rowData))
+                .method(method)
+                .headers(headers)
+                .urlParams(urlParams)
+                .writeback(writeback)
+                .build();
+    }
+}
@@ -0,0 +1,132 @@
+package com.etljobs.sql2json2api.service.template;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import freemarker.core.CommonMarkupOutputFormat;
+
+/**
+ * Format de sortie FreeMarker des templates {@code .ftlj} : les valeurs interpolées sont
+ * échappées pour une chaîne JSON ({@code "}, {@code \}, caractères de contrôle) au lieu de
+ * l'échappement HTML des {@code .ftlh}, qui laisse passer guillemets et antislashs.
+ * <p>
+ * L'échappement écrit directement dans le writer de rendu les portions sans caractère à
+ * échapper ; une valeur qui n'en contient aucun est écrite sans copie.
+ */
+public final class JsonEscapingOutputFormat extends CommonMarkupOutputFormat<TemplateJsonOutputModel> {
+
+    public static final JsonEscapingOutputFormat INSTANCE = new JsonEscapingOutputFormat();
+
+    /**
+     * Extension des templates rendus dans ce format
+     */
+    public static final String TEMPLATE_EXTENSION = "ftlj";
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private JsonEscapingOutputFormat() {
+    }
+
+    @Override
+    public String getName() {
+        // "JSON" est le nom du format standard de FreeMarker, sans échappement
+        return "EscapedJSON";
+    }
+
+    @Override
+    public String getMimeType() {
+        return "application/json";
+    }
+
+    @Override
+    public void output(String textToEsc, Writer out) throws IOException {
+        int length = textToEsc.length();
+        int start = 0;
+        for (int i = 0; i < length; i++) {
+            char c = textToEsc.charAt(i);
+            if (needsEscape(c)) {
+                if (i > start) {
+                    out.write(textToEsc, start, i - start);
+                }
+                writeEscape(c, out);
+                start = i + 1;
+            }
+        }
+        if (start == 0) {
+            out.write(textToEsc);
+        } else if (start < length) {
+            out.write(textToEsc, start, length - start);
+        }
+    }
+
+    @Override
+    public String escapePlainText(String plainTextContent) {
+        int length = plainTextContent.length();
+        int first = 0;
+        while (first < length && !needsEscape(plainTextContent.charAt(first))) {
+            first++;
+        }
+        if (first == length) {
+            return plainTextContent;
+        }
+        StringBuilder escaped = new StringBuilder(length + 16);
+        escaped.append(plainTextContent, 0, first);
+        for (int i = first; i < length; i++) {
+            char c = plainTextContent.charAt(i);
+            if (needsEscape(c)) {
+                appendEscape(c, escaped);
+            } else {
+                escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+
+    @Override
+    public boolean isLegacyBuiltInBypassed(String builtInName) {
+        // ?json_string ne doit pas échapper une seconde fois
+        return "json_string".equals(builtInName);
+    }
+
+    @Override
+    protected TemplateJsonOutputModel newTemplateMarkupOutputModel(String plainTextContent, String markupContent) {
+        return new TemplateJsonOutputModel(plainTextContent, markupContent);
+    }
+
+    private static boolean needsEscape(char c) {
+        return c < 0x20 || c == '"' || c == '\\';
+    }
+
+    private static void writeEscape(char c, Writer out) throws IOException {
+        String shortEscape = shortEscape(c);
+        if (shortEscape != null) {
+            out.write(shortEscape);
+        } else {
+            out.write("\\u00");
+            out.write(HEX_DIGITS[c >> 4]);
+            out.write(HEX_DIGITS[c & 0xF]);
+        }
+    }
+
+    private static void appendEscape(char c, StringBuilder out) {
+        String shortEscape = shortEscape(c);
+        if (shortEscape != null) {
+            out.append(shortEscape);
+        } else {
+            out.append("\\u00").append(HEX_DIGITS[c >> 4]).append(HEX_DIGITS[c & 0xF]);
+        }
+    }
+
+    private static String shortEscape(char c) {
+        return switch (c) {
+            case '"' -> "\\\"";
+            case '\\' -> "\\\\";
+            case '\n' -> "\\n";
+            case '\r' -> "\\r";
+            case '\t' -> "\\t";
+            case '\b' -> "\\b";
+            case '\f' -> "\\f";
+            default -> null;
+        };
+    }
+}
@@ -0,0 +1,95 @@
+package com.etljobs.sql2json2api.service.template;
+
+import java.io.Writer;
+
+/**
+ * Writer de rendu réutilisé par thread : le tableau de caractères, dimensionné par les payloads
+ * précédents, n'est pas réalloué ni agrandi à chaque ligne comme celui d'un StringWriter,
+ * et n'est pas synchronisé. Le payload rendu est copié une seule fois dans sa chaîne finale.
+ */
+final class RenderBuffer extends Writer {
+
+    private static final int INITIAL_CAPACITY = 4 * 1024;
+
+    /**
+     * Au-delà, le tableau n'est pas conservé pour ne pas garder en mémoire un payload exceptionnel
+     */
+    private static final int MAX_RETAINED_CAPACITY = 256 * 1024;
+
+    private static final ThreadLocal<RenderBuffer> BUFFERS = ThreadLocal.withInitial(RenderBuffer::new);
+
+    private StringBuilder content = new StringBuilder(INITIAL_CAPACITY);
+    private boolean inUse;
+
+    private RenderBuffer() {
+    }
+
+    /**
+     * @return Le buffer vide du thread courant, ou un buffer dédié s'il est déjà utilisé
+     */
+    static RenderBuffer acquire() {
+        RenderBuffer buffer = BUFFERS.get();
+        if (buffer.inUse) {
+            buffer = new RenderBuffer();
+        }
+        buffer.inUse = true;
+        return buffer;
+    }
+
+    /**
+     * Rend le buffer au thread.
+     */
+    void release() {
+        inUse = false;
+        if (content.capacity() > MAX_RETAINED_CAPACITY) {
+            content = new StringBuilder(INITIAL_CAPACITY);
+        } else {
+            content.setLength(0);
+        }
+    }
+
+    /**
+     * Vide le buffer sans le rendre, pour recommencer un rendu interrompu.
+     */
+    void reset() {
+        content.setLength(0);
+    }
+
+    int length() {
+        return content.length();
+    }
+
+    @Override
+    public void write(int c) {
+        content.append((char) c);
+    }
+
+    @Override
+    public void write(char[] chars, int offset, int length) {
+        content.append(chars, offset, length);
+    }
+
+    @Override
+    public void write(String str, int offset, int length) {
+        content.append(str, offset, offset + length);
+    }
+
+    @Override
+    public Writer append(CharSequence sequence) {
+        content.append(sequence);
+        return this;
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public String toString() {
+        return content.toString();
+    }
+}
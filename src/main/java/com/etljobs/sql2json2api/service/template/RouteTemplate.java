@@ -0,0 +1,230 @@
+package com.etljobs.sql2json2api.service.template;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.web.util.UriUtils;
+
+/**
+ * Route d'un template découpée une seule fois en segments littéraux et en champs
+ * {@code ${result.colonne}}, rendue ensuite pour chaque ligne sans expression régulière.
+ * <p>
+ * La route rendue est encodée : les littéraux sont encodés à la compilation comme chemin ou
+ * comme requête selon leur position par rapport au premier {@code ?}, et la valeur d'un champ
+ * est encodée comme un segment de chemin ({@code /} compris) ou comme une valeur de paramètre
+ * ({@code &} et {@code =} compris). Un champ qui commence la route ({@code ${result.url}},
+ * {@code ${result.base}/items}) en fournit le début, schéma et hôte compris : seuls les
+ * caractères interdits dans une URI y sont encodés. Un champ absent ou NULL est rendu vide.
+ * L'objet est immuable et partagé par tous les threads.
+ */
+public final class RouteTemplate {
+
+    private static final String FIELD_START = "${result.";
+    private static final Pattern FIELD_NAME_PATTERN = Pattern.compile("\\w+");
+    private static final Pattern SCHEME_AUTHORITY_PATTERN = Pattern.compile("^[A-Za-z][A-Za-z0-9+.-]*://[^/?#]*");
+    // Délimiteurs réservés de la RFC 3986, conservés dans un début de route fourni par un champ
+    private static final String URI_RESERVED = ":/?#[]@!$&'()*+,;=";
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+    /**
+     * Taille prévue pour la valeur d'un champ (identifiant numérique, UUID...)
+     */
+    private static final int EXPECTED_FIELD_LENGTH = 16;
+
+    private final String source;
+    // literals[i] précède fields[i] ; le dernier littéral suit le dernier champ
+    private final String[] literals;
+    private final String[] fields;
+    private final boolean[] fieldsInQuery;
+    // Le premier champ commence la route : sa valeur est une URL ou un chemin, pas un segment
+    private final boolean leadingField;
+    private final int expectedLength;
+
+    private RouteTemplate(String source, String[] literals, String[] fields, boolean[] fieldsInQuery) {
+        this.source = source;
+        this.literals = literals;
+        this.fields = fields;
+        this.fieldsInQuery = fieldsInQuery;
+        this.leadingField = fields.length > 0 && literals[0].isEmpty();
+        int length = fields.length * EXPECTED_FIELD_LENGTH;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.expectedLength = length;
+    }
+
+    /**
+     * Découpe une route en segments.
+     *
+     * @param route La route, par exemple /orders/${result.id}/items (null est traité comme vide)
+     * @return La route compilée
+     */
+    public static RouteTemplate compile(String route) {
+        String source = route != null ? route : "";
+        List<String> literals = new ArrayList<>();
+        List<String> fields = new ArrayList<>();
+        List<Boolean> fieldsInQuery = new ArrayList<>();
+
+        LiteralEncoder encoder = new LiteralEncoder();
+        StringBuilder literal = new StringBuilder();
+        int position = 0;
+        while (position < source.length()) {
+            int start = source.indexOf(FIELD_START, position);
+            int end = start >= 0 ? source.indexOf('}', start + FIELD_START.length()) : -1;
+            if (end < 0) {
+                literal.append(source, position, source.length());
+                break;
+            }
+            String name = source.substring(start + FIELD_START.length(), end);
+            if (!FIELD_NAME_PATTERN.matcher(name).matches()) {
+                // Pas un champ : le texte reste littéral
+                literal.append(source, position, start + FIELD_START.length());
+                position = start + FIELD_START.length();
+                continue;
+            }
+            literal.append(source, position, start);
+            literals.add(encoder.encode(literal.toString()));
+            literal.setLength(0);
+            fields.add(name);
+            fieldsInQuery.add(encoder.inQuery);
+            position = end + 1;
+        }
+        literals.add(encoder.encode(literal.toString()));
+
+        boolean[] inQuery = new boolean[fieldsInQuery.size()];
+        for (int i = 0; i < inQuery.length; i++) {
+            inQuery[i] = fieldsInQuery.get(i);
+        }
+        return new RouteTemplate(source, literals.toArray(String[]::new), fields.toArray(String[]::new), inQuery);
+    }
+
+    /**
+     * @return La route telle qu'écrite dans le template
+     */
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * @return true si la route contient au moins un champ
+     */
+    public boolean hasFields() {
+        return fields.length > 0;
+    }
+
+    /**
+     * Rend la route pour une ligne.
+     *
+     * @param rowData Les données de la ligne
+     * @return La route encodée, avec la valeur de chaque champ
+     */
+    public String render(Map<String, Object> rowData) {
+        if (fields.length == 0) {
+            return literals[0];
+        }
+        StringBuilder route = new StringBuilder(expectedLength);
+        for (int i = 0; i < fields.length; i++) {
+            route.append(literals[i]);
+            Object value = rowData.get(fields[i]);
+            if (value == null) {
+                continue;
+            }
+            if (i == 0 && leadingField) {
+                appendRouteStart(route, value.toString());
+            } else {
+                appendEncoded(route, value.toString(), fieldsInQuery[i]);
+            }
+        }
+        return route.append(literals[fields.length]).toString();
+    }
+
+    private static void appendEncoded(StringBuilder route, String value, boolean inQuery) {
+        // Cas courant (identifiant, code, UUID) : rien à encoder, la valeur est copiée telle quelle
+        for (int i = 0; i < value.length(); i++) {
+            if (!isUnreserved(value.charAt(i))) {
+                route.append(inQuery
+                        ? UriUtils.encodeQueryParam(value, StandardCharsets.UTF_8)
+                        : UriUtils.encodePathSegment(value, StandardCharsets.UTF_8));
+                return;
+            }
+        }
+        route.append(value);
+    }
+
+    /**
+     * Ajoute le début d'une route fourni par un champ : les caractères autorisés dans une URI
+     * ({@code :}, {@code /}, {@code ?}, {@code &}... et les séquences {@code %XX} déjà encodées)
+     * sont conservés, les autres sont encodés en UTF-8.
+     */
+    private static void appendRouteStart(StringBuilder route, String value) {
+        int length = value.length();
+        int start = 0;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (isUnreserved(c) || URI_RESERVED.indexOf(c) >= 0 || isEscape(value, i)) {
+                continue;
+            }
+            route.append(value, start, i);
+            int end = Character.isHighSurrogate(c) && i + 1 < length ? i + 2 : i + 1;
+            for (byte b : value.substring(i, end).getBytes(StandardCharsets.UTF_8)) {
+                route.append('%').append(HEX_DIGITS[(b >> 4) & 0xF]).append(HEX_DIGITS[b & 0xF]);
+            }
+            start = end;
+            i = end - 1;
+        }
+        route.append(value, start, length);
+    }
+
+    private static boolean isEscape(String value, int index) {
+        return value.charAt(index) == '%' && index + 2 < value.length()
+                && Character.digit(value.charAt(index + 1), 16) >= 0
+                && Character.digit(value.charAt(index + 2), 16) >= 0;
+    }
+
+    private static boolean isUnreserved(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                || c == '-' || c == '.' || c == '_' || c == '~';
+    }
+
+    @Override
+    public String toString() {
+        return source;
+    }
+
+    /**
+     * Encode les littéraux d'une route dans l'ordre, en suivant le passage du chemin à la requête.
+     */
+    private static final class LiteralEncoder {
+
+        private boolean first = true;
+        private boolean inQuery;
+
+        String encode(String literal) {
+            StringBuilder encoded = new StringBuilder(literal.length());
+            String rest = literal;
+            if (first) {
+                first = false;
+                // Schéma et hôte d'une route absolue, laissés tels quels
+                Matcher authority = SCHEME_AUTHORITY_PATTERN.matcher(rest);
+                if (authority.find()) {
+                    encoded.append(authority.group());
+                    rest = rest.substring(authority.end());
+                }
+            }
+            if (!inQuery) {
+                int query = rest.indexOf('?');
+                if (query < 0) {
+                    return encoded.append(UriUtils.encodePath(rest, StandardCharsets.UTF_8)).toString();
+                }
+                encoded.append(UriUtils.encodePath(rest.substring(0, query), StandardCharsets.UTF_8)).append('?');
+                rest = rest.substring(query + 1);
+                inQuery = true;
+            }
+            return encoded.append(UriUtils.encodeQuery(rest, StandardCharsets.UTF_8)).toString();
+        }
+    }
+}
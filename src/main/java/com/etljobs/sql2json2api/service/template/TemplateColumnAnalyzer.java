@@ -0,0 +1,60 @@
+package com.etljobs.sql2json2api.service.template;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.stereotype.Service;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Service d'analyse des colonnes de la ligne SQL utilisées par un template, y compris
+ * dans la route des métadonnées d'API. L'analyse est volontairement prudente : toute
+ * utilisation de "result" qui n'est pas l'accès à une colonne nommée (hors texte entre
+ * guillemets) est considérée comme dynamique.
+ */
+@Service
+@Slf4j
+public class TemplateColumnAnalyzer {
+
+    // Accès à la ligne: result.colonne, result["colonne"] ou result['colonne']
+    private static final Pattern RESULT_PATTERN = Pattern.compile(
+            "(?<![\\w.\"'])result\\b(?:\\s*\\.\\s*(\\w+)|\\s*\\[\\s*\"([^\"]+)\"\\s*\\]|\\s*\\[\\s*'([^']+)'\\s*\\]|(\\?\\?))?");
+
+    /**
+     * Extrait les colonnes de la ligne SQL référencées par le template.
+     *
+     * @param templateContent Le contenu du template
+     * @return Les colonnes référencées dans l'ordre d'apparition, ou null si le template
+     *         utilise la ligne de façon dynamique (result?keys, <#list result ...>, result[variable]...)
+     */
+    public Set<String> referencedColumns(String templateContent) {
+        Set<String> columns = new LinkedHashSet<>();
+        if (templateContent == null) {
+            return columns;
+        }
+
+        Matcher matcher = RESULT_PATTERN.matcher(templateContent);
+        while (matcher.find()) {
+            String column = firstNonNull(matcher.group(1), matcher.group(2), matcher.group(3));
+            if (column != null) {
+                columns.add(column);
+            } else if (matcher.group(4) == null) {
+                log.debug("Utilisation dynamique de la ligne dans le template à la position {}", matcher.start());
+                return null;
+            }
+        }
+        return columns;
+    }
+
+    private static String firstNonNull(String... values) {
+        for (String value : values) {
+            if (value != null) {
+                return value;
+            }
+        }
+        return null;
+    }
+}
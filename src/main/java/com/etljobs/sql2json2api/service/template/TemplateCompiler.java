@@ -0,0 +1,94 @@
+package com.etljobs.sql2json2api.service.template;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.etljobs.sql2json2api.exception.TemplateProcessingException;
+import com.etljobs.sql2json2api.model.ApiEndpointInfo;
+import com.etljobs.sql2json2api.service.template.json.JsonTemplate;
+import com.etljobs.sql2json2api.service.template.json.JsonTemplateCompiler;
+
+import freemarker.template.Configuration;
+import freemarker.template.Template;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Prépare chaque template une seule fois pour toute l'exécution : chargement du contenu,
+ * lecture de l'en-tête @api-*, analyse FreeMarker et découpage de la route en segments
+ * ({@link RouteTemplate}). Les templates préparés sont conservés par nom dans une map
+ * concurrente, si bien que le traitement d'une ligne se limite au rendu du corps et de la route.
+ * <p>
+ * Si {@code app.template.json-compiler.enabled} est activé, les templates {@code .ftlj} simples
+ * sont aussi compilés par {@link JsonTemplateCompiler}, dont l'échappement JSON est celui de
+ * leur format de sortie ; les autres, dont tous les {@code .ftlh} échappés pour HTML, restent
+ * rendus par FreeMarker.
+ * <p>
+ * Les templates ne sont pas relus s'ils changent pendant l'exécution.
+ */
+@Service
+@Slf4j
+public class TemplateCompiler {
+
+    private final TemplateLoader templateLoader;
+    private final TemplateMetadataService metadataService;
+    private final Configuration freemarkerConfig;
+    private final Map<String, CompiledTemplate> compiledTemplates = new ConcurrentHashMap<>();
+
+    @Value("${app.template.json-compiler.enabled:false}")
+    private boolean jsonCompilerEnabled;
+
+    public TemplateCompiler(TemplateLoader templateLoader, TemplateMetadataService metadataService,
+            Configuration freemarkerConfig) {
+        this.templateLoader = templateLoader;
+        this.metadataService = metadataService;
+        this.freemarkerConfig = freemarkerConfig;
+    }
+
+    /**
+     * Retourne le template préparé, en le préparant au premier appel.
+     *
+     * @param templateName Le nom du template
+     * @return Le template préparé
+     * @throws TemplateProcessingException Si le template ne peut pas être chargé, lu ou analysé
+     */
+    public CompiledTemplate compile(String templateName) {
+        return compiledTemplates.computeIfAbsent(templateName, this::doCompile);
+    }
+
+    private CompiledTemplate doCompile(String templateName) {
+        log.debug("Préparation du template {}", templateName);
+        String content = templateLoader.loadTemplateContent(templateName);
+        ApiEndpointInfo header = metadataService.extractMetadataFromTemplate(content);
+        header.setHeaders(immutableCopy(header.getHeaders()));
+        header.setUrlParams(immutableCopy(header.getUrlParams()));
+
+        Template template;
+        try {
+            template = freemarkerConfig.getTemplate(templateName);
+        } catch (Exception e) {
+            throw new TemplateProcessingException("Erreur lors de l'analyse du template " + templateName, e);
+        }
+
+        JsonTemplate jsonTemplate = jsonCompilerEnabled && isJsonTemplate(templateName)
+                ? new JsonTemplateCompiler(freemarkerConfig).compile(templateName, content).orElse(null)
+                : null;
+
+        log.info("Template {} préparé: {} {}", templateName, header.getMethod(), header.getRoute());
+        return new CompiledTemplate(templateName, content, template, jsonTemplate, header);
+    }
+
+    private static boolean isJsonTemplate(String templateName) {
+        return templateName.toLowerCase(Locale.ROOT).endsWith("." + JsonEscapingOutputFormat.TEMPLATE_EXTENSION);
+    }
+
+    private static <V> Map<String, V> immutableCopy(Map<String, V> map) {
+        // Map.copyOf refuse les valeurs null, possibles dans @api-params
+        return map != null ? Collections.unmodifiableMap(new LinkedHashMap<>(map)) : Collections.emptyMap();
+    }
+}
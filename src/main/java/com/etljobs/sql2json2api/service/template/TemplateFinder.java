@@ -24,6 +24,7 @@ import lombok.extern.slf4j.Slf4j;
  * Conventions de nommage :
  * - Les fichiers SQL sont nommés avec le préfixe du verbe HTTP (ex: GET_users.sql)
  * - Les templates correspondants suivent la même convention (ex: GET_users.ftlh)
+ * - Un template .ftlj (ex: GET_users.ftlj), rendu avec l'échappement JSON, est préféré au .ftlh
  */
 @Service
 @Slf4j
@@ -72,6 +73,21 @@ public class TemplateFinder {
         return sqlFile.getFileName().replace(".sql", ".ftlh");
     }
     
+    /**
+     * Nom du template d'un fichier SQL utilisé par le traitement : le template .ftlj
+     * (valeurs échappées pour JSON) s'il existe, sinon le template .ftlh.
+     *
+     * @param sqlFileName Le nom du fichier SQL (ex: GET_users.sql)
+     * @return Le nom du template (ex: GET_users.ftlj ou GET_users.ftlh)
+     */
+    public String resolveTemplateName(String sqlFileName) {
+        String jsonTemplateName = sqlFileName.replace(".sql", "." + JsonEscapingOutputFormat.TEMPLATE_EXTENSION);
+        if (templateExists(jsonTemplateName)) {
+            return jsonTemplateName;
+        }
+        return FileUtils.getTemplateNameForSqlFile(sqlFileName);
+    }
+
     /**
      * Vérifie si un template existe physiquement.
      * 
@@ -181,14 +197,15 @@ public class TemplateFinder {
                 
                 return Files.walk(dir, 1)
                         .filter(Files::isRegularFile)
-                        .filter(p -> p.toString().toLowerCase().endsWith(".ftlh"))
+                        .filter(p -> isTemplateFile(p.toString()))
                         .map(p -> p.getFileName().toString())
                         .collect(Collectors.toList());
             } else {
                 // Lister les ressources du classpath
-                Resource[] resources = resolver.getResources("classpath:" + templateDirectory + "/*.ftlh");
+                Resource[] resources = resolver.getResources("classpath:" + templateDirectory + "/*.ftl?");
                 return List.of(resources).stream()
                         .map(Resource::getFilename)
+                        .filter(name -> name != null && isTemplateFile(name))
                         .collect(Collectors.toList());
             }
         } catch (IOException e) {
@@ -196,4 +213,9 @@ public class TemplateFinder {
             return List.of();
         }
     }
+
+    private static boolean isTemplateFile(String fileName) {
+        String lowerCaseName = fileName.toLowerCase();
+        return lowerCaseName.endsWith(".ftlh") || lowerCaseName.endsWith("." + JsonEscapingOutputFormat.TEMPLATE_EXTENSION);
+    }
 }
\ No newline at end of file
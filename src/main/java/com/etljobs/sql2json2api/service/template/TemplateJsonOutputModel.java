@@ -0,0 +1,19 @@
+package com.etljobs.sql2json2api.service.template;
+
+import freemarker.core.CommonTemplateMarkupOutputModel;
+
+/**
+ * Valeur déjà échappée pour {@link JsonEscapingOutputFormat} (résultat de {@code ?no_esc},
+ * de {@code <#assign>} capturé...).
+ */
+public final class TemplateJsonOutputModel extends CommonTemplateMarkupOutputModel<TemplateJsonOutputModel> {
+
+    TemplateJsonOutputModel(String plainTextContent, String markupContent) {
+        super(plainTextContent, markupContent);
+    }
+
+    @Override
+    public JsonEscapingOutputFormat getOutputFormat() {
+        return JsonEscapingOutputFormat.INSTANCE;
+    }
+}
@@ -76,6 +76,11 @@ public class TemplateMetadataService {
                 endpointInfo.setUrlParams(params);
             }
             
+            // Write-back statement if present
+            if (metadata.containsKey("writeback") && !metadata.get("writeback").isEmpty()) {
+                endpointInfo.setWriteback(metadata.get("writeback"));
+            }
+            
             return endpointInfo;
             
         } catch (Exception e) {
@@ -1,13 +1,18 @@
 package com.etljobs.sql2json2api.service.template;
 
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.function.Function;
 
 import org.springframework.stereotype.Service;
 
 import com.etljobs.sql2json2api.exception.TemplateProcessingException;
 import com.etljobs.sql2json2api.model.ApiEndpointInfo;
 import com.etljobs.sql2json2api.model.ApiTemplateResult;
+import com.etljobs.sql2json2api.model.SqlFile;
+import com.etljobs.sql2json2api.service.lookup.LookupTableService;
+import com.etljobs.sql2json2api.service.sql.SqlFileDirectives;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -20,24 +25,23 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class TemplateProcessingService {
     
-    private final TemplateLoader templateLoader;
+    private final TemplateCompiler templateCompiler;
     private final TemplateRenderer templateRenderer;
-    private final TemplateMetadataService metadataService;
-    private final PlaceholderProcessor placeholderProcessor;
+    private final LookupTableService lookupTableService;
     
     public TemplateProcessingService(
-            TemplateLoader templateLoader,
+            TemplateCompiler templateCompiler,
             TemplateRenderer templateRenderer,
-            TemplateMetadataService metadataService,
-            PlaceholderProcessor placeholderProcessor) {
-        this.templateLoader = templateLoader;
+            LookupTableService lookupTableService) {
+        this.templateCompiler = templateCompiler;
         this.templateRenderer = templateRenderer;
-        this.metadataService = metadataService;
-        this.placeholderProcessor = placeholderProcessor;
+        this.lookupTableService = lookupTableService;
     }
     
     /**
-     * Traite un template avec une ligne de données.
+     * Traite un template avec une ligne de données. Le template est chargé, son en-tête lu
+     * et analysé par FreeMarker et sa route découpée une seule fois (TemplateCompiler) ;
+     * seuls la route et le corps sont produits pour chaque ligne.
      * 
      * @param templateName Le nom du template à traiter
      * @param rowData Les données d'une ligne à utiliser pour le traitement
@@ -46,27 +50,23 @@ public class TemplateProcessingService {
      */
     public ApiTemplateResult processTemplate(String templateName, Map<String, Object> rowData) {
         try {
-            log.info("Traitement du template {} pour une ligne de données", templateName);
+            log.debug("Traitement du template {} pour une ligne de données", templateName);
             
-            // 1. Charger le contenu du template
-            String templateContent = templateLoader.loadTemplateContent(templateName);
+            // 1. Récupérer le template préparé (contenu, en-tête et template FreeMarker)
+            CompiledTemplate compiledTemplate = templateCompiler.compile(templateName);
             
-            // 2. Extraire les métadonnées d'API
-            ApiEndpointInfo endpointInfo = metadataService.extractMetadataFromTemplate(templateContent);
+            // 2. Rendre la route avec les valeurs de la ligne
+            ApiEndpointInfo endpointInfo = compiledTemplate.endpointInfo(rowData);
             
-            // 3. Traiter les placeholders dans la route
-            String processedRoute = placeholderProcessor.processPlaceholders(
-                    endpointInfo.getRoute(), rowData);
-            endpointInfo.setRoute(processedRoute);
-            
-            // 4. Préparer le modèle de données pour le rendu
+            // 3. Préparer le modèle de données pour le rendu (ligne et tables de correspondance)
             Map<String, Object> dataModel = new HashMap<>();
             dataModel.put("result", rowData);
+            dataModel.put("lookup", lookupTableService.getLookups());
             
-            // 5. Rendre le template pour obtenir le JSON
-            String jsonPayload = templateRenderer.renderTemplate(templateName, dataModel);
+            // 4. Rendre le template pour obtenir le JSON
+            String jsonPayload = templateRenderer.renderTemplate(compiledTemplate, dataModel);
             
-            // 6. Créer et retourner le résultat
+            // 5. Créer et retourner le résultat
             return new ApiTemplateResult(jsonPayload, endpointInfo);
             
         } catch (Exception e) {
@@ -74,4 +74,52 @@ public class TemplateProcessingService {
             throw new TemplateProcessingException("Erreur lors du traitement du template: " + templateName, e);
         }
     }
-}
\ No newline at end of file
+    
+    /**
+     * Retourne la préparation des appels d'un fichier SQL. Si le fichier déclare
+     * {@code @sql-payload-column}, le corps JSON est construit par la base de données
+     * (JSON_OBJECT, json_build_object...) dans cette colonne : le template ne fournit que son
+     * en-tête (route, méthode, en-têtes), lu une seule fois pour le fichier, et n'est jamais
+     * rendu par FreeMarker. Sinon chaque ligne est traitée par {@link #processTemplate}.
+     * 
+     * @param sqlFile Le fichier SQL
+     * @return La préparation de l'appel d'une ligne
+     * @throws TemplateProcessingException Si l'en-tête du template ne peut pas être lu
+     */
+    public Function<Map<String, Object>, ApiTemplateResult> processorFor(SqlFile sqlFile) {
+        String payloadColumn = sqlFile.getDirective(SqlFileDirectives.PAYLOAD_COLUMN);
+        if (payloadColumn == null || payloadColumn.isBlank()) {
+            return rowData -> processTemplate(sqlFile.getTemplateName(), rowData);
+        }
+        
+        String column = payloadColumn.trim();
+        CompiledTemplate header = templateCompiler.compile(sqlFile.getTemplateName());
+        log.info("Corps JSON de {} lu dans la colonne {}, template {} utilisé pour son en-tête uniquement",
+                sqlFile.getFileName(), column, sqlFile.getTemplateName());
+        return rowData -> processDatabasePayload(header, rowData, column);
+    }
+    
+    /**
+     * Prépare un appel dont le corps JSON est la valeur d'une colonne de la ligne.
+     * 
+     * @param header Le template préparé, dont seul l'en-tête est utilisé
+     * @param rowData Les données d'une ligne
+     * @param payloadColumn La colonne contenant le corps JSON
+     * @return ApiTemplateResult contenant le JSON de la colonne et les informations d'API
+     * @throws TemplateProcessingException Si la colonne est absente ou NULL
+     */
+    ApiTemplateResult processDatabasePayload(CompiledTemplate header, Map<String, Object> rowData,
+            String payloadColumn) {
+        Object payload = rowData.get(payloadColumn);
+        if (payload == null) {
+            throw new TemplateProcessingException("Colonne de corps JSON '" + payloadColumn
+                    + "' absente ou NULL dans la ligne");
+        }
+        
+        ApiEndpointInfo endpointInfo = header.endpointInfo(rowData);
+        String jsonPayload = payload instanceof byte[] bytes
+                ? new String(bytes, StandardCharsets.UTF_8)
+                : payload.toString();
+        return new ApiTemplateResult(jsonPayload, endpointInfo);
+    }
+}
@@ -6,6 +6,7 @@ import java.util.Map;
 import org.springframework.stereotype.Service;
 
 import com.etljobs.sql2json2api.exception.TemplateProcessingException;
+import com.etljobs.sql2json2api.service.template.json.JsonTemplate;
 
 import freemarker.template.Configuration;
 import freemarker.template.Template;
@@ -56,4 +57,43 @@ public class TemplateRenderer {
             throw new TemplateProcessingException("Erreur lors du rendu du template " + templateName, e);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Effectue le rendu d'un template déjà préparé, sans le rechercher dans la configuration,
+     * dans le buffer de rendu réutilisé du thread courant. Si le template a une version JSON
+     * native, elle est utilisée ; FreeMarker ne rend alors que les lignes qu'elle ne sait pas rendre.
+     *
+     * @param compiledTemplate Le template préparé par TemplateCompiler
+     * @param dataModel Le modèle de données à utiliser pour le rendu
+     * @return Le contenu rendu
+     * @throws TemplateProcessingException Si une erreur survient pendant le rendu
+     */
+    public String renderTemplate(CompiledTemplate compiledTemplate, Map<String, Object> dataModel) {
+        RenderBuffer buffer = RenderBuffer.acquire();
+        try {
+            JsonTemplate jsonTemplate = compiledTemplate.getJsonTemplate();
+            if (jsonTemplate != null) {
+                try {
+                    jsonTemplate.render(resultOf(dataModel), buffer);
+                    return buffer.toString();
+                } catch (JsonTemplate.NotRenderableException e) {
+                    log.debug("Ligne rendue par FreeMarker pour le template {}: {}",
+                            compiledTemplate.getName(), e.getMessage());
+                    buffer.reset();
+                }
+            }
+            compiledTemplate.getTemplate().process(dataModel, buffer);
+            return buffer.toString();
+        } catch (Exception e) {
+            throw new TemplateProcessingException("Erreur lors du rendu du template " + compiledTemplate.getName(), e);
+        } finally {
+            buffer.release();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> resultOf(Map<String, Object> dataModel) {
+        Object result = dataModel.get("result");
+        return result instanceof Map ? (Map<String, Object>) result : Map.of();
+    }
+}
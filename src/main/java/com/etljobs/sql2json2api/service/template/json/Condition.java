@@ -0,0 +1,79 @@
+package com.etljobs.sql2json2api.service.template.json;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Condition compilée d'un {@code <#if>} : {@code result.colonne??},
+ * {@code result.colonne?has_content} ou {@code result.colonne} booléenne, éventuellement niée par {@code !}.
+ */
+final class Condition {
+
+    private static final Pattern CONDITION_PATTERN = Pattern.compile(
+            "(!)?\\s*result\\.([A-Za-z_]\\w*)(\\?\\?|\\?has_content)?");
+
+    private enum Test { EXISTS, HAS_CONTENT, BOOLEAN }
+
+    private final String source;
+    private final String column;
+    private final Test test;
+    private final boolean negated;
+
+    private Condition(String source, String column, Test test, boolean negated) {
+        this.source = source;
+        this.column = column;
+        this.test = test;
+        this.negated = negated;
+    }
+
+    /**
+     * @param source Le texte de la condition, sans {@code <#if} ni {@code >}
+     * @return La condition compilée
+     * @throws JsonTemplateCompiler.NotCompilableException si la condition sort du sous-ensemble pris en charge
+     */
+    static Condition parse(String source) {
+        Matcher matcher = CONDITION_PATTERN.matcher(source.strip());
+        if (!matcher.matches()) {
+            throw new JsonTemplateCompiler.NotCompilableException("condition non prise en charge: " + source.strip());
+        }
+        String builtin = matcher.group(3);
+        Test test = builtin == null ? Test.BOOLEAN : "??".equals(builtin) ? Test.EXISTS : Test.HAS_CONTENT;
+        return new Condition(source.strip(), matcher.group(2), test, matcher.group(1) != null);
+    }
+
+    /**
+     * @throws JsonTemplate.NotRenderableException si la colonne d'une condition booléenne n'est pas un booléen
+     */
+    boolean test(Map<String, Object> rowData) {
+        Object value = rowData.get(column);
+        boolean result = switch (test) {
+            case EXISTS -> value != null;
+            case HAS_CONTENT -> hasContent(value);
+            case BOOLEAN -> {
+                if (value instanceof Boolean bool) {
+                    yield bool;
+                }
+                throw new JsonTemplate.NotRenderableException("<#if " + source + "> sur une valeur non booléenne");
+            }
+        };
+        return negated != result;
+    }
+
+    private static boolean hasContent(Object value) {
+        if (value == null) {
+            return false;
+        }
+        if (value instanceof CharSequence text) {
+            return text.length() > 0;
+        }
+        if (value instanceof Collection<?> collection) {
+            return !collection.isEmpty();
+        }
+        if (value instanceof Map<?, ?> map) {
+            return !map.isEmpty();
+        }
+        return true;
+    }
+}
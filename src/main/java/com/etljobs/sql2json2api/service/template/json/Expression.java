@@ -0,0 +1,128 @@
+package com.etljobs.sql2json2api.service.template.json;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Interpolation compilée : {@code result.colonne} ou {@code .now}, suivie au plus d'un
+ * {@code ?c}, d'un {@code ?string(motif)} ou d'une valeur par défaut {@code !valeur}.
+ */
+final class Expression {
+
+    // Sans échappement ni interpolation, que FreeMarker interpréterait dans le littéral
+    private static final String STRING_LITERAL = "\"[^\"\\\\$]*\"|'[^'\\\\$]*'";
+    private static final Pattern EXPRESSION_PATTERN = Pattern.compile(
+            "(?:result\\.([A-Za-z_]\\w*)|(\\.now))"
+            + "(?:(\\?c)|\\?string\\((" + STRING_LITERAL + ")\\)|\\?string\\[(" + STRING_LITERAL + ")\\]"
+            + "|(!)(" + STRING_LITERAL + "|\\d+(?:\\.\\d+)?)?)?");
+
+    /**
+     * Motifs de ?string qui ne sont pas des motifs SimpleDateFormat
+     */
+    private static final Set<String> DATE_STYLE_KEYWORDS = Set.of("short", "medium", "long", "full");
+
+    private enum Builtin { NONE, C, DATE_PATTERN }
+
+    private final String source;
+    private final String column;
+    private final Builtin builtin;
+    private final Formats.DateFormat dateFormat;
+    private final boolean hasDefault;
+    private final Object defaultValue;
+    private final Formats formats;
+
+    private Expression(String source, String column, Builtin builtin, Formats.DateFormat dateFormat,
+            boolean hasDefault, Object defaultValue, Formats formats) {
+        this.source = source;
+        this.column = column;
+        this.builtin = builtin;
+        this.dateFormat = dateFormat;
+        this.hasDefault = hasDefault;
+        this.defaultValue = defaultValue;
+        this.formats = formats;
+    }
+
+    /**
+     * @param source Le texte de l'interpolation, sans {@code ${ }}
+     * @param formats Les formats de FreeMarker
+     * @return L'expression compilée
+     * @throws JsonTemplateCompiler.NotCompilableException si l'expression sort du sous-ensemble pris en charge
+     */
+    static Expression parse(String source, Formats formats) {
+        Matcher matcher = EXPRESSION_PATTERN.matcher(source);
+        if (!matcher.matches()) {
+            throw new JsonTemplateCompiler.NotCompilableException("expression non prise en charge: ${" + source + "}");
+        }
+        String column = matcher.group(1);
+        boolean now = matcher.group(2) != null;
+        String pattern = matcher.group(4) != null ? matcher.group(4) : matcher.group(5);
+        boolean hasDefault = matcher.group(6) != null;
+
+        Builtin builtin = matcher.group(3) != null ? Builtin.C : pattern != null ? Builtin.DATE_PATTERN : Builtin.NONE;
+        if (now && builtin != Builtin.DATE_PATTERN) {
+            throw new JsonTemplateCompiler.NotCompilableException(".now sans ?string(motif): ${" + source + "}");
+        }
+
+        Formats.DateFormat dateFormat = null;
+        if (pattern != null) {
+            String datePattern = unquote(pattern);
+            if (DATE_STYLE_KEYWORDS.contains(datePattern.split("_")[0]) || datePattern.startsWith("iso")
+                    || datePattern.startsWith("xs") || datePattern.startsWith("@")) {
+                throw new JsonTemplateCompiler.NotCompilableException("format de date non pris en charge: " + datePattern);
+            }
+            try {
+                dateFormat = formats.date(datePattern);
+            } catch (IllegalArgumentException e) {
+                throw new JsonTemplateCompiler.NotCompilableException("motif de date invalide: " + datePattern);
+            }
+        }
+
+        Object defaultValue = null;
+        String defaultLiteral = matcher.group(7);
+        if (defaultLiteral != null) {
+            defaultValue = defaultLiteral.startsWith("\"") || defaultLiteral.startsWith("'")
+                    ? unquote(defaultLiteral)
+                    : new BigDecimal(defaultLiteral);
+        } else if (hasDefault) {
+            defaultValue = "";
+        }
+        return new Expression(source, now ? null : column, builtin, dateFormat, hasDefault, defaultValue, formats);
+    }
+
+    /**
+     * Texte de l'interpolation pour une ligne, tel que FreeMarker l'écrirait avant échappement.
+     *
+     * @throws JsonTemplate.NotRenderableException si la valeur ne peut pas être rendue
+     */
+    String text(Map<String, Object> rowData) {
+        // .now est une date-heure, comme dans FreeMarker
+        Object value = column != null ? rowData.get(column) : new Timestamp(System.currentTimeMillis());
+        if (value == null) {
+            if (!hasDefault) {
+                throw new JsonTemplate.NotRenderableException("valeur absente pour ${" + source + "}");
+            }
+            value = defaultValue;
+        }
+        return switch (builtin) {
+            case C -> Formats.computer(value);
+            case DATE_PATTERN -> dateFormat.format(value);
+            case NONE -> {
+                if (value instanceof String text) {
+                    yield text;
+                }
+                if (value instanceof Number number) {
+                    yield formats.number(number);
+                }
+                throw new JsonTemplate.NotRenderableException("${" + source + "} sur " + value.getClass().getSimpleName());
+            }
+        };
+    }
+
+    private static String unquote(String literal) {
+        return literal.substring(1, literal.length() - 1);
+    }
+}
@@ -0,0 +1,150 @@
+package com.etljobs.sql2json2api.service.template.json;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.text.NumberFormat;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
+
+import freemarker.template.Configuration;
+
+/**
+ * Formats de FreeMarker reproduits par les templates compilés, lus dans sa configuration
+ * (locale, fuseaux horaires, number_format). Les formats Java, non thread-safe, sont créés
+ * une fois par thread.
+ */
+final class Formats {
+
+    /**
+     * Au-delà, FreeMarker peut passer en notation exponentielle pour un double entier
+     */
+    private static final double MAX_PLAIN_WHOLE_DOUBLE = 1E15;
+
+    private final Locale locale;
+    private final TimeZone timeZone;
+    private final TimeZone sqlDateAndTimeTimeZone;
+    private final String numberFormat;
+    private final ThreadLocal<NumberFormat> numberInstance;
+
+    Formats(Configuration configuration) {
+        this.locale = configuration.getLocale();
+        this.timeZone = configuration.getTimeZone();
+        this.sqlDateAndTimeTimeZone = configuration.getSQLDateAndTimeTimeZone();
+        this.numberFormat = configuration.getNumberFormat();
+        this.numberInstance = ThreadLocal.withInitial(() -> NumberFormat.getNumberInstance(locale));
+    }
+
+    /**
+     * Texte d'un nombre interpolé sans built-in, selon number_format.
+     */
+    String number(Number value) {
+        return switch (numberFormat) {
+            case "number" -> numberInstance.get().format(value);
+            case "computer", "c" -> computer(value);
+            default -> throw new JsonTemplate.NotRenderableException("number_format non pris en charge: " + numberFormat);
+        };
+    }
+
+    /**
+     * Texte de {@code ?c}, tel que le produit le c_format "JavaScript or JSON" de FreeMarker
+     * (incompatible_improvements 2.3.32) : entiers et booléens tels quels, décimaux sans zéros
+     * superflus ni séparateur de milliers. Les formes dont la notation exponentielle ou les
+     * valeurs spéciales (NaN, infinis) dépendent des règles de FreeMarker lui sont laissées.
+     */
+    static String computer(Object value) {
+        if (value instanceof Integer || value instanceof Long || value instanceof Short
+                || value instanceof Byte || value instanceof BigInteger || value instanceof Boolean) {
+            return value.toString();
+        }
+        if (value instanceof BigDecimal decimal) {
+            return computer(decimal);
+        }
+        if (value instanceof Double || value instanceof Float) {
+            return computer(((Number) value).doubleValue(), value.toString());
+        }
+        throw new JsonTemplate.NotRenderableException("?c sur " + value.getClass().getSimpleName());
+    }
+
+    /**
+     * Un DECIMAL : 12.50 devient 12.5 et 15.00 devient 15.
+     */
+    private static String computer(BigDecimal value) {
+        BigDecimal stripped = value.stripTrailingZeros();
+        // Les entiers de 100 chiffres et plus sont écrits par FreeMarker en notation exponentielle
+        String text = stripped.scale() <= 0 && stripped.scale() > -100
+                ? stripped.toPlainString()
+                : stripped.toString();
+        if (text.indexOf('E') >= 0) {
+            throw new JsonTemplate.NotRenderableException("?c sur un décimal en notation exponentielle: " + value);
+        }
+        return text;
+    }
+
+    /**
+     * Un DOUBLE ou un FLOAT : les valeurs entières sont écrites sans ".0", les autres dans la
+     * forme la plus courte de Java tant qu'elle n'est pas exponentielle.
+     *
+     * @param value La valeur
+     * @param text Le texte Java de la valeur (Double.toString ou Float.toString)
+     */
+    private static String computer(double value, String text) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            throw new JsonTemplate.NotRenderableException("?c sur " + text);
+        }
+        if (Math.floor(value) == value && Math.abs(value) < MAX_PLAIN_WHOLE_DOUBLE) {
+            return Long.toString((long) value);
+        }
+        if (text.indexOf('E') >= 0) {
+            throw new JsonTemplate.NotRenderableException("?c sur un nombre en notation exponentielle: " + text);
+        }
+        return text;
+    }
+
+    /**
+     * @param pattern Motif SimpleDateFormat de {@code ?string(...)}
+     * @return Le format de date correspondant
+     */
+    DateFormat date(String pattern) {
+        return new DateFormat(pattern);
+    }
+
+    /**
+     * Format de {@code ?string(motif)} appliqué à une date, avec le fuseau que FreeMarker
+     * utiliserait pour son type.
+     */
+    final class DateFormat {
+
+        private final ThreadLocal<SimpleDateFormat> format;
+        private final ThreadLocal<SimpleDateFormat> sqlFormat;
+
+        private DateFormat(String pattern) {
+            // Valide le motif à la compilation
+            new SimpleDateFormat(pattern, locale);
+            this.format = ThreadLocal.withInitial(() -> create(pattern, timeZone));
+            this.sqlFormat = ThreadLocal.withInitial(() -> create(pattern,
+                    sqlDateAndTimeTimeZone != null ? sqlDateAndTimeTimeZone : timeZone));
+        }
+
+        /**
+         * Seules les dates JDBC, dont FreeMarker connaît le type (date, heure ou date-heure),
+         * sont formatées ; FreeMarker refuse de formater une java.util.Date de type inconnu.
+         */
+        String format(Object value) {
+            if (value instanceof java.sql.Date || value instanceof java.sql.Time) {
+                return sqlFormat.get().format((Date) value);
+            }
+            if (value instanceof java.sql.Timestamp timestamp) {
+                return format.get().format(timestamp);
+            }
+            throw new JsonTemplate.NotRenderableException("?string(motif) sur " + value.getClass().getSimpleName());
+        }
+
+        private SimpleDateFormat create(String pattern, TimeZone zone) {
+            SimpleDateFormat simpleDateFormat = new SimpleDateFormat(pattern, locale);
+            simpleDateFormat.setTimeZone(zone);
+            return simpleDateFormat;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.etljobs.sql2json2api.service.template.json;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+/**
+ * Valeurs JSON d'un template compilé.
+ */
+final class JsonNodes {
+
+    private JsonNodes() {
+    }
+
+    /**
+     * Valeur JSON écrite pour une ligne.
+     */
+    interface Node {
+        void write(JsonGenerator generator, Map<String, Object> rowData) throws IOException;
+    }
+
+    /**
+     * Objet JSON, dont les clés peuvent contenir des interpolations.
+     */
+    record ObjectNode(List<Member> members) implements Node {
+        @Override
+        public void write(JsonGenerator generator, Map<String, Object> rowData) throws IOException {
+            generator.writeStartObject();
+            for (Member member : members) {
+                generator.writeFieldName(member.key().text(rowData));
+                member.value().write(generator, rowData);
+            }
+            generator.writeEndObject();
+        }
+    }
+
+    record Member(StringNode key, Node value) {
+    }
+
+    record ArrayNode(List<Node> items) implements Node {
+        @Override
+        public void write(JsonGenerator generator, Map<String, Object> rowData) throws IOException {
+            generator.writeStartArray();
+            for (Node item : items) {
+                item.write(generator, rowData);
+            }
+            generator.writeEndArray();
+        }
+    }
+
+    /**
+     * Chaîne JSON faite de texte et d'interpolations, échappée par le générateur.
+     */
+    record StringNode(List<Object> parts) implements Node {
+
+        String text(Map<String, Object> rowData) {
+            if (parts.size() == 1 && parts.get(0) instanceof String literal) {
+                return literal;
+            }
+            StringBuilder text = new StringBuilder();
+            for (Object part : parts) {
+                text.append(part instanceof Expression expression ? expression.text(rowData) : (String) part);
+            }
+            return text.toString();
+        }
+
+        @Override
+        public void write(JsonGenerator generator, Map<String, Object> rowData) throws IOException {
+            generator.writeString(text(rowData));
+        }
+    }
+
+    /**
+     * true, false, null ou nombre écrit dans le template.
+     */
+    record LiteralNode(String token) implements Node {
+        @Override
+        public void write(JsonGenerator generator, Map<String, Object> rowData) throws IOException {
+            switch (token) {
+                case "true" -> generator.writeBoolean(true);
+                case "false" -> generator.writeBoolean(false);
+                case "null" -> generator.writeNull();
+                default -> generator.writeNumber(token);
+            }
+        }
+    }
+
+    /**
+     * Interpolation hors d'une chaîne ({@code "id": ${result.id}}) : son texte est inséré
+     * tel quel, comme le fait FreeMarker.
+     */
+    record RawValueNode(Expression expression) implements Node {
+        @Override
+        public void write(JsonGenerator generator, Map<String, Object> rowData) throws IOException {
+            generator.writeRawValue(expression.text(rowData));
+        }
+    }
+
+    /**
+     * {@code <#if>} en position de valeur : la valeur de la première condition vraie,
+     * sinon celle du {@code <#else>}.
+     */
+    record ConditionalNode(List<Condition> conditions, List<Node> values, Node otherwise) implements Node {
+        @Override
+        public void write(JsonGenerator generator, Map<String, Object> rowData) throws IOException {
+            for (int i = 0; i < conditions.size(); i++) {
+                if (conditions.get(i).test(rowData)) {
+                    values.get(i).write(generator, rowData);
+                    return;
+                }
+            }
+            otherwise.write(generator, rowData);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.etljobs.sql2json2api.service.template.json;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.StreamWriteFeature;
+
+/**
+ * Template compilé par {@link JsonTemplateCompiler} : arbre des valeurs JSON du template, écrit
+ * pour chaque ligne par un générateur JSON en streaming, sans passer par FreeMarker. Les chaînes
+ * sont échappées selon JSON. L'objet est immuable et partagé par tous les threads.
+ */
+public final class JsonTemplate {
+
+    private static final JsonFactory JSON_FACTORY = JsonFactory.builder()
+            .disable(StreamWriteFeature.AUTO_CLOSE_TARGET)
+            .build();
+
+    private final String name;
+    private final JsonNodes.Node root;
+
+    JsonTemplate(String name, JsonNodes.Node root) {
+        this.name = name;
+        this.root = root;
+    }
+
+    /**
+     * @return Le nom du template
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Écrit le JSON d'une ligne.
+     *
+     * @param rowData Les données de la ligne ({@code result} dans le template)
+     * @param out Le writer de destination
+     * @throws IOException si l'écriture échoue
+     * @throws NotRenderableException si une valeur de la ligne ne peut pas être rendue comme
+     *         FreeMarker le ferait ; la ligne doit alors être rendue par FreeMarker
+     */
+    public void render(Map<String, Object> rowData, Writer out) throws IOException {
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(out)) {
+            root.write(generator, rowData);
+        }
+    }
+
+    /**
+     * Une valeur de la ligne (NULL sans valeur par défaut, type ou format non pris en charge)
+     * ne peut pas être rendue par le template compilé.
+     */
+    public static final class NotRenderableException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        NotRenderableException(String message) {
+            // Exception attendue, utilisée pour revenir à FreeMarker : pas de pile d'appel
+            super(message, null, false, false);
+        }
+    }
+}
@@ -0,0 +1,358 @@
+package com.etljobs.sql2json2api.service.template.json;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import freemarker.template.Configuration;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Compile en {@link JsonTemplate} les templates dont le texte est un document JSON avec
+ * un sous-ensemble simple de FreeMarker :
+ * <ul>
+ *   <li>interpolations {@code ${result.colonne}}, dans une chaîne ou en position de valeur,
+ *       avec au plus {@code ?c}, {@code ?string(motif de date)} ou {@code !défaut} ;</li>
+ *   <li>{@code ${.now?string(motif)}} ;</li>
+ *   <li>{@code <#if>} / {@code <#elseif>} / {@code <#else>} en position de valeur, sur
+ *       {@code result.colonne??}, {@code ?has_content} ou une colonne booléenne ;</li>
+ *   <li>commentaires {@code <#-- -->}, dont l'en-tête @api-*.</li>
+ * </ul>
+ * Tout autre construction ({@code <#list>}, {@code lookup}, autres built-ins, macros...)
+ * laisse le template à FreeMarker.
+ */
+@Slf4j
+public class JsonTemplateCompiler {
+
+    private static final Pattern NUMBER_PATTERN = Pattern.compile("-?(?:0|[1-9]\\d*)(?:\\.\\d+)?(?:[eE][+-]?\\d+)?");
+    private static final Pattern KEYWORD_PATTERN = Pattern.compile("true|false|null");
+
+    private final Formats formats;
+
+    /**
+     * @param freemarkerConfig La configuration FreeMarker, dont les formats sont reproduits
+     */
+    public JsonTemplateCompiler(Configuration freemarkerConfig) {
+        this.formats = new Formats(freemarkerConfig);
+    }
+
+    /**
+     * @param templateName Le nom du template
+     * @param content Le contenu du template
+     * @return Le template compilé, ou vide si le template sort du sous-ensemble pris en charge
+     */
+    public Optional<JsonTemplate> compile(String templateName, String content) {
+        try {
+            JsonNodes.Node root = new Parser(content).parseDocument();
+            log.info("Template {} compilé en JSON natif", templateName);
+            return Optional.of(new JsonTemplate(templateName, root));
+        } catch (NotCompilableException e) {
+            log.info("Template {} rendu par FreeMarker: {}", templateName, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Le template sort du sous-ensemble pris en charge.
+     */
+    static final class NotCompilableException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        NotCompilableException(String message) {
+            super(message, null, false, false);
+        }
+    }
+
+    /**
+     * Analyseur descendant récursif du document JSON et des directives qu'il contient.
+     */
+    private final class Parser {
+
+        private final String text;
+        private int position;
+
+        Parser(String text) {
+            this.text = text;
+        }
+
+        JsonNodes.Node parseDocument() {
+            skipBlank();
+            if (position == text.length()) {
+                throw new NotCompilableException("template vide");
+            }
+            JsonNodes.Node root = parseValue();
+            skipBlank();
+            if (position != text.length()) {
+                throw new NotCompilableException("contenu après la valeur JSON, position " + position);
+            }
+            return root;
+        }
+
+        private JsonNodes.Node parseValue() {
+            if (position == text.length()) {
+                throw new NotCompilableException("valeur attendue en fin de template");
+            }
+            char c = text.charAt(position);
+            if (c == '{') {
+                return parseObject();
+            }
+            if (c == '[') {
+                return parseArray();
+            }
+            if (c == '"') {
+                return parseString();
+            }
+            if (text.startsWith("${", position)) {
+                position += 2;
+                return new JsonNodes.RawValueNode(Expression.parse(parseInterpolation(), formats));
+            }
+            if (text.startsWith("<#if", position)) {
+                return parseConditional();
+            }
+            return parseLiteral();
+        }
+
+        private JsonNodes.Node parseObject() {
+            position++;
+            List<JsonNodes.Member> members = new ArrayList<>();
+            skipBlank();
+            if (consume('}')) {
+                return new JsonNodes.ObjectNode(List.copyOf(members));
+            }
+            do {
+                skipBlank();
+                if (position == text.length() || text.charAt(position) != '"') {
+                    throw new NotCompilableException("clé d'objet attendue, position " + position);
+                }
+                JsonNodes.StringNode key = parseString();
+                skipBlank();
+                expect(':');
+                skipBlank();
+                members.add(new JsonNodes.Member(key, parseValue()));
+                skipBlank();
+            } while (consume(','));
+            expect('}');
+            return new JsonNodes.ObjectNode(List.copyOf(members));
+        }
+
+        private JsonNodes.Node parseArray() {
+            position++;
+            List<JsonNodes.Node> items = new ArrayList<>();
+            skipBlank();
+            if (consume(']')) {
+                return new JsonNodes.ArrayNode(List.copyOf(items));
+            }
+            do {
+                skipBlank();
+                items.add(parseValue());
+                skipBlank();
+            } while (consume(','));
+            expect(']');
+            return new JsonNodes.ArrayNode(List.copyOf(items));
+        }
+
+        private JsonNodes.StringNode parseString() {
+            position++;
+            List<Object> parts = new ArrayList<>();
+            StringBuilder literal = new StringBuilder();
+            while (true) {
+                if (position == text.length()) {
+                    throw new NotCompilableException("chaîne non terminée");
+                }
+                char c = text.charAt(position);
+                if (c == '"') {
+                    position++;
+                    break;
+                }
+                if (c == '\\') {
+                    literal.append(parseEscape());
+                } else if (text.startsWith("${", position)) {
+                    position += 2;
+                    if (!literal.isEmpty()) {
+                        parts.add(literal.toString());
+                        literal.setLength(0);
+                    }
+                    parts.add(Expression.parse(parseInterpolation(), formats));
+                } else if (text.startsWith("<#--", position)) {
+                    skipComment();
+                } else if (text.startsWith("<#", position) || text.startsWith("</#", position)
+                        || text.startsWith("<@", position) || text.startsWith("</@", position)
+                        || text.startsWith("#{", position)) {
+                    throw new NotCompilableException("directive dans une chaîne, position " + position);
+                } else {
+                    literal.append(c);
+                    position++;
+                }
+            }
+            if (!literal.isEmpty() || parts.isEmpty()) {
+                parts.add(literal.toString());
+            }
+            return new JsonNodes.StringNode(List.copyOf(parts));
+        }
+
+        private char parseEscape() {
+            if (position + 1 >= text.length()) {
+                throw new NotCompilableException("échappement non terminé");
+            }
+            char escaped = text.charAt(position + 1);
+            position += 2;
+            return switch (escaped) {
+                case '"', '\\', '/' -> escaped;
+                case 'b' -> '\b';
+                case 'f' -> '\f';
+                case 'n' -> '\n';
+                case 'r' -> '\r';
+                case 't' -> '\t';
+                case 'u' -> {
+                    if (position + 4 > text.length()) {
+                        throw new NotCompilableException("échappement unicode non terminé");
+                    }
+                    try {
+                        char unicode = (char) Integer.parseInt(text.substring(position, position + 4), 16);
+                        position += 4;
+                        yield unicode;
+                    } catch (NumberFormatException e) {
+                        throw new NotCompilableException("échappement unicode invalide, position " + position);
+                    }
+                }
+                default -> throw new NotCompilableException("échappement invalide \\" + escaped);
+            };
+        }
+
+        /**
+         * Lit le texte d'une interpolation jusqu'à son accolade fermante, hors littéraux.
+         */
+        private String parseInterpolation() {
+            int start = position;
+            char quote = 0;
+            while (position < text.length()) {
+                char c = text.charAt(position);
+                if (quote != 0) {
+                    if (c == quote) {
+                        quote = 0;
+                    }
+                } else if (c == '"' || c == '\'') {
+                    quote = c;
+                } else if (c == '}') {
+                    String expression = text.substring(start, position);
+                    position++;
+                    return expression.strip();
+                } else if (c == '{') {
+                    throw new NotCompilableException("interpolation non prise en charge, position " + start);
+                }
+                position++;
+            }
+            throw new NotCompilableException("interpolation non terminée");
+        }
+
+        private JsonNodes.Node parseConditional() {
+            List<Condition> conditions = new ArrayList<>();
+            List<JsonNodes.Node> values = new ArrayList<>();
+            String tag = readTag();
+            conditions.add(Condition.parse(tag.substring("<#if".length(), tag.length() - 1)));
+            while (true) {
+                skipBlank();
+                values.add(parseValue());
+                skipBlank();
+                tag = readTag();
+                if (tag.startsWith("<#elseif") && Character.isWhitespace(tag.charAt("<#elseif".length()))) {
+                    conditions.add(Condition.parse(tag.substring("<#elseif".length(), tag.length() - 1)));
+                } else if (tag.substring(2, tag.length() - 1).strip().equals("else")) {
+                    break;
+                } else {
+                    throw new NotCompilableException("<#if> sans <#else>: " + tag);
+                }
+            }
+            skipBlank();
+            JsonNodes.Node otherwise = parseValue();
+            skipBlank();
+            String end = readTag();
+            if (!end.substring(3, end.length() - 1).strip().equals("if")) {
+                throw new NotCompilableException("</#if> attendu, position " + position);
+            }
+            return new JsonNodes.ConditionalNode(List.copyOf(conditions), List.copyOf(values), otherwise);
+        }
+
+        /**
+         * Lit une balise de directive jusqu'à son chevron fermant, hors littéraux.
+         */
+        private String readTag() {
+            if (!text.startsWith("<#", position) && !text.startsWith("</#", position)) {
+                throw new NotCompilableException("directive attendue, position " + position);
+            }
+            int start = position;
+            char quote = 0;
+            while (position < text.length()) {
+                char c = text.charAt(position++);
+                if (quote != 0) {
+                    if (c == quote) {
+                        quote = 0;
+                    }
+                } else if (c == '"' || c == '\'') {
+                    quote = c;
+                } else if (c == '>') {
+                    String tag = text.substring(start, position);
+                    if (tag.startsWith("<#if") && !Character.isWhitespace(tag.charAt("<#if".length()))) {
+                        throw new NotCompilableException("directive non prise en charge: " + tag);
+                    }
+                    return tag;
+                }
+            }
+            throw new NotCompilableException("directive non terminée");
+        }
+
+        private JsonNodes.Node parseLiteral() {
+            Matcher keyword = KEYWORD_PATTERN.matcher(text).region(position, text.length());
+            if (keyword.lookingAt()) {
+                position = keyword.end();
+                return new JsonNodes.LiteralNode(keyword.group());
+            }
+            Matcher number = NUMBER_PATTERN.matcher(text).region(position, text.length());
+            if (number.lookingAt()) {
+                position = number.end();
+                return new JsonNodes.LiteralNode(number.group());
+            }
+            throw new NotCompilableException("valeur non prise en charge, position " + position);
+        }
+
+        /**
+         * Passe les blancs et les commentaires FreeMarker, qui ne produisent aucune sortie.
+         */
+        private void skipBlank() {
+            while (position < text.length()) {
+                if (Character.isWhitespace(text.charAt(position))) {
+                    position++;
+                } else if (text.startsWith("<#--", position)) {
+                    skipComment();
+                } else {
+                    return;
+                }
+            }
+        }
+
+        private void skipComment() {
+            int end = text.indexOf("-->", position + 4);
+            if (end < 0) {
+                throw new NotCompilableException("commentaire non terminé");
+            }
+            position = end + 3;
+        }
+
+        private boolean consume(char expected) {
+            if (position < text.length() && text.charAt(position) == expected) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(char expected) {
+            if (!consume(expected)) {
+                throw new NotCompilableException("'" + expected + "' attendu, position " + position);
+            }
+        }
+    }
+}
@@ -6,43 +6,65 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.LongSummaryStatistics;
-import java.util.stream.Collectors;
 
 import com.etljobs.sql2json2api.api.response.ApiResponse;
 import com.etljobs.sql2json2api.model.RowError;
+import com.etljobs.sql2json2api.service.sql.ExecutionPlan;
 
 import lombok.Getter;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 
 /**
  * Gestionnaire des résultats d'appels API.
  * Cette classe collecte et analyse les résultats des appels API,
  * et fournit des statistiques et des fonctionnalités de suivi.
+ * Les réponses ne sont pas conservées : seuls leurs compteurs et leurs temps d'exécution
+ * sont agrégés, le résultat de chaque ligne étant transmis aux écouteurs de lignes.
  */
 @Slf4j
 public class ApiCallResults {
     
-    @Getter
-    private final List<ApiResponse> responses = Collections.synchronizedList(new ArrayList<>());
+    private final LongSummaryStatistics executionTimeStats = new LongSummaryStatistics();
+    
+    private int successCount;
+    
+    private int errorResponseCount;
     
     @Getter
     private final List<RowError> errors = Collections.synchronizedList(new ArrayList<>());
     
     private final Instant startTime = Instant.now();
     
+    /**
+     * Plan d'exécution estimé avant le traitement, null si non estimé
+     */
+    @Getter
+    @Setter
+    private ExecutionPlan executionPlan;
+    
     @Getter
     private Instant endTime;
     
     /**
-     * Ajoute une réponse API au gestionnaire.
+     * Erreur qui a interrompu le traitement du fichier, null si le fichier a été traité
+     */
+    @Getter
+    private Exception failure;
+    
+    /**
+     * Comptabilise une réponse API, sans la conserver.
      * 
-     * @param response Réponse API à ajouter
+     * @param response Réponse API à comptabiliser
      */
-    public void addResponse(ApiResponse response) {
+    public synchronized void addResponse(ApiResponse response) {
         if (response != null) {
-            synchronized(responses) {
-                responses.add(response);
+            if (response.isSuccess()) {
+                successCount++;
+            } else {
+                errorResponseCount++;
             }
+            executionTimeStats.accept(response.getExecutionTimeMs());
         }
     }
     
@@ -66,6 +88,16 @@ public class ApiCallResults {
         this.endTime = Instant.now();
     }
     
+    /**
+     * Marque le traitement comme interrompu par une erreur globale.
+     * 
+     * @param failure Erreur qui a interrompu le traitement
+     */
+    public void markFailed(Exception failure) {
+        this.failure = failure;
+        markComplete();
+    }
+    
     /**
      * Obtient la durée totale d'exécution.
      * 
@@ -84,12 +116,8 @@ public class ApiCallResults {
      * 
      * @return Nombre de réponses avec succès
      */
-    public int getSuccessCount() {
-        synchronized(responses) {
-            return (int) responses.stream()
-                    .filter(ApiResponse::isSuccess)
-                    .count();
-        }
+    public synchronized int getSuccessCount() {
+        return successCount;
     }
     
     /**
@@ -97,12 +125,17 @@ public class ApiCallResults {
      * 
      * @return Nombre de réponses avec erreur
      */
-    public int getErrorResponseCount() {
-        synchronized(responses) {
-            return (int) responses.stream()
-                    .filter(r -> !r.isSuccess())
-                    .count();
-        }
+    public synchronized int getErrorResponseCount() {
+        return errorResponseCount;
+    }
+    
+    /**
+     * Obtient le nombre de réponses reçues.
+     * 
+     * @return Nombre de réponses reçues
+     */
+    public synchronized int getResponseCount() {
+        return successCount + errorResponseCount;
     }
     
     /**
@@ -119,11 +152,10 @@ public class ApiCallResults {
      * 
      * @return Résumé statistique des temps d'exécution
      */
-    public LongSummaryStatistics getExecutionTimeStats() {
-        synchronized(responses) {
-            return responses.stream()
-                    .collect(Collectors.summarizingLong(ApiResponse::getExecutionTimeMs));
-        }
+    public synchronized LongSummaryStatistics getExecutionTimeStats() {
+        LongSummaryStatistics stats = new LongSummaryStatistics();
+        stats.combine(executionTimeStats);
+        return stats;
     }
     
     /**
@@ -137,12 +169,20 @@ public class ApiCallResults {
         sb.append(String.format("Résultats: %d succès, %d erreurs, durée: %s", 
                 getSuccessCount(), getTotalErrorCount(), formatDuration(getDuration())));
         
-        if (!responses.isEmpty()) {
+        if (getResponseCount() > 0) {
             LongSummaryStatistics stats = getExecutionTimeStats();
             sb.append(String.format(", temps d'exécution - min: %dms, max: %dms, moy: %.1fms", 
                     stats.getMin(), stats.getMax(), stats.getAverage()));
         }
         
+        if (executionPlan != null) {
+            sb.append(", plan: ").append(executionPlan.describe());
+        }
+        
+        if (failure != null) {
+            sb.append(", interrompu: ").append(failure.getMessage());
+        }
+        
         return sb.toString();
     }
     
@@ -6,6 +6,7 @@ import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
 
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
@@ -57,45 +58,17 @@ public class ParallelExecutionResults<T> {
             ApiCallTask task = (i < tasks.size()) ? tasks.get(i) : null;
             String correlationId = (task != null) ? task.getCorrelationId() : "unknown";
             
-            try {
-                // Log de progression
-                if (i % 5 == 0 || i == futures.size() - 1) {
-                    log.debug("[{}] Traitement de la future {}/{}", 
-                            correlationId, i+1, futures.size());
-                }
-                
-                T result = future.get(timeoutSeconds, TimeUnit.SECONDS);
-                successfulResults.add(result);
-                completedCount++;
-                
-                // Log progressif pour les grands ensembles de tâches
-                if (completedCount % 10 == 0 || completedCount == futures.size()) {
-                    log.debug("Progression: {}/{} tâches complétées", completedCount, futures.size());
-                }
-                
-            } catch (TimeoutException e) {
-                timeoutCount++;
-                errors.add(new ExecutionError(i, correlationId, "Timeout après " + timeoutSeconds + "s", e));
-                future.cancel(true);
-                log.warn("[{}] Timeout pour la tâche #{}", correlationId, i);
-                
-            } catch (InterruptedException e) {
-                errorCount++;
-                errors.add(new ExecutionError(i, correlationId, "Interruption de la tâche", e));
-                Thread.currentThread().interrupt();
-                log.warn("[{}] Tâche #{} interrompue", correlationId, i);
-                
-            } catch (ExecutionException e) {
-                errorCount++;
-                String errorMsg = e.getCause() != null ? e.getCause().getMessage() : e.getMessage();
-                errors.add(new ExecutionError(i, correlationId, "Erreur d'exécution: " + errorMsg, e.getCause()));
-                log.warn("[{}] Erreur dans la tâche #{}: {}", correlationId, i, errorMsg);
-                
-            } catch (Exception e) {
-                // Capturer toute autre exception non prévue
-                errorCount++;
-                errors.add(new ExecutionError(i, correlationId, "Exception inattendue: " + e.getMessage(), e));
-                log.error("[{}] Exception inattendue dans la tâche #{}: {}", correlationId, i, e.getMessage(), e);
+            // Log de progression
+            if (i % 5 == 0 || i == futures.size() - 1) {
+                log.debug("[{}] Traitement de la future {}/{}", 
+                        correlationId, i+1, futures.size());
+            }
+            
+            waitFor(future, i, correlationId, timeoutSeconds, successfulResults::add);
+            
+            // Log progressif pour les grands ensembles de tâches
+            if (completedCount % 10 == 0 || completedCount == futures.size()) {
+                log.debug("Progression: {}/{} tâches complétées", completedCount, futures.size());
             }
         }
         
@@ -106,6 +79,72 @@ public class ParallelExecutionResults<T> {
         return successfulResults;
     }
     
+    /**
+     * Attend la complétion d'une seule tâche et met à jour les compteurs.
+     * Permet de consommer les résultats au fil de l'eau (fenêtre glissante)
+     * sans conserver la liste complète des futures.
+     * 
+     * @param future Future à attendre
+     * @param taskIndex Index de la tâche (pour le suivi des erreurs)
+     * @param correlationId ID de corrélation de la tâche
+     * @param timeoutSeconds Timeout en secondes
+     * @param resultConsumer Consommateur appelé avec le résultat en cas de succès
+     * @return L'erreur d'exécution, ou null si la tâche s'est terminée avec succès
+     */
+    public ExecutionError waitFor(Future<T> future, int taskIndex, String correlationId,
+            int timeoutSeconds, Consumer<T> resultConsumer) {
+        ExecutionError error;
+        try {
+            T result = future.get(timeoutSeconds, TimeUnit.SECONDS);
+            resultConsumer.accept(result);
+            completedCount++;
+            return null;
+            
+        } catch (TimeoutException e) {
+            return timedOut(future, taskIndex, correlationId, timeoutSeconds);
+            
+        } catch (InterruptedException e) {
+            errorCount++;
+            error = new ExecutionError(taskIndex, correlationId, "Interruption de la tâche", e);
+            Thread.currentThread().interrupt();
+            log.warn("[{}] Tâche #{} interrompue", correlationId, taskIndex);
+            
+        } catch (ExecutionException e) {
+            errorCount++;
+            String errorMsg = e.getCause() != null ? e.getCause().getMessage() : e.getMessage();
+            error = new ExecutionError(taskIndex, correlationId, "Erreur d'exécution: " + errorMsg, e.getCause());
+            log.warn("[{}] Erreur dans la tâche #{}: {}", correlationId, taskIndex, errorMsg);
+            
+        } catch (Exception e) {
+            // Capturer toute autre exception non prévue
+            errorCount++;
+            error = new ExecutionError(taskIndex, correlationId, "Exception inattendue: " + e.getMessage(), e);
+            log.error("[{}] Exception inattendue dans la tâche #{}: {}", correlationId, taskIndex, e.getMessage(), e);
+        }
+        
+        errors.add(error);
+        return error;
+    }
+    
+    /**
+     * Annule une tâche qui ne s'est pas terminée dans le délai imparti et la compte en timeout.
+     * 
+     * @param future Future de la tâche
+     * @param taskIndex Index de la tâche (pour le suivi des erreurs)
+     * @param correlationId ID de corrélation de la tâche
+     * @param timeoutSeconds Délai dépassé, en secondes
+     * @return L'erreur de timeout
+     */
+    public ExecutionError timedOut(Future<T> future, int taskIndex, String correlationId, int timeoutSeconds) {
+        timeoutCount++;
+        ExecutionError error = new ExecutionError(taskIndex, correlationId,
+                "Timeout après " + timeoutSeconds + "s", new TimeoutException());
+        future.cancel(true);
+        log.warn("[{}] Timeout pour la tâche #{}", correlationId, taskIndex);
+        errors.add(error);
+        return error;
+    }
+    
     /**
      * Classe interne représentant une erreur d'exécution.
      */
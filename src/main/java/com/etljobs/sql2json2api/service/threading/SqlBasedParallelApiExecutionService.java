@@ -1,11 +1,16 @@
 package com.etljobs.sql2json2api.service.threading;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import com.etljobs.sql2json2api.api.response.ApiResponse;
@@ -13,11 +18,21 @@ import com.etljobs.sql2json2api.exception.ProcessingException;
 import com.etljobs.sql2json2api.model.ApiTemplateResult;
 import com.etljobs.sql2json2api.model.RowError;
 import com.etljobs.sql2json2api.model.SqlFile;
+import com.etljobs.sql2json2api.service.fingerprint.RowFingerprintStore;
 import com.etljobs.sql2json2api.service.http.ApiClientService;
 import com.etljobs.sql2json2api.service.http.TokenService;
+import com.etljobs.sql2json2api.service.orchestration.RowOutcome;
+import com.etljobs.sql2json2api.service.orchestration.RowOutcomeDispatcher;
+import com.etljobs.sql2json2api.service.sql.ColumnProjector;
+import com.etljobs.sql2json2api.service.sql.DataSourceRouter;
+import com.etljobs.sql2json2api.service.sql.ExecutionPlan;
+import com.etljobs.sql2json2api.service.sql.ExecutionPlanner;
+import com.etljobs.sql2json2api.service.sql.RowHandler;
+import com.etljobs.sql2json2api.service.sql.RowKeys;
 import com.etljobs.sql2json2api.service.sql.SqlExecutionService;
 import com.etljobs.sql2json2api.service.template.TemplateProcessingService;
 
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -34,6 +49,23 @@ public class SqlBasedParallelApiExecutionService {
     private final TokenService tokenService;
     private final ThreadPoolManager threadPoolManager;
     private final ApiCallTaskFactory apiCallTaskFactory;
+    private final RowOutcomeDispatcher outcomeDispatcher;
+    private final RowFingerprintStore fingerprintStore;
+    private final ExecutionPlanner executionPlanner;
+    private final ColumnProjector columnProjector;
+    private final DataSourceRouter dataSourceRouter;
+    
+    /**
+     * En mode @sql-loop-until-empty, nombre d'appels en vol sous lequel la requête est relancée.
+     * 0 = la moitié de la fenêtre d'appels en vol.
+     */
+    @Value("${app.sql.loop.requery-in-flight:0}")
+    private int loopRequeryInFlight;
+    
+    /**
+     * Plans des fichiers SQL lus en avance, par nom de fichier, complétés par la lecture anticipée
+     */
+    private final Map<String, CompletableFuture<ExecutionPlan>> prefetchedPlans = new ConcurrentHashMap<>();
     
     @Autowired
     public SqlBasedParallelApiExecutionService(
@@ -42,45 +74,138 @@ public class SqlBasedParallelApiExecutionService {
             SqlExecutionService sqlExecutionService,
             TokenService tokenService,
             ThreadPoolManager threadPoolManager,
-            ApiCallTaskFactory apiCallTaskFactory) {
+            ApiCallTaskFactory apiCallTaskFactory,
+            RowOutcomeDispatcher outcomeDispatcher,
+            RowFingerprintStore fingerprintStore,
+            ExecutionPlanner executionPlanner,
+            ColumnProjector columnProjector,
+            DataSourceRouter dataSourceRouter) {
         this.apiClientService = apiClientService;
         this.templateService = templateService;
         this.sqlExecutionService = sqlExecutionService;
         this.tokenService = tokenService;
         this.threadPoolManager = threadPoolManager;
         this.apiCallTaskFactory = apiCallTaskFactory;
+        this.outcomeDispatcher = outcomeDispatcher;
+        this.fingerprintStore = fingerprintStore;
+        this.executionPlanner = executionPlanner;
+        this.columnProjector = columnProjector;
+        this.dataSourceRouter = dataSourceRouter;
     }
     
     /**
      * Exécute la requête SQL et traite les résultats avec des appels API parallèles.
+     * Les lignes sont lues en streaming : chaque ligne est transformée et soumise
+     * dès sa lecture, sans attendre la fin de la requête.
+     * <p>
+     * Si l'estimation préalable est activée (app.sql.preflight.enabled), le mode de lecture,
+     * le nombre de partitions et la taille du pool de threads sont choisis d'après le
+     * volume estimé du fichier, le pool reprenant sa taille configurée à la fin du fichier.
+     * Les colonnes non utilisées par le template sont signalées ou retirées de la requête
+     * selon app.sql.projection.mode.
+     * Les requêtes du fichier (analyse, estimation, lecture) sont exécutées sur la datasource
+     * choisie par {@link DataSourceRouter}.
      * 
-     * @param sqlFile Le fichier SQL à exécuter
+     * @param declaredSqlFile Le fichier SQL à exécuter
      * @return Résultats des appels API
      */
-    public ApiCallResults executeAndWaitCompletion(SqlFile sqlFile) {
+    public ApiCallResults executeAndWaitCompletion(SqlFile declaredSqlFile) {
+        return dataSourceRouter.callOn(declaredSqlFile, () -> executeOnDataSource(declaredSqlFile));
+    }
+    
+    private ApiCallResults executeOnDataSource(SqlFile declaredSqlFile) {
+        SqlFile sqlFile = columnProjector.project(declaredSqlFile);
+        CompletableFuture<ExecutionPlan> prefetchedPlan = prefetchedPlans.remove(sqlFile.getFileName());
+        ExecutionPlan plan;
+        if (prefetchedPlan != null && sqlExecutionService.isPrefetched(sqlFile)) {
+            // Estimation déjà faite par la lecture anticipée, avant sa requête
+            plan = prefetchedPlan.join();
+        } else {
+            plan = executionPlanner.plan(sqlFile);
+        }
+        if (plan == null) {
+            return execute(sqlFile, null);
+        }
+        threadPoolManager.resizePool(plan.getThreads());
+        try {
+            return execute(executionPlanner.apply(sqlFile, plan), plan);
+        } finally {
+            threadPoolManager.resetPoolSize();
+        }
+    }
+    
+    /**
+     * Lance en arrière-plan la lecture du résultat d'un fichier SQL qui ne dépend pas des
+     * appels API des fichiers précédents (@sql-prefetch: true), avec la même projection de
+     * colonnes que son exécution. Le plan d'exécution est estimé sur le thread de lecture,
+     * avant la requête, puis réutilisé par {@link #executeAndWaitCompletion}, qui consomme
+     * le résultat.
+     * 
+     * @param declaredSqlFile Le fichier SQL à lire en avance
+     * @return true si la lecture anticipée a été lancée
+     */
+    public boolean prefetch(SqlFile declaredSqlFile) {
+        if (!sqlExecutionService.isPrefetchable(declaredSqlFile)) {
+            return false;
+        }
+        CompletableFuture<ExecutionPlan> plan = new CompletableFuture<>();
+        prefetchedPlans.put(declaredSqlFile.getFileName(), plan);
+        try {
+            sqlExecutionService.prefetch(dataSourceRouter.callOn(declaredSqlFile,
+                    () -> columnProjector.project(declaredSqlFile)), sqlFile -> {
+                        ExecutionPlan filePlan = null;
+                        try {
+                            filePlan = executionPlanner.plan(sqlFile);
+                        } finally {
+                            plan.complete(filePlan);
+                        }
+                        return filePlan != null ? executionPlanner.apply(sqlFile, filePlan) : sqlFile;
+                    });
+        } catch (RuntimeException e) {
+            prefetchedPlans.remove(declaredSqlFile.getFileName());
+            plan.complete(null);
+            throw e;
+        }
+        return true;
+    }
+    
+    /**
+     * Abandonne les lectures anticipées non consommées.
+     */
+    public void cancelPrefetches() {
+        sqlExecutionService.cancelPrefetches();
+        prefetchedPlans.values().forEach(plan -> plan.complete(null));
+        prefetchedPlans.clear();
+    }
+    
+    /**
+     * Exécute le fichier SQL avec les paramètres de son plan d'exécution.
+     */
+    private ApiCallResults execute(SqlFile sqlFile, ExecutionPlan plan) {
+        int rowCount = 0;
+        boolean aborted = true;
+        outcomeDispatcher.fileStarted(sqlFile);
         try {
             log.info("Exécution du fichier SQL: {} avec traitement parallèle", sqlFile.getFileName());
             
-            // 1. Exécuter la requête SQL
-            List<Map<String, Object>> results = sqlExecutionService.executeQuery(sqlFile.getContent());
-            log.info("SQL exécuté, {} lignes obtenues", results.size());
-            
-            if (results.isEmpty()) {
-                log.info("Aucun résultat à traiter pour {}", sqlFile.getFileName());
-                return new ApiCallResults();
-            }
-            
-            // 2. Créer un gestionnaire de résultats
+            // 1. Créer un gestionnaire de résultats
             ApiCallResults callResults = new ApiCallResults();
+            callResults.setExecutionPlan(plan);
             
-            // 3. Exécuter le traitement parallèle des résultats
+            // 2. Exécuter la requête SQL et traiter les lignes au fil de l'eau
             if (threadPoolManager.isEnabled()) {
-                processInParallel(sqlFile, results, callResults);
+                rowCount = processInParallel(sqlFile, callResults);
             } else {
-                processSequentially(sqlFile, results, callResults);
+                rowCount = processSequentially(sqlFile, callResults);
             }
+            log.info("SQL exécuté, {} lignes obtenues", rowCount);
+            aborted = false;
             
-            // 4. Marquer le traitement comme terminé et renvoyer les résultats
+            if (rowCount == 0) {
+                log.info("Aucun résultat à traiter pour {}", sqlFile.getFileName());
+            }
+            
+            // 3. Marquer le traitement comme terminé et renvoyer les résultats
             callResults.markComplete();
             log.info(callResults.getSummary());
             
@@ -89,120 +214,116 @@ public class SqlBasedParallelApiExecutionService {
         } catch (Exception e) {
             throw new ProcessingException("Erreur lors du traitement parallèle du fichier SQL: " 
                     + sqlFile.getFileName(), e);
+        } finally {
+            outcomeDispatcher.fileCompleted(sqlFile, rowCount, aborted);
         }
     }
     
     /**
      * Traite les résultats SQL en parallèle en utilisant le pool de threads.
+     * Chaque ligne lue est soumise immédiatement au pool ; le nombre de tâches
+     * en vol est borné par {@link ThreadPoolManager#getMaxInFlight()} afin que
+     * la mémoire utilisée reste constante quelle que soit la taille du résultat.
+     * Quand la fenêtre est pleine, la lecture reprend dès qu'un appel quelconque se
+     * termine : un appel lent ne bloque pas ceux qui ont été soumis après lui.
      * 
      * @param sqlFile Le fichier SQL traité
-     * @param results Les résultats SQL à traiter
      * @param callResults Le gestionnaire de résultats
+     * @return Le nombre de lignes lues
      */
-    private void processInParallel(SqlFile sqlFile, List<Map<String, Object>> results, ApiCallResults callResults) {
-        log.info("Traitement parallèle de {} lignes pour {}", results.size(), sqlFile.getFileName());
-        
-        // Liste pour stocker les tâches d'appel API
-        List<ApiCallTask> tasks = new ArrayList<>(results.size());
-        
-        // Obtenir un token partagé pour tous les appels
-        String token = tokenService.getToken();
-        
-        // Préparer les tâches d'appel API pour chaque ligne
-        for (int i = 0; i < results.size(); i++) {
-            Map<String, Object> row = results.get(i);
-            String rowIdentifier = extractRowIdentifier(row, i);
-            
-            try {
-                // Traiter le template pour cette ligne
-                ApiTemplateResult templateResult = templateService.processTemplate(
-                        sqlFile.getTemplateName(), row);
-                
-                // Afficher le template généré pour débogage
-                log.debug("Template généré pour la ligne {}: {}", 
-                          rowIdentifier, templateResult.getJsonPayload());
-                
-                log.info("URL de l'appel API: {} {}", 
-                          templateResult.getEndpointInfo().getMethod(),
-                          templateResult.getEndpointInfo().getRoute());
-                
-                // Créer une tâche d'appel API
-                ApiCallTask task = apiCallTaskFactory.createFromTemplateResult(
-                        templateResult, i, rowIdentifier);
-                
-                tasks.add(task);
-                
-            } catch (Exception e) {
-                log.error("Erreur lors de la préparation de la tâche pour la ligne {}: {}", 
-                        rowIdentifier, e.getMessage());
-                
-                // Enregistrer l'erreur dans les résultats
-                callResults.addError(new RowError(i, row, e.getMessage(), e, 0));
-            }
-        }
+    private int processInParallel(SqlFile sqlFile, ApiCallResults callResults) {
+        log.info("Traitement parallèle en streaming des lignes de {}", sqlFile.getFileName());
         
-        if (tasks.isEmpty()) {
-            log.warn("Aucune tâche d'appel API n'a pu être créée");
-            return;
-        }
+        // Fenêtre des appels en cours, du plus ancien au plus récent ; les appels terminés
+        // sont rendus par le service de complétion dans l'ordre où ils se terminent
+        int maxInFlight = threadPoolManager.getMaxInFlight();
+        CompletionService<ApiResponse> completionService = threadPoolManager.newCompletionService();
+        Map<Future<ApiResponse>, PendingCall> pendingCalls = new LinkedHashMap<>();
+        ParallelExecutionResults<ApiResponse> executionResults = new ParallelExecutionResults<>();
+        Function<Map<String, Object>, ApiTemplateResult> templateProcessor = templateService.processorFor(sqlFile);
         
-        // Soumettre les tâches au pool et attendre les résultats
         try {
-            log.info("Soumission de {} tâches au pool de threads", tasks.size());
-            List<Future<ApiResponse>> futures = threadPoolManager.submitTasks(tasks);
-            
-            // Attendre et traiter les résultats
-            ParallelExecutionResults<ApiResponse> executionResults = new ParallelExecutionResults<>();
-            
-            // Log avant l'attente
-            log.info("En attente de la complétion de {} tâches...", futures.size());
-            
-            // Passer les tâches en plus des futures pour récupérer les IDs de corrélation
-            List<ApiResponse> responses = executionResults.waitForAll(futures, tasks, threadPoolManager.getTimeoutSeconds());
-
-            // Vérifier si des réponses ont été obtenues
-            log.info("Réception de {} réponses sur {} attendues", 
-                    responses.size(), futures.size());
-            
-            // Afficher les réponses en détail
-            for (int i = 0; i < responses.size(); i++) {
-                ApiResponse response = responses.get(i);
-                String correlationId = response.getRequestId();
+            RowHandler rowHandler = (row, rowIndex) -> {
+                String rowIdentifier = RowKeys.describe(sqlFile, row, rowIndex);
+                outcomeDispatcher.rowRead(sqlFile, row, rowIndex);
+                ApiCallTask task;
+                String payload;
                 
-                log.info("[{}] Réponse {}/{} - Statut: {}, Temps: {}ms", 
-                        correlationId, i+1, responses.size(), response.getStatusCode(), 
-                        response.getExecutionTimeMs());
+                try {
+                    // Traiter le template (ou lire le corps JSON construit par la base) pour cette ligne
+                    ApiTemplateResult templateResult = templateProcessor.apply(row);
+                    
+                    // Afficher le template généré pour débogage
+                    log.debug("Template généré pour la ligne {}: {}", 
+                              rowIdentifier, templateResult.getJsonPayload());
+                    
+                    log.info("URL de l'appel API: {} {}", 
+                              templateResult.getEndpointInfo().getMethod(),
+                              templateResult.getEndpointInfo().getRoute());
+                    
+                    // Ne pas renvoyer une ligne identique au dernier envoi réussi
+                    payload = templateResult.getJsonPayload();
+                    if (fingerprintStore.isUnchanged(sqlFile, row, rowIndex, payload)) {
+                        notifySkipped(sqlFile, row, rowIndex, rowIdentifier);
+                        return;
+                    }
+                    
+                    // Créer une tâche d'appel API
+                    task = apiCallTaskFactory.createFromTemplateResult(
+                            templateResult, rowIndex, rowIdentifier);
+                    
+                } catch (Exception e) {
+                    log.error("Erreur lors de la préparation de la tâche pour la ligne {}: {}", 
+                            rowIdentifier, e.getMessage());
+                    
+                    // Enregistrer l'erreur dans les résultats
+                    callResults.addError(new RowError(rowIndex, row, e.getMessage(), e, 0));
+                    outcomeDispatcher.rowCompleted(RowOutcome.builder()
+                            .sqlFile(sqlFile)
+                            .row(row)
+                            .rowIndex(rowIndex)
+                            .rowIdentifier(rowIdentifier)
+                            .success(false)
+                            .build());
+                    return;
+                }
                 
-                // Afficher le corps de la réponse
-                if (response.getBody() != null) {
-                    String truncatedBody = truncateIfNeeded(response.getBody(), 500);
-                    log.info("[{}] Corps: {}", correlationId, truncatedBody);
+                // Contre-pression : attendre le prochain appel terminé si la fenêtre est pleine
+                while (pendingCalls.size() >= maxInFlight) {
+                    completeNext(sqlFile, completionService, pendingCalls, executionResults, callResults);
                 }
-            }
+                
+                try {
+                    Future<ApiResponse> future = threadPoolManager.submitThrottledTask(completionService, task);
+                    pendingCalls.put(future, new PendingCall(task, row, rowIdentifier, payload, future,
+                            System.nanoTime() + TimeUnit.SECONDS.toNanos(threadPoolManager.getTimeoutSeconds())));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new ProcessingException("Interruption lors de la soumission des tâches", e);
+                }
+            };
             
-            // Ajouter explicitement chaque réponse au gestionnaire de résultats
-            for (ApiResponse response : responses) {
-                callResults.addResponse(response);
+            int rowCount;
+            if (sqlExecutionService.isLoopUntilEmpty(sqlFile)) {
+                // Relancer la requête dès que les appels en vol repassent sous le seuil,
+                // sans attendre la fin de toutes les lignes de l'itération précédente
+                int requeryThreshold = loopRequeryInFlight > 0 ? loopRequeryInFlight : maxInFlight / 2;
+                rowCount = sqlExecutionService.streamUntilEmpty(sqlFile, rowHandler,
+                        (iteration, drain) -> {
+                            int limit = drain ? 0 : requeryThreshold;
+                            while (pendingCalls.size() > limit) {
+                                completeNext(sqlFile, completionService, pendingCalls, executionResults,
+                                        callResults);
+                            }
+                        });
+            } else {
+                rowCount = sqlExecutionService.streamSqlFile(sqlFile, rowHandler);
             }
             
-            // Ajouter les erreurs d'exécution au gestionnaire de résultats
-            for (ParallelExecutionResults.ExecutionError error : executionResults.getErrors()) {
-                int taskIndex = error.getTaskIndex();
-                if (taskIndex < tasks.size()) {
-                    ApiCallTask failedTask = tasks.get(taskIndex);
-                    
-                    RowError rowError = new RowError(
-                            failedTask.getRowIndex(),
-                            results.get(failedTask.getRowIndex()),
-                            "Erreur d'exécution de la tâche: " + error.getMessage(),
-                            error.getCause() instanceof Exception ? (Exception) error.getCause() : 
-                                new Exception(error.getMessage(), error.getCause()),
-                            1
-                    );
-                    
-                    callResults.addError(rowError);
-                    log.error("Erreur pour la tâche #{}: {}", taskIndex, rowError.getFormattedMessage());
-                }
+            // Attendre les appels encore en vol
+            log.info("En attente de la complétion de {} tâches restantes...", pendingCalls.size());
+            while (!pendingCalls.isEmpty()) {
+                completeNext(sqlFile, completionService, pendingCalls, executionResults, callResults);
             }
             
             log.info("Traitement parallèle terminé: {} succès, {} timeouts, {} erreurs",
@@ -210,6 +331,8 @@ public class SqlBasedParallelApiExecutionService {
                     executionResults.getTimeoutCount(),
                     executionResults.getErrorCount());
             
+            return rowCount;
+            
         } catch (Exception e) {
             log.error("Erreur lors de l'exécution parallèle: {}", e.getMessage(), e);
             throw new ProcessingException("Erreur lors du traitement parallèle", e);
@@ -217,27 +340,130 @@ public class SqlBasedParallelApiExecutionService {
     }
     
     /**
-     * Traite les résultats SQL séquentiellement (mode compatibilité).
+     * Attend la fin du prochain appel de la fenêtre, quel qu'il soit, et enregistre sa
+     * réponse ou son erreur dans le gestionnaire de résultats. Si aucun appel ne se termine
+     * avant l'échéance du plus ancien (app.threading.timeout-seconds après sa soumission),
+     * celui-ci est annulé et compté en timeout.
      * 
      * @param sqlFile Le fichier SQL traité
-     * @param results Les résultats SQL à traiter
+     * @param completionService Le service de complétion auquel les appels ont été soumis
+     * @param pendingCalls Les appels en vol, par future, dans l'ordre de soumission
+     * @param executionResults Les compteurs d'exécution
      * @param callResults Le gestionnaire de résultats
      */
-    private void processSequentially(SqlFile sqlFile, List<Map<String, Object>> results, ApiCallResults callResults) {
-        log.info("Traitement séquentiel de {} lignes pour {}", results.size(), sqlFile.getFileName());
+    private void completeNext(SqlFile sqlFile, CompletionService<ApiResponse> completionService,
+            Map<Future<ApiResponse>, PendingCall> pendingCalls,
+            ParallelExecutionResults<ApiResponse> executionResults, ApiCallResults callResults) {
+        PendingCall oldest = pendingCalls.values().iterator().next();
+        Future<ApiResponse> completed;
+        try {
+            completed = completionService.poll(
+                    Math.max(0, oldest.getDeadlineNanos() - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ProcessingException("Interruption lors de l'attente des appels en vol", e);
+        }
+        
+        if (completed == null) {
+            pendingCalls.remove(oldest.getFuture());
+            ApiCallTask task = oldest.getTask();
+            recordError(sqlFile, oldest, callResults, executionResults.timedOut(oldest.getFuture(),
+                    task.getRowIndex(), task.getCorrelationId(), threadPoolManager.getTimeoutSeconds()));
+            return;
+        }
         
-        // Obtenir un token partagé pour tous les appels
-        String token = tokenService.getToken();
+        PendingCall pendingCall = pendingCalls.remove(completed);
+        if (pendingCall == null) {
+            // Appel déjà annulé et compté en timeout
+            return;
+        }
+        ApiCallTask task = pendingCall.getTask();
         
-        // Traiter chaque ligne séquentiellement
-        for (int i = 0; i < results.size(); i++) {
-            Map<String, Object> row = results.get(i);
-            String rowIdentifier = extractRowIdentifier(row, i);
+        ParallelExecutionResults.ExecutionError error = executionResults.waitFor(
+                pendingCall.getFuture(), task.getRowIndex(), task.getCorrelationId(),
+                threadPoolManager.getTimeoutSeconds(),
+                response -> {
+                    String correlationId = response.getRequestId();
+                    log.info("[{}] Réponse ligne {} - Statut: {}, Temps: {}ms", 
+                            correlationId, task.getRowIndex() + 1, response.getStatusCode(), 
+                            response.getExecutionTimeMs());
+                    
+                    // Afficher le corps de la réponse
+                    if (response.getBody() != null) {
+                        String truncatedBody = truncateIfNeeded(response.getBody(), 500);
+                        log.info("[{}] Corps: {}", correlationId, truncatedBody);
+                    }
+                    
+                    callResults.addResponse(response);
+                    outcomeDispatcher.rowCompleted(RowOutcome.builder()
+                            .sqlFile(sqlFile)
+                            .row(pendingCall.getRow())
+                            .rowIndex(task.getRowIndex())
+                            .rowIdentifier(pendingCall.getRowIdentifier())
+                            .success(response.isSuccess())
+                            .statusCode(response.getStatusCode())
+                            .payload(pendingCall.getPayload())
+                            .responseBody(response.getBody())
+                            .build());
+                });
+        
+        if (error != null) {
+            recordError(sqlFile, pendingCall, callResults, error);
+        }
+    }
+    
+    /**
+     * Enregistre l'échec d'un appel en vol et le signale aux écouteurs de lignes.
+     */
+    private void recordError(SqlFile sqlFile, PendingCall pendingCall, ApiCallResults callResults,
+            ParallelExecutionResults.ExecutionError error) {
+        ApiCallTask task = pendingCall.getTask();
+        RowError rowError = new RowError(
+                task.getRowIndex(),
+                pendingCall.getRow(),
+                "Erreur d'exécution de la tâche: " + error.getMessage(),
+                error.getCause() instanceof Exception ? (Exception) error.getCause() : 
+                    new Exception(error.getMessage(), error.getCause()),
+                1
+        );
+        
+        callResults.addError(rowError);
+        log.error("Erreur pour la tâche #{}: {}", task.getRowIndex(), rowError.getFormattedMessage());
+        outcomeDispatcher.rowCompleted(RowOutcome.builder()
+                .sqlFile(sqlFile)
+                .row(pendingCall.getRow())
+                .rowIndex(task.getRowIndex())
+                .rowIdentifier(pendingCall.getRowIdentifier())
+                .success(false)
+                .payload(pendingCall.getPayload())
+                .build());
+    }
+    
+    /**
+     * Traite les résultats SQL séquentiellement (mode compatibilité).
+     * 
+     * @param sqlFile Le fichier SQL traité
+     * @param callResults Le gestionnaire de résultats
+     * @return Le nombre de lignes lues
+     */
+    private int processSequentially(SqlFile sqlFile, ApiCallResults callResults) {
+        log.info("Traitement séquentiel en streaming des lignes de {}", sqlFile.getFileName());
+        
+        // Traiter chaque ligne séquentiellement, dès sa lecture
+        Function<Map<String, Object>, ApiTemplateResult> templateProcessor = templateService.processorFor(sqlFile);
+        RowHandler rowHandler = (row, rowIndex) -> {
+            if (rowIndex == 0) {
+                // Obtenir un token partagé pour tous les appels
+                tokenService.getToken();
+            }
+            
+            String rowIdentifier = RowKeys.describe(sqlFile, row, rowIndex);
+            outcomeDispatcher.rowRead(sqlFile, row, rowIndex);
+            String payload = null;
             
             try {
-                // Traiter le template pour cette ligne
-                ApiTemplateResult templateResult = templateService.processTemplate(
-                        sqlFile.getTemplateName(), row);
+                // Traiter le template (ou lire le corps JSON construit par la base) pour cette ligne
+                ApiTemplateResult templateResult = templateProcessor.apply(row);
                 
                 // Afficher les informations de l'appel API
                 log.info("Appel API pour la ligne {}: {} {}", 
@@ -245,7 +471,14 @@ public class SqlBasedParallelApiExecutionService {
                         templateResult.getEndpointInfo().getMethod(),
                         templateResult.getEndpointInfo().getRoute());
                 
-                log.debug("Payload JSON: {}", templateResult.getJsonPayload());
+                payload = templateResult.getJsonPayload();
+                log.debug("Payload JSON: {}", payload);
+                
+                // Ne pas renvoyer une ligne identique au dernier envoi réussi
+                if (fingerprintStore.isUnchanged(sqlFile, row, rowIndex, payload)) {
+                    notifySkipped(sqlFile, row, rowIndex, rowIdentifier);
+                    return;
+                }
                 
                 // Faire l'appel API directement
                 com.etljobs.sql2json2api.model.ApiResponse legacyResponse = apiClientService.callApi(
@@ -273,17 +506,56 @@ public class SqlBasedParallelApiExecutionService {
                 
                 log.debug("Ligne {} traitée avec statut: {}", 
                         rowIdentifier, legacyResponse.getStatusCode());
+                outcomeDispatcher.rowCompleted(RowOutcome.builder()
+                        .sqlFile(sqlFile)
+                        .row(row)
+                        .rowIndex(rowIndex)
+                        .rowIdentifier(rowIdentifier)
+                        .success(response.isSuccess())
+                        .statusCode(response.getStatusCode())
+                        .payload(payload)
+                        .responseBody(response.getBody())
+                        .build());
                 
             } catch (Exception e) {
                 log.error("Erreur lors du traitement de la ligne {}: {}", 
                         rowIdentifier, e.getMessage());
                 
                 // Enregistrer l'erreur dans les résultats
-                callResults.addError(new RowError(i, row, e.getMessage(), e, 1));
+                callResults.addError(new RowError(rowIndex, row, e.getMessage(), e, 1));
+                outcomeDispatcher.rowCompleted(RowOutcome.builder()
+                        .sqlFile(sqlFile)
+                        .row(row)
+                        .rowIndex(rowIndex)
+                        .rowIdentifier(rowIdentifier)
+                        .success(false)
+                        .payload(payload)
+                        .build());
             }
-        }
+        };
+        
+        // Les appels étant synchrones, toutes les lignes sont terminées à la fin de chaque itération
+        int rowCount = sqlExecutionService.isLoopUntilEmpty(sqlFile)
+                ? sqlExecutionService.streamUntilEmpty(sqlFile, rowHandler, (iteration, drain) -> { })
+                : sqlExecutionService.streamSqlFile(sqlFile, rowHandler);
         
         log.info("Traitement séquentiel terminé");
+        return rowCount;
+    }
+    
+    /**
+     * Signale aux écouteurs une ligne ignorée car inchangée depuis son dernier envoi réussi.
+     */
+    private void notifySkipped(SqlFile sqlFile, Map<String, Object> row, int rowIndex, String rowIdentifier) {
+        log.debug("Ligne {} inchangée, appel API ignoré", rowIdentifier);
+        outcomeDispatcher.rowCompleted(RowOutcome.builder()
+                .sqlFile(sqlFile)
+                .row(row)
+                .rowIndex(rowIndex)
+                .rowIdentifier(rowIdentifier)
+                .success(true)
+                .skipped(true)
+                .build());
     }
     
     /**
@@ -300,27 +572,27 @@ public class SqlBasedParallelApiExecutionService {
     }
     
     /**
-     * Extrait un identifiant lisible d'une ligne de résultat.
-     * 
-     * @param row La ligne de résultat
-     * @param fallbackIndex Index à utiliser si aucun identifiant n'est trouvé
-     * @return Identifiant de ligne lisible
+     * Appel API soumis au pool et pas encore consommé.
+     * La ligne source est conservée pour le rapport d'erreur et les écouteurs de lignes ;
+     * l'échéance (System.nanoTime) est celle au-delà de laquelle l'appel est annulé.
      */
-    private String extractRowIdentifier(Map<String, Object> row, int fallbackIndex) {
-        // Essayer d'extraire un ID lisible
-        for (String idField : new String[]{"id", "ID", "Id", "uuid", "UUID", "key", "KEY"}) {
-            if (row.containsKey(idField) && row.get(idField) != null) {
-                return idField + "=" + row.get(idField);
-            }
-        }
+    @Getter
+    private static class PendingCall {
+        private final ApiCallTask task;
+        private final Map<String, Object> row;
+        private final String rowIdentifier;
+        private final String payload;
+        private final Future<ApiResponse> future;
+        private final long deadlineNanos;
         
-        // Utiliser la première clé/valeur disponible
-        if (!row.isEmpty()) {
-            Map.Entry<String, Object> firstEntry = row.entrySet().iterator().next();
-            return firstEntry.getKey() + "=" + firstEntry.getValue();
+        PendingCall(ApiCallTask task, Map<String, Object> row, String rowIdentifier, String payload,
+                Future<ApiResponse> future, long deadlineNanos) {
+            this.task = task;
+            this.row = row;
+            this.rowIdentifier = rowIdentifier;
+            this.payload = payload;
+            this.future = future;
+            this.deadlineNanos = deadlineNanos;
         }
-        
-        // Si tout échoue, utiliser l'index
-        return "row#" + (fallbackIndex + 1);
     }
 }
\ No newline at end of file
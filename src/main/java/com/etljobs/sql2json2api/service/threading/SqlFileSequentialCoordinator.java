@@ -1,17 +1,17 @@
 package com.etljobs.sql2json2api.service.threading;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import com.etljobs.sql2json2api.api.response.ApiResponse;
-import com.etljobs.sql2json2api.api.response.ApiResponseAdapter;
 import com.etljobs.sql2json2api.exception.ProcessingException;
 import com.etljobs.sql2json2api.model.SqlFile;
+import com.etljobs.sql2json2api.service.sql.ConnectionPoolMetrics;
+import com.etljobs.sql2json2api.service.sql.ExecutionPlan;
 import com.etljobs.sql2json2api.service.sql.SqlFileService;
 import com.etljobs.sql2json2api.util.correlation.CorrelationContext;
 
@@ -27,25 +27,32 @@ public class SqlFileSequentialCoordinator {
 
     private final SqlFileService sqlFileService;
     private final SqlBasedParallelApiExecutionService parallelExecutionService;
-    private final ApiResponseAdapter responseAdapter;
+    private final ConnectionPoolMetrics poolMetrics;
 
     @Autowired
     public SqlFileSequentialCoordinator(
             SqlFileService sqlFileService,
             SqlBasedParallelApiExecutionService parallelExecutionService,
-            ApiResponseAdapter responseAdapter) {
+            ConnectionPoolMetrics poolMetrics) {
         this.sqlFileService = sqlFileService;
         this.parallelExecutionService = parallelExecutionService;
-        this.responseAdapter = responseAdapter;
+        this.poolMetrics = poolMetrics;
     }
 
     /**
      * Traite les fichiers SQL dans l'ordre configuré, en assurant que chaque
      * fichier est traité complètement avant de passer au suivant.
+     * <p>
+     * Si le fichier suivant déclare @sql-prefetch: true (il ne lit pas de données écrites par
+     * les appels du fichier courant), sa requête est lue en arrière-plan pendant les appels
+     * API du fichier courant ; ses appels ne commencent qu'une fois le fichier courant terminé.
+     * <p>
+     * Les réponses ne sont pas conservées : chaque fichier retourne ses compteurs et ses
+     * erreurs de lignes, le résultat de chaque ligne étant transmis aux écouteurs de lignes.
      *
-     * @return Résultats des appels API par fichier SQL
+     * @return Bilan des appels API par fichier SQL, dans l'ordre de traitement
      */
-    public Map<String, List<com.etljobs.sql2json2api.model.ApiResponse>> processAllSqlFiles() {
+    public Map<String, ApiCallResults> processAllSqlFiles() {
         // Récupérer l'ID de corrélation existant ou en créer un nouveau
         String correlationId = CorrelationContext.getId();
         boolean newCorrelationId = false;
@@ -64,30 +71,34 @@ public class SqlFileSequentialCoordinator {
 
             if (sqlFiles.isEmpty()) {
                 log.warn("Aucun fichier SQL trouvé à traiter");
-                return new HashMap<>();
+                return new LinkedHashMap<>();
             }
 
             log.info("Traitement séquentiel de {} fichiers SQL", sqlFiles.size());
 
             // Map pour stocker les résultats par fichier SQL
-            Map<String, List<com.etljobs.sql2json2api.model.ApiResponse>> resultsByFile = new HashMap<>();
+            Map<String, ApiCallResults> resultsByFile = new LinkedHashMap<>();
+            List<ExecutionPlan> executionPlans = new ArrayList<>();
 
             // Traiter chaque fichier SQL séquentiellement
-            for (SqlFile sqlFile : sqlFiles) {
+            for (int i = 0; i < sqlFiles.size(); i++) {
+                SqlFile sqlFile = sqlFiles.get(i);
                 try {
                     log.info("===> Début du traitement du fichier SQL: {}", sqlFile.getFileName());
 
+                    // Lire en avance le fichier suivant s'il ne dépend pas des appels de celui-ci
+                    if (i + 1 < sqlFiles.size()) {
+                        prefetchNext(sqlFiles.get(i + 1));
+                    }
+
                     // Exécuter et attendre que tous les appels API pour ce fichier soient terminés
                     ApiCallResults results = parallelExecutionService.executeAndWaitCompletion(sqlFile);
 
-                    // Convertir les résultats au format legacy
-                    List<com.etljobs.sql2json2api.model.ApiResponse> legacyResponses
-                            = results.getResponses().stream()
-                                    .map(responseAdapter::toLegacy)
-                                    .toList();
-
                     // Stocker les résultats dans la map
-                    resultsByFile.put(sqlFile.getFileName(), legacyResponses);
+                    resultsByFile.put(sqlFile.getFileName(), results);
+                    if (results.getExecutionPlan() != null) {
+                        executionPlans.add(results.getExecutionPlan());
+                    }
 
                     // Log du résumé
                     int successCount = results.getSuccessCount();
@@ -95,16 +106,16 @@ public class SqlFileSequentialCoordinator {
 
                     log.info("===> Fin du traitement de {}: {} succès, {} erreurs",
                             sqlFile.getFileName(), successCount, errorCount);
-
-                    // Log des réponses détaillées
-                    logDetailedResponses(results.getResponses(), sqlFile.getFileName());
+                    poolMetrics.logSummary(sqlFile.getFileName());
 
                 } catch (Exception e) {
                     log.error("Erreur critique lors du traitement du fichier {}: {}",
                             sqlFile.getFileName(), e.getMessage(), e);
 
-                    // Ajouter une entrée vide pour ce fichier
-                    resultsByFile.put(sqlFile.getFileName(), new ArrayList<>());
+                    // Ajouter une entrée en échec pour ce fichier
+                    ApiCallResults failed = new ApiCallResults();
+                    failed.markFailed(e);
+                    resultsByFile.put(sqlFile.getFileName(), failed);
 
                     // Ne pas interrompre le flux en cas d'erreur sur un fichier
                     continue;
@@ -112,65 +123,50 @@ public class SqlFileSequentialCoordinator {
             }
 
             log.info("Traitement de tous les fichiers SQL terminé");
+            logExecutionPlans(executionPlans);
             return resultsByFile;
         } finally {
+            parallelExecutionService.cancelPrefetches();
+
             // Nettoyer l'ID uniquement si nous l'avons créé dans cette méthode
             // Cette partie est gérée par l'aspect, donc nous n'avons pas besoin de le faire ici
         }
     }
 
     /**
-     * Journalise les détails des réponses API
+     * Lance la lecture anticipée d'un fichier SQL ; un échec est ignoré, la requête
+     * étant alors exécutée normalement à son tour.
+     */
+    private void prefetchNext(SqlFile nextSqlFile) {
+        try {
+            if (parallelExecutionService.prefetch(nextSqlFile)) {
+                log.info("Lecture anticipée de {} pendant le traitement du fichier courant", nextSqlFile.getFileName());
+            }
+        } catch (RuntimeException e) {
+            log.warn("Lecture anticipée de {} impossible: {}", nextSqlFile.getFileName(), e.getMessage());
+        }
+    }
+
+    /**
+     * Journalise le récapitulatif des plans d'exécution estimés pour les fichiers traités
      */
-    private void logDetailedResponses(List<ApiResponse> responses, String fileName) {
-        if (responses == null || responses.isEmpty()) {
-            log.info("Aucune réponse pour {}", fileName);
+    private void logExecutionPlans(List<ExecutionPlan> executionPlans) {
+        if (executionPlans.isEmpty()) {
             return;
         }
-    
-        log.info("Détail des {} réponses pour {}:", responses.size(), fileName);
-        int successCount = 0;
-        int errorCount = 0;
-    
-        for (int i = 0; i < responses.size(); i++) {
-            ApiResponse response = responses.get(i);
-            boolean isSuccess = response.isSuccess();
-            String correlationId = response.getRequestId();
-    
-            if (isSuccess) {
-                successCount++;
-            } else {
-                errorCount++;
-            }
-    
-            // Inclure l'ID de corrélation au début de chaque message pour cette réponse
-            log.info("[{}] Réponse {}/{} - Statut: {} - URL: {}",
-                    correlationId, i + 1, responses.size(), response.getStatusCode(),
-                    response.getRequestUrl());
-    
-            // Afficher un extrait du corps de la réponse (tronqué si trop long)
-            String body = response.getBody();
-            if (body != null) {
-                if (body.length() > 500) {
-                    log.info("[{}] Corps: {}...", correlationId, body.substring(0, 500));
-                } else {
-                    log.info("[{}] Corps: {}", correlationId, body);
-                }
-            } else {
-                log.info("[{}] Corps: <vide>", correlationId);
-            }
+        log.info("Plans d'exécution des {} fichiers estimés:", executionPlans.size());
+        for (ExecutionPlan plan : executionPlans) {
+            log.info("  {}: {}", plan.getFileName(), plan.describe());
         }
-    
-        log.info("Résumé pour {}: {} succès, {} erreurs", fileName, successCount, errorCount);
     }
 
     /**
      * Traite un seul fichier SQL spécifié par son nom.
      *
      * @param sqlFileName Nom du fichier SQL à traiter
-     * @return Liste des réponses API
+     * @return Bilan des appels API du fichier
      */
-    public List<com.etljobs.sql2json2api.model.ApiResponse> processSingleSqlFile(String sqlFileName) {
+    public ApiCallResults processSingleSqlFile(String sqlFileName) {
         try {
             log.info("Traitement du fichier SQL unique: {}", sqlFileName);
 
@@ -178,15 +174,7 @@ public class SqlFileSequentialCoordinator {
             SqlFile sqlFile = sqlFileService.readSqlFile(sqlFileName);
 
             // Exécuter et attendre les résultats
-            ApiCallResults results = parallelExecutionService.executeAndWaitCompletion(sqlFile);
-
-            // Log des réponses détaillées
-            logDetailedResponses(results.getResponses(), sqlFileName);
-
-            // Convertir et retourner les résultats
-            return results.getResponses().stream()
-                    .map(responseAdapter::toLegacy)
-                    .toList();
+            return parallelExecutionService.executeAndWaitCompletion(sqlFile);
 
         } catch (Exception e) {
             throw new ProcessingException("Erreur lors du traitement du fichier SQL: " + sqlFileName, e);
@@ -2,6 +2,8 @@ package com.etljobs.sql2json2api.service.threading;
 
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutorCompletionService;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 import java.util.concurrent.RejectedExecutionHandler;
@@ -81,14 +83,7 @@ public class ThreadPoolManager implements DisposableBean {
         
         for (Callable<T> task : tasks) {
             try {
-                // Appliquer un délai entre les soumissions si configuré
-                if (config.getSubmissionDelayMs() > 0) {
-                    Thread.sleep(config.getSubmissionDelayMs());
-                }
-                
-                // Envelopper la tâche pour propager l'ID de corrélation
-                Callable<T> wrappedTask = CorrelationPropagator.wrap(task);
-                futures.add(executorService.submit(wrappedTask));
+                futures.add(submitThrottledTask(task));
                 
             } catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
@@ -100,6 +95,54 @@ public class ThreadPoolManager implements DisposableBean {
         return futures;
     }
     
+    /**
+     * Soumet une tâche pour exécution en respectant le délai de soumission
+     * configuré (throttling des appels vers les API cibles).
+     * 
+     * @param <T> Type de retour de la tâche
+     * @param task Tâche à exécuter
+     * @return Future représentant le résultat de la tâche
+     * @throws InterruptedException si le thread est interrompu pendant le délai
+     */
+    public <T> Future<T> submitThrottledTask(Callable<T> task) throws InterruptedException {
+        // Appliquer un délai entre les soumissions si configuré
+        if (config.getSubmissionDelayMs() > 0) {
+            Thread.sleep(config.getSubmissionDelayMs());
+        }
+        
+        // Envelopper la tâche pour propager l'ID de corrélation
+        return submitTask(task);
+    }
+    
+    /**
+     * Crée un service de complétion sur le pool : les tâches qui y sont soumises sont
+     * récupérées dans l'ordre où elles se terminent, et non dans l'ordre de soumission.
+     * 
+     * @param <T> Type de retour des tâches
+     * @return Le service de complétion
+     */
+    public <T> CompletionService<T> newCompletionService() {
+        return new ExecutorCompletionService<>(executorService);
+    }
+    
+    /**
+     * Soumet une tâche à un service de complétion créé par {@link #newCompletionService()},
+     * en respectant le délai de soumission configuré.
+     * 
+     * @param <T> Type de retour de la tâche
+     * @param completionService Service de complétion du pool
+     * @param task Tâche à exécuter
+     * @return Future représentant le résultat de la tâche, rendu par le service une fois terminé
+     * @throws InterruptedException si le thread est interrompu pendant le délai
+     */
+    public <T> Future<T> submitThrottledTask(CompletionService<T> completionService, Callable<T> task)
+            throws InterruptedException {
+        if (config.getSubmissionDelayMs() > 0) {
+            Thread.sleep(config.getSubmissionDelayMs());
+        }
+        return completionService.submit(CorrelationPropagator.wrap(task));
+    }
+    
     // Aucun changement pour le reste de la classe
     
     public void shutdown() {
@@ -221,4 +264,55 @@ public class ThreadPoolManager implements DisposableBean {
     public int getTimeoutSeconds() {
         return config.getTimeoutSeconds();
     }
+    
+    /**
+     * Obtient le nombre maximum de tâches pouvant être en cours simultanément
+     * (threads actifs + file d'attente) sans déclencher l'exécution dans le
+     * thread appelant. Sert de fenêtre de contre-pression pour le streaming.
+     * 
+     * @return Nombre maximum de tâches en vol
+     */
+    public int getMaxInFlight() {
+        return getPoolSize() + config.getQueueCapacity();
+    }
+    
+    /**
+     * Obtient le nombre de threads actuel du pool.
+     * 
+     * @return Nombre de threads du pool
+     */
+    public int getPoolSize() {
+        return ((ThreadPoolExecutor) executorService).getMaximumPoolSize();
+    }
+    
+    /**
+     * Redimensionne le pool de threads, par exemple d'après le plan d'exécution
+     * estimé pour un fichier SQL. Les threads en trop s'arrêtent une fois leur
+     * tâche en cours terminée.
+     * 
+     * @param threads Nouveau nombre de threads (au moins 1)
+     */
+    public synchronized void resizePool(int threads) {
+        ThreadPoolExecutor executor = (ThreadPoolExecutor) executorService;
+        int size = Math.max(1, threads);
+        if (size == executor.getMaximumPoolSize()) {
+            return;
+        }
+        // La taille de base ne peut jamais dépasser la taille maximale
+        if (size > executor.getMaximumPoolSize()) {
+            executor.setMaximumPoolSize(size);
+            executor.setCorePoolSize(size);
+        } else {
+            executor.setCorePoolSize(size);
+            executor.setMaximumPoolSize(size);
+        }
+        log.info("Pool de threads redimensionné à {} threads", size);
+    }
+    
+    /**
+     * Rétablit la taille du pool configurée (app.threading.pool-size).
+     */
+    public void resetPoolSize() {
+        resizePool(config.getPoolSize());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,214 @@
+package com.etljobs.sql2json2api.service.writeback;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import com.etljobs.sql2json2api.model.SqlFile;
+import com.etljobs.sql2json2api.service.orchestration.RowOutcome;
+import com.etljobs.sql2json2api.service.orchestration.RowOutcomeListener;
+import com.etljobs.sql2json2api.service.sql.DataSourceRouter;
+import com.etljobs.sql2json2api.service.template.TemplateCompiler;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Écrit en base des valeurs des réponses API, avec la requête déclarée par la métadonnée
+ * {@code @api-writeback} du template (par exemple pour conserver l'UUID d'une entité créée) :
+ *
+ * <pre>
+ * &#64;api-writeback: UPDATE product_groups SET uuid = :$.uuid WHERE id = :result.id
+ * </pre>
+ *
+ * Seuls les appels réussis sont écrits. Les réponses sont regroupées par lots de
+ * {@code app.writeback.batch-size} lignes ; un thread dédié, hors des threads d'appel, en extrait
+ * les valeurs avec {@link com.etljobs.sql2json2api.api.response.ApiResponseParser} et exécute
+ * chaque lot en un {@code batchUpdate} JDBC. Au plus {@code app.writeback.queue-capacity} lots
+ * attendent ce thread : au-delà, le thread qui termine le lot l'écrit lui-même, ce qui ralentit
+ * les appels API au rythme de la base au lieu d'accumuler les réponses en mémoire.
+ * La fin d'un fichier SQL attend l'écriture de tous ses lots, pour que les fichiers suivants
+ * lisent les valeurs écrites. Les écritures vont toujours sur la datasource principale, même
+ * pour un fichier lu sur un réplica (voir {@link DataSourceRouter#onPrimary}).
+ */
+@Service
+@Slf4j
+public class WritebackService implements RowOutcomeListener, DisposableBean {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TemplateCompiler templateCompiler;
+    private final Map<String, FileWriteback> writebacksByFile = new ConcurrentHashMap<>();
+
+    @Value("${app.writeback.batch-size:${app.batch.size:100}}")
+    private int batchSize;
+
+    /**
+     * Nombre maximal de lots en attente du thread d'écriture
+     */
+    @Value("${app.writeback.queue-capacity:16}")
+    private int queueCapacity;
+
+    private ExecutorService writer;
+
+    @Autowired
+    public WritebackService(JdbcTemplate jdbcTemplate, TemplateCompiler templateCompiler) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.templateCompiler = templateCompiler;
+    }
+
+    @Override
+    public void fileStarted(SqlFile sqlFile) {
+        if (sqlFile.getTemplateName() == null) {
+            return;
+        }
+        String statement = templateCompiler.compile(sqlFile.getTemplateName()).getWriteback();
+        if (statement != null) {
+            writebacksByFile.put(sqlFile.getFileName(), new FileWriteback(WritebackStatement.parse(statement)));
+            log.info("Écriture en retour activée pour {} par lots de {}: {}",
+                    sqlFile.getFileName(), Math.max(1, batchSize), statement);
+        }
+    }
+
+    @Override
+    public void rowCompleted(RowOutcome outcome) {
+        FileWriteback writeback = writebacksByFile.get(outcome.getSqlFile().getFileName());
+        if (writeback == null || !outcome.isSuccess() || outcome.isSkipped()) {
+            return;
+        }
+        List<RowOutcome> batch = writeback.add(outcome, Math.max(1, batchSize));
+        if (batch != null) {
+            submit(writeback, batch);
+        }
+    }
+
+    @Override
+    public void fileCompleted(SqlFile sqlFile, int rowCount, boolean aborted) {
+        FileWriteback writeback = writebacksByFile.remove(sqlFile.getFileName());
+        if (writeback == null) {
+            return;
+        }
+        List<RowOutcome> batch = writeback.drain();
+        if (!batch.isEmpty()) {
+            submit(writeback, batch);
+        }
+        writeback.await();
+
+        log.info("Écriture en retour de {}: {} lignes écrites, {} en échec, {} sans valeur dans la réponse",
+                sqlFile.getFileName(), writeback.written.get(), writeback.failed.get(), writeback.missing.get());
+    }
+
+    @Override
+    public synchronized void destroy() {
+        if (writer != null) {
+            writer.shutdown();
+            writer = null;
+        }
+    }
+
+    private void submit(FileWriteback writeback, List<RowOutcome> batch) {
+        writeback.pending.add(writer().submit(DataSourceRouter.onPrimary(() -> flush(writeback, batch))));
+    }
+
+    private void flush(FileWriteback writeback, List<RowOutcome> batch) {
+        long startNanos = System.nanoTime();
+        List<Object[]> batchArgs = new ArrayList<>(batch.size());
+        for (RowOutcome outcome : batch) {
+            Optional<Object[]> args = writeback.statement.bind(outcome.getRow(), outcome.getResponseBody());
+            if (args.isPresent()) {
+                batchArgs.add(args.get());
+            } else {
+                writeback.missing.incrementAndGet();
+                log.warn("Écriture en retour ignorée pour la ligne {}: valeur absente de la réponse",
+                        outcome.getRowIdentifier());
+            }
+        }
+        if (batchArgs.isEmpty()) {
+            return;
+        }
+        try {
+            jdbcTemplate.batchUpdate(writeback.statement.getSql(), batchArgs);
+            writeback.written.addAndGet(batchArgs.size());
+            log.debug("Lot de {} écritures en retour exécuté en {} ms",
+                    batchArgs.size(), (System.nanoTime() - startNanos) / 1_000_000);
+        } catch (DataAccessException e) {
+            writeback.failed.addAndGet(batchArgs.size());
+            log.error("Échec d'un lot de {} écritures en retour: {}", batchArgs.size(), e.getMessage(), e);
+        }
+    }
+
+    private synchronized ExecutorService writer() {
+        if (writer == null) {
+            writer = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), runnable -> {
+                        Thread thread = new Thread(runnable, "api-writeback");
+                        thread.setDaemon(true);
+                        return thread;
+                    }, new ThreadPoolExecutor.CallerRunsPolicy());
+        }
+        return writer;
+    }
+
+    /**
+     * Écriture en retour d'un fichier SQL : lot en cours de constitution et lots soumis.
+     */
+    private static class FileWriteback {
+
+        private final WritebackStatement statement;
+        private final List<Future<?>> pending = Collections.synchronizedList(new ArrayList<>());
+        private final AtomicInteger written = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+        private final AtomicInteger missing = new AtomicInteger();
+        private List<RowOutcome> current = new ArrayList<>();
+
+        FileWriteback(WritebackStatement statement) {
+            this.statement = statement;
+        }
+
+        /**
+         * Ajoute une ligne au lot en cours et le retourne s'il est complet.
+         */
+        synchronized List<RowOutcome> add(RowOutcome outcome, int batchSize) {
+            current.add(outcome);
+            return current.size() >= batchSize ? drain() : null;
+        }
+
+        synchronized List<RowOutcome> drain() {
+            List<RowOutcome> batch = current;
+            current = new ArrayList<>();
+            return batch;
+        }
+
+        void await() {
+            List<Future<?>> futures;
+            synchronized (pending) {
+                futures = new ArrayList<>(pending);
+            }
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (ExecutionException e) {
+                    log.error("Erreur inattendue d'écriture en retour: {}", e.getCause().getMessage(), e.getCause());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.etljobs.sql2json2api.service.writeback;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.springframework.jdbc.core.namedparam.AbstractSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterUtils;
+import org.springframework.jdbc.core.namedparam.ParsedSql;
+
+import com.etljobs.sql2json2api.api.response.ApiResponse;
+import com.etljobs.sql2json2api.api.response.ApiResponseParser;
+import com.etljobs.sql2json2api.exception.TemplateProcessingException;
+import com.etljobs.sql2json2api.service.sql.SqlParameterResolver;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import lombok.Getter;
+
+/**
+ * Requête d'écriture en retour déclarée par {@code @api-writeback} dans un template, dont les
+ * paramètres nommés sont remplacés par des marqueurs JDBC. Un paramètre est soit une valeur
+ * de la réponse API ({@code :$.uuid}, {@code :$.data.id}, {@code :$} pour le corps entier),
+ * soit une colonne de la ligne SQL ({@code :result.id}).
+ */
+public class WritebackStatement {
+
+    static final String RESPONSE_PREFIX = "$";
+    static final String ROW_PREFIX = "result.";
+
+    /**
+     * La requête avec des marqueurs '?'
+     */
+    @Getter
+    private final String sql;
+
+    /**
+     * Les paramètres nommés, dans l'ordre de première apparition
+     */
+    @Getter
+    private final List<String> parameterNames;
+
+    private final ParsedSql parsedSql;
+
+    private WritebackStatement(ParsedSql parsedSql, String sql, List<String> parameterNames) {
+        this.parsedSql = parsedSql;
+        this.sql = sql;
+        this.parameterNames = parameterNames;
+    }
+
+    /**
+     * Analyse une requête d'écriture en retour.
+     *
+     * @param statement La requête déclarée par {@code @api-writeback}
+     * @return La requête analysée
+     * @throws TemplateProcessingException si un paramètre ne désigne ni la réponse ni la ligne
+     */
+    public static WritebackStatement parse(String statement) {
+        ParsedSql parsedSql = NamedParameterUtils.parseSqlStatement(statement);
+        List<String> names = SqlParameterResolver.parameterNames(statement);
+        for (String name : names) {
+            if (!isResponseParameter(name) && !(name.startsWith(ROW_PREFIX) && name.length() > ROW_PREFIX.length())) {
+                throw new TemplateProcessingException("Paramètre d'écriture en retour invalide ':" + name
+                        + "' (attendu :$.chemin pour la réponse ou :result.colonne pour la ligne)");
+            }
+        }
+        return new WritebackStatement(parsedSql, NamedParameterUtils.substituteNamedParameters(parsedSql, null), names);
+    }
+
+    /**
+     * Calcule les valeurs des marqueurs pour une ligne et la réponse de son appel API.
+     *
+     * @param row La ligne SQL
+     * @param responseBody Le corps de la réponse API
+     * @return Les valeurs dans l'ordre des marqueurs, ou vide si un chemin est absent de la réponse
+     */
+    public Optional<Object[]> bind(Map<String, Object> row, String responseBody) {
+        Map<String, Object> values = new HashMap<>();
+        ApiResponseParser parser = null;
+        for (String name : parameterNames) {
+            if (!isResponseParameter(name)) {
+                values.put(name, row.get(name.substring(ROW_PREFIX.length())));
+                continue;
+            }
+            if (parser == null) {
+                parser = ApiResponse.builder().body(responseBody).build().parser();
+            }
+            Optional<JsonNode> node = RESPONSE_PREFIX.equals(name)
+                    ? parser.getRootNode()
+                    : parser.getNode(name.substring(RESPONSE_PREFIX.length() + 1));
+            if (node.isEmpty()) {
+                return Optional.empty();
+            }
+            values.put(name, toJdbcValue(node.get()));
+        }
+
+        // Un paramètre peut apparaître plusieurs fois : une valeur par marqueur
+        return Optional.of(NamedParameterUtils.buildValueArray(parsedSql, new AbstractSqlParameterSource() {
+            @Override
+            public boolean hasValue(String paramName) {
+                return values.containsKey(paramName);
+            }
+
+            @Override
+            public Object getValue(String paramName) {
+                return values.get(paramName);
+            }
+        }, null));
+    }
+
+    private static boolean isResponseParameter(String name) {
+        return RESPONSE_PREFIX.equals(name) || (name.startsWith(RESPONSE_PREFIX + ".") && name.length() > 2);
+    }
+
+    private static Object toJdbcValue(JsonNode node) {
+        if (node.isNull()) {
+            return null;
+        }
+        if (node.isNumber()) {
+            return node.numberValue();
+        }
+        if (node.isBoolean()) {
+            return node.booleanValue();
+        }
+        if (node.isValueNode()) {
+            return node.asText();
+        }
+        return node.toString();
+    }
+}
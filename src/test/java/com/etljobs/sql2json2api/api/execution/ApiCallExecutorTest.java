@@ -1,5 +1,6 @@
 package com.etljobs.sql2json2api.api.execution;
 
+import java.net.URI;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -13,7 +14,6 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
-import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import org.mockito.Mock;
 import static org.mockito.Mockito.times;
@@ -76,7 +76,7 @@ class ApiCallExecutorTest {
         
         when(tokenService.getToken()).thenReturn(token);
         when(restTemplate.exchange(
-                eq(url), eq(method), any(HttpEntity.class), eq(String.class)))
+                eq(URI.create(url)), eq(method), any(HttpEntity.class), eq(String.class)))
                 .thenReturn(responseEntity);
         when(responseFactory.fromResponseEntity(any(), any(), anyLong(), anyInt()))
                 .thenReturn(expectedResponse);
@@ -87,7 +87,7 @@ class ApiCallExecutorTest {
         // Assert
         assertEquals(expectedResponse, result);
         verify(restTemplate).exchange(
-                eq(url), eq(method), any(HttpEntity.class), eq(String.class));
+                eq(URI.create(url)), eq(method), any(HttpEntity.class), eq(String.class));
         verify(responseFactory).fromResponseEntity(any(), any(), anyLong(), anyInt());
     }
     
@@ -114,7 +114,7 @@ class ApiCallExecutorTest {
         
         when(tokenService.getToken()).thenReturn(token);
         when(restTemplate.exchange(
-                eq(url), eq(method), any(HttpEntity.class), eq(String.class)))
+                eq(URI.create(url)), eq(method), any(HttpEntity.class), eq(String.class)))
                 .thenThrow(exception);
         when(responseFactory.fromHttpException(any(), any(), anyLong(), anyInt()))
                 .thenReturn(expectedResponse);
@@ -142,7 +142,7 @@ class ApiCallExecutorTest {
         
         when(tokenService.getToken()).thenReturn("Bearer token");
         when(restTemplate.exchange(
-                eq(url), eq(method), any(HttpEntity.class), eq(String.class)))
+                eq(URI.create(url)), eq(method), any(HttpEntity.class), eq(String.class)))
                 .thenThrow(unexpectedException);
         
         // Act & Assert
@@ -174,7 +174,7 @@ class ApiCallExecutorTest {
                 .build();
         
         when(restTemplate.exchange(
-                anyString(), any(), any(), eq(String.class)))
+                any(URI.class), any(), any(), eq(String.class)))
                 .thenReturn(responseEntity);
         when(responseFactory.fromResponseEntity(any(), any(), anyLong(), anyInt()))
                 .thenReturn(expectedResponse);
@@ -207,7 +207,7 @@ class ApiCallExecutorTest {
         
         when(tokenService.refreshToken()).thenReturn(refreshedToken);
         when(restTemplate.exchange(
-                anyString(), any(), any(), eq(String.class)))
+                any(URI.class), any(), any(), eq(String.class)))
                 .thenReturn(responseEntity);
         when(responseFactory.fromResponseEntity(any(), any(), anyLong(), anyInt()))
                 .thenReturn(expectedResponse);
@@ -241,7 +241,7 @@ class ApiCallExecutorTest {
         //when(defaultStrategy.shouldRetry(any())).thenReturn(false);
         when(tokenService.getToken()).thenReturn("Bearer token");
         when(restTemplate.exchange(
-                anyString(), any(HttpMethod.class), any(HttpEntity.class), eq(String.class)))
+                any(URI.class), any(HttpMethod.class), any(HttpEntity.class), eq(String.class)))
                 .thenReturn(ResponseEntity.ok("{\"success\":true}"));
         when(responseFactory.fromResponseEntity(any(), any(), anyLong(), anyInt()))
                 .thenReturn(successResponse);
@@ -280,7 +280,7 @@ class ApiCallExecutorTest {
         
         when(tokenService.getToken()).thenReturn("Bearer token");
         when(restTemplate.exchange(
-                eq(expectedUrl), eq(method), any(HttpEntity.class), eq(String.class)))
+                eq(URI.create(expectedUrl)), eq(method), any(HttpEntity.class), eq(String.class)))
                 .thenReturn(responseEntity);
         when(responseFactory.fromResponseEntity(any(), any(), anyLong(), anyInt()))
                 .thenReturn(apiResponse);
@@ -290,6 +290,35 @@ class ApiCallExecutorTest {
         
         // Assert - l'URL avec les paramètres a été utilisée
         verify(restTemplate).exchange(
-                eq(expectedUrl), any(), any(), eq(String.class));
+                eq(URI.create(expectedUrl)), any(), any(), eq(String.class));
     }
-}
\ No newline at end of file
+    
+    @Test
+    void execute_ShouldEncodeParametersOfAlreadyEncodedRoute() {
+        // Arrange
+        Map<String, Object> urlParams = new HashMap<>();
+        urlParams.put("q", "a b&c");
+        
+        ApiRequest request = ApiRequest.builder()
+                .url("https://api.example.com/items/A%2FB")
+                .method(HttpMethod.GET)
+                .urlParams(urlParams)
+                .build();
+        
+        String expectedUrl = "https://api.example.com/items/A%2FB?q=a%20b%26c";
+        
+        when(tokenService.getToken()).thenReturn("Bearer token");
+        when(restTemplate.exchange(
+                eq(URI.create(expectedUrl)), any(HttpMethod.class), any(HttpEntity.class), eq(String.class)))
+                .thenReturn(ResponseEntity.ok("{}"));
+        when(responseFactory.fromResponseEntity(any(), any(), anyLong(), anyInt()))
+                .thenReturn(ApiResponse.builder().statusCode(200).body("{}").build());
+        
+        // Act
+        executor.execute(request);
+        
+        // Assert - la route n'est pas encodée une seconde fois
+        verify(restTemplate).exchange(
+                eq(URI.create(expectedUrl)), any(), any(), eq(String.class));
+    }
+}
@@ -0,0 +1,68 @@
+package com.etljobs.sql2json2api.api.execution;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+class PayloadBufferTest {
+
+    @Test
+    void encode_ShouldProduceSameBytesAsStringGetBytes() throws IOException {
+        // Arrange : ASCII, accents, euro (3 octets), emoji (paire de substitution) et substitution isolée
+        String payload = "{\"name\":\"Zoé\",\"price\":\"12 €\",\"tag\":\"🚀\",\"bad\":\"\uD800x\"}";
+
+        // Act
+        PayloadBuffer buffer = PayloadBuffer.encode(payload);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            buffer.writeTo(out);
+        } finally {
+            buffer.release();
+        }
+
+        // Assert
+        assertArrayEquals(payload.getBytes(StandardCharsets.UTF_8), out.toByteArray());
+    }
+
+    @Test
+    void encode_ShouldReuseBufferOfThreadOnceReleased() {
+        // Act
+        PayloadBuffer first = PayloadBuffer.encode("{\"id\":1}");
+        PayloadBuffer nested = PayloadBuffer.encode("{\"id\":2}");
+        nested.release();
+        first.release();
+        PayloadBuffer second = PayloadBuffer.encode("{}");
+        second.release();
+
+        // Assert
+        assertNotSame(first, nested);
+        assertSame(first, second);
+    }
+
+    @Test
+    void converter_ShouldWriteBufferWithItsLength() throws IOException {
+        // Arrange
+        PayloadBufferHttpMessageConverter converter = new PayloadBufferHttpMessageConverter();
+        MockHttpOutputMessage message = new MockHttpOutputMessage();
+        PayloadBuffer buffer = PayloadBuffer.encode("{\"city\":\"Genève\"}");
+
+        // Act
+        try {
+            converter.write(buffer, MediaType.APPLICATION_JSON, message);
+        } finally {
+            buffer.release();
+        }
+
+        // Assert
+        assertEquals(18, message.getHeaders().getContentLength());
+        assertEquals("{\"city\":\"Genève\"}", message.getBodyAsString(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,21 @@
+package com.etljobs.sql2json2api.config;
+
+import java.net.URI;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.web.client.RestTemplate;
+
+class AppConfigTest {
+
+    private final RestTemplate restTemplate = new AppConfig().restTemplate(new RestTemplateBuilder());
+
+    @Test
+    void restTemplate_ShouldEncodeStringUrls() {
+        // Les URL passées en chaîne (URL du token) gardent l'encodage par défaut
+        URI tokenUri = restTemplate.getUriTemplateHandler().expand("https://auth.example.com/oauth/token?scope=read write");
+
+        assertEquals("https://auth.example.com/oauth/token?scope=read%20write", tokenUri.toString());
+    }
+}
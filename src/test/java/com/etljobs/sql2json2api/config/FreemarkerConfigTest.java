@@ -31,11 +31,15 @@ class FreemarkerConfigTest {
     static Path tempDir;
     
     private static final String TEST_TEMPLATE_CONTENT = "<#-- Test template -->\nHello, ${name}!";
+
+    private static final String JSON_TEMPLATE_CONTENT = "{\"name\": \"${name}\"}";
     
     @BeforeAll
     static void setup() throws IOException {
         // Créer un template de test dans le répertoire temporaire
         Files.writeString(tempDir.resolve("test.ftlh"), TEST_TEMPLATE_CONTENT);
+        Files.writeString(tempDir.resolve("payload.ftlh"), JSON_TEMPLATE_CONTENT);
+        Files.writeString(tempDir.resolve("payload.ftlj"), JSON_TEMPLATE_CONTENT);
     }
     
     @Test
@@ -68,4 +72,22 @@ class FreemarkerConfigTest {
         // Assert - Le test réussit si aucune exception n'est lancée
         assertNotNull(testConfig, "La configuration devrait être créée même avec un chemin invalide");
     }
-}
\ No newline at end of file
+
+    @Test
+    void freemarkerConfiguration_ShouldEscapeFtljTemplatesForJson() throws IOException, TemplateException {
+        // Arrange - la configuration de l'application, chargeant les templates du répertoire temporaire
+        Configuration configuration = freemarkerConfig.freemarkerConfiguration();
+        configuration.setDirectoryForTemplateLoading(tempDir.toFile());
+        Map<String, Object> dataModel = Map.of("name", "Tom & \"Jerry\" \\ <b>\n");
+
+        // Act
+        StringWriter json = new StringWriter();
+        configuration.getTemplate("payload.ftlj").process(dataModel, json);
+        StringWriter html = new StringWriter();
+        configuration.getTemplate("payload.ftlh").process(dataModel, html);
+
+        // Assert
+        assertEquals("{\"name\": \"Tom & \\\"Jerry\\\" \\\\ <b>\\n\"}", json.toString());
+        assertEquals("{\"name\": \"Tom &amp; &quot;Jerry&quot; \\ &lt;b&gt;\n\"}", html.toString());
+    }
+}
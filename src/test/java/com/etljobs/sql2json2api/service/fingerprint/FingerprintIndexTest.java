@@ -0,0 +1,57 @@
+package com.etljobs.sql2json2api.service.fingerprint;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class FingerprintIndexTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testPutAndGet_ShouldReplaceExistingValue() throws IOException {
+        try (FingerprintIndex index = new FingerprintIndex(directory.resolve("fingerprints.idx"), 16)) {
+            index.put(42L, 1L);
+            index.put(42L, 2L);
+            index.put(0L, 3L);
+
+            assertEquals(2L, index.get(42L));
+            assertEquals(3L, index.get(0L));
+            assertEquals(0L, index.get(7L));
+            assertEquals(2, index.size());
+        }
+    }
+
+    @Test
+    void testGrow_ShouldKeepAllKeys() throws IOException {
+        try (FingerprintIndex index = new FingerprintIndex(directory.resolve("fingerprints.idx"), 16)) {
+            for (long key = 1; key <= 10_000; key++) {
+                index.put(key * 31, key);
+            }
+
+            assertEquals(10_000, index.size());
+            for (long key = 1; key <= 10_000; key++) {
+                assertEquals(key, index.get(key * 31));
+            }
+        }
+    }
+
+    @Test
+    void testReopen_ShouldReadPersistedKeys() throws IOException {
+        Path file = directory.resolve("state").resolve("fingerprints.idx");
+        try (FingerprintIndex index = new FingerprintIndex(file, 16)) {
+            for (long key = 1; key <= 100; key++) {
+                index.put(key, key + 1000);
+            }
+        }
+
+        try (FingerprintIndex index = new FingerprintIndex(file, 16)) {
+            assertEquals(100, index.size());
+            assertEquals(1050L, index.get(50L));
+        }
+    }
+}
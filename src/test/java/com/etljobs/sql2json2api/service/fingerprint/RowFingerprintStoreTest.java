@@ -0,0 +1,104 @@
+package com.etljobs.sql2json2api.service.fingerprint;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.etljobs.sql2json2api.model.SqlFile;
+import com.etljobs.sql2json2api.service.orchestration.RowOutcome;
+import com.etljobs.sql2json2api.service.sql.SqlFileDirectives;
+
+class RowFingerprintStoreTest {
+
+    @TempDir
+    Path directory;
+
+    private RowFingerprintStore store;
+    private SqlFile sqlFile;
+
+    @BeforeEach
+    void setUp() {
+        store = new RowFingerprintStore();
+        ReflectionTestUtils.setField(store, "indexFile", directory.resolve("fingerprints.idx").toString());
+        ReflectionTestUtils.setField(store, "initialCapacity", 16);
+        sqlFile = SqlFile.builder()
+                .fileName("POST_products.sql")
+                .content("SELECT id, name FROM products")
+                .directives(Map.of(SqlFileDirectives.SKIP_UNCHANGED, "true"))
+                .build();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        store.destroy();
+    }
+
+    @Test
+    void testSuccessfulSend_ShouldSkipSamePayloadNextTime() {
+        assertFalse(store.isUnchanged(sqlFile, Map.of("id", 1), 0, "{\"name\":\"a\"}"));
+        store.rowCompleted(outcome(0, true));
+        store.fileCompleted(sqlFile, 1, false);
+
+        assertTrue(store.isUnchanged(sqlFile, Map.of("id", 1), 0, "{\"name\":\"a\"}"));
+        assertFalse(store.isUnchanged(sqlFile, Map.of("id", 1), 0, "{\"name\":\"b\"}"));
+        assertFalse(store.isUnchanged(sqlFile, Map.of("id", 2), 1, "{\"name\":\"a\"}"));
+    }
+
+    @Test
+    void testFailedSend_ShouldNotRecordFingerprint() {
+        assertFalse(store.isUnchanged(sqlFile, Map.of("id", 1), 0, "{\"name\":\"a\"}"));
+        store.rowCompleted(outcome(0, false));
+        store.fileCompleted(sqlFile, 1, false);
+
+        assertFalse(store.isUnchanged(sqlFile, Map.of("id", 1), 0, "{\"name\":\"a\"}"));
+    }
+
+    @Test
+    void testFileWithoutDirective_ShouldNeverSkip() {
+        SqlFile plainFile = SqlFile.builder().fileName("POST_products.sql").content("SELECT 1").build();
+
+        assertFalse(store.isUnchanged(plainFile, Map.of("id", 1), 0, "{}"));
+        store.rowCompleted(RowOutcome.builder().sqlFile(plainFile).rowIndex(0).success(true).build());
+        assertFalse(store.isUnchanged(plainFile, Map.of("id", 1), 0, "{}"));
+    }
+
+    @Test
+    void testRowWithoutStableKey_ShouldNeverSkip() {
+        Map<String, Object> row = Map.of("name", "a");
+
+        assertFalse(store.isUnchanged(sqlFile, row, 0, "{\"name\":\"a\"}"));
+        store.rowCompleted(outcome(0, true));
+        assertFalse(store.isUnchanged(sqlFile, row, 0, "{\"name\":\"a\"}"));
+    }
+
+    @Test
+    void testDeclaredRowKey_ShouldIdentifyRows() {
+        SqlFile keyedFile = SqlFile.builder()
+                .fileName("POST_products.sql")
+                .content("SELECT sku, name FROM products")
+                .directives(Map.of(SqlFileDirectives.SKIP_UNCHANGED, "true", SqlFileDirectives.ROW_KEY, "sku"))
+                .build();
+
+        assertFalse(store.isUnchanged(keyedFile, Map.of("sku", "A1", "name", "a"), 0, "{}"));
+        store.rowCompleted(RowOutcome.builder().sqlFile(keyedFile).rowIndex(0).success(true).build());
+
+        assertTrue(store.isUnchanged(keyedFile, Map.of("sku", "A1", "name", "a"), 0, "{}"));
+        assertFalse(store.isUnchanged(keyedFile, Map.of("sku", "B2", "name", "a"), 1, "{}"));
+    }
+
+    private RowOutcome outcome(int rowIndex, boolean success) {
+        return RowOutcome.builder()
+                .sqlFile(sqlFile)
+                .rowIndex(rowIndex)
+                .success(success)
+                .build();
+    }
+}
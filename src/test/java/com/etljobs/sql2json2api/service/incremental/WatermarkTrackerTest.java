@@ -0,0 +1,176 @@
+package com.etljobs.sql2json2api.service.incremental;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.etljobs.sql2json2api.model.SqlFile;
+import com.etljobs.sql2json2api.service.orchestration.RowOutcome;
+import com.etljobs.sql2json2api.service.sql.SqlFileDirectives;
+
+class WatermarkTrackerTest {
+
+    private WatermarkStore watermarkStore;
+    private WatermarkTracker tracker;
+    private SqlFile sqlFile;
+
+    @BeforeEach
+    void setUp() {
+        watermarkStore = mock(WatermarkStore.class);
+        tracker = new WatermarkTracker(watermarkStore);
+        ReflectionTestUtils.setField(tracker, "commitIntervalRows", 100);
+        sqlFile = SqlFile.builder()
+                .fileName("GET_orders.sql")
+                .content("SELECT id, updated_at FROM orders")
+                .directives(Map.of(SqlFileDirectives.WATERMARK_COLUMN, "updated_at"))
+                .build();
+    }
+
+    @Test
+    void testAllRowsSucceeded_ShouldCommitLastValueAtFileEnd() {
+        tracker.fileStarted(sqlFile);
+        process(0, 10, true);
+        process(1, 20, true);
+        process(2, 30, true);
+        tracker.fileCompleted(sqlFile, 3, false);
+
+        verify(watermarkStore).saveWatermark("GET_orders.sql", 30);
+    }
+
+    @Test
+    void testFailedRow_ShouldBlockWatermarkBeforeIt() {
+        tracker.fileStarted(sqlFile);
+        process(0, 10, true);
+        process(1, 20, false);
+        process(2, 30, true);
+        tracker.fileCompleted(sqlFile, 3, false);
+
+        verify(watermarkStore).saveWatermark("GET_orders.sql", 10);
+    }
+
+    @Test
+    void testSameValueOnNextRow_ShouldNotCommitUnfinishedValue() {
+        tracker.fileStarted(sqlFile);
+        process(0, 10, true);
+        process(1, 20, true);
+        process(2, 20, false);
+        tracker.fileCompleted(sqlFile, 3, false);
+
+        // La valeur 20 est partagée avec une ligne en échec : seule 10 est sûre
+        verify(watermarkStore).saveWatermark("GET_orders.sql", 10);
+    }
+
+    @Test
+    void testOutOfOrderCompletion_ShouldAdvanceOnContiguousSuccesses() {
+        tracker.fileStarted(sqlFile);
+        read(0, 10);
+        read(1, 20);
+        read(2, 30);
+        complete(2, true);
+        complete(1, true);
+        complete(0, true);
+        tracker.fileCompleted(sqlFile, 3, false);
+
+        verify(watermarkStore).saveWatermark("GET_orders.sql", 30);
+    }
+
+    @Test
+    void testAbortedFile_ShouldOnlyCommitBoundaryValues() {
+        tracker.fileStarted(sqlFile);
+        process(0, 10, true);
+        process(1, 20, true);
+        tracker.fileCompleted(sqlFile, 2, true);
+
+        // La dernière valeur lue peut être partagée par des lignes non lues
+        verify(watermarkStore).saveWatermark("GET_orders.sql", 10);
+    }
+
+    @Test
+    void testCommitInterval_ShouldPersistDuringProcessing() {
+        ReflectionTestUtils.setField(tracker, "commitIntervalRows", 2);
+        tracker.fileStarted(sqlFile);
+        process(0, 10, true);
+        process(1, 20, true);
+        process(2, 30, true);
+        process(3, 40, true);
+
+        verify(watermarkStore).saveWatermark("GET_orders.sql", 10);
+        verify(watermarkStore).saveWatermark("GET_orders.sql", 30);
+    }
+
+    @Test
+    void testFileWithoutDirective_ShouldBeIgnored() {
+        SqlFile plainFile = SqlFile.builder().fileName("GET_users.sql").content("SELECT 1").build();
+        tracker.fileStarted(plainFile);
+        tracker.rowRead(plainFile, Map.of("id", 1), 0);
+        tracker.rowCompleted(RowOutcome.builder().sqlFile(plainFile).rowIndex(0).success(true).build());
+        tracker.fileCompleted(plainFile, 1, false);
+
+        verify(watermarkStore, never()).saveWatermark(anyString(), any());
+    }
+
+    @Test
+    void testEncodeDecode_ShouldKeepValueType() {
+        Timestamp timestamp = Timestamp.valueOf(LocalDateTime.of(2024, 3, 1, 12, 30, 15, 123000000));
+
+        assertEquals(42L, WatermarkStore.decode(WatermarkStore.encode(42L)));
+        assertEquals(7, WatermarkStore.decode(WatermarkStore.encode(7)));
+        assertEquals(new BigDecimal("12.50"), WatermarkStore.decode(WatermarkStore.encode(new BigDecimal("12.50"))));
+        assertEquals(timestamp, WatermarkStore.decode(WatermarkStore.encode(timestamp)));
+        assertEquals("abc:def", WatermarkStore.decode(WatermarkStore.encode("abc:def")));
+    }
+
+    @Test
+    void testFailedRow_ShouldStopTrackingFollowingRows() {
+        WatermarkTracker.FileProgress progress = new WatermarkTracker.FileProgress("updated_at");
+        progress.rowRead(0, 10);
+        progress.rowRead(1, 20);
+        progress.rowRead(2, 30);
+        progress.rowCompleted(0, false);
+        progress.rowRead(3, 40);
+        progress.rowCompleted(2, true);
+
+        assertEquals(true, progress.isBlocked());
+        assertEquals(0, ((Map<?, ?>) ReflectionTestUtils.getField(progress, "pendingValues")).size());
+        assertEquals(0, ((Map<?, ?>) ReflectionTestUtils.getField(progress, "pendingOutcomes")).size());
+    }
+
+    @Test
+    void testEncodeTimestamp_ShouldUseUtc() {
+        Timestamp timestamp = Timestamp.from(Instant.parse("2024-03-01T12:30:15.123456Z"));
+
+        assertEquals("timestamp:2024-03-01T12:30:15.123456Z", WatermarkStore.encode(timestamp));
+        // Valeur écrite avant l'encodage UTC, en heure locale
+        assertEquals(Timestamp.valueOf(LocalDateTime.of(2024, 3, 1, 12, 30, 15)),
+                WatermarkStore.decode("timestamp:2024-03-01T12:30:15"));
+    }
+
+    private void process(int rowIndex, Object value, boolean success) {
+        read(rowIndex, value);
+        complete(rowIndex, success);
+    }
+
+    private void read(int rowIndex, Object value) {
+        tracker.rowRead(sqlFile, Map.of("updated_at", value), rowIndex);
+    }
+
+    private void complete(int rowIndex, boolean success) {
+        tracker.rowCompleted(RowOutcome.builder()
+                .sqlFile(sqlFile)
+                .rowIndex(rowIndex)
+                .success(success)
+                .build());
+    }
+}
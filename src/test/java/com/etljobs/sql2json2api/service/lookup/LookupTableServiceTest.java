@@ -0,0 +1,100 @@
+package com.etljobs.sql2json2api.service.lookup;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.etljobs.sql2json2api.model.SqlFile;
+import com.etljobs.sql2json2api.service.sql.RowHandler;
+import com.etljobs.sql2json2api.service.sql.SqlExecutionService;
+import com.etljobs.sql2json2api.service.sql.SqlFileDirectives;
+import com.etljobs.sql2json2api.service.sql.SqlFileService;
+
+class LookupTableServiceTest {
+
+    private SqlFileService sqlFileService;
+    private SqlExecutionService sqlExecutionService;
+    private LookupTableService service;
+
+    @BeforeEach
+    void setUp() {
+        sqlFileService = mock(SqlFileService.class);
+        sqlExecutionService = mock(SqlExecutionService.class);
+        service = new LookupTableService(sqlFileService, sqlExecutionService);
+        ReflectionTestUtils.setField(service, "lookupDirectory", "sql/lookup");
+    }
+
+    @Test
+    void testTwoColumns_ShouldMapKeyToValue() {
+        SqlFile entities = lookupFile("entities", Map.of());
+        stubRows(entities, List.of(row("code", "E1", "name", "Paris"), row("code", "E2", "name", "Lyon"),
+                row("code", "E1", "name", "Doublon"), row("code", null, "name", "Sans code")));
+        when(sqlFileService.listSqlFiles("sql/lookup")).thenReturn(List.of(entities));
+
+        Map<String, Object> table = service.getLookups().get("entities");
+
+        assertEquals(Map.of("E1", "Paris", "E2", "Lyon"), table);
+    }
+
+    @Test
+    void testDeclaredKeyAndSeveralColumns_ShouldMapKeyToRow() {
+        SqlFile groups = lookupFile("product_groups", Map.of(SqlFileDirectives.LOOKUP_KEY, "id"));
+        Map<String, Object> row = row("label", "Boissons", "id", 42L);
+        row.put("active", true);
+        stubRows(groups, List.of(row));
+        when(sqlFileService.listSqlFiles("sql/lookup")).thenReturn(List.of(groups));
+
+        Map<String, Object> table = service.getLookups().get("product_groups");
+
+        assertSame(row, table.get("42"));
+    }
+
+    @Test
+    void testGetLookups_ShouldLoadOnce() {
+        when(sqlFileService.listSqlFiles("sql/lookup")).thenReturn(List.of());
+
+        service.getLookups();
+        service.getLookups();
+
+        verify(sqlFileService, times(1)).listSqlFiles("sql/lookup");
+    }
+
+    private static SqlFile lookupFile(String name, Map<String, String> directives) {
+        return SqlFile.builder()
+                .fileName(name + ".sql")
+                .baseName(name)
+                .content("SELECT ...")
+                .directives(directives)
+                .build();
+    }
+
+    private static Map<String, Object> row(String keyColumn, Object key, String valueColumn, Object value) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put(keyColumn, key);
+        row.put(valueColumn, value);
+        return row;
+    }
+
+    private void stubRows(SqlFile sqlFile, List<Map<String, Object>> rows) {
+        doAnswer(invocation -> {
+            RowHandler handler = invocation.getArgument(1);
+            for (int i = 0; i < rows.size(); i++) {
+                handler.handleRow(rows.get(i), i);
+            }
+            return rows.size();
+        }).when(sqlExecutionService).streamSqlFile(eq(sqlFile), any());
+    }
+}
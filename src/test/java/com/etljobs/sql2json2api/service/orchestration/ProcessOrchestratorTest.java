@@ -22,6 +22,7 @@ import org.mockito.MockitoAnnotations;
 import com.etljobs.sql2json2api.model.ApiResponse;
 import com.etljobs.sql2json2api.model.SqlFile;
 import com.etljobs.sql2json2api.service.http.TokenService;
+import com.etljobs.sql2json2api.service.sql.RowHandler;
 import com.etljobs.sql2json2api.service.sql.SqlExecutionService;
 import com.etljobs.sql2json2api.service.sql.SqlFileService;
 
@@ -44,6 +45,9 @@ class ProcessOrchestratorTest {
     
     @Mock
     private RowProcessor rowProcessor;
+    
+    @Mock
+    private RowOutcomeDispatcher outcomeDispatcher;
 
     private ProcessOrchestrator orchestrator;
 
@@ -60,7 +64,8 @@ class ProcessOrchestratorTest {
                 sqlExecutionService,
                 tokenService,
                 retryStrategyFactory,
-                rowProcessor
+                rowProcessor,
+                outcomeDispatcher
         );
     }
 
@@ -93,13 +98,13 @@ class ProcessOrchestratorTest {
                 .build();
 
         when(sqlFileService.readSqlFile(sqlFileName)).thenReturn(sqlFile);
-        when(sqlExecutionService.executeQuery(sqlFile.getContent()))
-                .thenReturn(results);
+        stubStreamQuery(sqlFile, results);
         when(tokenService.getToken()).thenReturn("Bearer token123");
         
         // Configurer le RowProcessor mock
         when(rowProcessor.processRow(
                 eq(sqlFile), 
+                any(), 
                 eq(row), 
                 eq(0), 
                 anyString(), 
@@ -107,16 +112,18 @@ class ProcessOrchestratorTest {
                 any())).thenReturn(apiResponse);
 
         // Act
-        List<ApiResponse> response = orchestrator.processSqlFile(sqlFileName);
+        ProcessingSummary summary = orchestrator.processSqlFile(sqlFileName);
 
         // Assert
-        assertNotNull(response);
-        assertEquals(1, response.size());
-        assertEquals(apiResponse, response.get(0));
+        assertNotNull(summary);
+        assertEquals(1, summary.getRowCount());
+        assertEquals(1, summary.getSuccessCount());
+        assertEquals(0, summary.getErrorResponseCount());
 
         // Vérifier que processRow a été appelé avec les bons arguments
         verify(rowProcessor).processRow(
                 eq(sqlFile), 
+                any(), 
                 eq(row), 
                 eq(0), 
                 anyString(), 
@@ -178,40 +185,37 @@ class ProcessOrchestratorTest {
 
         // Configurer les mocks
         when(sqlFileService.readSqlFile(sqlFileName)).thenReturn(sqlFile);
-        when(sqlExecutionService.executeQuery(sqlFile.getContent()))
-                .thenReturn(results);
+        stubStreamQuery(sqlFile, results);
         when(tokenService.getToken()).thenReturn("Bearer token123");
 
         // Configurer le RowProcessor pour chaque ligne
         when(rowProcessor.processRow(
-                eq(sqlFile), eq(row1), eq(0), anyString(), eq(retryStrategy), any()))
+                eq(sqlFile), any(), eq(row1), eq(0), anyString(), eq(retryStrategy), any()))
                 .thenReturn(apiResponse1);
         
         when(rowProcessor.processRow(
-                eq(sqlFile), eq(row2), eq(1), anyString(), eq(retryStrategy), any()))
+                eq(sqlFile), any(), eq(row2), eq(1), anyString(), eq(retryStrategy), any()))
                 .thenReturn(apiResponse2);
         
         when(rowProcessor.processRow(
-                eq(sqlFile), eq(row3), eq(2), anyString(), eq(retryStrategy), any()))
+                eq(sqlFile), any(), eq(row3), eq(2), anyString(), eq(retryStrategy), any()))
                 .thenReturn(apiResponse3);
 
         // Act
-        List<ApiResponse> responses = orchestrator.processSqlFile(sqlFileName);
+        ProcessingSummary summary = orchestrator.processSqlFile(sqlFileName);
 
         // Assert
-        assertNotNull(responses);
-        assertEquals(3, responses.size());
-        assertEquals(apiResponse1, responses.get(0));
-        assertEquals(apiResponse2, responses.get(1));
-        assertEquals(apiResponse3, responses.get(2));
+        assertNotNull(summary);
+        assertEquals(3, summary.getRowCount());
+        assertEquals(3, summary.getSuccessCount());
 
         // Vérifier que processRow a été appelé pour chaque ligne
         verify(rowProcessor, times(3)).processRow(
-                eq(sqlFile), any(), anyInt(), anyString(), eq(retryStrategy), any());
+                eq(sqlFile), any(), any(), anyInt(), anyString(), eq(retryStrategy), any());
     }
 
     @Test
-    void processSqlFile_ShouldReturnEmptyListWhenNoResults() {
+    void processSqlFile_ShouldReturnEmptySummaryWhenNoResults() {
         // Arrange
         String sqlFileName = "GET_empty.sql";
 
@@ -230,22 +234,22 @@ class ProcessOrchestratorTest {
 
         // Configurer les mocks
         when(sqlFileService.readSqlFile(sqlFileName)).thenReturn(sqlFile);
-        when(sqlExecutionService.executeQuery(sqlFile.getContent()))
-                .thenReturn(emptyResults);
+        stubStreamQuery(sqlFile, emptyResults);
 
         // Act
-        List<ApiResponse> responses = orchestrator.processSqlFile(sqlFileName);
+        ProcessingSummary summary = orchestrator.processSqlFile(sqlFileName);
 
         // Assert
-        assertNotNull(responses);
-        assertEquals(0, responses.size());
+        assertNotNull(summary);
+        assertEquals(0, summary.getRowCount());
+        assertEquals(0, summary.getSuccessCount());
 
         // Vérifier que le token n'est pas généré
         verify(tokenService, times(0)).getToken();
 
         // Vérifier qu'aucun traitement de ligne n'est effectué
         verify(rowProcessor, times(0)).processRow(
-                any(), any(), anyInt(), anyString(), any(), any());
+                any(), any(), any(), anyInt(), anyString(), any(), any());
     }
 
     @Test
@@ -290,45 +294,59 @@ class ProcessOrchestratorTest {
 
         ApiResponse apiResponse3 = ApiResponse
                 .builder()
-                .statusCode(200)
-                .body("{\"id\":3,\"status\":\"success\"}")
+                .statusCode(500)
+                .body("{\"id\":3,\"status\":\"error\"}")
                 .build();
 
         // Configurer les mocks
         when(sqlFileService.readSqlFile(sqlFileName)).thenReturn(sqlFile);
-        when(sqlExecutionService.executeQuery(sqlFile.getContent()))
-                .thenReturn(results);
+        stubStreamQuery(sqlFile, results);
         when(tokenService.getToken()).thenReturn("Bearer token123");
         
-        // Configurer le RowProcessor pour simuler un succès, null (erreur) et succès
+        // Configurer le RowProcessor pour simuler un succès, une ligne ignorée et une erreur
         when(rowProcessor.processRow(
-                eq(sqlFile), eq(row1), eq(0), anyString(), eq(retryStrategy), any()))
+                eq(sqlFile), any(), eq(row1), eq(0), anyString(), eq(retryStrategy), any()))
                 .thenReturn(apiResponse1);
         
-        // La deuxième ligne retourne null (simulant une erreur)
+        // La deuxième ligne retourne null (ligne inchangée, ignorée)
         when(rowProcessor.processRow(
-                eq(sqlFile), eq(row2), eq(1), anyString(), eq(retryStrategy), any()))
+                eq(sqlFile), any(), eq(row2), eq(1), anyString(), eq(retryStrategy), any()))
                 .thenReturn(null);
         
         when(rowProcessor.processRow(
-                eq(sqlFile), eq(row3), eq(2), anyString(), eq(retryStrategy), any()))
+                eq(sqlFile), any(), eq(row3), eq(2), anyString(), eq(retryStrategy), any()))
                 .thenReturn(apiResponse3);
 
         // Act
-        List<ApiResponse> responses = orchestrator.processSqlFile(sqlFileName);
+        ProcessingSummary summary = orchestrator.processSqlFile(sqlFileName);
 
         // Assert
-        assertNotNull(responses);
-        assertEquals(2, responses.size()); // Seulement 2 réponses car la ligne 2 retourne null
-        assertEquals(apiResponse1, responses.get(0));
-        assertEquals(apiResponse3, responses.get(1));
+        assertNotNull(summary);
+        assertEquals(3, summary.getRowCount());
+        assertEquals(1, summary.getSuccessCount());
+        assertEquals(1, summary.getSkippedCount());
+        assertEquals(1, summary.getErrorResponseCount());
 
         // Vérifier que processRow a été appelé pour chaque ligne
         verify(rowProcessor).processRow(
-                eq(sqlFile), eq(row1), eq(0), anyString(), eq(retryStrategy), any());
+                eq(sqlFile), any(), eq(row1), eq(0), anyString(), eq(retryStrategy), any());
         verify(rowProcessor).processRow(
-                eq(sqlFile), eq(row2), eq(1), anyString(), eq(retryStrategy), any());
+                eq(sqlFile), any(), eq(row2), eq(1), anyString(), eq(retryStrategy), any());
         verify(rowProcessor).processRow(
-                eq(sqlFile), eq(row3), eq(2), anyString(), eq(retryStrategy), any());
+                eq(sqlFile), any(), eq(row3), eq(2), anyString(), eq(retryStrategy), any());
+    }
+
+    /**
+     * Simule la lecture en streaming : chaque ligne est transmise au handler
+     * dans l'ordre, puis le nombre de lignes est retourné.
+     */
+    private void stubStreamQuery(SqlFile sqlFile, List<Map<String, Object>> results) {
+        when(sqlExecutionService.streamSqlFile(eq(sqlFile), any())).thenAnswer(invocation -> {
+            RowHandler handler = invocation.getArgument(1);
+            for (int i = 0; i < results.size(); i++) {
+                handler.handleRow(results.get(i), i);
+            }
+            return results.size();
+        });
     }
 }
\ No newline at end of file
@@ -25,6 +25,7 @@ import com.etljobs.sql2json2api.model.ApiEndpointInfo;
 import com.etljobs.sql2json2api.model.ApiResponse;
 import com.etljobs.sql2json2api.model.ApiTemplateResult;
 import com.etljobs.sql2json2api.model.SqlFile;
+import com.etljobs.sql2json2api.service.fingerprint.RowFingerprintStore;
 import com.etljobs.sql2json2api.service.http.ApiClientService;
 import com.etljobs.sql2json2api.service.orchestration.RetryStrategy.RetryContext;
 import com.etljobs.sql2json2api.service.template.TemplateProcessingService;
@@ -37,6 +38,9 @@ class RowProcessorTest {
     @Mock
     private ApiClientService apiClientService;
 
+    @Mock
+    private RowFingerprintStore fingerprintStore;
+
     @Mock
     private RetryStrategy retryStrategy;
 
@@ -49,7 +53,7 @@ class RowProcessorTest {
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
-        rowProcessor = new RowProcessor(templateService, apiClientService);
+        rowProcessor = new RowProcessor(templateService, apiClientService, fingerprintStore);
         rowErrors = new ArrayList<>();
         
         // Configuration standard du RetryStrategy
@@ -88,8 +92,7 @@ class RowProcessorTest {
                 .build();
         
         // Configurer les mocks
-        when(templateService.processTemplate(eq(sqlFile.getTemplateName()), eq(row)))
-                .thenReturn(templateResult);
+        when(templateService.processorFor(sqlFile)).thenReturn(rowData -> templateResult);
         
         when(apiClientService.callApi(
                 eq(endpointInfo.getRoute()),
@@ -101,7 +104,7 @@ class RowProcessorTest {
         
         // Act
         ApiResponse result = rowProcessor.processRow(
-                sqlFile, row, 0, rowIdentifier, retryStrategy, rowErrors);
+                sqlFile, rowProcessor.templateProcessorFor(sqlFile), row, 0, rowIdentifier, retryStrategy, rowErrors);
         
         // Assert
         assertNotNull(result);
@@ -125,12 +128,13 @@ class RowProcessorTest {
         
         // Simuler une erreur de template
         TemplateProcessingException exception = new TemplateProcessingException("Erreur de template");
-        when(templateService.processTemplate(eq(sqlFile.getTemplateName()), eq(row)))
-                .thenThrow(exception);
+        when(templateService.processorFor(sqlFile)).thenReturn(rowData -> {
+            throw exception;
+        });
         
         // Act
         ApiResponse result = rowProcessor.processRow(
-                sqlFile, row, 0, rowIdentifier, retryStrategy, rowErrors);
+                sqlFile, rowProcessor.templateProcessorFor(sqlFile), row, 0, rowIdentifier, retryStrategy, rowErrors);
         
         // Assert
         assertNotNull(result);
@@ -179,8 +183,7 @@ class RowProcessorTest {
                 .build();
         
         // Configurer les mocks
-        when(templateService.processTemplate(anyString(), any()))
-                .thenReturn(templateResult);
+        when(templateService.processorFor(sqlFile)).thenReturn(rowData -> templateResult);
         
         // Simuler une erreur retryable
         when(apiClientService.callApi(
@@ -198,7 +201,7 @@ class RowProcessorTest {
         
         // Act
         ApiResponse result = rowProcessor.processRow(
-                sqlFile, row, 0, rowIdentifier, retryStrategy, rowErrors);
+                sqlFile, rowProcessor.templateProcessorFor(sqlFile), row, 0, rowIdentifier, retryStrategy, rowErrors);
         
         // Assert
         assertNotNull(result);
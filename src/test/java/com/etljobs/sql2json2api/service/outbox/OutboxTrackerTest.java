@@ -0,0 +1,136 @@
+package com.etljobs.sql2json2api.service.outbox;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.etljobs.sql2json2api.exception.SqlExecutionException;
+import com.etljobs.sql2json2api.model.SqlFile;
+import com.etljobs.sql2json2api.service.orchestration.RowOutcome;
+import com.etljobs.sql2json2api.service.sql.SqlFileDirectives;
+
+class OutboxTrackerTest {
+
+    private static final String UPDATE_SQL = "UPDATE events_outbox SET state = ? WHERE event_id = ?";
+
+    private JdbcTemplate jdbcTemplate;
+    private OutboxTracker tracker;
+    private SqlFile sqlFile;
+    private OutboxTable outbox;
+    private final List<Object[]> updates = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        doAnswer(invocation -> {
+            List<Object[]> batch = invocation.getArgument(1);
+            updates.addAll(batch);
+            return new int[batch.size()];
+        }).when(jdbcTemplate).batchUpdate(eq(UPDATE_SQL), anyList());
+
+        tracker = new OutboxTracker(jdbcTemplate);
+        ReflectionTestUtils.setField(tracker, "statusColumn", "status");
+        ReflectionTestUtils.setField(tracker, "pendingStatus", "PENDING");
+        ReflectionTestUtils.setField(tracker, "processingStatus", "PROCESSING");
+        ReflectionTestUtils.setField(tracker, "doneStatus", "DONE");
+        ReflectionTestUtils.setField(tracker, "failedStatus", "FAILED");
+        ReflectionTestUtils.setField(tracker, "batchSize", 2);
+
+        sqlFile = SqlFile.builder()
+                .fileName("POST_events.sql")
+                .directives(Map.of(SqlFileDirectives.OUTBOX_TABLE, "events_outbox",
+                        SqlFileDirectives.OUTBOX_KEY, "event_id",
+                        SqlFileDirectives.OUTBOX_STATUS_COLUMN, "state"))
+                .build();
+        outbox = tracker.outboxTable(sqlFile);
+    }
+
+    @Test
+    void testOutboxTable_ShouldReadDirectives() {
+        assertEquals(UPDATE_SQL, outbox.updateStatusSql());
+        assertNull(tracker.outboxTable(SqlFile.builder().fileName("GET_users.sql").build()));
+        assertThrows(SqlExecutionException.class, () -> tracker.outboxTable(SqlFile.builder()
+                .fileName("POST_events.sql")
+                .directives(Map.of(SqlFileDirectives.OUTBOX_TABLE, "outbox; DROP TABLE users"))
+                .build()));
+    }
+
+    @Test
+    void testCompletedRows_ShouldBeMarkedInBatches() {
+        tracker.fileStarted(sqlFile);
+        tracker.claimed(sqlFile, outbox, List.of(1L, 2L, 3L));
+        tracker.rowCompleted(outcome(1L, true));
+
+        assertEquals(0, updates.size());
+
+        tracker.rowCompleted(outcome(2L, false));
+
+        assertEquals(2, updates.size());
+        assertArrayEquals(new Object[] {"DONE", 1L}, updates.get(0));
+        assertArrayEquals(new Object[] {"FAILED", 2L}, updates.get(1));
+
+        tracker.rowCompleted(outcome(3L, true));
+        tracker.fileCompleted(sqlFile, 3, false);
+
+        assertEquals(3, updates.size());
+        assertArrayEquals(new Object[] {"DONE", 3L}, updates.get(2));
+    }
+
+    @Test
+    void testAbortedFile_ShouldReleaseUnprocessedRows() {
+        tracker.fileStarted(sqlFile);
+        tracker.claimed(sqlFile, outbox, List.of(1L, 2L));
+        tracker.rowCompleted(outcome(1L, true));
+        tracker.fileCompleted(sqlFile, 1, true);
+
+        assertEquals(2, updates.size());
+        assertArrayEquals(new Object[] {"DONE", 1L}, updates.get(0));
+        assertArrayEquals(new Object[] {"PENDING", 2L}, updates.get(1));
+    }
+
+    @Test
+    void testExpiredClaims_ShouldReturnToPending() {
+        ReflectionTestUtils.setField(tracker, "claimedAtColumn", "claimed_at");
+        ReflectionTestUtils.setField(tracker, "leaseSeconds", 600L);
+        OutboxTable leasedOutbox = tracker.outboxTable(sqlFile);
+        String releaseSql = "UPDATE events_outbox SET state = ? WHERE state = ? AND claimed_at < ?";
+        ArgumentCaptor<Timestamp> expiry = ArgumentCaptor.forClass(Timestamp.class);
+        when(jdbcTemplate.update(eq(releaseSql), eq("PENDING"), eq("PROCESSING"), expiry.capture())).thenReturn(2);
+
+        assertEquals("UPDATE events_outbox SET state = ?, claimed_at = ? WHERE event_id = ?", leasedOutbox.claimSql());
+        assertEquals(2, tracker.releaseExpiredClaims(leasedOutbox));
+        Instant expected = Instant.now().minusSeconds(600);
+        assertTrue(Math.abs(expiry.getValue().toInstant().toEpochMilli() - expected.toEpochMilli()) < 5000);
+
+        // Sans colonne de date de réclamation, les lignes ne sont jamais reprises
+        assertEquals(UPDATE_SQL, outbox.claimSql());
+        assertEquals(0, tracker.releaseExpiredClaims(outbox));
+    }
+
+    private RowOutcome outcome(Object key, boolean success) {
+        return RowOutcome.builder()
+                .sqlFile(sqlFile)
+                .row(Map.of("event_id", key))
+                .rowIdentifier("event_id=" + key)
+                .success(success)
+                .build();
+    }
+}
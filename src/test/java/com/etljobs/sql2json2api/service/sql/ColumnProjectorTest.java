@@ -0,0 +1,68 @@
+package com.etljobs.sql2json2api.service.sql;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+import com.etljobs.sql2json2api.model.SqlFile;
+
+class ColumnProjectorTest {
+
+    @Test
+    void testSelectProjection_ShouldKeepTemplateEngineAndIdentifierColumns() {
+        List<String> queryColumns = List.of("ID", "name", "description", "updated_at", "blob_data");
+
+        List<String> projection = ColumnProjector.selectProjection(queryColumns,
+                Set.of("NAME", "missing"), Set.of("updated_at"), RowKeys.identifyingColumns(sqlFile(Map.of()), queryColumns));
+
+        assertEquals(List.of("ID", "name", "updated_at"), projection);
+    }
+
+    @Test
+    void testSelectProjection_ShouldKeepEveryColumnARowMayBeIdentifiedWith() {
+        // "id" may be null, the logs then fall back on "uuid", then on the first column
+        List<String> queryColumns = List.of("code", "label", "uuid", "id", "Key", "tenant", "ref");
+
+        List<String> projection = ColumnProjector.selectProjection(queryColumns, Set.of("label"), Set.of(),
+                RowKeys.identifyingColumns(sqlFile(Map.of(SqlFileDirectives.ROW_KEY, "tenant, ref")), queryColumns));
+
+        assertEquals(List.of("code", "label", "uuid", "id", "tenant", "ref"), projection);
+    }
+
+    @Test
+    void testSelectProjection_WithoutIdentifierColumn_ShouldKeepFirstColumn() {
+        List<String> queryColumns = List.of("code", "label", "comment");
+
+        List<String> projection = ColumnProjector.selectProjection(queryColumns,
+                Set.of("label"), Set.of(), RowKeys.identifyingColumns(sqlFile(Map.of()), queryColumns));
+
+        assertEquals(List.of("code", "label"), projection);
+    }
+
+    @Test
+    void testCanNarrow_ShouldRejectQuotedOrAmbiguousColumns() {
+        assertTrue(ColumnProjector.canNarrow(List.of("id", "name", "x"), List.of("id", "name"), SqlDialect.POSTGRESQL));
+        assertFalse(ColumnProjector.canNarrow(List.of("id", "Name", "x"), List.of("id", "Name"), SqlDialect.POSTGRESQL));
+        assertTrue(ColumnProjector.canNarrow(List.of("id", "Name", "x"), List.of("id", "Name"), SqlDialect.MYSQL));
+        assertFalse(ColumnProjector.canNarrow(List.of("id", "ID", "x"), List.of("id"), SqlDialect.MYSQL));
+        assertFalse(ColumnProjector.canNarrow(List.of("id", "total price"), List.of("total price"), SqlDialect.MYSQL));
+    }
+
+    @Test
+    void testBuildProjectionQuery_ShouldWrapOriginalQuery() {
+        assertEquals("SELECT src.id, src.name FROM (\nSELECT * FROM users\n) src",
+                ColumnProjector.buildProjectionQuery("SELECT * FROM users;", List.of("id", "name")));
+    }
+
+    private static SqlFile sqlFile(Map<String, String> directives) {
+        return SqlFile.builder()
+                .fileName("GET_users.sql")
+                .directives(directives)
+                .build();
+    }
+}
@@ -0,0 +1,112 @@
+package com.etljobs.sql2json2api.service.sql;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.etljobs.sql2json2api.model.SqlFile;
+
+class ColumnValueConverterTest {
+
+    private ColumnValueConverter converter;
+
+    @BeforeEach
+    void setUp() {
+        converter = new ColumnValueConverter();
+        ReflectionTestUtils.setField(converter, "dateFormat", "yyyy-MM-dd");
+        ReflectionTestUtils.setField(converter, "timeFormat", "HH:mm:ss");
+        ReflectionTestUtils.setField(converter, "timestampFormat", "yyyy-MM-dd'T'HH:mm:ss");
+    }
+
+    @Test
+    void testMapRow_ShouldConvertValuesToTemplateReadyStrings() throws SQLException {
+        ResultSet rs = mockResultSet(
+                new String[] {"id", "price", "created_at", "active", "deleted_on"},
+                new int[] {Types.INTEGER, Types.DECIMAL, Types.TIMESTAMP, Types.BOOLEAN, Types.DATE});
+        when(rs.getInt(1)).thenReturn(1234567);
+        when(rs.getBigDecimal(2)).thenReturn(new BigDecimal("1E+3"));
+        when(rs.getTimestamp(3)).thenReturn(Timestamp.valueOf(LocalDateTime.of(2024, 1, 31, 8, 5, 9)));
+        when(rs.getBoolean(4)).thenReturn(true);
+        when(rs.getDate(5)).thenReturn(null);
+
+        Map<String, Object> row = new CompactRowMapper(converter, Set.of()).mapRow(rs, 0);
+
+        assertEquals("1234567", row.get("id"));
+        assertEquals("1000", row.get("price"));
+        assertEquals("2024-01-31T08:05:09", row.get("created_at"));
+        assertEquals("true", row.get("active"));
+        assertNull(row.get("deleted_on"));
+    }
+
+    @Test
+    void testMapRow_ShouldKeepRawColumns() throws SQLException {
+        Timestamp updatedAt = Timestamp.valueOf(LocalDateTime.of(2024, 1, 31, 8, 0));
+        ResultSet rs = mockResultSet(new String[] {"updated_at"}, new int[] {Types.TIMESTAMP});
+        when(rs.getObject(1)).thenReturn(updatedAt);
+
+        Map<String, Object> row = new CompactRowMapper(converter, Set.of("UPDATED_AT")).mapRow(rs, 0);
+
+        assertEquals(updatedAt, row.get("updated_at"));
+    }
+
+    @Test
+    void testIsEnabled_ShouldLetTheDirectiveOverrideTheConfiguration() {
+        ReflectionTestUtils.setField(converter, "enabled", false);
+        assertFalse(converter.isEnabled(sqlFile("SELECT id FROM users")));
+        assertTrue(converter.isEnabled(sqlFile("-- @sql-convert-values: true\nSELECT id FROM users")));
+
+        ReflectionTestUtils.setField(converter, "enabled", true);
+        assertTrue(converter.isEnabled(sqlFile("SELECT id FROM users")));
+        assertFalse(converter.isEnabled(sqlFile("-- @sql-convert-values: false\nSELECT id FROM users")));
+    }
+
+    @Test
+    void testDescribe_ShouldChangeWithTheConversionSettings() {
+        ReflectionTestUtils.setField(converter, "enabled", false);
+        String raw = converter.describe(sqlFile("SELECT id FROM users"));
+        String converted = converter.describe(sqlFile("-- @sql-convert-values: true\nSELECT id FROM users"));
+        assertNotEquals(raw, converted);
+
+        ReflectionTestUtils.setField(converter, "dateFormat", "dd/MM/yyyy");
+        assertNotEquals(converted, converter.describe(sqlFile("-- @sql-convert-values: true\nSELECT id FROM users")));
+        assertEquals(raw, converter.describe(sqlFile("SELECT id FROM users")));
+    }
+
+    private static ResultSet mockResultSet(String[] columns, int[] types) throws SQLException {
+        ResultSet rs = mock(ResultSet.class);
+        ResultSetMetaData metaData = mock(ResultSetMetaData.class);
+        when(rs.getMetaData()).thenReturn(metaData);
+        when(metaData.getColumnCount()).thenReturn(columns.length);
+        for (int i = 0; i < columns.length; i++) {
+            when(metaData.getColumnLabel(i + 1)).thenReturn(columns[i]);
+            when(metaData.getColumnType(i + 1)).thenReturn(types[i]);
+        }
+        return rs;
+    }
+
+    private static SqlFile sqlFile(String content) {
+        return SqlFile.builder()
+                .fileName("GET_users.sql")
+                .content(content)
+                .directives(SqlFileDirectives.parse(content))
+                .build();
+    }
+}
@@ -0,0 +1,83 @@
+package com.etljobs.sql2json2api.service.sql;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CompactRowTest {
+
+    @Test
+    void testGet_ShouldIgnoreCase() {
+        RowSchema schema = new RowSchema(List.of("id", "Username"));
+        CompactRow row = new CompactRow(schema, new Object[] {1, "john"});
+
+        assertEquals(1, row.get("ID"));
+        assertEquals("john", row.get("username"));
+        assertEquals("john", row.get("Username"));
+        assertTrue(row.containsKey("USERNAME"));
+        assertFalse(row.containsKey("email"));
+        assertNull(row.get("email"));
+    }
+
+    @Test
+    void testEntries_ShouldKeepColumnOrderAndEqualPlainMap() {
+        RowSchema schema = new RowSchema(List.of("id", "name", "email"));
+        CompactRow row = new CompactRow(schema, new Object[] {1, "john", null});
+
+        List<String> keys = new ArrayList<>(row.keySet());
+        assertEquals(List.of("id", "name", "email"), keys);
+
+        Map<String, Object> expected = new HashMap<>();
+        expected.put("id", 1);
+        expected.put("name", "john");
+        expected.put("email", null);
+        assertEquals(expected, row);
+        assertEquals(expected.hashCode(), row.hashCode());
+    }
+
+    @Test
+    void testRow_ShouldBeReadOnly() {
+        CompactRow row = new CompactRow(new RowSchema(List.of("id")), new Object[] {1});
+
+        assertThrows(UnsupportedOperationException.class, () -> row.put("id", 2));
+    }
+
+    @Test
+    void testMapper_ShouldShareSchemaAndKeepLastDuplicateColumn() throws SQLException {
+        ResultSet resultSet = mock(ResultSet.class);
+        ResultSetMetaData metaData = mock(ResultSetMetaData.class);
+        when(resultSet.getMetaData()).thenReturn(metaData);
+        when(metaData.getColumnCount()).thenReturn(3);
+        when(metaData.getColumnLabel(1)).thenReturn("id");
+        when(metaData.getColumnLabel(2)).thenReturn("name");
+        when(metaData.getColumnLabel(3)).thenReturn("ID");
+        when(resultSet.getObject(1)).thenReturn(1, 2);
+        when(resultSet.getObject(2)).thenReturn("a", "b");
+        when(resultSet.getObject(3)).thenReturn(10, 20);
+
+        CompactRowMapper mapper = new CompactRowMapper();
+        CompactRow first = (CompactRow) mapper.mapRow(resultSet, 0);
+        CompactRow second = (CompactRow) mapper.mapRow(resultSet, 1);
+
+        assertSame(first.getSchema(), second.getSchema());
+        assertEquals(2, first.size());
+        assertEquals(10, first.get("id"));
+        assertEquals("a", first.get("name"));
+        assertEquals(20, second.get("Id"));
+        assertEquals("b", second.get("NAME"));
+    }
+}
@@ -0,0 +1,79 @@
+package com.etljobs.sql2json2api.service.sql;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.PoolStats;
+
+class ConnectionPoolMetricsTest {
+
+    @Test
+    void testTrackerRecordsWaitTimeAndActiveConnections() {
+        PoolStats poolStats = mock(PoolStats.class);
+        when(poolStats.getActiveConnections()).thenReturn(3, 5, 2);
+        when(poolStats.getMaxConnections()).thenReturn(6);
+
+        ConnectionPoolMetrics metrics = new ConnectionPoolMetrics();
+        IMetricsTracker tracker = metrics.create("test-pool", poolStats);
+        ConnectionPoolMetrics.PoolMetrics pool = metrics.getPool("test-pool");
+
+        tracker.recordConnectionAcquiredNanos(TimeUnit.MILLISECONDS.toNanos(2));
+        tracker.recordConnectionAcquiredNanos(TimeUnit.MILLISECONDS.toNanos(6));
+        tracker.recordConnectionUsageMillis(10);
+        tracker.recordConnectionUsageMillis(30);
+        tracker.recordConnectionTimeout();
+
+        assertEquals(2, pool.getAcquisitionCount());
+        assertEquals(4.0, pool.getAverageWaitMillis(), 0.001);
+        assertEquals(6.0, pool.getMaxWaitMillis(), 0.001);
+        assertEquals(20.0, pool.getAverageUsageMillis(), 0.001);
+        assertEquals(1, pool.getTimeoutCount());
+        assertEquals(5, pool.getPeakActiveConnections());
+        assertEquals(2, pool.getActiveConnections());
+        assertEquals(6, pool.getMaxConnections());
+    }
+
+    @Test
+    void testMetricsBeforePoolStartIsEmpty() {
+        ConnectionPoolMetrics metrics = new ConnectionPoolMetrics();
+
+        assertNull(metrics.getPool("test-pool"));
+        assertTrue(metrics.getPools().isEmpty());
+    }
+
+    @Test
+    void testEachPoolHasItsOwnMetrics() {
+        PoolStats primaryStats = mock(PoolStats.class);
+        PoolStats replicaStats = mock(PoolStats.class);
+        when(primaryStats.getMaxConnections()).thenReturn(6);
+        when(replicaStats.getMaxConnections()).thenReturn(10);
+
+        ConnectionPoolMetrics metrics = new ConnectionPoolMetrics();
+        IMetricsTracker primaryTracker = metrics.create("sql2json2api-pool", primaryStats);
+        IMetricsTracker replicaTracker = metrics.create("sql2json2api-replica-pool", replicaStats);
+
+        primaryTracker.recordConnectionAcquiredNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        replicaTracker.recordConnectionAcquiredNanos(TimeUnit.MILLISECONDS.toNanos(3));
+        replicaTracker.recordConnectionAcquiredNanos(TimeUnit.MILLISECONDS.toNanos(5));
+        replicaTracker.recordConnectionTimeout();
+
+        ConnectionPoolMetrics.PoolMetrics primary = metrics.getPool("sql2json2api-pool");
+        ConnectionPoolMetrics.PoolMetrics replica = metrics.getPool("sql2json2api-replica-pool");
+        assertEquals(1, primary.getAcquisitionCount());
+        assertEquals(0, primary.getTimeoutCount());
+        assertEquals(6, primary.getMaxConnections());
+        assertEquals(2, replica.getAcquisitionCount());
+        assertEquals(4.0, replica.getAverageWaitMillis(), 0.001);
+        assertEquals(1, replica.getTimeoutCount());
+        assertEquals(10, replica.getMaxConnections());
+        assertEquals(List.of(primary, replica), metrics.getPools());
+    }
+}
@@ -0,0 +1,78 @@
+package com.etljobs.sql2json2api.service.sql;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.etljobs.sql2json2api.config.DatabaseConfig;
+import com.etljobs.sql2json2api.config.SqlConfig;
+import com.etljobs.sql2json2api.exception.SqlExecutionException;
+import com.etljobs.sql2json2api.model.SqlFile;
+
+class DataSourceRouterTest {
+
+    private SqlConfig sqlConfig;
+    private DataSourceRouter router;
+
+    @BeforeEach
+    void setUp() {
+        sqlConfig = new SqlConfig();
+        DatabaseConfig databaseConfig = new DatabaseConfig();
+        databaseConfig.getSources().put("replica", new DatabaseConfig.Source());
+        databaseConfig.getSources().put("archive", new DatabaseConfig.Source());
+        router = new DataSourceRouter(sqlConfig, databaseConfig);
+    }
+
+    @Test
+    void testDataSourceName_ShouldPreferDirectiveThenRoutingThenDefault() {
+        assertEquals(DataSourceRouter.PRIMARY, router.dataSourceName(sqlFile("GET_users.sql", "SELECT id FROM users")));
+
+        sqlConfig.setDefaultDatasource("replica");
+        assertEquals("replica", router.dataSourceName(sqlFile("GET_users.sql", "SELECT id FROM users")));
+
+        sqlConfig.getDatasourceRouting().put("GET_users.sql", "archive");
+        assertEquals("archive", router.dataSourceName(sqlFile("GET_users.sql", "SELECT id FROM users")));
+
+        assertEquals(DataSourceRouter.PRIMARY, router.dataSourceName(
+                sqlFile("GET_users.sql", "-- @sql-datasource: primary\nSELECT id FROM users")));
+    }
+
+    @Test
+    void testDataSourceName_ShouldRejectUnknownDataSource() {
+        SqlFile sqlFile = sqlFile("GET_users.sql", "-- @sql-datasource: replika\nSELECT id FROM users");
+
+        assertThrows(SqlExecutionException.class, () -> router.dataSourceName(sqlFile));
+    }
+
+    @Test
+    void testCallOn_ShouldSelectDataSourceForCurrentAndPropagatedThreads() {
+        SqlFile sqlFile = sqlFile("GET_users.sql", "-- @sql-datasource: replica\nSELECT id FROM users");
+        AtomicReference<String> backgroundName = new AtomicReference<>();
+
+        String name = router.callOn(sqlFile, () -> {
+            Thread thread = new Thread(DataSourceRouter.propagate(() -> backgroundName.set(DataSourceRouter.currentName())));
+            thread.start();
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return DataSourceRouter.currentName();
+        });
+
+        assertEquals("replica", name);
+        assertEquals("replica", backgroundName.get());
+        assertEquals(DataSourceRouter.PRIMARY, DataSourceRouter.currentName());
+    }
+
+    private static SqlFile sqlFile(String fileName, String content) {
+        return SqlFile.builder()
+                .fileName(fileName)
+                .content(content)
+                .directives(SqlFileDirectives.parse(content))
+                .build();
+    }
+}
@@ -0,0 +1,124 @@
+package com.etljobs.sql2json2api.service.sql;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.etljobs.sql2json2api.config.ThreadingConfig;
+import com.etljobs.sql2json2api.model.SqlFile;
+
+class ExecutionPlannerTest {
+
+    private QueryCostEstimator costEstimator;
+    private ExecutionPlanner planner;
+
+    @BeforeEach
+    void setUp() {
+        costEstimator = mock(QueryCostEstimator.class);
+        ThreadingConfig threadingConfig = new ThreadingConfig();
+        threadingConfig.setPoolSize(8);
+        planner = new ExecutionPlanner(costEstimator, threadingConfig);
+        ReflectionTestUtils.setField(planner, "enabled", true);
+        ReflectionTestUtils.setField(planner, "averageRowBytes", 100L);
+        ReflectionTestUtils.setField(planner, "rowsPerPartition", 1000L);
+        ReflectionTestUtils.setField(planner, "maxPartitions", 16);
+        ReflectionTestUtils.setField(planner, "rowsPerThread", 10L);
+        ReflectionTestUtils.setField(planner, "bufferMemoryThresholdBytes", 10_000L);
+        ReflectionTestUtils.setField(planner, "bufferMaxSpillBytes", 1_000_000L);
+    }
+
+    @Test
+    void testPlan_ShouldChooseReadModeFromEstimatedSize() {
+        SqlFile sqlFile = sqlFile(Map.of());
+
+        assertEquals(ExecutionPlan.ReadMode.IN_MEMORY, planner.plan(sqlFile, estimate(50, null)).getReadMode());
+        assertEquals(ExecutionPlan.ReadMode.SPILL, planner.plan(sqlFile, estimate(5_000, null)).getReadMode());
+        assertEquals(ExecutionPlan.ReadMode.STREAMING, planner.plan(sqlFile, estimate(50_000, null)).getReadMode());
+        // La taille fournie par le plan PostgreSQL prime sur la taille moyenne d'une ligne
+        assertEquals(ExecutionPlan.ReadMode.IN_MEMORY, planner.plan(sqlFile, estimate(50_000, 5_000L)).getReadMode());
+    }
+
+    @Test
+    void testPlan_ShouldSizeThreadsWithinPoolLimit() {
+        SqlFile sqlFile = sqlFile(Map.of());
+
+        assertEquals(1, planner.plan(sqlFile, estimate(0, null)).getThreads());
+        assertEquals(3, planner.plan(sqlFile, estimate(25, null)).getThreads());
+        assertEquals(8, planner.plan(sqlFile, estimate(1_000, null)).getThreads());
+    }
+
+    @Test
+    void testPlan_ShouldSizePartitionsOnlyForUndeclaredPartitionedFiles() {
+        assertNull(planner.plan(sqlFile(Map.of()), estimate(5_000, null)).getPartitions());
+        assertEquals(5, planner.plan(sqlFile(Map.of(SqlFileDirectives.PARTITION_COLUMN, "id")),
+                estimate(4_500, null)).getPartitions());
+        assertEquals(16, planner.plan(sqlFile(Map.of(SqlFileDirectives.PARTITION_COLUMN, "id")),
+                estimate(1_000_000, null)).getPartitions());
+        assertEquals(2, planner.plan(sqlFile(Map.of(SqlFileDirectives.PARTITION_COLUMN, "id",
+                SqlFileDirectives.PARTITIONS, "2")), estimate(1_000_000, null)).getPartitions());
+    }
+
+    @Test
+    void testApply_ShouldKeepDeclaredDirectives() {
+        SqlFile sqlFile = sqlFile(Map.of(SqlFileDirectives.PARTITION_COLUMN, "id", SqlFileDirectives.BUFFER, "false"));
+        ExecutionPlan plan = planner.plan(sqlFile, estimate(50, null));
+
+        SqlFile planned = planner.apply(sqlFile, plan);
+
+        assertEquals(ExecutionPlan.ReadMode.STREAMING, plan.getReadMode());
+        assertEquals("false", planned.getDirective(SqlFileDirectives.BUFFER));
+        assertEquals("1", planned.getDirective(SqlFileDirectives.PARTITIONS));
+        assertNull(sqlFile.getDirective(SqlFileDirectives.PARTITIONS));
+        assertEquals("GET_orders.sql", planned.getFileName());
+    }
+
+    @Test
+    void testPlan_Disabled_ShouldNotEstimate() {
+        ReflectionTestUtils.setField(planner, "enabled", false);
+
+        assertNull(planner.plan(sqlFile(Map.of())));
+        verifyNoInteractions(costEstimator);
+    }
+
+    @Test
+    void testParsePostgresqlPlan_ShouldReadCostRowsAndWidth() {
+        QueryCostEstimator.Estimate estimate = QueryCostEstimator.parsePostgresqlPlan(
+                "Hash Join  (cost=12.50..345.75 rows=2550 width=40)");
+
+        assertEquals(2550, estimate.getRows());
+        assertEquals(345.75, estimate.getCost());
+        assertEquals(102_000L, estimate.getBytes());
+        assertNull(QueryCostEstimator.parsePostgresqlPlan("Result"));
+    }
+
+    @Test
+    void testEstimateMysqlRows_ShouldMultiplyJoinedTablesOfOuterSelect() {
+        Long rows = QueryCostEstimator.estimateMysqlRows(List.of(
+                Map.of("id", 1L, "rows", 1000L, "filtered", 10.0),
+                Map.of("id", 1L, "rows", 3L, "filtered", 100.0),
+                Map.of("id", 2L, "rows", 500L, "filtered", 100.0)));
+
+        assertEquals(300L, rows);
+        assertNull(QueryCostEstimator.estimateMysqlRows(List.of()));
+    }
+
+    private static SqlFile sqlFile(Map<String, String> directives) {
+        return SqlFile.builder()
+                .fileName("GET_orders.sql")
+                .content("SELECT id FROM orders")
+                .directives(new HashMap<>(directives))
+                .build();
+    }
+
+    private static QueryCostEstimator.Estimate estimate(long rows, Long bytes) {
+        return new QueryCostEstimator.Estimate(rows, null, bytes, "COUNT");
+    }
+}
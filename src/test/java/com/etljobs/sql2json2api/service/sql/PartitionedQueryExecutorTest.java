@@ -0,0 +1,155 @@
+package com.etljobs.sql2json2api.service.sql;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import com.etljobs.sql2json2api.exception.SqlExecutionException;
+
+class PartitionedQueryExecutorTest {
+
+    private static final String SQL = "SELECT id, name FROM users;";
+
+    @Test
+    void testBuildRangePartitions_ShouldCoverWholeRange() {
+        List<PartitionedQueryExecutor.Partition> partitions =
+                PartitionedQueryExecutor.buildRangePartitions(SQL, "id", 4, 0, 99);
+
+        assertEquals(4, partitions.size());
+        assertTrue(partitions.get(0).getSql().endsWith("WHERE src.id < ? OR src.id IS NULL"));
+        assertArrayEquals(new Object[] {25L}, partitions.get(0).getArgs());
+        assertTrue(partitions.get(1).getSql().endsWith("WHERE src.id >= ? AND src.id < ?"));
+        assertArrayEquals(new Object[] {25L, 50L}, partitions.get(1).getArgs());
+        assertArrayEquals(new Object[] {50L, 75L}, partitions.get(2).getArgs());
+        assertTrue(partitions.get(3).getSql().endsWith("WHERE src.id >= ?"));
+        assertArrayEquals(new Object[] {75L}, partitions.get(3).getArgs());
+    }
+
+    @Test
+    void testBuildRangePartitions_NarrowRange_ShouldNotCreateEmptyPartitions() {
+        List<PartitionedQueryExecutor.Partition> partitions =
+                PartitionedQueryExecutor.buildRangePartitions(SQL, "id", 8, 10, 12);
+
+        assertEquals(3, partitions.size());
+    }
+
+    @Test
+    void testBuildHashPartitions_ShouldUseDialectHashFunction() {
+        List<PartitionedQueryExecutor.Partition> partitions =
+                PartitionedQueryExecutor.buildHashPartitions(SQL, "id", 3, SqlDialect.MYSQL);
+
+        assertEquals(3, partitions.size());
+        assertTrue(partitions.get(0).getSql().endsWith("WHERE MOD(CRC32(src.id), 3) = 0 OR src.id IS NULL"));
+        assertTrue(partitions.get(2).getSql().endsWith("WHERE MOD(CRC32(src.id), 3) = 2"));
+        assertTrue(PartitionedQueryExecutor.buildHashPartitions(SQL, "id", 3, SqlDialect.ORACLE)
+                .get(1).getSql().endsWith("WHERE ORA_HASH(src.id, 2) = 1"));
+    }
+
+    @Test
+    void testBuildHashPartitions_UnknownDatabase_ShouldThrow() {
+        assertThrows(SqlExecutionException.class,
+                () -> PartitionedQueryExecutor.buildHashPartitions(SQL, "id", 3, SqlDialect.GENERIC));
+    }
+
+    @Test
+    void testExecute_ShouldMergeAllPartitionsOnCallerThread() throws SQLException {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        ResultSet resultSet = mock(ResultSet.class);
+        ResultSetMetaData metaData = mock(ResultSetMetaData.class);
+        when(resultSet.getMetaData()).thenReturn(metaData);
+        when(metaData.getColumnCount()).thenReturn(1);
+        when(metaData.getColumnLabel(1)).thenReturn("id");
+        when(resultSet.getObject(1)).thenReturn(7);
+
+        // Chaque partition renvoie deux lignes
+        doAnswer(invocation -> {
+            RowCallbackHandler callbackHandler = invocation.getArgument(1);
+            callbackHandler.processRow(resultSet);
+            callbackHandler.processRow(resultSet);
+            return null;
+        }).when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+
+        List<PartitionedQueryExecutor.Partition> partitions =
+                PartitionedQueryExecutor.buildRangePartitions(SQL, "id", 3, 0, 30);
+        PartitionedQueryExecutor executor = new PartitionedQueryExecutor(jdbcTemplate, 0, 2, 0);
+
+        Thread callerThread = Thread.currentThread();
+        List<Integer> rowIndexes = new ArrayList<>();
+        int rowCount = executor.execute(partitions, (row, rowIndex) -> {
+            assertEquals(callerThread, Thread.currentThread());
+            assertEquals(7, row.get("id"));
+            rowIndexes.add(rowIndex);
+        });
+
+        assertEquals(6, rowCount);
+        assertEquals(List.of(0, 1, 2, 3, 4, 5), rowIndexes);
+        partitions.forEach(partition -> assertEquals(2, partition.getRowCount()));
+    }
+
+    @Test
+    void testExecute_ShouldQueuePartitionsBeyondConcurrencyLimit() throws SQLException {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        ResultSet resultSet = mock(ResultSet.class);
+        ResultSetMetaData metaData = mock(ResultSetMetaData.class);
+        when(resultSet.getMetaData()).thenReturn(metaData);
+        when(metaData.getColumnCount()).thenReturn(1);
+        when(metaData.getColumnLabel(1)).thenReturn("id");
+        when(resultSet.getObject(1)).thenReturn(7);
+
+        // Chaque partition occupe sa "connexion" le temps de renvoyer sa ligne
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        doAnswer(invocation -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(20);
+                RowCallbackHandler callbackHandler = invocation.getArgument(1);
+                callbackHandler.processRow(resultSet);
+            } finally {
+                running.decrementAndGet();
+            }
+            return null;
+        }).when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+
+        List<PartitionedQueryExecutor.Partition> partitions =
+                PartitionedQueryExecutor.buildHashPartitions(SQL, "id", 6, SqlDialect.POSTGRESQL);
+        PartitionedQueryExecutor executor =
+                new PartitionedQueryExecutor(jdbcTemplate, 0, 10, 0, CompactRowMapper::new, 2);
+
+        int rowCount = executor.execute(partitions, (row, rowIndex) -> { });
+
+        assertEquals(6, rowCount);
+        assertTrue(maxRunning.get() <= 2, "partitions lues à la fois: " + maxRunning.get());
+    }
+
+    @Test
+    void testExecute_PartitionFailure_ShouldThrow() {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        doThrow(new DataAccessResourceFailureException("Connection lost"))
+                .when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+
+        List<PartitionedQueryExecutor.Partition> partitions =
+                PartitionedQueryExecutor.buildHashPartitions(SQL, "id", 2, SqlDialect.POSTGRESQL);
+        PartitionedQueryExecutor executor = new PartitionedQueryExecutor(jdbcTemplate, 0, 10, 0);
+
+        assertThrows(SqlExecutionException.class, () -> executor.execute(partitions, (row, rowIndex) -> { }));
+    }
+}
@@ -0,0 +1,53 @@
+package com.etljobs.sql2json2api.service.sql;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import org.junit.jupiter.api.Test;
+
+import com.etljobs.sql2json2api.model.SqlFile;
+
+class RowKeysTest {
+
+    @Test
+    void testDescribe_ShouldFallBackFromKeyToFirstColumnToPosition() {
+        SqlFile sqlFile = sqlFile(Map.of());
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("code", "A1");
+        row.put("id", null);
+        row.put("UUID", "u-1");
+
+        assertEquals("UUID=u-1", RowKeys.describe(sqlFile, row, 4));
+        assertEquals("UUID=u-1", RowKeys.stableKey(sqlFile, row));
+
+        row.put("UUID", null);
+        assertEquals("code=A1", RowKeys.describe(sqlFile, row, 4));
+        assertNull(RowKeys.stableKey(sqlFile, row));
+
+        assertEquals("row#5", RowKeys.describe(sqlFile, Map.of(), 4));
+    }
+
+    @Test
+    void testDescribe_WithDeclaredKey_ShouldNotFailOnNullKey() {
+        SqlFile sqlFile = sqlFile(Map.of(SqlFileDirectives.ROW_KEY, "tenant, ref"));
+        Map<String, Object> row = new HashMap<>();
+        row.put("tenant", "t1");
+        row.put("ref", 7);
+
+        assertEquals("tenant=t1, ref=7", RowKeys.describe(sqlFile, row, 0));
+
+        row.put("ref", null);
+        row.put("id", 3);
+        assertEquals("id=3", RowKeys.describe(sqlFile, row, 0));
+    }
+
+    private static SqlFile sqlFile(Map<String, String> directives) {
+        return SqlFile.builder()
+                .fileName("GET_users.sql")
+                .directives(directives)
+                .build();
+    }
+}
@@ -1,25 +1,51 @@
 package com.etljobs.sql2json2api.service.sql;
 
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import com.etljobs.sql2json2api.config.DatabaseConfig;
+import com.etljobs.sql2json2api.config.SqlConfig;
 import com.etljobs.sql2json2api.exception.SqlExecutionException;
+import com.etljobs.sql2json2api.model.SqlFile;
+import com.etljobs.sql2json2api.service.incremental.WatermarkStore;
+import com.etljobs.sql2json2api.service.outbox.OutboxTable;
+import com.etljobs.sql2json2api.service.outbox.OutboxTracker;
+import com.etljobs.sql2json2api.service.sql.snapshot.ResultSnapshotCache;
 
 @ExtendWith(MockitoExtension.class)
 class SqlExecutionServiceTest {
@@ -27,6 +53,24 @@ class SqlExecutionServiceTest {
     @Mock
     private JdbcTemplate jdbcTemplate;
     
+    @Mock
+    private ResultSnapshotCache snapshotCache;
+    
+    @Mock
+    private WatermarkStore watermarkStore;
+    
+    @Mock
+    private SqlParameterResolver parameterResolver;
+    
+    @Mock
+    private OutboxTracker outboxTracker;
+    
+    @Mock
+    private ColumnValueConverter columnValueConverter;
+    
+    @Spy
+    private DataSourceRouter dataSourceRouter = new DataSourceRouter(new SqlConfig(), new DatabaseConfig());
+    
     @InjectMocks
     private SqlExecutionService sqlExecutionService;
     
@@ -35,14 +79,14 @@ class SqlExecutionServiceTest {
         // Arrange
         String sql = "SELECT * FROM users";
         List<Map<String, Object>> expectedResults = createSampleResults();
-        when(jdbcTemplate.queryForList(sql)).thenReturn(expectedResults);
+        when(jdbcTemplate.query(eq(sql), any(CompactRowMapper.class))).thenReturn(expectedResults);
         
         // Act
         List<Map<String, Object>> actualResults = sqlExecutionService.executeQuery(sql);
         
         // Assert
         assertEquals(expectedResults, actualResults);
-        verify(jdbcTemplate).queryForList(sql);
+        verify(jdbcTemplate).query(eq(sql), any(CompactRowMapper.class));
     }
     
     @Test
@@ -50,11 +94,291 @@ class SqlExecutionServiceTest {
     void testExecuteQuery_ThrowsException() {
         // Arrange
         String sql = "SELECT * FROM nonexistent_table";
-        when(jdbcTemplate.queryForList(sql)).thenThrow(new TestDataAccessException("Database error"));
+        when(jdbcTemplate.query(eq(sql), any(CompactRowMapper.class)))
+                .thenThrow(new TestDataAccessException("Database error"));
         
         // Act & Assert
         assertThrows(SqlExecutionException.class, () -> sqlExecutionService.executeQuery(sql));
-        verify(jdbcTemplate).queryForList(sql);
+        verify(jdbcTemplate).query(eq(sql), any(CompactRowMapper.class));
+    }
+    
+    @Test
+    void testStreamQuery_ShouldHandEachRowToHandler() throws SQLException {
+        // Arrange
+        String sql = "SELECT * FROM users";
+        ResultSet resultSet = mock(ResultSet.class);
+        ResultSetMetaData metaData = mock(ResultSetMetaData.class);
+        when(resultSet.getMetaData()).thenReturn(metaData);
+        when(metaData.getColumnCount()).thenReturn(1);
+        when(metaData.getColumnLabel(1)).thenReturn("id");
+        when(resultSet.getObject(1)).thenReturn(1, 2);
+        
+        doAnswer(invocation -> {
+            RowCallbackHandler callbackHandler = invocation.getArgument(1);
+            callbackHandler.processRow(resultSet);
+            callbackHandler.processRow(resultSet);
+            return null;
+        }).when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+        
+        List<Object> ids = new ArrayList<>();
+        List<Integer> indexes = new ArrayList<>();
+        
+        // Act
+        int rowCount = sqlExecutionService.streamQuery(sql, (row, rowIndex) -> {
+            ids.add(row.get("id"));
+            indexes.add(rowIndex);
+        });
+        
+        // Assert
+        assertEquals(2, rowCount);
+        assertEquals(List.of(1, 2), ids);
+        assertEquals(List.of(0, 1), indexes);
+    }
+    
+    @Test
+    void testStreamSqlFile_WithPageKey_ShouldReadPagesAfterLastKey() {
+        // Arrange
+        String sql = "-- @sql-page-key: id\n-- @sql-page-size: 2\nSELECT id FROM users;";
+        SqlFile sqlFile = SqlFile.builder()
+                .fileName("GET_users.sql")
+                .content(sql)
+                .directives(SqlFileDirectives.parse(sql))
+                .build();
+        String firstPageSql = KeysetPagedQueryExecutor.buildKeysetPageQuery(sql, "id", 2, SqlDialect.MYSQL, true);
+        String nextPageSql = KeysetPagedQueryExecutor.buildKeysetPageQuery(sql, "id", 2, SqlDialect.MYSQL, false);
+        
+        when(jdbcTemplate.execute(any(ConnectionCallback.class))).thenReturn("MySQL");
+        when(jdbcTemplate.query(eq(firstPageSql), any(CompactRowMapper.class)))
+                .thenReturn(List.of(Map.of("id", 1), Map.of("id", 2)));
+        when(jdbcTemplate.query(eq(nextPageSql), any(CompactRowMapper.class), eq(2)))
+                .thenReturn(List.of(Map.of("id", 3)));
+        
+        List<Object> handledIds = new ArrayList<>();
+        List<Integer> handledIndexes = new ArrayList<>();
+        
+        // Act
+        int rowCount = sqlExecutionService.streamSqlFile(sqlFile, (row, rowIndex) -> {
+            handledIds.add(row.get("id"));
+            handledIndexes.add(rowIndex);
+        });
+        
+        // Assert
+        assertEquals(3, rowCount);
+        assertEquals(List.of(1, 2, 3), handledIds);
+        assertEquals(List.of(0, 1, 2), handledIndexes);
+        assertEquals("SELECT * FROM (\n-- @sql-page-key: id\n-- @sql-page-size: 2\nSELECT id FROM users\n) src"
+                + " WHERE src.id > ? ORDER BY src.id LIMIT 2", nextPageSql);
+    }
+    
+    @Test
+    void testBuildIncrementalQuery_ShouldFilterAndOrderOnWatermark() {
+        String sql = "SELECT id, updated_at FROM orders;";
+        
+        assertEquals("SELECT * FROM (\nSELECT id, updated_at FROM orders\n) src"
+                + " WHERE src.updated_at IS NOT NULL ORDER BY src.updated_at",
+                IncrementalQueryExecutor.buildIncrementalQuery(sql, "updated_at", false));
+        assertEquals("SELECT * FROM (\nSELECT id, updated_at FROM orders\n) src"
+                + " WHERE src.updated_at > ? ORDER BY src.updated_at",
+                IncrementalQueryExecutor.buildIncrementalQuery(sql, "updated_at", true));
+    }
+    
+    @Test
+    void testPrefetch_ShouldHandOverRowsReadInBackground() throws SQLException {
+        String sql = "-- @sql-prefetch: true\nSELECT id FROM product_groups";
+        SqlFile sqlFile = SqlFile.builder()
+                .fileName("POST_02_products.sql")
+                .content(sql)
+                .directives(SqlFileDirectives.parse(sql))
+                .build();
+        ReflectionTestUtils.setField(sqlExecutionService, "bufferMemoryThresholdBytes", 1024L * 1024);
+        ReflectionTestUtils.setField(sqlExecutionService, "bufferMaxSpillBytes", 16L * 1024 * 1024);
+        ReflectionTestUtils.setField(sqlExecutionService, "bufferSegmentSizeBytes", 1024 * 1024);
+        ReflectionTestUtils.setField(sqlExecutionService, "bufferSpillDirectory", System.getProperty("java.io.tmpdir"));
+        stubSuccessiveResults(List.of(1, 2, 3));
+        
+        assertTrue(sqlExecutionService.isPrefetchable(sqlFile));
+        sqlExecutionService.prefetch(sqlFile);
+        List<Object> handledIds = new ArrayList<>();
+        int rowCount = sqlExecutionService.streamSqlFile(sqlFile, (row, rowIndex) -> handledIds.add(row.get("id")));
+        
+        assertEquals(3, rowCount);
+        assertEquals(List.of(1, 2, 3), handledIds);
+        verify(jdbcTemplate, times(1)).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+    }
+    
+    @Test
+    void testPrefetch_ShouldPrepareFileInBackgroundBeforeQuery() throws SQLException {
+        String sql = "-- @sql-prefetch: true\nSELECT id FROM product_groups";
+        SqlFile sqlFile = SqlFile.builder()
+                .fileName("POST_02_products.sql")
+                .content(sql)
+                .directives(SqlFileDirectives.parse(sql))
+                .build();
+        ReflectionTestUtils.setField(sqlExecutionService, "bufferMemoryThresholdBytes", 1024L * 1024);
+        ReflectionTestUtils.setField(sqlExecutionService, "bufferMaxSpillBytes", 16L * 1024 * 1024);
+        ReflectionTestUtils.setField(sqlExecutionService, "bufferSegmentSizeBytes", 1024 * 1024);
+        ReflectionTestUtils.setField(sqlExecutionService, "bufferSpillDirectory", System.getProperty("java.io.tmpdir"));
+        stubSuccessiveResults(List.of(1, 2));
+        List<String> preparedThreads = new ArrayList<>();
+        
+        sqlExecutionService.prefetch(sqlFile, file -> {
+            preparedThreads.add(Thread.currentThread().getName());
+            return file;
+        });
+        assertTrue(sqlExecutionService.isPrefetched(sqlFile));
+        int rowCount = sqlExecutionService.streamSqlFile(sqlFile, (row, rowIndex) -> { });
+        
+        assertEquals(2, rowCount);
+        assertEquals(List.of("sql-prefetch"), preparedThreads);
+        assertFalse(sqlExecutionService.isPrefetched(sqlFile));
+    }
+    
+    @Test
+    void testStreamingFetchSize_ShouldStreamMySqlRowByRowWithoutCursorFetch() {
+        assertEquals(Integer.MIN_VALUE, SqlDialect.MYSQL.streamingFetchSize(1000, "jdbc:mysql://db:3306/app"));
+        assertEquals(1000, SqlDialect.MYSQL.streamingFetchSize(1000, "jdbc:mysql://db:3306/app?useCursorFetch=true"));
+        assertEquals(1000, SqlDialect.MYSQL.streamingFetchSize(1000, "jdbc:mariadb://db:3306/app"));
+        assertEquals(0, SqlDialect.MYSQL.streamingFetchSize(0, "jdbc:mysql://db:3306/app"));
+        assertEquals(1000, SqlDialect.POSTGRESQL.streamingFetchSize(1000, "jdbc:postgresql://db/app"));
+    }
+    
+    @Test
+    void testBuildOutboxClaimQuery_ShouldLockWithSkipLocked() {
+        String sql = "SELECT id, payload FROM outbox WHERE status = 'PENDING' ORDER BY id LIMIT 1000;";
+        OutboxTable outbox = OutboxTable.of(SqlFile.builder()
+                .fileName("POST_outbox.sql")
+                .directives(Map.of(SqlFileDirectives.OUTBOX_TABLE, "outbox"))
+                .build(), "status", null);
+        
+        assertEquals("SELECT * FROM (\nSELECT id, payload FROM outbox WHERE status = 'PENDING' ORDER BY id LIMIT 1000\n) src"
+                + " LIMIT 50 FOR UPDATE SKIP LOCKED",
+                OutboxQueryExecutor.buildOutboxClaimQuery(sql, 50, SqlDialect.POSTGRESQL, outbox));
+        assertEquals("SELECT id, payload FROM outbox WHERE status = 'PENDING' ORDER BY id LIMIT 1000\n"
+                + "FOR UPDATE SKIP LOCKED",
+                OutboxQueryExecutor.buildOutboxClaimQuery(sql, 50, SqlDialect.ORACLE, outbox));
+    }
+    
+    @Test
+    void testBuildOutboxClaimQuery_OnSqlServer_ShouldLockWithTableHints() {
+        String sql = "SELECT event_id, payload FROM dbo.outbox WHERE status = 'PENDING'";
+        OutboxTable outbox = OutboxTable.of(SqlFile.builder()
+                .fileName("POST_outbox.sql")
+                .directives(Map.of(SqlFileDirectives.OUTBOX_TABLE, "dbo.outbox", SqlFileDirectives.OUTBOX_KEY, "event_id"))
+                .build(), "status", null);
+        
+        assertEquals("SELECT TOP (50) * FROM (\nSELECT event_id, payload FROM dbo.outbox WHERE status = 'PENDING'\n) src"
+                + " WHERE EXISTS (SELECT 1 FROM dbo.outbox locked WITH (UPDLOCK, READPAST, ROWLOCK)"
+                + " WHERE locked.event_id = src.event_id) ORDER BY src.event_id",
+                OutboxQueryExecutor.buildOutboxClaimQuery(sql, 50, SqlDialect.SQLSERVER, outbox));
+    }
+    
+    @Test
+    void testStreamSqlFile_WithWatermarkDirective_ShouldBindStoredWatermark() throws SQLException {
+        String sql = "-- @sql-watermark-column: updated_at\nSELECT id, updated_at FROM orders";
+        SqlFile sqlFile = SqlFile.builder()
+                .fileName("GET_orders.sql")
+                .content(sql)
+                .directives(SqlFileDirectives.parse(sql))
+                .build();
+        when(watermarkStore.getWatermark("GET_orders.sql")).thenReturn(42L);
+        
+        Connection connection = mock(Connection.class);
+        PreparedStatement statement = mock(PreparedStatement.class);
+        when(connection.prepareStatement(any(String.class), any(Integer.class), any(Integer.class)))
+                .thenReturn(statement);
+        doAnswer(invocation -> {
+            PreparedStatementCreator creator = invocation.getArgument(0);
+            creator.createPreparedStatement(connection);
+            return null;
+        }).when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+        
+        sqlExecutionService.streamSqlFile(sqlFile, (row, rowIndex) -> { });
+        
+        verify(connection).prepareStatement(eq(IncrementalQueryExecutor.buildIncrementalQuery(sql, "updated_at", true)),
+                any(Integer.class), any(Integer.class));
+        verify(statement).setObject(1, 42L);
+    }
+    
+    @Test
+    void testStreamUntilEmpty_ShouldRequeryAndSkipRowsAlreadyHandled() throws SQLException {
+        // Arrange : trois exécutions successives renvoient [1, 2], [2, 3] puis aucune ligne
+        ReflectionTestUtils.setField(sqlExecutionService, "loopMaxIterations", 10);
+        SqlFile sqlFile = loopSqlFile();
+        stubSuccessiveResults(List.of(1, 2), List.of(2, 3), List.of());
+        
+        List<Object> ids = new ArrayList<>();
+        List<Integer> indexes = new ArrayList<>();
+        List<String> iterations = new ArrayList<>();
+        
+        // Act
+        int rowCount = sqlExecutionService.streamUntilEmpty(sqlFile,
+                (row, rowIndex) -> {
+                    ids.add(row.get("id"));
+                    indexes.add(rowIndex);
+                },
+                (iteration, drain) -> iterations.add(iteration + ":" + drain));
+        
+        // Assert
+        assertEquals(3, rowCount);
+        assertEquals(List.of(1, 2, 3), ids);
+        assertEquals(List.of(0, 1, 2), indexes);
+        assertEquals(List.of("1:false", "2:false"), iterations);
+    }
+    
+    @Test
+    void testStreamUntilEmpty_NoProgress_ShouldStopAfterDrain() throws SQLException {
+        // Arrange : la ligne 1 n'est jamais retirée de la table
+        ReflectionTestUtils.setField(sqlExecutionService, "loopMaxIterations", 10);
+        SqlFile sqlFile = loopSqlFile();
+        stubSuccessiveResults(List.of(1), List.of(1), List.of(1), List.of(1));
+        List<String> iterations = new ArrayList<>();
+        
+        // Act
+        int rowCount = sqlExecutionService.streamUntilEmpty(sqlFile,
+                (row, rowIndex) -> { }, (iteration, drain) -> iterations.add(iteration + ":" + drain));
+        
+        // Assert
+        assertEquals(1, rowCount);
+        assertEquals(List.of("1:false", "2:true"), iterations);
+        verify(jdbcTemplate, times(3)).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+    }
+    
+    @Test
+    void testStreamUntilEmpty_ShouldStopAtMaxIterations() throws SQLException {
+        ReflectionTestUtils.setField(sqlExecutionService, "loopMaxIterations", 2);
+        SqlFile sqlFile = loopSqlFile();
+        stubSuccessiveResults(List.of(1), List.of(2), List.of(3));
+        
+        int rowCount = sqlExecutionService.streamUntilEmpty(sqlFile,
+                (row, rowIndex) -> { }, (iteration, drain) -> { });
+        
+        assertEquals(2, rowCount);
+    }
+    
+    @Test
+    void testStreamUntilEmpty_ShouldRejectFileWithoutRowKey() {
+        String sql = "-- @sql-loop-until-empty: true\nSELECT id FROM outbox";
+        SqlFile sqlFile = SqlFile.builder()
+                .fileName("POST_outbox.sql")
+                .content(sql)
+                .directives(SqlFileDirectives.parse(sql))
+                .build();
+        
+        assertThrows(SqlExecutionException.class, () -> sqlExecutionService.streamUntilEmpty(sqlFile,
+                (row, rowIndex) -> { }, (iteration, drain) -> { }));
+        verify(jdbcTemplate, never()).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+    }
+    
+    @Test
+    void testStreamUntilEmpty_ShouldFailOnNullRowKey() throws SQLException {
+        ReflectionTestUtils.setField(sqlExecutionService, "loopMaxIterations", 10);
+        SqlFile sqlFile = loopSqlFile();
+        stubSuccessiveResults(Arrays.asList(1, null));
+        List<Object> ids = new ArrayList<>();
+        
+        assertThrows(SqlExecutionException.class, () -> sqlExecutionService.streamUntilEmpty(sqlFile,
+                (row, rowIndex) -> ids.add(row.get("id")), (iteration, drain) -> { }));
+        assertEquals(List.of(1), ids);
     }
     
     @Test
@@ -105,6 +429,39 @@ class SqlExecutionServiceTest {
         verify(jdbcTemplate).queryForObject(sql, Integer.class);
     }
     
+    private SqlFile loopSqlFile() {
+        String sql = "-- @sql-loop-until-empty: true\n-- @sql-row-key: id\nSELECT id FROM outbox";
+        SqlFile sqlFile = SqlFile.builder()
+                .fileName("POST_outbox.sql")
+                .content(sql)
+                .directives(SqlFileDirectives.parse(sql))
+                .build();
+        assertTrue(sqlExecutionService.isLoopUntilEmpty(sqlFile));
+        return sqlFile;
+    }
+    
+    /**
+     * Chaque exécution de la requête renvoie la liste d'identifiants suivante.
+     */
+    @SafeVarargs
+    private void stubSuccessiveResults(List<Integer>... results) throws SQLException {
+        ResultSet resultSet = mock(ResultSet.class);
+        ResultSetMetaData metaData = mock(ResultSetMetaData.class);
+        when(resultSet.getMetaData()).thenReturn(metaData);
+        when(metaData.getColumnCount()).thenReturn(1);
+        when(metaData.getColumnLabel(1)).thenReturn("id");
+        
+        int[] execution = {0};
+        doAnswer(invocation -> {
+            RowCallbackHandler callbackHandler = invocation.getArgument(1);
+            for (Integer id : results[execution[0]++]) {
+                when(resultSet.getObject(1)).thenReturn(id);
+                callbackHandler.processRow(resultSet);
+            }
+            return null;
+        }).when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+    }
+    
     private List<Map<String, Object>> createSampleResults() {
         List<Map<String, Object>> results = new ArrayList<>();
         
@@ -0,0 +1,99 @@
+package com.etljobs.sql2json2api.service.sql;
+
+import java.sql.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import org.springframework.mock.env.MockEnvironment;
+
+import com.etljobs.sql2json2api.exception.SqlExecutionException;
+import com.etljobs.sql2json2api.model.SqlFile;
+import com.etljobs.sql2json2api.service.incremental.WatermarkStore;
+
+class SqlParameterResolverTest {
+
+    private MockEnvironment environment;
+    private WatermarkStore watermarkStore;
+    private SqlParameterResolver resolver;
+
+    @BeforeEach
+    void setUp() {
+        environment = new MockEnvironment();
+        watermarkStore = mock(WatermarkStore.class);
+        resolver = new SqlParameterResolver(environment, watermarkStore);
+    }
+
+    @Test
+    void testParameterNames_ShouldIgnoreQuotesCommentsAndCasts() {
+        String sql = "-- filtre :ignored\n"
+                + "SELECT id, created_at::date FROM orders\n"
+                + "WHERE status = ':literal' AND created_at > :since AND entity_id = :entity_id OR parent_id = :entity_id";
+
+        assertEquals(List.of("since", "entity_id"), SqlParameterResolver.parameterNames(sql));
+        assertTrue(SqlParameterResolver.parameterNames("SELECT * FROM users").isEmpty());
+    }
+
+    @Test
+    void testResolve_ShouldPreferFileSpecificValueAndDecodeTypes() {
+        environment.setProperty("app.sql.params.since", "date:2024-01-01");
+        environment.setProperty("app.sql.params.entity_id", "1");
+        environment.setProperty("app.sql.params.GET_orders.entity_id", "long:42");
+        SqlFile sqlFile = sqlFile("SELECT * FROM orders WHERE created_at > :since AND entity_id = :entity_id");
+
+        ParameterizedSql query = resolver.resolve(sqlFile);
+
+        assertEquals("SELECT * FROM orders WHERE created_at > ? AND entity_id = ?", query.getSql());
+        assertArrayEquals(new Object[] {Date.valueOf("2024-01-01"), 42L}, query.getArgs());
+        assertArrayEquals(new Object[] {Date.valueOf("2024-01-01"), 42L, "x"}, query.argsWith("x"));
+    }
+
+    @Test
+    void testResolve_WatermarkParameter_ShouldUseStateStore() {
+        when(watermarkStore.getWatermark("GET_orders.sql")).thenReturn(99L);
+
+        ParameterizedSql query = resolver.resolve(sqlFile("SELECT * FROM orders WHERE id > :watermark"));
+
+        assertArrayEquals(new Object[] {99L}, query.getArgs());
+    }
+
+    @Test
+    void testResolve_MissingValue_ShouldThrow() {
+        SqlFile sqlFile = sqlFile("SELECT * FROM orders WHERE created_at > :since");
+
+        assertThrows(SqlExecutionException.class, () -> resolver.resolve(sqlFile));
+    }
+
+    @Test
+    void testResolve_WatermarkParameter_ShouldUseInitialValueOnFirstRun() {
+        environment.setProperty("app.sql.params.GET_orders.initial-watermark", "long:1000");
+
+        ParameterizedSql query = resolver.resolve(sqlFile("SELECT * FROM orders WHERE id > :watermark"));
+
+        assertArrayEquals(new Object[] {1000L}, query.getArgs());
+    }
+
+    @Test
+    void testResolve_InvalidTypedValue_ShouldNameParameter() {
+        environment.setProperty("app.sql.params.entity_id", "long:abc");
+        SqlFile sqlFile = sqlFile("SELECT * FROM orders WHERE entity_id = :entity_id");
+
+        SqlExecutionException exception = assertThrows(SqlExecutionException.class, () -> resolver.resolve(sqlFile));
+        assertTrue(exception.getMessage().contains("'entity_id'"));
+        assertTrue(exception.getMessage().contains("GET_orders.sql"));
+    }
+
+    private SqlFile sqlFile(String content) {
+        return SqlFile.builder()
+                .fileName("GET_orders.sql")
+                .content(content)
+                .parameterNames(SqlParameterResolver.parameterNames(content))
+                .build();
+    }
+}
@@ -0,0 +1,152 @@
+package com.etljobs.sql2json2api.service.sql.buffer;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.etljobs.sql2json2api.exception.SqlExecutionException;
+import com.etljobs.sql2json2api.service.sql.CompactRow;
+import com.etljobs.sql2json2api.service.sql.RowSchema;
+
+class SpillableRowBufferTest {
+
+    @TempDir
+    Path spillDirectory;
+
+    @Test
+    void testRows_ShouldComeBackInOrderAfterSpilling() throws Exception {
+        RowSchema schema = new RowSchema(List.of("id", "label"));
+        // Seuil très bas et segments minuscules pour forcer le débordement sur plusieurs fichiers
+        SpillableRowBuffer buffer = new SpillableRowBuffer(500, Long.MAX_VALUE, spillDirectory, 128);
+
+        for (int i = 0; i < 100; i++) {
+            buffer.put(new CompactRow(schema, new Object[] {i, "label-" + i}));
+        }
+        buffer.complete();
+
+        assertTrue(buffer.getSpilledRowCount() > 0);
+        List<Object> ids = new ArrayList<>();
+        Map<String, Object> row;
+        while ((row = buffer.take()) != null) {
+            ids.add(row.get("ID"));
+            assertEquals("label-" + row.get("id"), row.get("label"));
+        }
+        assertEquals(100, ids.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i, ids.get(i));
+        }
+
+        buffer.close();
+        try (Stream<Path> files = Files.list(spillDirectory)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void testConsumer_ShouldReadWhileProducerIsWriting() throws Exception {
+        SpillableRowBuffer buffer = new SpillableRowBuffer(200, 1024, spillDirectory, 256);
+        RowSchema schema = new RowSchema(List.of("id"));
+
+        Thread producer = new Thread(() -> {
+            try {
+                for (int i = 0; i < 1000; i++) {
+                    buffer.put(new CompactRow(schema, new Object[] {i}));
+                }
+                buffer.complete();
+            } catch (InterruptedException e) {
+                buffer.fail(e);
+            }
+        });
+        producer.start();
+
+        int expected = 0;
+        Map<String, Object> row;
+        while ((row = buffer.take()) != null) {
+            assertEquals(expected++, row.get("id"));
+        }
+        producer.join();
+        buffer.close();
+
+        assertEquals(1000, expected);
+    }
+
+    @Test
+    void testSpillFile_ShouldReleaseDiskSpaceOfReadSegments() throws Exception {
+        try (SpillFile spillFile = new SpillFile(spillDirectory, 64)) {
+            for (int i = 0; i < 10; i++) {
+                spillFile.append(new byte[28]);
+            }
+            assertEquals(320, spillFile.getDiskBytes());
+            try (Stream<Path> files = Files.list(spillDirectory)) {
+                assertEquals(5, files.count());
+            }
+
+            for (int i = 0; i < 4; i++) {
+                spillFile.poll();
+            }
+            // Les deux premiers segments, entièrement lus, sont supprimés
+            assertEquals(192, spillFile.getDiskBytes());
+            try (Stream<Path> files = Files.list(spillDirectory)) {
+                assertEquals(3, files.count());
+            }
+
+            while (spillFile.poll() != null) {
+                // Lecture du reste
+            }
+            // Le dernier segment est conservé mais tronqué
+            assertTrue(spillFile.isEmpty());
+            assertEquals(0, spillFile.getDiskBytes());
+            try (Stream<Path> files = Files.list(spillDirectory)) {
+                assertEquals(0, files.mapToLong(path -> path.toFile().length()).sum());
+            }
+        }
+        try (Stream<Path> files = Files.list(spillDirectory)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void testProducerFailure_ShouldBeRethrownToConsumer() {
+        SpillableRowBuffer buffer = new SpillableRowBuffer(1000, 1000, spillDirectory, 1024);
+        buffer.fail(new IllegalStateException("Connection lost"));
+
+        assertThrows(SqlExecutionException.class, buffer::take);
+        buffer.close();
+    }
+
+    @Test
+    void testCodec_ShouldRoundTripCommonTypes() {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("id", 42L);
+        row.put("name", "Élodie");
+        row.put("amount", new BigDecimal("-1234.5600"));
+        row.put("created", Timestamp.valueOf("2024-03-01 10:15:30.123456789"));
+        row.put("day", LocalDate.of(2024, 3, 1));
+        row.put("enabled", Boolean.TRUE);
+        row.put("missing", null);
+
+        RowCodec writer = new RowCodec();
+        RowCodec reader = new RowCodec();
+        Map<String, Object> decoded = null;
+        for (byte[] record : writer.encode(row)) {
+            decoded = reader.decode(record);
+        }
+
+        assertEquals(row, decoded);
+        // Le schéma n'est écrit qu'une seule fois
+        assertEquals(1, writer.encode(row).size());
+    }
+}
@@ -0,0 +1,113 @@
+package com.etljobs.sql2json2api.service.sql.snapshot;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.etljobs.sql2json2api.config.DatabaseConfig;
+import com.etljobs.sql2json2api.config.SqlConfig;
+import com.etljobs.sql2json2api.model.SqlFile;
+import com.etljobs.sql2json2api.service.sql.DataSourceRouter;
+import com.etljobs.sql2json2api.service.sql.SqlFileDirectives;
+
+class ResultSnapshotCacheTest {
+
+    private static final String SQL = "SELECT id, name FROM users";
+
+    @TempDir
+    Path snapshotDirectory;
+
+    private DatabaseConfig databaseConfig;
+    private DataSourceRouter dataSourceRouter;
+    private ResultSnapshotCache cache;
+
+    @BeforeEach
+    void setUp() {
+        databaseConfig = new DatabaseConfig();
+        databaseConfig.setUrl("jdbc:mysql://localhost/test");
+        databaseConfig.setUsername("user");
+        DatabaseConfig.Source replica = new DatabaseConfig.Source();
+        replica.setUrl("jdbc:mysql://replica/test");
+        replica.setUsername("user");
+        databaseConfig.getSources().put("replica", replica);
+        dataSourceRouter = new DataSourceRouter(new SqlConfig(), databaseConfig);
+
+        cache = new ResultSnapshotCache(dataSourceRouter);
+        ReflectionTestUtils.setField(cache, "enabled", true);
+        ReflectionTestUtils.setField(cache, "directory", snapshotDirectory.toString());
+        ReflectionTestUtils.setField(cache, "ttl", Duration.ofHours(1));
+    }
+
+    @Test
+    void testReplay_AfterCommit_ShouldReturnSameRows() {
+        String key = cache.keyFor(SQL);
+        try (ResultSnapshotCache.SnapshotWriter writer = cache.openWriter(key, "GET_users.sql")) {
+            writer.write(Map.of("id", 1));
+            writer.write(Map.of("id", 2));
+            writer.commit();
+        }
+
+        List<Object> ids = new ArrayList<>();
+        int rowCount = cache.replay(key, "GET_users.sql", (row, rowIndex) -> ids.add(row.get("id")));
+
+        assertEquals(2, rowCount);
+        assertEquals(List.of(1, 2), ids);
+    }
+
+    @Test
+    void testReplay_WithoutCommit_ShouldMissAndLeaveNoFile() throws Exception {
+        String key = cache.keyFor(SQL);
+        try (ResultSnapshotCache.SnapshotWriter writer = cache.openWriter(key, "GET_users.sql")) {
+            writer.write(Map.of("id", 1));
+        }
+
+        assertEquals(-1, cache.replay(key, "GET_users.sql", (row, rowIndex) -> { }));
+        try (Stream<Path> files = Files.list(snapshotDirectory)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void testReplay_ExpiredOrForcedRefresh_ShouldMiss() {
+        String key = cache.keyFor(SQL);
+        try (ResultSnapshotCache.SnapshotWriter writer = cache.openWriter(key, "GET_users.sql")) {
+            writer.write(Map.of("id", 1));
+            writer.commit();
+        }
+
+        ReflectionTestUtils.setField(cache, "forceRefresh", true);
+        assertEquals(-1, cache.replay(key, "GET_users.sql", (row, rowIndex) -> { }));
+
+        ReflectionTestUtils.setField(cache, "forceRefresh", false);
+        ReflectionTestUtils.setField(cache, "ttl", Duration.ofMillis(-1));
+        assertEquals(-1, cache.replay(key, "GET_users.sql", (row, rowIndex) -> { }));
+    }
+
+    @Test
+    void testKey_ShouldDependOnSqlAndDatasource() {
+        String key = cache.keyFor(SQL);
+
+        assertEquals(key, cache.keyFor(SQL));
+        assertNotEquals(key, cache.keyFor(SQL + " WHERE id > 1"));
+
+        SqlFile replicaFile = SqlFile.builder()
+                .fileName("GET_users.sql")
+                .directives(Map.of(SqlFileDirectives.DATASOURCE, "replica"))
+                .build();
+        assertNotEquals(key, dataSourceRouter.callOn(replicaFile, () -> cache.keyFor(SQL)));
+
+        databaseConfig.setUrl("jdbc:mysql://other/test");
+        assertNotEquals(key, cache.keyFor(SQL));
+    }
+}
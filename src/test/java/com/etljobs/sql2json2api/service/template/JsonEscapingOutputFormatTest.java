@@ -0,0 +1,39 @@
+package com.etljobs.sql2json2api.service.template;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class JsonEscapingOutputFormatTest {
+
+    private final JsonEscapingOutputFormat format = JsonEscapingOutputFormat.INSTANCE;
+
+    @Test
+    void output_ShouldEscapeQuotesBackslashesAndControlCharacters() throws IOException {
+        // Arrange
+        String value = "a\"b\\c\nd\te\u0001f/é€";
+        StringWriter writer = new StringWriter();
+
+        // Act
+        format.output(value, writer);
+
+        // Assert
+        assertEquals("a\\\"b\\\\c\\nd\\te\\u0001f/é€", writer.toString());
+        assertEquals(writer.toString(), format.escapePlainText(value));
+        assertEquals(value, new ObjectMapper().readValue("\"" + writer + "\"", String.class));
+    }
+
+    @Test
+    void escapePlainText_ShouldReturnSameInstance_WhenNothingToEscape() {
+        // Arrange
+        String value = "Zoé <b> & 'x'";
+
+        // Act & Assert
+        assertSame(value, format.escapePlainText(value));
+    }
+}
@@ -0,0 +1,125 @@
+package com.etljobs.sql2json2api.service.template;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+class RouteTemplateTest {
+
+    @Test
+    void render_ShouldReplaceSingleField() {
+        // Arrange
+        Map<String, Object> rowData = new HashMap<>();
+        rowData.put("id", 42);
+
+        // Act
+        String result = RouteTemplate.compile("/api/users/${result.id}").render(rowData);
+
+        // Assert
+        assertEquals("/api/users/42", result);
+    }
+
+    @Test
+    void render_ShouldReplaceMultipleFields() {
+        // Arrange
+        Map<String, Object> rowData = new HashMap<>();
+        rowData.put("id", 42);
+        rowData.put("type", "admin");
+
+        // Act
+        String result = RouteTemplate.compile("/api/users/${result.id}/profile/${result.type}").render(rowData);
+
+        // Assert
+        assertEquals("/api/users/42/profile/admin", result);
+    }
+
+    @Test
+    void render_ShouldHandleMissingValue() {
+        // Arrange
+        Map<String, Object> rowData = new HashMap<>();
+        rowData.put("id", 42);
+        // 'missing' key n'existe pas
+
+        // Act
+        String result = RouteTemplate.compile("/api/users/${result.id}/${result.missing}").render(rowData);
+
+        // Assert
+        assertEquals("/api/users/42/", result);
+    }
+
+    @Test
+    void render_ShouldHandleNullRoute() {
+        assertEquals("", RouteTemplate.compile(null).render(new HashMap<>()));
+    }
+
+    @Test
+    void render_ShouldReturnRouteWithoutFieldsAsIs() {
+        // Arrange
+        RouteTemplate route = RouteTemplate.compile("/api/users/all");
+
+        // Act & Assert
+        assertFalse(route.hasFields());
+        assertSame(route.render(new HashMap<>()), route.render(Map.of("id", 1)));
+        assertEquals("/api/users/all", route.render(new HashMap<>()));
+    }
+
+    @Test
+    void render_ShouldEncodeValuesAsPathSegmentOrQueryParam() {
+        // Arrange
+        Map<String, Object> rowData = new HashMap<>();
+        rowData.put("code", "A/B C");
+        rowData.put("name", "R&D=1+1 é");
+        RouteTemplate route = RouteTemplate.compile(
+                "https://api.example.com/orders/${result.code}/items?name=${result.name}&x=1");
+
+        // Act
+        String result = route.render(rowData);
+
+        // Assert
+        assertTrue(route.hasFields());
+        assertEquals("https://api.example.com/orders/A%2FB%20C/items?name=R%26D%3D1+1%20%C3%A9&x=1", result);
+    }
+
+    @Test
+    void render_ShouldEncodeLiteralsOnceAtCompilation() {
+        // Arrange
+        Map<String, Object> rowData = Map.of("id", 7);
+
+        // Act
+        String result = RouteTemplate.compile("/api/équipes/${result.id}?filtre=a b").render(rowData);
+
+        // Assert
+        assertEquals("/api/%C3%A9quipes/7?filtre=a%20b", result);
+    }
+
+    @Test
+    void compile_ShouldKeepUnknownExpressionsAsLiterals() {
+        // Arrange
+        Map<String, Object> rowData = Map.of("id", 7);
+
+        // Act
+        String result = RouteTemplate.compile("/api/${result.a-b}/${result.id}").render(rowData);
+
+        // Assert
+        assertEquals("/api/$%7Bresult.a-b%7D/7", result);
+    }
+
+    @Test
+    void render_ShouldKeepUrlGivenByLeadingField() {
+        // Arrange
+        Map<String, Object> rowData = new HashMap<>();
+        rowData.put("url", "https://api.example.com/files/a b?version=2&path=%2Ftmp");
+        rowData.put("base", "/v1");
+        rowData.put("id", "A/B");
+
+        // Act & Assert
+        assertEquals("https://api.example.com/files/a%20b?version=2&path=%2Ftmp",
+                RouteTemplate.compile("${result.url}").render(rowData));
+        assertEquals("/v1/items/A%2FB", RouteTemplate.compile("${result.base}/items/${result.id}").render(rowData));
+    }
+}
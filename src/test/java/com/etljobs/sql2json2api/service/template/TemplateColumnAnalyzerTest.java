@@ -0,0 +1,37 @@
+package com.etljobs.sql2json2api.service.template;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class TemplateColumnAnalyzerTest {
+
+    private TemplateColumnAnalyzer analyzer;
+
+    @BeforeEach
+    void setUp() {
+        analyzer = new TemplateColumnAnalyzer();
+    }
+
+    @Test
+    void referencedColumns_ShouldIncludeRouteAndBodyColumns() {
+        String template = "<#--\n  @api-route: /api/users/${result.id}\n-->\n"
+                + "{\"result\": {\"name\": \"${result.username}\", \"email\": \"${result[\"email\"]!\"\"}\","
+                + " \"date\": \"${result.created_at?string[\"yyyy-MM-dd\"]}\"<#if result.active??>, \"active\": true</#if>}}";
+
+        Set<String> columns = analyzer.referencedColumns(template);
+
+        assertEquals(List.of("id", "username", "email", "created_at", "active"), List.copyOf(columns));
+    }
+
+    @Test
+    void referencedColumns_DynamicUsage_ShouldReturnNull() {
+        assertNull(analyzer.referencedColumns("<#list result as key, value>${key}=${value}</#list>"));
+        assertNull(analyzer.referencedColumns("${result?keys?size}"));
+        assertNull(analyzer.referencedColumns("<#assign name = \"id\">${result[name]}"));
+    }
+}
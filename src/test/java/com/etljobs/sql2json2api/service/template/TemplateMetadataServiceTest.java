@@ -96,4 +96,20 @@ class TemplateMetadataServiceTest {
         assertEquals(25, result.getUrlParams().get("count"));
         assertNotNull(result.getUrlParams().get("nested"));
     }
-}
\ No newline at end of file
+    
+    @Test
+    void extractMetadataFromTemplate_ShouldExtractWriteback_WhenPresent() {
+        // Arrange
+        String templateContent = "<#--\n" +
+                "  @api-route: /api/product-groups\n" +
+                "  @api-method: POST\n" +
+                "  @api-writeback: UPDATE product_groups SET uuid = :$.uuid WHERE id = :result.id\n" +
+                "-->";
+        
+        // Act
+        ApiEndpointInfo result = metadataService.extractMetadataFromTemplate(templateContent);
+        
+        // Assert
+        assertEquals("UPDATE product_groups SET uuid = :$.uuid WHERE id = :result.id", result.getWriteback());
+    }
+}
@@ -2,6 +2,7 @@ package com.etljobs.sql2json2api.service.template;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.function.Function;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
@@ -11,10 +12,9 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyMap;
-import static org.mockito.ArgumentMatchers.anyString;
-import static org.mockito.ArgumentMatchers.eq;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -23,6 +23,11 @@ import org.springframework.http.HttpMethod;
 import com.etljobs.sql2json2api.exception.TemplateProcessingException;
 import com.etljobs.sql2json2api.model.ApiEndpointInfo;
 import com.etljobs.sql2json2api.model.ApiTemplateResult;
+import com.etljobs.sql2json2api.model.SqlFile;
+import com.etljobs.sql2json2api.service.lookup.LookupTableService;
+import com.etljobs.sql2json2api.service.sql.SqlFileDirectives;
+
+import freemarker.template.Configuration;
 
 @ExtendWith(MockitoExtension.class)
 class TemplateProcessingServiceTest {
@@ -37,9 +42,11 @@ class TemplateProcessingServiceTest {
     private TemplateMetadataService metadataService;
     
     @Mock
-    private PlaceholderProcessor placeholderProcessor;
+    private LookupTableService lookupTableService;
+    
+    @Mock
+    private Configuration freemarkerConfig;
     
-    @InjectMocks
     private TemplateProcessingService templateProcessingService;
     
     private static final String TEMPLATE_NAME = "test.ftlh";
@@ -50,6 +57,10 @@ class TemplateProcessingServiceTest {
     void setUp() {
         // Configuration des mocks communs
         when(templateLoader.loadTemplateContent(TEMPLATE_NAME)).thenReturn(TEMPLATE_CONTENT);
+        
+        TemplateCompiler templateCompiler = new TemplateCompiler(templateLoader, metadataService, freemarkerConfig);
+        templateProcessingService = new TemplateProcessingService(
+                templateCompiler, templateRenderer, lookupTableService);
     }
     
     @Test
@@ -64,9 +75,7 @@ class TemplateProcessingServiceTest {
         endpointInfo.setMethod(HttpMethod.GET);
         
         when(metadataService.extractMetadataFromTemplate(TEMPLATE_CONTENT)).thenReturn(endpointInfo);
-        when(placeholderProcessor.processPlaceholders("/api/users/${result.id}", rowData))
-            .thenReturn("/api/users/123");
-        when(templateRenderer.renderTemplate(eq(TEMPLATE_NAME), anyMap())).thenReturn(JSON_RESULT);
+        when(templateRenderer.renderTemplate(any(CompiledTemplate.class), anyMap())).thenReturn(JSON_RESULT);
         
         // Act
         ApiTemplateResult result = templateProcessingService.processTemplate(TEMPLATE_NAME, rowData);
@@ -80,8 +89,7 @@ class TemplateProcessingServiceTest {
         // Verify interactions
         verify(templateLoader).loadTemplateContent(TEMPLATE_NAME);
         verify(metadataService).extractMetadataFromTemplate(TEMPLATE_CONTENT);
-        verify(placeholderProcessor).processPlaceholders("/api/users/${result.id}", rowData);
-        verify(templateRenderer).renderTemplate(eq(TEMPLATE_NAME), anyMap());
+        verify(templateRenderer).renderTemplate(any(CompiledTemplate.class), anyMap());
     }
     
     @Test
@@ -123,8 +131,7 @@ class TemplateProcessingServiceTest {
         endpointInfo.setMethod(HttpMethod.GET);
         
         when(metadataService.extractMetadataFromTemplate(TEMPLATE_CONTENT)).thenReturn(endpointInfo);
-        when(placeholderProcessor.processPlaceholders(anyString(), any())).thenReturn("/api/users/123");
-        when(templateRenderer.renderTemplate(eq(TEMPLATE_NAME), anyMap()))
+        when(templateRenderer.renderTemplate(any(CompiledTemplate.class), anyMap()))
             .thenThrow(new TemplateProcessingException("Template rendering failed"));
         
         // Act & Assert
@@ -132,4 +139,90 @@ class TemplateProcessingServiceTest {
             templateProcessingService.processTemplate(TEMPLATE_NAME, rowData);
         });
     }
-}
\ No newline at end of file
+    
+    @Test
+    void processTemplate_ShouldPrepareTemplateOnlyOnce() throws Exception {
+        // Arrange
+        ApiEndpointInfo endpointInfo = new ApiEndpointInfo();
+        endpointInfo.setRoute("/api/users/${result.id}");
+        endpointInfo.setMethod(HttpMethod.PUT);
+        
+        when(metadataService.extractMetadataFromTemplate(TEMPLATE_CONTENT)).thenReturn(endpointInfo);
+        when(templateRenderer.renderTemplate(any(CompiledTemplate.class), anyMap())).thenReturn(JSON_RESULT);
+        
+        // Act
+        ApiTemplateResult first = templateProcessingService.processTemplate(TEMPLATE_NAME, Map.of("id", 1));
+        ApiTemplateResult second = templateProcessingService.processTemplate(TEMPLATE_NAME, Map.of("id", 2));
+        
+        // Assert
+        assertEquals("/api/users/1", first.getEndpointInfo().getRoute());
+        assertEquals("/api/users/2", second.getEndpointInfo().getRoute());
+        assertEquals(HttpMethod.PUT, second.getEndpointInfo().getMethod());
+        
+        verify(templateLoader, times(1)).loadTemplateContent(TEMPLATE_NAME);
+        verify(metadataService, times(1)).extractMetadataFromTemplate(TEMPLATE_CONTENT);
+        verify(freemarkerConfig, times(1)).getTemplate(TEMPLATE_NAME);
+        verify(templateRenderer, times(2)).renderTemplate(any(CompiledTemplate.class), anyMap());
+    }
+    
+    @Test
+    void processorFor_ShouldSendDatabasePayloadWithoutRendering() {
+        // Arrange
+        String sql = "-- @sql-payload-column: payload\nSELECT id, json_build_object('id', id) AS payload FROM users";
+        SqlFile sqlFile = SqlFile.builder()
+                .fileName("GET_users.sql")
+                .templateName(TEMPLATE_NAME)
+                .content(sql)
+                .directives(SqlFileDirectives.parse(sql))
+                .build();
+        
+        ApiEndpointInfo header = new ApiEndpointInfo();
+        header.setRoute("/api/users/${result.id}");
+        header.setMethod(HttpMethod.POST);
+        when(metadataService.extractMetadataFromTemplate(TEMPLATE_CONTENT)).thenReturn(header);
+        
+        Map<String, Object> firstRow = new HashMap<>();
+        firstRow.put("id", 1);
+        firstRow.put("payload", "{\"id\":1}");
+        Map<String, Object> secondRow = new HashMap<>();
+        secondRow.put("id", 2);
+        secondRow.put("payload", "{\"id\":2}");
+        
+        // Act
+        Function<Map<String, Object>, ApiTemplateResult> processor = templateProcessingService.processorFor(sqlFile);
+        ApiTemplateResult first = processor.apply(firstRow);
+        ApiTemplateResult second = processor.apply(secondRow);
+        
+        // Assert
+        assertEquals("{\"id\":1}", first.getJsonPayload());
+        assertEquals("/api/users/1", first.getEndpointInfo().getRoute());
+        assertEquals(HttpMethod.POST, first.getEndpointInfo().getMethod());
+        assertEquals("{\"id\":2}", second.getJsonPayload());
+        assertEquals("/api/users/2", second.getEndpointInfo().getRoute());
+        
+        verify(metadataService, times(1)).extractMetadataFromTemplate(TEMPLATE_CONTENT);
+        verify(templateRenderer, never()).renderTemplate(any(CompiledTemplate.class), anyMap());
+    }
+    
+    @Test
+    void processorFor_ShouldRejectNullDatabasePayload() {
+        // Arrange
+        String sql = "-- @sql-payload-column: payload\nSELECT id, NULL AS payload FROM users";
+        SqlFile sqlFile = SqlFile.builder()
+                .fileName("GET_users.sql")
+                .templateName(TEMPLATE_NAME)
+                .content(sql)
+                .directives(SqlFileDirectives.parse(sql))
+                .build();
+        ApiEndpointInfo header = new ApiEndpointInfo();
+        header.setRoute("/api/users");
+        header.setMethod(HttpMethod.POST);
+        when(metadataService.extractMetadataFromTemplate(TEMPLATE_CONTENT)).thenReturn(header);
+        Map<String, Object> rowData = new HashMap<>();
+        rowData.put("id", 1);
+        
+        // Act & Assert
+        Function<Map<String, Object>, ApiTemplateResult> processor = templateProcessingService.processorFor(sqlFile);
+        assertThrows(TemplateProcessingException.class, () -> processor.apply(rowData));
+    }
+}
@@ -0,0 +1,192 @@
+package com.etljobs.sql2json2api.service.template.json;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TimeZone;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.etljobs.sql2json2api.service.template.JsonEscapingOutputFormat;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import freemarker.cache.ConditionalTemplateConfigurationFactory;
+import freemarker.cache.FileExtensionMatcher;
+import freemarker.cache.StringTemplateLoader;
+import freemarker.core.TemplateConfiguration;
+import freemarker.template.Configuration;
+import freemarker.template.Template;
+import freemarker.template.TemplateException;
+
+class JsonTemplateCompilerTest {
+
+    private static final String DISCOUNT_TEMPLATE = """
+            <#--
+              @api-route: /discounts
+              @api-method: POST
+              @api-headers: {"Content-Type": "application/json"}
+            -->
+            {
+                "default_label": "${result.default_label}",
+                "reference": "REF-${result.reference}",
+                "value": "${result.value?c}",
+                "quantity": ${result.quantity},
+                "basket_impacted": ${result.basket_impacted},
+                "email": "${result.email!""}",
+                "auto": true,
+                "weekdays": null,
+                "ratio": 0.5,
+                "condition_time": {
+                    "date_start": "${result.date_start?string('yyyy-MM-dd')}",
+                    "date_end": "${result.date_end?string["yyyy-MM-dd"]}"
+                },
+                "product_groups": [
+                    {
+                        "uuid": <#if result.product_group_uuid??>
+                                    "${result.product_group_uuid}"
+                                <#elseif result.product_group_id?has_content>
+                                    ${result.product_group_id?c}
+                                <#else>
+                                    null
+                                </#if>
+                    }
+                ]
+            }
+            """;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private Configuration configuration;
+    private JsonTemplateCompiler compiler;
+
+    @BeforeEach
+    void setUp() {
+        configuration = new Configuration(Configuration.VERSION_2_3_32);
+        configuration.setLocale(Locale.US);
+        configuration.setTimeZone(TimeZone.getTimeZone("UTC"));
+        configuration.setRegisteredCustomOutputFormats(List.of(JsonEscapingOutputFormat.INSTANCE));
+        TemplateConfiguration jsonTemplateConfiguration = new TemplateConfiguration();
+        jsonTemplateConfiguration.setOutputFormat(JsonEscapingOutputFormat.INSTANCE);
+        configuration.setTemplateConfigurations(new ConditionalTemplateConfigurationFactory(
+                new FileExtensionMatcher(JsonEscapingOutputFormat.TEMPLATE_EXTENSION), jsonTemplateConfiguration));
+        compiler = new JsonTemplateCompiler(configuration);
+    }
+
+    @Test
+    void compile_ShouldRenderSameJsonAsFreemarker() throws Exception {
+        // Arrange
+        Map<String, Object> row = discountRow();
+        row.put("product_group_uuid", "5f0c");
+        Map<String, Object> rowWithoutUuid = discountRow();
+        rowWithoutUuid.put("product_group_id", 42);
+        Map<String, Object> rowWithoutGroup = discountRow();
+        rowWithoutGroup.put("email", null);
+        rowWithoutGroup.put("value", new BigDecimal("12.50"));
+
+        JsonTemplate jsonTemplate = compiler.compile("POST_discounts.ftlj", DISCOUNT_TEMPLATE).orElseThrow();
+
+        // Act & Assert
+        for (Map<String, Object> rowData : List.of(row, rowWithoutUuid, rowWithoutGroup)) {
+            assertEquals(objectMapper.readTree(renderWithFreemarker(DISCOUNT_TEMPLATE, rowData)),
+                    objectMapper.readTree(render(jsonTemplate, rowData)));
+        }
+    }
+
+    @Test
+    void compile_ShouldRenderDecimalsLikeFreemarker() throws Exception {
+        // Arrange : types renvoyés par JDBC pour DECIMAL, DOUBLE et REAL
+        String source = "{\"value\": \"${result.value?c}\", \"number\": ${result.value?c}}";
+        JsonTemplate jsonTemplate = compiler.compile("t.ftlj", source).orElseThrow();
+        List<Object> values = List.of(new BigDecimal("12.50"), new BigDecimal("15.00"), new BigDecimal("0.00"),
+                new BigDecimal("-1234567.125"), new BigDecimal("1E+3"), 12.5, 15.0, -0.75, 0.1 + 0.2, 2.5f);
+
+        // Act & Assert
+        for (Object value : values) {
+            Map<String, Object> rowData = Map.of("value", value);
+            assertEquals(renderWithFreemarker(source, rowData), render(jsonTemplate, rowData), "?c sur " + value);
+        }
+    }
+
+    @Test
+    void compile_ShouldEscapeStringsAsJson() throws Exception {
+        // Arrange
+        JsonTemplate jsonTemplate = compiler.compile("t.ftlj", "{\"name\": \"${result.name}\"}").orElseThrow();
+
+        // Act
+        String json = render(jsonTemplate, Map.of("name", "Zoé \"Z\" \\ ligne\nsuivante"));
+
+        // Assert
+        assertEquals("{\"name\":\"Zoé \\\"Z\\\" \\\\ ligne\\nsuivante\"}", json);
+        assertEquals("Zoé \"Z\" \\ ligne\nsuivante", objectMapper.readTree(json).get("name").asText());
+    }
+
+    @Test
+    void compile_ShouldReturnEmpty_WhenTemplateIsOutsideSupportedSubset() {
+        assertTrue(compiler.compile("t.ftlj", "[<#list result.items as item>${item}</#list>]").isEmpty());
+        assertTrue(compiler.compile("t.ftlj", "{\"name\": \"${lookup.name}\"}").isEmpty());
+        assertTrue(compiler.compile("t.ftlj", "{\"name\": \"${result.name?upper_case}\"}").isEmpty());
+        assertTrue(compiler.compile("t.ftlj", "{\"id\": <#if result.id??>${result.id}</#if>}").isEmpty());
+        assertTrue(compiler.compile("t.ftlj", "{\"id\": \"<#if result.id??>x</#if>\"}").isEmpty());
+        assertTrue(compiler.compile("t.ftlj", "<#-- @api-route: /x -->").isEmpty());
+        assertTrue(compiler.compile("t.ftlj", "{\"id\": 1} trailing").isEmpty());
+    }
+
+    @Test
+    void render_ShouldThrowNotRenderable_WhenValueCannotBeRenderedLikeFreemarker() {
+        // Arrange
+        Optional<JsonTemplate> missing = compiler.compile("t.ftlj", "{\"name\": \"${result.name}\"}");
+        Optional<JsonTemplate> price = compiler.compile("t.ftlj", "{\"price\": ${result.price?c}}");
+        Map<String, Object> row = new HashMap<>();
+        row.put("name", null);
+
+        // Act & Assert
+        assertThrows(JsonTemplate.NotRenderableException.class, () -> render(missing.orElseThrow(), row));
+        // Notation exponentielle et valeurs spéciales : laissées à FreeMarker
+        for (Object value : List.of(new BigDecimal("0.0000001"), 1E20, Double.NaN, Double.POSITIVE_INFINITY)) {
+            assertThrows(JsonTemplate.NotRenderableException.class,
+                    () -> render(price.orElseThrow(), Map.of("price", value)), "?c sur " + value);
+        }
+    }
+
+    private static Map<String, Object> discountRow() {
+        Map<String, Object> row = new HashMap<>();
+        row.put("default_label", "Remise printemps");
+        row.put("reference", "A12");
+        row.put("value", new BigDecimal("15.00"));
+        row.put("quantity", 12);
+        row.put("basket_impacted", "true");
+        row.put("email", "contact@example.com");
+        row.put("date_start", Date.valueOf("2025-03-01"));
+        row.put("date_end", Date.valueOf("2025-03-31"));
+        return row;
+    }
+
+    private static String render(JsonTemplate jsonTemplate, Map<String, Object> rowData) throws IOException {
+        StringWriter writer = new StringWriter();
+        jsonTemplate.render(rowData, writer);
+        return writer.toString();
+    }
+
+    private String renderWithFreemarker(String content, Map<String, Object> rowData)
+            throws IOException, TemplateException {
+        // Chargé comme en production, pour que le format de sortie des .ftlj s'applique
+        StringTemplateLoader templateLoader = new StringTemplateLoader();
+        templateLoader.putTemplate("POST_discounts.ftlj", content);
+        configuration.setTemplateLoader(templateLoader);
+        configuration.clearTemplateCache();
+        Template template = configuration.getTemplate("POST_discounts.ftlj");
+        StringWriter writer = new StringWriter();
+        template.process(Map.of("result", rowData), writer);
+        return writer.toString();
+    }
+}
@@ -0,0 +1,156 @@
+package com.etljobs.sql2json2api.service.writeback;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.etljobs.sql2json2api.exception.TemplateProcessingException;
+import com.etljobs.sql2json2api.model.ApiEndpointInfo;
+import com.etljobs.sql2json2api.model.SqlFile;
+import com.etljobs.sql2json2api.service.orchestration.RowOutcome;
+import com.etljobs.sql2json2api.service.template.TemplateCompiler;
+import com.etljobs.sql2json2api.service.template.TemplateLoader;
+import com.etljobs.sql2json2api.service.template.TemplateMetadataService;
+
+import freemarker.template.Configuration;
+
+class WritebackServiceTest {
+
+    private static final String WRITEBACK =
+            "UPDATE product_groups SET uuid = :$.uuid, code = :$.data.code WHERE id = :result.id";
+
+    private JdbcTemplate jdbcTemplate;
+    private WritebackService service;
+    private SqlFile sqlFile;
+    private final List<List<Object[]>> batches = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        TemplateLoader templateLoader = mock(TemplateLoader.class);
+        TemplateMetadataService metadataService = mock(TemplateMetadataService.class);
+        when(templateLoader.loadTemplateContent("POST_01_product_groups.ftlh")).thenReturn("template");
+        when(metadataService.extractMetadataFromTemplate("template"))
+                .thenReturn(ApiEndpointInfo.builder().writeback(WRITEBACK).build());
+        doAnswer(invocation -> {
+            batches.add(new ArrayList<>(invocation.getArgument(1)));
+            return new int[0];
+        }).when(jdbcTemplate).batchUpdate(anyString(), anyList());
+
+        service = new WritebackService(jdbcTemplate,
+                new TemplateCompiler(templateLoader, metadataService, mock(Configuration.class)));
+        ReflectionTestUtils.setField(service, "batchSize", 2);
+        sqlFile = SqlFile.builder()
+                .fileName("POST_01_product_groups.sql")
+                .templateName("POST_01_product_groups.ftlh")
+                .build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.destroy();
+    }
+
+    @Test
+    void testSuccessfulRows_ShouldBeWrittenInBatchesBeforeFileEnd() {
+        service.fileStarted(sqlFile);
+        service.rowCompleted(outcome(0, true, "{\"uuid\": \"u-1\", \"data\": {\"code\": 7}}"));
+        service.rowCompleted(outcome(1, false, "{\"error\": \"conflict\"}"));
+        service.rowCompleted(outcome(2, true, "{\"uuid\": \"u-3\", \"data\": {\"code\": 9}}"));
+        service.rowCompleted(outcome(3, true, "{\"uuid\": \"u-4\", \"data\": {\"code\": null}}"));
+        service.fileCompleted(sqlFile, 4, false);
+
+        assertEquals(2, batches.size());
+        assertEquals(2, batches.get(0).size());
+        assertArrayEquals(new Object[] {"u-1", 7, 0L}, batches.get(0).get(0));
+        assertArrayEquals(new Object[] {"u-3", 9, 2L}, batches.get(0).get(1));
+        assertArrayEquals(new Object[] {"u-4", null, 3L}, batches.get(1).get(0));
+        verify(jdbcTemplate, never()).batchUpdate(eq(WRITEBACK), anyList());
+    }
+
+    @Test
+    void testFullQueue_ShouldWriteBatchOnCallingThread() throws InterruptedException {
+        ReflectionTestUtils.setField(service, "batchSize", 1);
+        ReflectionTestUtils.setField(service, "queueCapacity", 1);
+        CountDownLatch writerBlocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> writingThreads = new CopyOnWriteArrayList<>();
+        doAnswer(invocation -> {
+            writingThreads.add(Thread.currentThread().getName());
+            if (writingThreads.size() == 1) {
+                writerBlocked.countDown();
+                release.await(5, TimeUnit.SECONDS);
+            }
+            return new int[0];
+        }).when(jdbcTemplate).batchUpdate(anyString(), anyList());
+
+        service.fileStarted(sqlFile);
+        service.rowCompleted(outcome(0, true, "{\"uuid\": \"u-1\", \"data\": {\"code\": 1}}"));
+        assertTrue(writerBlocked.await(5, TimeUnit.SECONDS));
+        service.rowCompleted(outcome(1, true, "{\"uuid\": \"u-2\", \"data\": {\"code\": 2}}"));
+        // Le thread d'écriture est occupé et la file est pleine : le lot est écrit par l'appelant
+        service.rowCompleted(outcome(2, true, "{\"uuid\": \"u-3\", \"data\": {\"code\": 3}}"));
+        assertEquals(List.of("api-writeback", Thread.currentThread().getName()), writingThreads);
+
+        release.countDown();
+        service.fileCompleted(sqlFile, 3, false);
+        assertEquals(3, writingThreads.size());
+    }
+
+    @Test
+    void testMissingResponseValue_ShouldSkipRow() {
+        service.fileStarted(sqlFile);
+        service.rowCompleted(outcome(0, true, "{\"id\": 1}"));
+        service.rowCompleted(outcome(1, true, "not json"));
+        service.fileCompleted(sqlFile, 2, false);
+
+        assertTrue(batches.isEmpty());
+    }
+
+    @Test
+    void testStatement_ShouldUsePlaceholdersInDeclarationOrder() {
+        WritebackStatement statement = WritebackStatement.parse(WRITEBACK);
+
+        assertEquals("UPDATE product_groups SET uuid = ?, code = ? WHERE id = ?", statement.getSql());
+        assertEquals(List.of("$.uuid", "$.data.code", "result.id"), statement.getParameterNames());
+    }
+
+    @Test
+    void testStatement_ShouldRejectUnknownParameter() {
+        assertThrows(TemplateProcessingException.class,
+                () -> WritebackStatement.parse("UPDATE t SET uuid = :uuid WHERE id = :result.id"));
+    }
+
+    private RowOutcome outcome(int rowIndex, boolean success, String responseBody) {
+        return RowOutcome.builder()
+                .sqlFile(sqlFile)
+                .row(Map.of("id", (long) rowIndex))
+                .rowIndex(rowIndex)
+                .rowIdentifier("id=" + rowIndex)
+                .success(success)
+                .statusCode(success ? 201 : 409)
+                .responseBody(responseBody)
+                .build();
+    }
+}